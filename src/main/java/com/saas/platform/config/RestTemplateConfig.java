@@ -18,7 +18,7 @@ public class RestTemplateConfig {
     
     
      // Create RestTemplate bean with proper timeouts
-     // Used by WebhookService for HTTP requests
+     // General-purpose client; webhooks use WebhookHttpClientConfig instead
      
     @Bean
     public RestTemplate restTemplate(RestTemplateBuilder builder) {
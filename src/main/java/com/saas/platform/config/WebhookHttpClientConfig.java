@@ -0,0 +1,50 @@
+package com.saas.platform.config;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+//  WebhookHttpClientConfig - Shared async HTTP client for outbound webhooks
+//  java.net.http.HttpClient keeps a keep-alive connection pool per host and
+//  multiplexes requests over HTTP/2 where the receiver supports it (HTTP/1.1
+//  otherwise). Responses complete on a small private thread pool, so
+//  in-flight deliveries do not hold a thread each.
+
+@Configuration
+public class WebhookHttpClientConfig {
+    
+    private final ExecutorService httpExecutor;
+    
+    public WebhookHttpClientConfig(@Value("${app.webhook.http.threads:4}") int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        // Not exposed as a bean, so Boot's own task executor is left in place
+        this.httpExecutor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "webhook-http-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @Bean
+    public HttpClient webhookHttpClient(@Value("${app.webhook.http.connect-timeout-ms:5000}") long connectTimeoutMs) {
+        return HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .executor(httpExecutor)
+            .build();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        httpExecutor.shutdownNow();
+    }
+}
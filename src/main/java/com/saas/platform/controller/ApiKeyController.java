@@ -4,7 +4,9 @@ package com.saas.platform.controller;
 import com.saas.platform.dto.ApiKeyCreateRequest;
 import com.saas.platform.dto.ApiKeyResponse;
 import com.saas.platform.model.ApiKey;
+import com.saas.platform.security.RoleValidator;
 import com.saas.platform.service.ApiKeyService;
+import com.saas.platform.service.ApiKeyUsageTracker;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -19,9 +21,11 @@ import java.util.stream.Collectors;
 public class ApiKeyController {
     
     private final ApiKeyService apiKeyService;
+    private final RoleValidator roleValidator;
     
-    public ApiKeyController(ApiKeyService apiKeyService) {
+    public ApiKeyController(ApiKeyService apiKeyService, RoleValidator roleValidator) {
         this.apiKeyService = apiKeyService;
+        this.roleValidator = roleValidator;
     }
     
     // VIEWER CAN VIEW API KEYS (but not modify)
@@ -50,6 +54,7 @@ public class ApiKeyController {
             request.getUserId(),
             request.getName(),
             request.getScopes(),
+            request.getAllowedIps(),
             request.getExpiresInDays()
         );
         
@@ -80,18 +85,32 @@ public class ApiKeyController {
         return ResponseEntity.ok(convertToResponse(apiKey));
     }
     
+   // per-minute usage history of api key
+    @GetMapping("/{keyId}/usage/history")
+    @PreAuthorize("hasAnyRole('TENANT_ADMIN', 'SUPER_ADMIN', 'USER', 'VIEWER')")
+    public ResponseEntity<List<ApiKeyUsageTracker.UsageBucket>> getApiKeyUsageHistory(
+            @PathVariable Long keyId,
+            @RequestParam(defaultValue = "60") int minutes) {
+        ApiKey apiKey = apiKeyService.getApiKeyById(keyId);
+        roleValidator.requireTenantAccess(apiKey.getTenantId());
+        return ResponseEntity.ok(apiKeyService.getUsageHistory(apiKey.getId(), minutes));
+    }
+    
     private ApiKeyResponse convertToResponse(ApiKey apiKey) {
         ApiKeyResponse response = new ApiKeyResponse();
         response.setId(apiKey.getId());
         response.setName(apiKey.getName());
-        response.setKeyValue(apiKey.getKeyValue());
+        // The full key is only shown once, right after it is generated
+        response.setKeyValue(apiKey.getPlainTextKey() != null
+            ? apiKey.getPlainTextKey() : apiKey.getMaskedKey());
         response.setTenantId(apiKey.getTenantId());
         response.setIsActive(apiKey.getIsActive());
         response.setExpiresAt(apiKey.getExpiresAt());
         response.setLastUsedAt(apiKey.getLastUsedAt());
-        response.setUsageCount(apiKey.getUsageCount());
+        response.setUsageCount(apiKeyService.getUsageCount(apiKey));
         response.setRateLimitPerHour(apiKey.getRateLimitPerHour());
         response.setScopes(apiKey.getScopes());
+        response.setAllowedIps(apiKey.getAllowedIps());
         response.setCreatedAt(apiKey.getCreatedAt());
         return response;
     }
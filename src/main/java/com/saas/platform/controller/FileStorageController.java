@@ -1,21 +1,36 @@
 package com.saas.platform.controller;
 
+import com.saas.platform.dto.FileShareRequest;
+import com.saas.platform.model.FileShare;
 import com.saas.platform.model.FileStorage;
+import com.saas.platform.model.FileVersion;
+import com.saas.platform.model.User;
 import com.saas.platform.security.RoleValidator;
+import com.saas.platform.service.FileBatchUploadService;
+import com.saas.platform.service.FileRangeSender;
 import com.saas.platform.service.FileStorageService;
+import com.saas.platform.service.ThumbnailService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 
 @RestController
@@ -25,11 +40,17 @@ public class FileStorageController {
     
     private final FileStorageService fileStorageService;
     private final RoleValidator roleValidator;
+    private final FileRangeSender fileRangeSender;
+    private final FileBatchUploadService batchUploadService;
     
     public FileStorageController(FileStorageService fileStorageService,
-                                RoleValidator roleValidator) {
+                                RoleValidator roleValidator,
+                                FileRangeSender fileRangeSender,
+                                FileBatchUploadService batchUploadService) {
         this.fileStorageService = fileStorageService;
         this.roleValidator = roleValidator;
+        this.fileRangeSender = fileRangeSender;
+        this.batchUploadService = batchUploadService;
     }
     
    // upload files
@@ -59,29 +80,238 @@ public class FileStorageController {
         }
     }
     
-   // download file
-    @GetMapping("/download/{fileId}")
-    @PreAuthorize("hasAnyRole('TENANT_ADMIN', 'SUPER_ADMIN', 'USER', 'VIEWER')")
-    public ResponseEntity<Resource> downloadFile(
-            @PathVariable Long fileId,
-            @RequestParam Long userId) {
+   // upload the raw request body as the file (streamed, no multipart buffering)
+    @PostMapping(value = "/upload/stream", consumes = MediaType.ALL_VALUE)
+    @PreAuthorize("hasAnyRole('TENANT_ADMIN', 'SUPER_ADMIN', 'USER')")
+    public ResponseEntity<FileStorage> uploadFileStream(
+            HttpServletRequest request,
+            @RequestParam String filename,
+            @RequestParam Long tenantId,
+            @RequestParam Long userId,
+            @RequestParam(required = false) String description,
+            @RequestParam(required = false) String category) {
         
         try {
-            FileStorage file = fileStorageService.getFileById(fileId);
+            // Check upload permission (blocks VIEWER)
+            roleValidator.requireUploadPermission();
             
             // Validate tenant access
-            roleValidator.requireTenantAccess(file.getTenantId());
+            roleValidator.requireTenantAccess(tenantId);
+            
+            String contentType = request.getContentType() != null
+                ? request.getContentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+            
+            FileStorage uploadedFile = fileStorageService.uploadStream(
+                request.getInputStream(), filename, contentType, request.getContentLengthLong(),
+                tenantId, userId, description, category);
             
-            Resource resource = fileStorageService.downloadFile(fileId, userId);
+            return ResponseEntity.status(HttpStatus.CREATED).body(uploadedFile);
             
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+   // upload many files in one multipart request ("files" parts); results per file
+    @PostMapping("/upload/batch")
+    @PreAuthorize("hasAnyRole('TENANT_ADMIN', 'SUPER_ADMIN', 'USER')")
+    public ResponseEntity<FileBatchUploadService.BatchUploadResult> uploadBatch(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam Long tenantId,
+            @RequestParam Long userId,
+            @RequestParam(required = false) String description,
+            @RequestParam(required = false) String category) {
+        
+        try {
+            // Checked once for the whole batch
+            roleValidator.requireUploadPermission();
+            roleValidator.requireTenantAccess(tenantId);
+            
+            FileBatchUploadService.BatchUploadResult result = batchUploadService.uploadBatch(
+                files, tenantId, userId, description, category);
+            
+            HttpStatus status = result.getFailed() == 0 ? HttpStatus.CREATED
+                : result.getUploaded() > 0 ? HttpStatus.MULTI_STATUS : HttpStatus.BAD_REQUEST;
+            return ResponseEntity.status(status).body(result);
+            
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+   // download file (supports Range, If-Range and If-None-Match)
+    @GetMapping("/download/{fileId}")
+    @PreAuthorize("hasAnyRole('TENANT_ADMIN', 'SUPER_ADMIN', 'USER', 'VIEWER')")
+    public void downloadFile(
+            @PathVariable Long fileId,
+            @RequestParam Long userId,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        
+        FileStorage file = fileStorageService.getFileById(fileId);
+        
+        // Validate tenant access
+        roleValidator.requireTenantAccess(file.getTenantId());
+        
+        FileStorageService.DownloadTarget target;
+        try {
+            target = fileStorageService.openDownload(fileId, userId);
+        } catch (IOException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        
+        if (fileRangeSender.send(request, response, target)) {
+            fileStorageService.recordDownload(fileId);
+        }
+    }
+    
+    // download several files as one ZIP (streamed)
+    @GetMapping("/archive")
+    @PreAuthorize("hasAnyRole('TENANT_ADMIN', 'SUPER_ADMIN', 'USER', 'VIEWER')")
+    public void downloadArchive(
+            @RequestParam List<Long> ids,
+            HttpServletResponse response) throws IOException {
+        
+        List<FileStorage> files = fileStorageService.getFilesForArchive(ids);
+        
+        // Validate tenant access
+        for (FileStorage file : files) {
+            roleValidator.requireTenantAccess(file.getTenantId());
+        }
+        
+        prepareArchiveResponse(response, "files.zip");
+        fileStorageService.writeArchive(files, response.getOutputStream());
+    }
+    
+    // download all files of a tenant as one ZIP (streamed)
+    @GetMapping("/archive/tenant/{tenantId}")
+    @PreAuthorize("hasAnyRole('TENANT_ADMIN', 'SUPER_ADMIN')")
+    public void downloadTenantArchive(
+            @PathVariable Long tenantId,
+            HttpServletResponse response) throws IOException {
+        
+        // Validate tenant isolation
+        roleValidator.validateTenantIsolation(tenantId);
+        
+        prepareArchiveResponse(response, "tenant_" + tenantId + "_files.zip");
+        fileStorageService.writeTenantArchive(tenantId, response.getOutputStream());
+    }
+    
+    // image preview (long-lived cache; 202 while it is being generated, 404 if it cannot be made)
+    @GetMapping("/{fileId}/thumbnail")
+    @PreAuthorize("hasAnyRole('TENANT_ADMIN', 'SUPER_ADMIN', 'USER', 'VIEWER')")
+    public ResponseEntity<Resource> getThumbnail(@PathVariable Long fileId, WebRequest webRequest) {
+        FileStorage file = fileStorageService.getFileById(fileId);
+        
+        // Validate tenant access
+        roleValidator.requireTenantAccess(file.getTenantId());
+        
+        // Thumbnails derive from immutable content, so the checksum identifies them
+        String etag = "\"" + file.getChecksum() + "-thumb\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        
+        ThumbnailService.Thumbnail thumbnail = fileStorageService.getThumbnail(fileId);
+        if (thumbnail.isReady()) {
             return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(file.getMimeType()))
-                .header(HttpHeaders.CONTENT_DISPOSITION, 
-                    "attachment; filename=\"" + file.getOriginalFilename() + "\"")
-                .body(resource);
-                
+                .contentType(MediaType.IMAGE_JPEG)
+                .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable())
+                .eTag(etag)
+                .body(new FileSystemResource(thumbnail.getPath()));
+        }
+        if (thumbnail.isFailed()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+            .header(HttpHeaders.RETRY_AFTER, "2")
+            .build();
+    }
+    
+    // upload a new version of a file (keeps its id, shares and history)
+    @PostMapping("/{fileId}/versions")
+    @PreAuthorize("hasAnyRole('TENANT_ADMIN', 'SUPER_ADMIN', 'USER')")
+    public ResponseEntity<FileStorage> uploadNewVersion(
+            @PathVariable Long fileId,
+            @RequestParam("file") MultipartFile file) {
+        
+        FileStorage existing = fileStorageService.getFileById(fileId);
+        
+        // Validate tenant access
+        roleValidator.requireTenantAccess(existing.getTenantId());
+        
+        // Check upload permission (blocks VIEWER)
+        roleValidator.requireUploadPermission();
+        
+        try {
+            FileStorage updated = fileStorageService.uploadNewVersion(
+                fileId, file, roleValidator.getCurrentUser().getId());
+            return ResponseEntity.status(HttpStatus.CREATED).body(updated);
         } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    // version history of a file, newest first
+    @GetMapping("/{fileId}/versions")
+    @PreAuthorize("hasAnyRole('TENANT_ADMIN', 'SUPER_ADMIN', 'USER', 'VIEWER')")
+    public ResponseEntity<List<FileVersion>> getFileVersions(@PathVariable Long fileId) {
+        FileStorage file = fileStorageService.getFileById(fileId);
+        
+        // Validate tenant access
+        roleValidator.requireTenantAccess(file.getTenantId());
+        
+        return ResponseEntity.ok(fileStorageService.getFileVersions(fileId));
+    }
+    
+    // download one version (older versions are reassembled from their chunks)
+    @GetMapping("/{fileId}/versions/{version}/download")
+    @PreAuthorize("hasAnyRole('TENANT_ADMIN', 'SUPER_ADMIN', 'USER', 'VIEWER')")
+    public void downloadVersion(
+            @PathVariable Long fileId,
+            @PathVariable Integer version,
+            HttpServletResponse response) throws IOException {
+        
+        FileStorage file = fileStorageService.getFileById(fileId);
+        
+        // Validate tenant access
+        roleValidator.requireTenantAccess(file.getTenantId());
+        
+        FileVersion fileVersion = fileStorageService.getFileVersion(fileId, version);
+        response.setContentType(fileVersion.getMimeType() != null
+            ? fileVersion.getMimeType() : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setContentLengthLong(fileVersion.getFileSize());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+            .filename(fileVersion.getOriginalFilename(), StandardCharsets.UTF_8).build().toString());
+        if (fileVersion.getChecksum() != null) {
+            response.setHeader(HttpHeaders.ETAG, "\"" + fileVersion.getChecksum() + "\"");
+        }
+        
+        fileStorageService.writeVersion(fileId, version, response.getOutputStream());
+    }
+    
+    // make an older version current again (recorded as a new version)
+    @PostMapping("/{fileId}/versions/{version}/restore")
+    @PreAuthorize("hasAnyRole('TENANT_ADMIN', 'SUPER_ADMIN', 'USER')")
+    public ResponseEntity<FileStorage> restoreVersion(
+            @PathVariable Long fileId,
+            @PathVariable Integer version) {
+        
+        FileStorage file = fileStorageService.getFileById(fileId);
+        
+        // Validate tenant access
+        roleValidator.requireTenantAccess(file.getTenantId());
+        
+        // Check if viewer (viewers can't restore)
+        roleValidator.requireUploadPermission();
+        
+        try {
+            FileStorage restored = fileStorageService.restoreVersion(
+                fileId, version, roleValidator.getCurrentUser().getId());
+            return ResponseEntity.ok(restored);
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
     
@@ -118,17 +348,50 @@ public class FileStorageController {
         return ResponseEntity.ok(files);
     }
     
-    // search files
+    // search files (ranked by name, tags, description)
     @GetMapping("/search")
     @PreAuthorize("hasAnyRole('TENANT_ADMIN', 'SUPER_ADMIN', 'USER', 'VIEWER')")
     public ResponseEntity<List<FileStorage>> searchFiles(
             @RequestParam Long tenantId,
-            @RequestParam String keyword) {
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        
+        // Validate tenant isolation
+        roleValidator.validateTenantIsolation(tenantId);
+        
+        List<FileStorage> files = fileStorageService.searchFiles(tenantId, keyword, page, size);
+        return ResponseEntity.ok(files);
+    }
+    
+    // search autocomplete
+    @GetMapping("/search/suggest")
+    @PreAuthorize("hasAnyRole('TENANT_ADMIN', 'SUPER_ADMIN', 'USER', 'VIEWER')")
+    public ResponseEntity<List<String>> suggestSearchTerms(
+            @RequestParam Long tenantId,
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        
+        // Validate tenant isolation
+        roleValidator.validateTenantIsolation(tenantId);
+        
+        List<String> terms = fileStorageService.suggestSearchTerms(tenantId, prefix, limit);
+        return ResponseEntity.ok(terms);
+    }
+    
+    // get files by tag
+    @GetMapping("/tag/{tenantId}/{tag}")
+    @PreAuthorize("hasAnyRole('TENANT_ADMIN', 'SUPER_ADMIN', 'USER', 'VIEWER')")
+    public ResponseEntity<List<FileStorage>> getFilesByTag(
+            @PathVariable Long tenantId,
+            @PathVariable String tag,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
         
         // Validate tenant isolation
         roleValidator.validateTenantIsolation(tenantId);
         
-        List<FileStorage> files = fileStorageService.searchFiles(tenantId, keyword);
+        List<FileStorage> files = fileStorageService.getFilesByTag(tenantId, tag, page, size);
         return ResponseEntity.ok(files);
     }
     
@@ -200,6 +463,71 @@ public class FileStorageController {
         return ResponseEntity.ok(shared);
     }
     
+    // list users a file is shared with
+    @GetMapping("/{fileId}/shares")
+    @PreAuthorize("hasAnyRole('TENANT_ADMIN', 'SUPER_ADMIN', 'USER')")
+    public ResponseEntity<List<FileShare>> getFileShares(@PathVariable Long fileId) {
+        FileStorage file = fileStorageService.getFileById(fileId);
+        
+        // Validate tenant access
+        roleValidator.requireTenantAccess(file.getTenantId());
+        
+        return ResponseEntity.ok(fileStorageService.getFileShares(fileId));
+    }
+    
+    // share with a batch of users (permission, optional expiry)
+    @PostMapping("/{fileId}/shares")
+    @PreAuthorize("hasAnyRole('TENANT_ADMIN', 'SUPER_ADMIN', 'USER')")
+    public ResponseEntity<List<FileShare>> addFileShares(
+            @PathVariable Long fileId,
+            @RequestBody FileShareRequest request) {
+        
+        FileStorage file = fileStorageService.getFileById(fileId);
+        
+        // Validate tenant access
+        roleValidator.requireTenantAccess(file.getTenantId());
+        
+        // Check if viewer (viewers can't share)
+        roleValidator.requireUploadPermission();
+        
+        List<FileShare> shares = fileStorageService.shareFile(fileId, request.getUserIds(),
+            request.getPermission(), request.getExpiresAt(), roleValidator.getCurrentUser().getId());
+        return ResponseEntity.ok(shares);
+    }
+    
+    // revoke access for a batch of users
+    @DeleteMapping("/{fileId}/shares")
+    @PreAuthorize("hasAnyRole('TENANT_ADMIN', 'SUPER_ADMIN', 'USER')")
+    public ResponseEntity<Map<String, Object>> removeFileShares(
+            @PathVariable Long fileId,
+            @RequestBody List<Long> userIds) {
+        
+        FileStorage file = fileStorageService.getFileById(fileId);
+        
+        // Validate tenant access
+        roleValidator.requireTenantAccess(file.getTenantId());
+        
+        // Check if viewer (viewers can't share)
+        roleValidator.requireUploadPermission();
+        
+        int removed = fileStorageService.unshareFile(fileId, userIds);
+        return ResponseEntity.ok(Map.of("removed", removed));
+    }
+    
+    // files shared with the current user
+    @GetMapping("/shared-with-me")
+    @PreAuthorize("hasAnyRole('TENANT_ADMIN', 'SUPER_ADMIN', 'USER', 'VIEWER')")
+    public ResponseEntity<List<FileStorage>> getFilesSharedWithMe(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        
+        User user = roleValidator.getCurrentUser();
+        
+        List<FileStorage> files = fileStorageService.getFilesSharedWith(
+            user.getId(), user.getTenant().getId(), page, size);
+        return ResponseEntity.ok(files);
+    }
+    
     // delete files
     @DeleteMapping("/{fileId}")
     @PreAuthorize("hasAnyRole('TENANT_ADMIN', 'SUPER_ADMIN', 'USER')")
@@ -269,4 +597,12 @@ public class FileStorageController {
         
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+    
+    // Archives are streamed with chunked encoding: the size is unknown until the end
+    private void prepareArchiveResponse(HttpServletResponse response, String filename) {
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+            .filename(filename, StandardCharsets.UTF_8).build().toString());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-store");
+    }
+}
@@ -0,0 +1,125 @@
+package com.saas.platform.controller;
+
+import com.saas.platform.model.FileStorage;
+import com.saas.platform.model.UploadSession;
+import com.saas.platform.security.RoleValidator;
+import com.saas.platform.service.ResumableUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+
+@RestController
+@RequestMapping("/api/files/uploads")
+@CrossOrigin(origins = "http://localhost:3000")
+public class ResumableUploadController {
+    
+    private final ResumableUploadService uploadService;
+    private final RoleValidator roleValidator;
+    
+    public ResumableUploadController(ResumableUploadService uploadService,
+                                     RoleValidator roleValidator) {
+        this.uploadService = uploadService;
+        this.roleValidator = roleValidator;
+    }
+    
+    // start a resumable upload
+    @PostMapping
+    @PreAuthorize("hasAnyRole('TENANT_ADMIN', 'SUPER_ADMIN', 'USER')")
+    public ResponseEntity<ResumableUploadService.UploadStatus> createSession(
+            @RequestParam Long tenantId,
+            @RequestParam Long userId,
+            @RequestParam String filename,
+            @RequestParam long size,
+            @RequestParam(required = false) String contentType,
+            @RequestParam(required = false) Integer chunkSize,
+            @RequestParam(required = false) String checksum,
+            @RequestParam(required = false) String description,
+            @RequestParam(required = false) String category) {
+        
+        try {
+            // Check upload permission (blocks VIEWER)
+            roleValidator.requireUploadPermission();
+            
+            // Validate tenant access
+            roleValidator.requireTenantAccess(tenantId);
+            
+            UploadSession session = uploadService.createSession(tenantId, userId, filename, contentType,
+                size, chunkSize, checksum, description, category);
+            
+            return ResponseEntity.status(HttpStatus.CREATED).body(uploadService.getStatus(session.getId()));
+            
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    // upload one chunk (raw body, any order, retries allowed)
+    @PutMapping(value = "/{sessionId}/chunks/{index}", consumes = MediaType.ALL_VALUE)
+    @PreAuthorize("hasAnyRole('TENANT_ADMIN', 'SUPER_ADMIN', 'USER')")
+    public ResponseEntity<ResumableUploadService.UploadStatus> uploadChunk(
+            @PathVariable String sessionId,
+            @PathVariable int index,
+            HttpServletRequest request) {
+        
+        requireSessionAccess(sessionId);
+        
+        try {
+            return ResponseEntity.ok(uploadService.writeChunk(
+                sessionId, index, request.getInputStream(), request.getContentLengthLong()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    // session status with received chunks (to resume)
+    @GetMapping("/{sessionId}")
+    @PreAuthorize("hasAnyRole('TENANT_ADMIN', 'SUPER_ADMIN', 'USER')")
+    public ResponseEntity<ResumableUploadService.UploadStatus> getStatus(@PathVariable String sessionId) {
+        requireSessionAccess(sessionId);
+        return ResponseEntity.ok(uploadService.getStatus(sessionId));
+    }
+    
+    // finish the upload: verify checksum and create the file record
+    @PostMapping("/{sessionId}/commit")
+    @PreAuthorize("hasAnyRole('TENANT_ADMIN', 'SUPER_ADMIN', 'USER')")
+    public ResponseEntity<FileStorage> commit(@PathVariable String sessionId) {
+        requireSessionAccess(sessionId);
+        
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(uploadService.commit(sessionId));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    // cancel the upload and drop its data
+    @DeleteMapping("/{sessionId}")
+    @PreAuthorize("hasAnyRole('TENANT_ADMIN', 'SUPER_ADMIN', 'USER')")
+    public ResponseEntity<String> abort(@PathVariable String sessionId) {
+        requireSessionAccess(sessionId);
+        
+        try {
+            uploadService.abort(sessionId);
+            return ResponseEntity.ok("Upload cancelled");
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body("Failed to cancel upload");
+        }
+    }
+    
+    private void requireSessionAccess(String sessionId) {
+        UploadSession session = uploadService.getSession(sessionId);
+        
+        // Check upload permission (blocks VIEWER)
+        roleValidator.requireUploadPermission();
+        
+        // Validate tenant access
+        roleValidator.requireTenantAccess(session.getTenantId());
+    }
+}
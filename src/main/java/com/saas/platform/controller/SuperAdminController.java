@@ -2,13 +2,22 @@ package com.saas.platform.controller;
 
 import com.saas.platform.dto.PlatformStatsDto;
 import com.saas.platform.dto.TenantManagementDto;
+import com.saas.platform.model.IntegrityFinding;
 import com.saas.platform.model.Tenant;
 import com.saas.platform.model.TenantStatus;
 import com.saas.platform.model.Plan;
 import com.saas.platform.model.Subscription;
 import com.saas.platform.model.SubscriptionPlan;
+import com.saas.platform.service.BlobStore;
+import com.saas.platform.service.FilePurgeService;
+import com.saas.platform.service.IntegrityScrubber;
+import com.saas.platform.service.StorageTierManager;
 import com.saas.platform.service.SuperAdminService;
+import com.saas.platform.service.WebhookDeliveryEngine;
+import com.saas.platform.service.WebhookOutboxService;
+import com.saas.platform.service.WebhookService;
 import com.saas.platform.security.RoleValidator;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -17,6 +26,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.core.io.Resource;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
+import java.io.IOException;
 import java.time.LocalDateTime;
 
 import java.util.HashMap;
@@ -49,11 +59,26 @@ public class SuperAdminController {
     
     private final SuperAdminService superAdminService;
     private final RoleValidator roleValidator;
+    private final WebhookService webhookService;
+    private final BlobStore blobStore;
+    private final StorageTierManager storageTierManager;
+    private final FilePurgeService filePurgeService;
+    private final IntegrityScrubber integrityScrubber;
     
     public SuperAdminController(SuperAdminService superAdminService,
-                               RoleValidator roleValidator) {
+                               RoleValidator roleValidator,
+                               WebhookService webhookService,
+                               BlobStore blobStore,
+                               StorageTierManager storageTierManager,
+                               FilePurgeService filePurgeService,
+                               IntegrityScrubber integrityScrubber) {
         this.superAdminService = superAdminService;
         this.roleValidator = roleValidator;
+        this.webhookService = webhookService;
+        this.blobStore = blobStore;
+        this.storageTierManager = storageTierManager;
+        this.filePurgeService = filePurgeService;
+        this.integrityScrubber = integrityScrubber;
     }
     
     // ========================================
@@ -462,6 +487,60 @@ public class SuperAdminController {
         return ResponseEntity.ok(Map.of("message", retried + " jobs retried"));
     }
     
+    //
+// Webhook delivery engine metrics (queue depth, attempts, latency, drops)
+     
+    @GetMapping("/monitoring/webhook-delivery")
+    public ResponseEntity<WebhookDeliveryEngine.DeliveryMetrics> getWebhookDeliveryMetrics() {
+        return ResponseEntity.ok(webhookService.getDeliveryMetrics());
+    }
+    
+    //
+// Webhook outbox backlog
+     
+    @GetMapping("/monitoring/webhook-outbox")
+    public ResponseEntity<WebhookOutboxService.OutboxStats> getWebhookOutboxStats() {
+        return ResponseEntity.ok(webhookService.getOutboxStats());
+    }
+    
+    //
+// Deduplicated file blob store
+     
+    @GetMapping("/monitoring/blob-store")
+    public ResponseEntity<BlobStore.BlobStats> getBlobStoreStats() {
+        return ResponseEntity.ok(blobStore.getStats());
+    }
+    
+    //
+// Hot/cold storage tiering
+     
+    @GetMapping("/monitoring/storage-tiers")
+    public ResponseEntity<StorageTierManager.TierStats> getStorageTierStats() {
+        return ResponseEntity.ok(storageTierManager.getStats());
+    }
+    
+    //
+// Expired-file and trash purge
+     
+    @GetMapping("/monitoring/file-purge")
+    public ResponseEntity<FilePurgeService.PurgeStats> getFilePurgeStats() {
+        return ResponseEntity.ok(filePurgeService.getStats());
+    }
+    
+    //
+// Background checksum verification of stored content
+     
+    @GetMapping("/monitoring/integrity")
+    public ResponseEntity<IntegrityScrubber.ScrubStats> getIntegrityStats() {
+        return ResponseEntity.ok(integrityScrubber.getStats());
+    }
+    
+    @GetMapping("/monitoring/integrity/findings")
+    public ResponseEntity<List<IntegrityFinding>> getIntegrityFindings(
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(integrityScrubber.getOpenFindings(limit));
+    }
+    
  // ========================================
  // ADD THESE METHODS TO YOUR EXISTING SuperAdminController.java
  // Add them BEFORE the closing brace of the class (around line 270)
@@ -475,23 +554,20 @@ public class SuperAdminController {
 // Export tenant data for backup or migration
   
  @PostMapping("/tenants/{tenantId}/export")
- public ResponseEntity<Resource> exportTenantData(@PathVariable Long tenantId) {
-     Resource dataExport = superAdminService.exportTenantData(tenantId);
-     return ResponseEntity.ok()
-         .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=tenant_" + tenantId + "_export.zip")
-         .contentType(MediaType.APPLICATION_OCTET_STREAM)
-         .body(dataExport);
+ public void exportTenantData(@PathVariable Long tenantId, HttpServletResponse response) throws IOException {
+     response.setContentType("application/zip");
+     response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=tenant_" + tenantId + "_export.zip");
+     superAdminService.exportTenantData(tenantId, response.getOutputStream());
  }
 
  //
 // Bulk export all tenants data
   
  @PostMapping("/tenants/bulk-export")
- public ResponseEntity<Resource> bulkExportAllTenants() {
-     Resource dataExport = superAdminService.bulkExportAllTenants();
-     return ResponseEntity.ok()
-         .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=all_tenants_export.zip")
-         .body(dataExport);
+ public void bulkExportAllTenants(HttpServletResponse response) throws IOException {
+     response.setContentType("application/zip");
+     response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=all_tenants_export.zip");
+     superAdminService.bulkExportAllTenants(response.getOutputStream());
  }
 
  // ========================================
@@ -2,13 +2,18 @@ package com.saas.platform.controller;
 
 import com.saas.platform.dto.WebhookCreateRequest;
 import com.saas.platform.model.Webhook;
+import com.saas.platform.model.WebhookDeliveryAttempt;
 import com.saas.platform.security.RoleValidator;
+import com.saas.platform.service.WebhookOutboxService;
 import com.saas.platform.service.WebhookService;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 //
@@ -62,7 +67,10 @@ public class WebhookController {
             request.getName(),
             request.getUrl(),
             request.getEvents(),
-            userId
+            userId,
+            request.getBatchEnabled(),
+            request.getBatchMaxItems(),
+            request.getBatchMaxWaitMs()
         );
         
         return ResponseEntity.status(HttpStatus.CREATED).body(webhook);
@@ -83,7 +91,10 @@ public class WebhookController {
             request.getName(),
             request.getUrl(),
             request.getEvents(),
-            request.getIsActive()
+            request.getIsActive(),
+            request.getBatchEnabled(),
+            request.getBatchMaxItems(),
+            request.getBatchMaxWaitMs()
         );
         
         return ResponseEntity.ok(webhook);
@@ -131,4 +142,43 @@ public class WebhookController {
         WebhookService.WebhookStats stats = webhookService.getWebhookStats(webhookId);
         return ResponseEntity.ok(stats);
     }
-}
\ No newline at end of file
+    
+    //
+// Delivery attempts in a time range, newest first; success filters by outcome
+// Only TENANT_OWNER and TENANT_ADMIN
+     
+    @GetMapping("/{webhookId}/attempts")
+    @PreAuthorize("hasAnyRole('TENANT_OWNER', 'TENANT_ADMIN')")
+    public ResponseEntity<Page<WebhookDeliveryAttempt>> getDeliveryAttempts(
+            @PathVariable Long webhookId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Boolean success,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        
+        Webhook webhook = webhookService.getWebhookById(webhookId);
+        roleValidator.requireWebhookPermission(webhook.getTenantId());
+        
+        return ResponseEntity.ok(webhookService.getDeliveryAttempts(webhookId, from, to, success, page, size));
+    }
+    
+    //
+// Replay events from a time range (by default only those not yet delivered)
+// Only TENANT_OWNER and TENANT_ADMIN
+     
+    @PostMapping("/{webhookId}/replay")
+    @PreAuthorize("hasAnyRole('TENANT_OWNER', 'TENANT_ADMIN')")
+    public ResponseEntity<WebhookOutboxService.ReplayResult> replayEvents(
+            @PathVariable Long webhookId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "true") boolean onlyFailed) {
+        
+        Webhook webhook = webhookService.getWebhookById(webhookId);
+        roleValidator.requireWebhookPermission(webhook.getTenantId());
+        
+        WebhookOutboxService.ReplayResult result = webhookService.replayEvents(webhookId, from, to, onlyFailed);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(result);
+    }
+}
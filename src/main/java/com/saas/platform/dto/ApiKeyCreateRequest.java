@@ -6,6 +6,7 @@ public class ApiKeyCreateRequest {
     private Long userId;
     private String name;
     private String scopes;
+    private String allowedIps;
     private Integer expiresInDays;
     
     public Long getUserId() { return userId; }
@@ -17,6 +18,9 @@ public class ApiKeyCreateRequest {
     public String getScopes() { return scopes; }
     public void setScopes(String scopes) { this.scopes = scopes; }
     
+    public String getAllowedIps() { return allowedIps; }
+    public void setAllowedIps(String allowedIps) { this.allowedIps = allowedIps; }
+    
     public Integer getExpiresInDays() { return expiresInDays; }
     public void setExpiresInDays(Integer expiresInDays) { this.expiresInDays = expiresInDays; }
 }
\ No newline at end of file
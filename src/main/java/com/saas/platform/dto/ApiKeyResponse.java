@@ -13,6 +13,7 @@ public class ApiKeyResponse {
     private Long usageCount;
     private Integer rateLimitPerHour;
     private String scopes;
+    private String allowedIps;
     private LocalDateTime createdAt;
     
     // Getters and Setters
@@ -46,6 +47,9 @@ public class ApiKeyResponse {
     public String getScopes() { return scopes; }
     public void setScopes(String scopes) { this.scopes = scopes; }
     
+    public String getAllowedIps() { return allowedIps; }
+    public void setAllowedIps(String allowedIps) { this.allowedIps = allowedIps; }
+    
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 }
@@ -0,0 +1,21 @@
+package com.saas.platform.dto;
+
+import com.saas.platform.model.FileSharePermission;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class FileShareRequest {
+    private List<Long> userIds;
+    private FileSharePermission permission; // Optional: defaults to VIEW
+    private LocalDateTime expiresAt;        // Optional: access ends at this time
+    
+    public List<Long> getUserIds() { return userIds; }
+    public void setUserIds(List<Long> userIds) { this.userIds = userIds; }
+    
+    public FileSharePermission getPermission() { return permission; }
+    public void setPermission(FileSharePermission permission) { this.permission = permission; }
+    
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
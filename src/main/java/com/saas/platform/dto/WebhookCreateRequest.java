@@ -4,6 +4,9 @@ public class WebhookCreateRequest {
     private String url;
     private String events;
     private Boolean isActive;
+    private Boolean batchEnabled;   // Optional: deliver events in batches
+    private Integer batchMaxItems;  // Optional: events per batch
+    private Integer batchMaxWaitMs; // Optional: max wait before a partial batch is sent
     
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
@@ -16,4 +19,13 @@ public class WebhookCreateRequest {
     
     public Boolean getIsActive() { return isActive; }
     public void setIsActive(Boolean isActive) { this.isActive = isActive; }
+    
+    public Boolean getBatchEnabled() { return batchEnabled; }
+    public void setBatchEnabled(Boolean batchEnabled) { this.batchEnabled = batchEnabled; }
+    
+    public Integer getBatchMaxItems() { return batchMaxItems; }
+    public void setBatchMaxItems(Integer batchMaxItems) { this.batchMaxItems = batchMaxItems; }
+    
+    public Integer getBatchMaxWaitMs() { return batchMaxWaitMs; }
+    public void setBatchMaxWaitMs(Integer batchMaxWaitMs) { this.batchMaxWaitMs = batchMaxWaitMs; }
 }
\ No newline at end of file
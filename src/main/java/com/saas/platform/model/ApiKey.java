@@ -15,8 +15,15 @@ public class ApiKey {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @Column(nullable = false, unique = true, length = 64)
-    private String keyValue;
+    // SHA-256 digest of the key; the plaintext key is never persisted
+    @Column(name = "key_value", nullable = false, unique = true, length = 64)
+    private String keyHash;
+    
+    @Column(name = "key_prefix", length = 16)
+    private String keyPrefix; // First characters of the key, for display only
+    
+    @Transient
+    private String plainTextKey; // Only available right after generation
     
     @Column(nullable = false, length = 100)
     private String name;
@@ -62,13 +69,12 @@ public class ApiKey {
         this.name = name;
         this.tenantId = tenantId;
         this.createdBy = createdBy;
-        this.keyValue = generateApiKey();
         this.isActive = true;
         this.createdAt = LocalDateTime.now();
     }
     
     // Generate secure API key
-    private String generateApiKey() {
+    public static String generateApiKey() {
         return "sk_" + UUID.randomUUID().toString().replace("-", "") + 
                UUID.randomUUID().toString().replace("-", "").substring(0, 16);
     }
@@ -82,12 +88,24 @@ public class ApiKey {
         this.id = id;
     }
     
-    public String getKeyValue() {
-        return keyValue;
+    public String getKeyHash() {
+        return keyHash;
     }
     
-    public void setKeyValue(String keyValue) {
-        this.keyValue = keyValue;
+    public void setKeyHash(String keyHash) {
+        this.keyHash = keyHash;
+    }
+    
+    public String getKeyPrefix() {
+        return keyPrefix;
+    }
+    
+    public void setKeyPrefix(String keyPrefix) {
+        this.keyPrefix = keyPrefix;
+    }
+    
+    public String getPlainTextKey() {
+        return plainTextKey;
     }
     
     public String getName() {
@@ -189,9 +207,6 @@ public class ApiKey {
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
-        if (keyValue == null) {
-            keyValue = generateApiKey();
-        }
     }
     
     @PreUpdate
@@ -200,6 +215,27 @@ public class ApiKey {
     }
     
     // Utility methods
+    
+    //
+// Store only the digest (see ApiKeyHasher) and a display prefix of the given plaintext key
+     
+    public void assignKey(String rawKey, String keyHash) {
+        this.plainTextKey = rawKey;
+        this.keyHash = keyHash;
+        this.keyPrefix = rawKey.substring(0, Math.min(rawKey.length(), 10));
+    }
+    
+    //
+// Keys created before hashing was introduced still hold the plaintext value
+     
+    public boolean isLegacyPlainText() {
+        return keyHash != null && keyHash.startsWith("sk_");
+    }
+    
+    public String getMaskedKey() {
+        return (keyPrefix != null ? keyPrefix : "sk_") + "…";
+    }
+    
     public boolean isExpired() {
         return expiresAt != null && LocalDateTime.now().isAfter(expiresAt);
     }
@@ -208,24 +244,4 @@ public class ApiKey {
         this.usageCount++;
         this.lastUsedAt = LocalDateTime.now();
     }
-    
-    public boolean isIpAllowed(String ip) {
-        if (allowedIps == null || allowedIps.isEmpty()) {
-            return true; // No IP restriction
-        }
-        String[] ips = allowedIps.split(",");
-        for (String allowedIp : ips) {
-            if (allowedIp.trim().equals(ip)) {
-                return true;
-            }
-        }
-        return false;
-    }
-    
-    public boolean hasScope(String scope) {
-        if (scopes == null) {
-            return false;
-        }
-        return scopes.contains(scope);
-    }
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.saas.platform.model;
+
+import jakarta.persistence.*;
+
+//
+// FileSearchTerm Entity - Inverted index posting: one word of a file's name, tags or description
+// The (tenant_id, term, weight, file_id) index answers exact and prefix lookups
+// without touching file_storage; weight is the sum of the fields the word occurs in.
+ 
+@Entity
+@Table(name = "file_search_terms", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_file_search_terms_file_term", columnNames = {"file_id", "term"})
+}, indexes = {
+    @Index(name = "idx_file_search_terms_lookup", columnList = "tenant_id, term, weight, file_id")
+})
+public class FileSearchTerm {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+    
+    @Column(name = "file_id", nullable = false)
+    private Long fileId;
+    
+    @Column(name = "term", nullable = false, length = 64)
+    private String term;
+    
+    @Column(name = "weight", nullable = false)
+    private Integer weight;
+    
+    // Constructors
+    public FileSearchTerm() {
+    }
+    
+    public FileSearchTerm(Long tenantId, Long fileId, String term, Integer weight) {
+        this.tenantId = tenantId;
+        this.fileId = fileId;
+        this.term = term;
+        this.weight = weight;
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getTenantId() { return tenantId; }
+    public void setTenantId(Long tenantId) { this.tenantId = tenantId; }
+    
+    public Long getFileId() { return fileId; }
+    public void setFileId(Long fileId) { this.fileId = fileId; }
+    
+    public String getTerm() { return term; }
+    public void setTerm(String term) { this.term = term; }
+    
+    public Integer getWeight() { return weight; }
+    public void setWeight(Integer weight) { this.weight = weight; }
+}
@@ -0,0 +1,80 @@
+package com.saas.platform.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+//
+// FileShare Entity - Access to one file granted to one user
+// The unique key serves "who has this file" (file_id first) and the second
+// index serves "shared with me" (user_id first); both carry the columns the
+// lookups filter on, so neither needs to read the row itself.
+ 
+@Entity
+@Table(name = "file_shares", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_file_shares_file_user", columnNames = {"file_id", "user_id"})
+}, indexes = {
+    @Index(name = "idx_file_shares_user", columnList = "user_id, tenant_id, file_id, expires_at, permission"),
+    @Index(name = "idx_file_shares_expires", columnList = "expires_at")
+})
+public class FileShare {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "file_id", nullable = false)
+    private Long fileId;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "permission", nullable = false, length = 10)
+    private FileSharePermission permission = FileSharePermission.VIEW;
+    
+    @Column(name = "shared_by")
+    private Long sharedBy;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt; // null = until revoked
+    
+    // Constructors
+    public FileShare() {
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getFileId() { return fileId; }
+    public void setFileId(Long fileId) { this.fileId = fileId; }
+    
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    
+    public Long getTenantId() { return tenantId; }
+    public void setTenantId(Long tenantId) { this.tenantId = tenantId; }
+    
+    public FileSharePermission getPermission() { return permission; }
+    public void setPermission(FileSharePermission permission) { this.permission = permission; }
+    
+    public Long getSharedBy() { return sharedBy; }
+    public void setSharedBy(Long sharedBy) { this.sharedBy = sharedBy; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+    
+    // Helper methods
+    public boolean isExpired() {
+        return expiresAt != null && LocalDateTime.now().isAfter(expiresAt);
+    }
+}
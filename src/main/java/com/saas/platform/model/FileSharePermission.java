@@ -0,0 +1,9 @@
+package com.saas.platform.model;
+
+//
+// What a user a file is shared with may do with it
+ 
+public enum FileSharePermission {
+    VIEW,  // Read metadata and download
+    EDIT   // Also update metadata
+}
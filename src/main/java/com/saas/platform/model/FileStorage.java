@@ -7,7 +7,12 @@ import java.time.LocalDateTime;
 // FileStorage Entity - Manages uploaded files per tenant
  
 @Entity
-@Table(name = "file_storage")
+@Table(name = "file_storage", indexes = {
+    @Index(name = "idx_file_storage_tenant_deleted", columnList = "tenant_id, deleted_at"),
+    @Index(name = "idx_file_storage_search_indexed", columnList = "search_indexed_at"),
+    @Index(name = "idx_file_storage_deleted", columnList = "deleted_at"),
+    @Index(name = "idx_file_storage_expires", columnList = "expires_at")
+})
 public class FileStorage {
     
     @Id
@@ -50,6 +55,9 @@ public class FileStorage {
     @Column(name = "download_count")
     private Long downloadCount = 0L;
     
+    @Column(name = "last_accessed_at")
+    private LocalDateTime lastAccessedAt; // Last download (coalesced); drives storage tiering
+    
     @Column(name = "version")
     private Integer version = 1;
     
@@ -65,11 +73,17 @@ public class FileStorage {
     @Column(name = "checksum", length = 64)
     private String checksum; // SHA-256 hash for integrity
     
+    @Column(name = "blob_id")
+    private Long blobId; // Shared content-addressed blob; null for legacy per-file storage
+    
     @Column(name = "tags", length = 500)
     private String tags; // Comma-separated tags
     
+    @Column(name = "search_indexed_at")
+    private LocalDateTime searchIndexedAt; // Last write to file_search_terms / file_tags; null = not indexed yet
+    
     @Column(name = "shared_with")
-    private String sharedWith; // Comma-separated user IDs
+    private String sharedWith; // Legacy comma-separated user IDs; migrated to file_shares
     
     @Column(name = "expires_at")
     private LocalDateTime expiresAt;
@@ -83,6 +97,9 @@ public class FileStorage {
     @Column(name = "deleted_at")
     private LocalDateTime deletedAt; // Soft delete
     
+    @Column(name = "purge_lease_until")
+    private LocalDateTime purgeLeaseUntil; // Set while the purge job is removing this file
+    
     // Constructors
     public FileStorage() {
     }
@@ -149,6 +166,11 @@ public class FileStorage {
         this.downloadCount = downloadCount; 
     }
     
+    public LocalDateTime getLastAccessedAt() { return lastAccessedAt; }
+    public void setLastAccessedAt(LocalDateTime lastAccessedAt) { 
+        this.lastAccessedAt = lastAccessedAt; 
+    }
+    
     public Integer getVersion() { return version; }
     public void setVersion(Integer version) { this.version = version; }
     
@@ -170,9 +192,17 @@ public class FileStorage {
     public String getChecksum() { return checksum; }
     public void setChecksum(String checksum) { this.checksum = checksum; }
     
+    public Long getBlobId() { return blobId; }
+    public void setBlobId(Long blobId) { this.blobId = blobId; }
+    
     public String getTags() { return tags; }
     public void setTags(String tags) { this.tags = tags; }
     
+    public LocalDateTime getSearchIndexedAt() { return searchIndexedAt; }
+    public void setSearchIndexedAt(LocalDateTime searchIndexedAt) { 
+        this.searchIndexedAt = searchIndexedAt; 
+    }
+    
     public String getSharedWith() { return sharedWith; }
     public void setSharedWith(String sharedWith) { this.sharedWith = sharedWith; }
     
@@ -216,6 +246,15 @@ public class FileStorage {
         return expiresAt != null && LocalDateTime.now().isAfter(expiresAt);
     }
     
+    public LocalDateTime getPurgeLeaseUntil() { return purgeLeaseUntil; }
+    public void setPurgeLeaseUntil(LocalDateTime purgeLeaseUntil) { 
+        this.purgeLeaseUntil = purgeLeaseUntil; 
+    }
+    
+    public boolean isBeingPurged() {
+        return purgeLeaseUntil != null && LocalDateTime.now().isBefore(purgeLeaseUntil);
+    }
+    
     public boolean isDeleted() {
         return deletedAt != null;
     }
@@ -0,0 +1,52 @@
+package com.saas.platform.model;
+
+import jakarta.persistence.*;
+
+//
+// FileTag Entity - One normalized tag of a file (derived from FileStorage.tags)
+// Rows exist only for files that are not in the trash
+ 
+@Entity
+@Table(name = "file_tags", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_file_tags_file_tag", columnNames = {"file_id", "tag"})
+}, indexes = {
+    @Index(name = "idx_file_tags_tenant_tag", columnList = "tenant_id, tag, file_id")
+})
+public class FileTag {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+    
+    @Column(name = "file_id", nullable = false)
+    private Long fileId;
+    
+    @Column(name = "tag", nullable = false, length = 100)
+    private String tag; // Trimmed and lower-cased
+    
+    // Constructors
+    public FileTag() {
+    }
+    
+    public FileTag(Long tenantId, Long fileId, String tag) {
+        this.tenantId = tenantId;
+        this.fileId = fileId;
+        this.tag = tag;
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getTenantId() { return tenantId; }
+    public void setTenantId(Long tenantId) { this.tenantId = tenantId; }
+    
+    public Long getFileId() { return fileId; }
+    public void setFileId(Long fileId) { this.fileId = fileId; }
+    
+    public String getTag() { return tag; }
+    public void setTag(String tag) { this.tag = tag; }
+}
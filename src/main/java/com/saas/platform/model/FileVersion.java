@@ -0,0 +1,113 @@
+package com.saas.platform.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+//
+// FileVersion Entity - One version in the history of a file
+// The newest version is the file itself (its blob); once it is replaced its
+// content is kept as content-defined chunks (file_version_chunks), which
+// deduplicate against the chunks of the other versions. Files that were never
+// replaced have no rows here.
+ 
+@Entity
+@Table(name = "file_versions", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_file_versions_file_version", columnNames = {"file_id", "version_number"})
+})
+public class FileVersion {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "file_id", nullable = false)
+    private Long fileId;
+    
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+    
+    @Column(name = "version_number", nullable = false)
+    private Integer versionNumber;
+    
+    @Column(name = "original_filename", nullable = false, length = 255)
+    private String originalFilename;
+    
+    @Column(name = "mime_type", length = 100)
+    private String mimeType;
+    
+    @Column(name = "file_size", nullable = false)
+    private Long fileSize;
+    
+    @Column(name = "checksum", length = 64)
+    private String checksum; // SHA-256 of the whole version, checked when it is reassembled
+    
+    @Column(name = "uploaded_by")
+    private Long uploadedBy;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt; // When this version was uploaded
+    
+    @Column(name = "chunk_count")
+    private Integer chunkCount; // null while this is the current version
+    
+    @Column(name = "archived_at")
+    private LocalDateTime archivedAt; // When a newer version replaced it
+    
+    // Constructors
+    public FileVersion() {
+    }
+    
+    public FileVersion(FileStorage file, Long uploadedBy, LocalDateTime createdAt) {
+        this.fileId = file.getId();
+        this.tenantId = file.getTenantId();
+        this.versionNumber = file.getVersion() != null ? file.getVersion() : 1;
+        this.originalFilename = file.getOriginalFilename();
+        this.mimeType = file.getMimeType();
+        this.fileSize = file.getFileSize();
+        this.checksum = file.getChecksum();
+        this.uploadedBy = uploadedBy;
+        this.createdAt = createdAt;
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getFileId() { return fileId; }
+    public void setFileId(Long fileId) { this.fileId = fileId; }
+    
+    public Long getTenantId() { return tenantId; }
+    public void setTenantId(Long tenantId) { this.tenantId = tenantId; }
+    
+    public Integer getVersionNumber() { return versionNumber; }
+    public void setVersionNumber(Integer versionNumber) { this.versionNumber = versionNumber; }
+    
+    public String getOriginalFilename() { return originalFilename; }
+    public void setOriginalFilename(String originalFilename) { this.originalFilename = originalFilename; }
+    
+    public String getMimeType() { return mimeType; }
+    public void setMimeType(String mimeType) { this.mimeType = mimeType; }
+    
+    public Long getFileSize() { return fileSize; }
+    public void setFileSize(Long fileSize) { this.fileSize = fileSize; }
+    
+    public String getChecksum() { return checksum; }
+    public void setChecksum(String checksum) { this.checksum = checksum; }
+    
+    public Long getUploadedBy() { return uploadedBy; }
+    public void setUploadedBy(Long uploadedBy) { this.uploadedBy = uploadedBy; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public Integer getChunkCount() { return chunkCount; }
+    public void setChunkCount(Integer chunkCount) { this.chunkCount = chunkCount; }
+    
+    public LocalDateTime getArchivedAt() { return archivedAt; }
+    public void setArchivedAt(LocalDateTime archivedAt) { this.archivedAt = archivedAt; }
+    
+    // Helper methods
+    public boolean isCurrent() {
+        return archivedAt == null;
+    }
+}
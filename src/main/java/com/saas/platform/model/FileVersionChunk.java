@@ -0,0 +1,58 @@
+package com.saas.platform.model;
+
+import jakarta.persistence.*;
+
+//
+// FileVersionChunk Entity - One chunk of an archived file version, in order
+// Each row holds one reference on its blob; a chunk that occurs twice in a
+// version has two rows and two references.
+ 
+@Entity
+@Table(name = "file_version_chunks", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_file_version_chunks_version_seq", columnNames = {"version_id", "seq"})
+})
+public class FileVersionChunk {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "version_id", nullable = false)
+    private Long versionId;
+    
+    @Column(name = "seq", nullable = false)
+    private Integer seq;
+    
+    @Column(name = "blob_id", nullable = false)
+    private Long blobId;
+    
+    @Column(name = "length", nullable = false)
+    private Integer length;
+    
+    // Constructors
+    public FileVersionChunk() {
+    }
+    
+    public FileVersionChunk(Long versionId, Integer seq, Long blobId, Integer length) {
+        this.versionId = versionId;
+        this.seq = seq;
+        this.blobId = blobId;
+        this.length = length;
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getVersionId() { return versionId; }
+    public void setVersionId(Long versionId) { this.versionId = versionId; }
+    
+    public Integer getSeq() { return seq; }
+    public void setSeq(Integer seq) { this.seq = seq; }
+    
+    public Long getBlobId() { return blobId; }
+    public void setBlobId(Long blobId) { this.blobId = blobId; }
+    
+    public Integer getLength() { return length; }
+    public void setLength(Integer length) { this.length = length; }
+}
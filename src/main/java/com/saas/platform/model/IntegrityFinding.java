@@ -0,0 +1,97 @@
+package com.saas.platform.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+//
+// IntegrityFinding Entity - Stored content that failed verification
+// One row per checked object (a blob, or a legacy file stored outside the
+// blob store); it is resolved once a later pass finds the content intact.
+ 
+@Entity
+@Table(name = "integrity_findings", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_integrity_findings_target", columnNames = {"target_type", "target_id"})
+}, indexes = {
+    @Index(name = "idx_integrity_findings_resolved", columnList = "resolved_at, detected_at")
+})
+public class IntegrityFinding {
+    
+    public static final String TARGET_BLOB = "BLOB";
+    public static final String TARGET_FILE = "FILE";
+    
+    public static final String PROBLEM_MISSING = "MISSING";
+    public static final String PROBLEM_CHECKSUM_MISMATCH = "CHECKSUM_MISMATCH";
+    public static final String PROBLEM_UNREADABLE = "UNREADABLE";
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "target_type", nullable = false, length = 10)
+    private String targetType; // BLOB (stored_blobs.id) or FILE (file_storage.id, legacy storage)
+    
+    @Column(name = "target_id", nullable = false)
+    private Long targetId;
+    
+    @Column(name = "problem", nullable = false, length = 20)
+    private String problem;
+    
+    @Column(name = "path", length = 500)
+    private String path;
+    
+    @Column(name = "expected_checksum", length = 64)
+    private String expectedChecksum;
+    
+    @Column(name = "actual_checksum", length = 64)
+    private String actualChecksum;
+    
+    @Column(name = "detail", length = 500)
+    private String detail;
+    
+    @Column(name = "detected_at", nullable = false)
+    private LocalDateTime detectedAt;
+    
+    @Column(name = "last_checked_at", nullable = false)
+    private LocalDateTime lastCheckedAt;
+    
+    @Column(name = "resolved_at")
+    private LocalDateTime resolvedAt;
+    
+    // Constructors
+    public IntegrityFinding() {
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public String getTargetType() { return targetType; }
+    public void setTargetType(String targetType) { this.targetType = targetType; }
+    
+    public Long getTargetId() { return targetId; }
+    public void setTargetId(Long targetId) { this.targetId = targetId; }
+    
+    public String getProblem() { return problem; }
+    public void setProblem(String problem) { this.problem = problem; }
+    
+    public String getPath() { return path; }
+    public void setPath(String path) { this.path = path; }
+    
+    public String getExpectedChecksum() { return expectedChecksum; }
+    public void setExpectedChecksum(String expectedChecksum) { this.expectedChecksum = expectedChecksum; }
+    
+    public String getActualChecksum() { return actualChecksum; }
+    public void setActualChecksum(String actualChecksum) { this.actualChecksum = actualChecksum; }
+    
+    public String getDetail() { return detail; }
+    public void setDetail(String detail) { this.detail = detail; }
+    
+    public LocalDateTime getDetectedAt() { return detectedAt; }
+    public void setDetectedAt(LocalDateTime detectedAt) { this.detectedAt = detectedAt; }
+    
+    public LocalDateTime getLastCheckedAt() { return lastCheckedAt; }
+    public void setLastCheckedAt(LocalDateTime lastCheckedAt) { this.lastCheckedAt = lastCheckedAt; }
+    
+    public LocalDateTime getResolvedAt() { return resolvedAt; }
+    public void setResolvedAt(LocalDateTime resolvedAt) { this.resolvedAt = resolvedAt; }
+}
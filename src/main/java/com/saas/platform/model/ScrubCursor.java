@@ -0,0 +1,62 @@
+package com.saas.platform.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+//
+// ScrubCursor Entity - Progress of the integrity scrubber through one table
+// lastId is the keyset position of the current pass (0 = next pass starts
+// from the beginning); the lease keeps a single node scrubbing at a time.
+ 
+@Entity
+@Table(name = "scrub_cursors")
+public class ScrubCursor {
+    
+    @Id
+    @Column(name = "name", length = 32)
+    private String name;
+    
+    @Column(name = "last_id", nullable = false)
+    private Long lastId = 0L;
+    
+    @Column(name = "pass_started_at")
+    private LocalDateTime passStartedAt;
+    
+    @Column(name = "last_pass_completed_at")
+    private LocalDateTime lastPassCompletedAt;
+    
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner;
+    
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    // Constructors
+    public ScrubCursor() {
+    }
+    
+    // Getters and Setters
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    
+    public Long getLastId() { return lastId; }
+    public void setLastId(Long lastId) { this.lastId = lastId; }
+    
+    public LocalDateTime getPassStartedAt() { return passStartedAt; }
+    public void setPassStartedAt(LocalDateTime passStartedAt) { this.passStartedAt = passStartedAt; }
+    
+    public LocalDateTime getLastPassCompletedAt() { return lastPassCompletedAt; }
+    public void setLastPassCompletedAt(LocalDateTime lastPassCompletedAt) { this.lastPassCompletedAt = lastPassCompletedAt; }
+    
+    public String getLeaseOwner() { return leaseOwner; }
+    public void setLeaseOwner(String leaseOwner) { this.leaseOwner = leaseOwner; }
+    
+    public LocalDateTime getLeaseUntil() { return leaseUntil; }
+    public void setLeaseUntil(LocalDateTime leaseUntil) { this.leaseUntil = leaseUntil; }
+    
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,124 @@
+package com.saas.platform.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+//
+// StoredBlob Entity - One content-addressed file on disk, shared by FileStorage rows
+// Keyed by (scope, SHA-256); refCount counts the FileStorage rows pointing at it
+ 
+@Entity
+@Table(name = "stored_blobs", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_stored_blobs_scope_checksum", columnNames = {"scope", "checksum"})
+}, indexes = {
+    @Index(name = "idx_stored_blobs_orphaned", columnList = "ref_count, orphaned_at"),
+    @Index(name = "idx_stored_blobs_demoted", columnList = "hot_copy, demoted_at")
+})
+public class StoredBlob {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "scope", nullable = false, length = 32)
+    private String scope; // "global" or "tenant_<id>", depending on dedup scope
+    
+    @Column(name = "checksum", nullable = false, length = 64)
+    private String checksum; // SHA-256 hex, same as FileStorage.checksum
+    
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+    
+    @Column(name = "crc32")
+    private Long crc32; // CRC-32 of the content, so ZIP downloads can store it without reading it twice
+    
+    // checksum, sizeBytes and crc32 describe the original content; the file may
+    // hold it compressed (see ContentCompressor), decided once when the row is created
+    @Column(name = "encoding", length = 10)
+    private String encoding; // null = stored as is, "gzip"
+    
+    @Column(name = "stored_size")
+    private Long storedSize; // Bytes on disk; null for rows older than compression (same as sizeBytes)
+    
+    @Column(name = "path", nullable = false, length = 500)
+    private String path;
+    
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount = 0;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "last_referenced_at")
+    private LocalDateTime lastReferencedAt;
+    
+    @Column(name = "orphaned_at")
+    private LocalDateTime orphanedAt; // Set when refCount drops to 0
+    
+    // Tiering: the hot copy lives at path; a cold copy (once made) is kept
+    // until the blob is collected, so re-demotion after a rehydration is free
+    @Column(name = "hot_copy", nullable = false)
+    private Boolean hotCopy = true;
+    
+    @Column(name = "demoted_at")
+    private LocalDateTime demotedAt; // Cold copy made; hot copy removed after a grace period
+    
+    @Column(name = "cold_backend", length = 20)
+    private String coldBackend;
+    
+    @Column(name = "cold_locator", length = 500)
+    private String coldLocator;
+    
+    // Constructors
+    public StoredBlob() {
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public String getScope() { return scope; }
+    public void setScope(String scope) { this.scope = scope; }
+    
+    public String getChecksum() { return checksum; }
+    public void setChecksum(String checksum) { this.checksum = checksum; }
+    
+    public Long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(Long sizeBytes) { this.sizeBytes = sizeBytes; }
+    
+    public Long getCrc32() { return crc32; }
+    public void setCrc32(Long crc32) { this.crc32 = crc32; }
+    
+    public String getEncoding() { return encoding; }
+    public void setEncoding(String encoding) { this.encoding = encoding; }
+    
+    public Long getStoredSize() { return storedSize; }
+    public void setStoredSize(Long storedSize) { this.storedSize = storedSize; }
+    
+    public String getPath() { return path; }
+    public void setPath(String path) { this.path = path; }
+    
+    public Integer getRefCount() { return refCount; }
+    public void setRefCount(Integer refCount) { this.refCount = refCount; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public LocalDateTime getLastReferencedAt() { return lastReferencedAt; }
+    public void setLastReferencedAt(LocalDateTime lastReferencedAt) { this.lastReferencedAt = lastReferencedAt; }
+    
+    public LocalDateTime getOrphanedAt() { return orphanedAt; }
+    public void setOrphanedAt(LocalDateTime orphanedAt) { this.orphanedAt = orphanedAt; }
+    
+    public Boolean getHotCopy() { return hotCopy; }
+    public void setHotCopy(Boolean hotCopy) { this.hotCopy = hotCopy; }
+    
+    public LocalDateTime getDemotedAt() { return demotedAt; }
+    public void setDemotedAt(LocalDateTime demotedAt) { this.demotedAt = demotedAt; }
+    
+    public String getColdBackend() { return coldBackend; }
+    public void setColdBackend(String coldBackend) { this.coldBackend = coldBackend; }
+    
+    public String getColdLocator() { return coldLocator; }
+    public void setColdLocator(String coldLocator) { this.coldLocator = coldLocator; }
+}
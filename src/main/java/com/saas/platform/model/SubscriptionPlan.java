@@ -5,19 +5,21 @@ package com.saas.platform.model;
  
 public enum SubscriptionPlan {
     
-    FREE(0.0, 5, 1000),
-    BASIC(29.99, 25, 10000),
-    PRO(99.99, 100, 50000),
-    ENTERPRISE(299.99, -1, -1);  // -1 means unlimited
+    FREE(0.0, 5, 1000, 5),
+    BASIC(29.99, 25, 10000, 20),
+    PRO(99.99, 100, 50000, 100),
+    ENTERPRISE(299.99, -1, -1, -1);  // -1 means unlimited
     
     private final double monthlyPrice;
     private final int maxUsers;
     private final int maxApiCalls;
+    private final int maxFileVersions; // Versions kept per file, the current one included
     
-    SubscriptionPlan(double monthlyPrice, int maxUsers, int maxApiCalls) {
+    SubscriptionPlan(double monthlyPrice, int maxUsers, int maxApiCalls, int maxFileVersions) {
         this.monthlyPrice = monthlyPrice;
         this.maxUsers = maxUsers;
         this.maxApiCalls = maxApiCalls;
+        this.maxFileVersions = maxFileVersions;
     }
     
     public double getMonthlyPrice() {
@@ -32,6 +34,10 @@ public enum SubscriptionPlan {
         return maxApiCalls;
     }
     
+    public int getMaxFileVersions() {
+        return maxFileVersions;
+    }
+    
     public boolean isUnlimited() {
         return maxUsers == -1;
     }
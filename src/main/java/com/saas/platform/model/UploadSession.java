@@ -0,0 +1,120 @@
+package com.saas.platform.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+//
+// UploadSession Entity - A resumable upload in progress
+// Chunks are written in place into a preallocated staging file; received
+// chunks are tracked in upload_session_chunks
+ 
+@Entity
+@Table(name = "upload_sessions", indexes = {
+    @Index(name = "idx_upload_sessions_expires", columnList = "expires_at")
+})
+public class UploadSession {
+    
+    @Id
+    @Column(name = "id", length = 36)
+    private String id; // UUID, used in upload URLs
+    
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(name = "filename", nullable = false, length = 255)
+    private String filename;
+    
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+    
+    @Column(name = "description", columnDefinition = "TEXT")
+    private String description;
+    
+    @Column(name = "category", length = 50)
+    private String category;
+    
+    @Column(name = "total_size", nullable = false)
+    private Long totalSize;
+    
+    @Column(name = "chunk_size", nullable = false)
+    private Integer chunkSize;
+    
+    @Column(name = "chunk_count", nullable = false)
+    private Integer chunkCount;
+    
+    @Column(name = "expected_checksum", length = 64)
+    private String expectedChecksum; // Optional SHA-256 supplied by the client, verified at commit
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private UploadSessionStatus status = UploadSessionStatus.OPEN;
+    
+    @Column(name = "file_id")
+    private Long fileId; // FileStorage record once committed
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt; // Pushed forward by every chunk
+    
+    // Constructors
+    public UploadSession() {
+    }
+    
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    
+    public Long getTenantId() { return tenantId; }
+    public void setTenantId(Long tenantId) { this.tenantId = tenantId; }
+    
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    
+    public String getFilename() { return filename; }
+    public void setFilename(String filename) { this.filename = filename; }
+    
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+    
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+    
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+    
+    public Long getTotalSize() { return totalSize; }
+    public void setTotalSize(Long totalSize) { this.totalSize = totalSize; }
+    
+    public Integer getChunkSize() { return chunkSize; }
+    public void setChunkSize(Integer chunkSize) { this.chunkSize = chunkSize; }
+    
+    public Integer getChunkCount() { return chunkCount; }
+    public void setChunkCount(Integer chunkCount) { this.chunkCount = chunkCount; }
+    
+    public String getExpectedChecksum() { return expectedChecksum; }
+    public void setExpectedChecksum(String expectedChecksum) { this.expectedChecksum = expectedChecksum; }
+    
+    public UploadSessionStatus getStatus() { return status; }
+    public void setStatus(UploadSessionStatus status) { this.status = status; }
+    
+    public Long getFileId() { return fileId; }
+    public void setFileId(Long fileId) { this.fileId = fileId; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+    
+    // Utility methods
+    public long chunkLength(int index) {
+        return index == chunkCount - 1
+            ? totalSize - (long) chunkSize * (chunkCount - 1)
+            : chunkSize;
+    }
+}
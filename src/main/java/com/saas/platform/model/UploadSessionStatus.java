@@ -0,0 +1,11 @@
+package com.saas.platform.model;
+
+//
+// Lifecycle of a resumable upload session
+ 
+public enum UploadSessionStatus {
+    OPEN,        // Accepting chunks
+    COMMITTING,  // Being verified and registered; no more chunks
+    COMMITTED,   // Became a FileStorage record
+    FAILED       // Verification failed; data discarded
+}
@@ -30,7 +30,7 @@ public class Webhook {
     private Boolean isActive = true;
     
     @Column(name = "events", length = 500, nullable = false)
-    private String events; // Comma-separated: user.created,user.updated,subscription.changed
+    private String events; // Comma-separated: user.created,user.updated,subscription.* or *
     
     @Column(name = "retry_count")
     private Integer retryCount = 3;
@@ -38,6 +38,17 @@ public class Webhook {
     @Column(name = "timeout_seconds")
     private Integer timeoutSeconds = 30;
     
+    // Opt-in batching: events are delivered as one JSON array of up to
+    // batchMaxItems envelopes, sent at the latest batchMaxWaitMs after the first
+    @Column(name = "batch_enabled")
+    private Boolean batchEnabled = false;
+    
+    @Column(name = "batch_max_items")
+    private Integer batchMaxItems = 100;
+    
+    @Column(name = "batch_max_wait_ms")
+    private Integer batchMaxWaitMs = 1000;
+    
     @Column(name = "last_triggered_at")
     private LocalDateTime lastTriggeredAt;
     
@@ -131,6 +142,30 @@ public class Webhook {
         this.retryCount = retryCount;
     }
     
+    public Boolean getBatchEnabled() {
+        return batchEnabled;
+    }
+    
+    public void setBatchEnabled(Boolean batchEnabled) {
+        this.batchEnabled = batchEnabled;
+    }
+    
+    public Integer getBatchMaxItems() {
+        return batchMaxItems;
+    }
+    
+    public void setBatchMaxItems(Integer batchMaxItems) {
+        this.batchMaxItems = batchMaxItems;
+    }
+    
+    public Integer getBatchMaxWaitMs() {
+        return batchMaxWaitMs;
+    }
+    
+    public void setBatchMaxWaitMs(Integer batchMaxWaitMs) {
+        this.batchMaxWaitMs = batchMaxWaitMs;
+    }
+    
     public Integer getTimeoutSeconds() {
         return timeoutSeconds;
     }
@@ -190,10 +225,6 @@ public class Webhook {
     }
     
     // Utility methods
-    public boolean supportsEvent(String eventType) {
-        return events != null && events.contains(eventType);
-    }
-    
     public void recordSuccess() {
         this.successCount++;
         this.lastTriggeredAt = LocalDateTime.now();
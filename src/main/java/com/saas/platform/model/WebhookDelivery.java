@@ -0,0 +1,123 @@
+package com.saas.platform.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+//
+// WebhookDelivery Entity - Outbox row for one event to one webhook
+// Claimed by pollers with SELECT ... FOR UPDATE SKIP LOCKED; a lease lets
+// another node pick it up again if the claiming node dies mid-delivery
+ 
+@Entity
+@Table(name = "webhook_deliveries", indexes = {
+    @Index(name = "idx_webhook_deliveries_status_next", columnList = "status, next_attempt_at"),
+    @Index(name = "idx_webhook_deliveries_status_lease", columnList = "status, lease_until"),
+    @Index(name = "idx_webhook_deliveries_event", columnList = "webhook_event_id"),
+    @Index(name = "idx_webhook_deliveries_completed", columnList = "status, completed_at")
+})
+public class WebhookDelivery {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "webhook_event_id", nullable = false)
+    private Long webhookEventId;
+    
+    @Column(name = "webhook_id", nullable = false)
+    private Long webhookId;
+    
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private WebhookDeliveryStatus status = WebhookDeliveryStatus.PENDING;
+    
+    @Column(name = "claim_count", nullable = false)
+    private Integer claimCount = 0; // How many times a node has claimed this row
+    
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+    
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+    
+    @Column(name = "claimed_by", length = 100)
+    private String claimedBy;
+    
+    @Column(name = "last_status_code")
+    private Integer lastStatusCode;
+    
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+    
+    // Constructors
+    public WebhookDelivery() {
+    }
+    
+    public WebhookDelivery(Long webhookEventId, Long webhookId, Long tenantId) {
+        this.webhookEventId = webhookEventId;
+        this.webhookId = webhookId;
+        this.tenantId = tenantId;
+        this.status = WebhookDeliveryStatus.PENDING;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getWebhookEventId() { return webhookEventId; }
+    public void setWebhookEventId(Long webhookEventId) { this.webhookEventId = webhookEventId; }
+    
+    public Long getWebhookId() { return webhookId; }
+    public void setWebhookId(Long webhookId) { this.webhookId = webhookId; }
+    
+    public Long getTenantId() { return tenantId; }
+    public void setTenantId(Long tenantId) { this.tenantId = tenantId; }
+    
+    public WebhookDeliveryStatus getStatus() { return status; }
+    public void setStatus(WebhookDeliveryStatus status) { this.status = status; }
+    
+    public Integer getClaimCount() { return claimCount; }
+    public void setClaimCount(Integer claimCount) { this.claimCount = claimCount; }
+    
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+    
+    public LocalDateTime getLeaseUntil() { return leaseUntil; }
+    public void setLeaseUntil(LocalDateTime leaseUntil) { this.leaseUntil = leaseUntil; }
+    
+    public String getClaimedBy() { return claimedBy; }
+    public void setClaimedBy(String claimedBy) { this.claimedBy = claimedBy; }
+    
+    public Integer getLastStatusCode() { return lastStatusCode; }
+    public void setLastStatusCode(Integer lastStatusCode) { this.lastStatusCode = lastStatusCode; }
+    
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public void setCompletedAt(LocalDateTime completedAt) { this.completedAt = completedAt; }
+    
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+}
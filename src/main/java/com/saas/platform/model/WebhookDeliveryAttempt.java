@@ -0,0 +1,94 @@
+package com.saas.platform.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+//
+// WebhookDeliveryAttempt Entity - Append-only log of every webhook HTTP attempt
+ 
+@Entity
+@Table(name = "webhook_delivery_attempts", indexes = {
+    @Index(name = "idx_webhook_attempts_webhook_time", columnList = "webhook_id, attempted_at"),
+    @Index(name = "idx_webhook_attempts_tenant_time", columnList = "tenant_id, attempted_at"),
+    @Index(name = "idx_webhook_attempts_event", columnList = "event_id")
+})
+public class WebhookDeliveryAttempt {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+    
+    @Column(name = "webhook_id", nullable = false)
+    private Long webhookId;
+    
+    @Column(name = "event_id", nullable = false, length = 36)
+    private String eventId; // Event id, or batch id for batched requests
+    
+    @Column(name = "event_type", length = 100)
+    private String eventType;
+    
+    @Column(name = "batch_size", nullable = false)
+    private Integer batchSize = 0; // 0 = single event
+    
+    @Column(name = "attempt_number", nullable = false)
+    private Integer attemptNumber;
+    
+    @Column(name = "success", nullable = false)
+    private Boolean success;
+    
+    @Column(name = "response_code")
+    private Integer responseCode;
+    
+    @Column(name = "latency_ms", nullable = false)
+    private Long latencyMs;
+    
+    @Column(name = "error", length = 500)
+    private String error;
+    
+    @Column(name = "attempted_at", nullable = false)
+    private LocalDateTime attemptedAt;
+    
+    // Constructors
+    public WebhookDeliveryAttempt() {
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getTenantId() { return tenantId; }
+    public void setTenantId(Long tenantId) { this.tenantId = tenantId; }
+    
+    public Long getWebhookId() { return webhookId; }
+    public void setWebhookId(Long webhookId) { this.webhookId = webhookId; }
+    
+    public String getEventId() { return eventId; }
+    public void setEventId(String eventId) { this.eventId = eventId; }
+    
+    public String getEventType() { return eventType; }
+    public void setEventType(String eventType) { this.eventType = eventType; }
+    
+    public Integer getBatchSize() { return batchSize; }
+    public void setBatchSize(Integer batchSize) { this.batchSize = batchSize; }
+    
+    public Integer getAttemptNumber() { return attemptNumber; }
+    public void setAttemptNumber(Integer attemptNumber) { this.attemptNumber = attemptNumber; }
+    
+    public Boolean getSuccess() { return success; }
+    public void setSuccess(Boolean success) { this.success = success; }
+    
+    public Integer getResponseCode() { return responseCode; }
+    public void setResponseCode(Integer responseCode) { this.responseCode = responseCode; }
+    
+    public Long getLatencyMs() { return latencyMs; }
+    public void setLatencyMs(Long latencyMs) { this.latencyMs = latencyMs; }
+    
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+    
+    public LocalDateTime getAttemptedAt() { return attemptedAt; }
+    public void setAttemptedAt(LocalDateTime attemptedAt) { this.attemptedAt = attemptedAt; }
+}
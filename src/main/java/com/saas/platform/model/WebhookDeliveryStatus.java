@@ -0,0 +1,11 @@
+package com.saas.platform.model;
+
+//
+// Lifecycle of a webhook outbox delivery row
+ 
+public enum WebhookDeliveryStatus {
+    PENDING,     // Waiting to be claimed (nextAttemptAt in the past)
+    IN_FLIGHT,   // Claimed by a node and handed to the delivery engine
+    DELIVERED,   // Receiver acknowledged with 2xx
+    FAILED       // All attempts exhausted
+}
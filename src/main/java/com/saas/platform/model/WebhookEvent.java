@@ -0,0 +1,73 @@
+package com.saas.platform.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+//
+// WebhookEvent Entity - Outbox record of an event to deliver to webhooks
+// Written in the same transaction as the change that raised the event
+ 
+@Entity
+@Table(name = "webhook_events", indexes = {
+    @Index(name = "idx_webhook_events_tenant_created", columnList = "tenant_id, created_at")
+})
+public class WebhookEvent {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "event_id", nullable = false, unique = true, length = 36)
+    private String eventId; // Public idempotency id sent to receivers
+    
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+    
+    @Column(name = "event_type", nullable = false, length = 100)
+    private String eventType;
+    
+    @Lob
+    @Column(name = "payload", columnDefinition = "LONGTEXT")
+    private String payload; // Complete JSON request body (envelope + data), sent byte-for-byte
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    // Constructors
+    public WebhookEvent() {
+    }
+    
+    public WebhookEvent(String eventId, Long tenantId, String eventType, String payload) {
+        this.eventId = eventId;
+        this.tenantId = tenantId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public String getEventId() { return eventId; }
+    public void setEventId(String eventId) { this.eventId = eventId; }
+    
+    public Long getTenantId() { return tenantId; }
+    public void setTenantId(Long tenantId) { this.tenantId = tenantId; }
+    
+    public String getEventType() { return eventType; }
+    public void setEventType(String eventType) { this.eventType = eventType; }
+    
+    public String getPayload() { return payload; }
+    public void setPayload(String payload) { this.payload = payload; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+}
@@ -2,6 +2,9 @@ package com.saas.platform.repository;
 
 import com.saas.platform.model.ApiKey;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -15,9 +18,14 @@ import java.util.Optional;
 public interface ApiKeyRepository extends JpaRepository<ApiKey, Long> {
     
     //
-// Find API key by its value
+// Find API key by the SHA-256 digest of its value
      
-    Optional<ApiKey> findByKeyValue(String keyValue);
+    Optional<ApiKey> findByKeyHash(String keyHash);
+    
+    //
+// Find keys still stored in plaintext (created before hashing)
+     
+    List<ApiKey> findByKeyHashStartingWith(String prefix);
     
     //
 // Find all API keys for a tenant
@@ -45,7 +53,15 @@ public interface ApiKeyRepository extends JpaRepository<ApiKey, Long> {
     List<ApiKey> findByExpiresAtBeforeAndIsActiveTrue(LocalDateTime dateTime);
     
     //
-// Check if API key exists by value
+// Check if API key exists by digest
+     
+    boolean existsByKeyHash(String keyHash);
+    
+    //
+// Add a coalesced usage delta in place without loading the entity
      
-    boolean existsByKeyValue(String keyValue);
+    @Modifying
+    @Query("UPDATE ApiKey k SET k.usageCount = COALESCE(k.usageCount, 0) + :delta, " +
+           "k.lastUsedAt = :usedAt WHERE k.id = :id")
+    int addUsage(@Param("id") Long id, @Param("delta") long delta, @Param("usedAt") LocalDateTime usedAt);
 }
\ No newline at end of file
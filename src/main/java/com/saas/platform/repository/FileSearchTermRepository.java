@@ -0,0 +1,60 @@
+package com.saas.platform.repository;
+
+import com.saas.platform.model.FileSearchTerm;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+//
+// FileSearchTermRepository - Inverted index over file names, tags and descriptions
+ 
+@Repository
+public interface FileSearchTermRepository extends JpaRepository<FileSearchTerm, Long> {
+    
+    //
+// Ranked file ids matching every exact term plus the prefix term.
+// A posting counts towards the exact term it equals, otherwise towards the
+// prefix (''), so required = exact terms + 1 when a prefix is given.
+     
+    @Query(value = "SELECT t.file_id FROM file_search_terms t " +
+                   "WHERE t.tenant_id = :tenantId AND (t.term IN (:terms) OR t.term LIKE :prefix) " +
+                   "GROUP BY t.file_id " +
+                   "HAVING COUNT(DISTINCT CASE WHEN t.term IN (:terms) THEN t.term ELSE '' END) = :required " +
+                   "ORDER BY SUM(t.weight) DESC, t.file_id DESC " +
+                   "LIMIT :limit OFFSET :offset",
+           nativeQuery = true)
+    List<Long> searchFileIds(@Param("tenantId") Long tenantId,
+                             @Param("terms") Collection<String> terms,
+                             @Param("prefix") String prefix,
+                             @Param("required") int required,
+                             @Param("limit") int limit,
+                             @Param("offset") int offset);
+    
+    //
+// Most common terms starting with a prefix; only the first scanLimit postings
+// in term order are looked at, so short prefixes stay cheap
+     
+    @Query(value = "SELECT s.term FROM (" +
+                   "SELECT t.term FROM file_search_terms t " +
+                   "WHERE t.tenant_id = :tenantId AND t.term LIKE :prefix " +
+                   "ORDER BY t.term LIMIT :scanLimit) s " +
+                   "GROUP BY s.term ORDER BY COUNT(*) DESC, s.term LIMIT :limit",
+           nativeQuery = true)
+    List<String> suggestTerms(@Param("tenantId") Long tenantId,
+                              @Param("prefix") String prefix,
+                              @Param("scanLimit") int scanLimit,
+                              @Param("limit") int limit);
+    
+    @Modifying
+    @Query("DELETE FROM FileSearchTerm t WHERE t.fileId = :fileId")
+    int deleteByFileId(@Param("fileId") Long fileId);
+    
+    @Modifying
+    @Query("DELETE FROM FileSearchTerm t WHERE t.fileId IN :fileIds")
+    int deleteByFileIdIn(@Param("fileIds") Collection<Long> fileIds);
+}
@@ -0,0 +1,64 @@
+package com.saas.platform.repository;
+
+import com.saas.platform.model.FileShare;
+import com.saas.platform.model.FileStorage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+//
+// FileShareRepository - Per-user file access grants
+ 
+@Repository
+public interface FileShareRepository extends JpaRepository<FileShare, Long> {
+    
+    //
+// Grant or update access; re-sharing replaces permission and expiry
+     
+    @Modifying
+    @Query(value = "INSERT INTO file_shares (file_id, user_id, tenant_id, permission, shared_by, created_at, expires_at) " +
+                   "VALUES (:fileId, :userId, :tenantId, :permission, :sharedBy, :now, :expiresAt) " +
+                   "ON DUPLICATE KEY UPDATE permission = :permission, shared_by = :sharedBy, expires_at = :expiresAt",
+           nativeQuery = true)
+    int upsert(@Param("fileId") Long fileId,
+               @Param("userId") Long userId,
+               @Param("tenantId") Long tenantId,
+               @Param("permission") String permission,
+               @Param("sharedBy") Long sharedBy,
+               @Param("now") LocalDateTime now,
+               @Param("expiresAt") LocalDateTime expiresAt);
+    
+    List<FileShare> findByFileIdOrderByCreatedAtAsc(Long fileId);
+    
+    // Files shared with a user, newest first (range scan of idx_file_shares_user)
+    @Query("SELECT f FROM FileShare s, FileStorage f WHERE f.id = s.fileId " +
+           "AND s.userId = :userId AND s.tenantId = :tenantId " +
+           "AND (s.expiresAt IS NULL OR s.expiresAt > :now) AND f.deletedAt IS NULL " +
+           "ORDER BY s.fileId DESC")
+    List<FileStorage> findFilesSharedWith(@Param("userId") Long userId,
+                                          @Param("tenantId") Long tenantId,
+                                          @Param("now") LocalDateTime now,
+                                          Pageable pageable);
+    
+    @Modifying
+    @Query("DELETE FROM FileShare s WHERE s.fileId = :fileId AND s.userId IN :userIds")
+    int deleteByFileIdAndUserIds(@Param("fileId") Long fileId, @Param("userIds") Collection<Long> userIds);
+    
+    @Modifying
+    @Query("DELETE FROM FileShare s WHERE s.fileId = :fileId")
+    int deleteByFileId(@Param("fileId") Long fileId);
+    
+    @Modifying
+    @Query("DELETE FROM FileShare s WHERE s.fileId IN :fileIds")
+    int deleteByFileIdIn(@Param("fileIds") Collection<Long> fileIds);
+    
+    @Query("SELECT s.id FROM FileShare s WHERE s.expiresAt < :cutoff")
+    List<Long> findExpiredIds(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+}
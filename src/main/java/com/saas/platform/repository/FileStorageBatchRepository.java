@@ -0,0 +1,19 @@
+package com.saas.platform.repository;
+
+import com.saas.platform.model.FileStorage;
+
+import java.util.List;
+
+//
+// FileStorageBatchRepository - Bulk writes of file records that JPA cannot batch
+// FileStorage ids are IDENTITY, so Hibernate sends one INSERT per row; these
+// go to the database as one JDBC batch instead.
+
+public interface FileStorageBatchRepository {
+
+    //
+// Insert new records as one JDBC batch and assign their generated ids.
+// The records are not attached to the persistence context afterwards.
+
+    void insertAll(List<FileStorage> files);
+}
@@ -0,0 +1,87 @@
+package com.saas.platform.repository;
+
+import com.saas.platform.model.FileStorage;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+
+//
+// FileStorageBatchRepositoryImpl - JDBC batch insert of file records
+// Runs on the connection of the surrounding JPA transaction. Columns not set
+// here take the same defaults as a FileStorage built with its constructor.
+
+public class FileStorageBatchRepositoryImpl implements FileStorageBatchRepository {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO file_storage (tenant_id, uploaded_by, original_filename, stored_filename, file_path, " +
+        "file_size, mime_type, file_extension, description, category, is_public, download_count, version, " +
+        "storage_provider, cloud_storage_url, checksum, blob_id, search_indexed_at, created_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public FileStorageBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertAll(List<FileStorage> files) {
+        if (files.isEmpty()) {
+            return;
+        }
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    FileStorage file = files.get(i);
+                    ps.setLong(1, file.getTenantId());
+                    ps.setLong(2, file.getUploadedBy());
+                    ps.setString(3, file.getOriginalFilename());
+                    ps.setString(4, file.getStoredFilename());
+                    ps.setString(5, file.getFilePath());
+                    ps.setLong(6, file.getFileSize());
+                    ps.setString(7, file.getMimeType());
+                    ps.setString(8, file.getFileExtension());
+                    ps.setString(9, file.getDescription());
+                    ps.setString(10, file.getCategory());
+                    ps.setBoolean(11, Boolean.TRUE.equals(file.getIsPublic()));
+                    ps.setLong(12, file.getDownloadCount() != null ? file.getDownloadCount() : 0L);
+                    ps.setInt(13, file.getVersion() != null ? file.getVersion() : 1);
+                    ps.setString(14, file.getStorageProvider());
+                    ps.setString(15, file.getCloudStorageUrl());
+                    ps.setString(16, file.getChecksum());
+                    if (file.getBlobId() != null) {
+                        ps.setLong(17, file.getBlobId());
+                    } else {
+                        ps.setNull(17, Types.BIGINT);
+                    }
+                    ps.setTimestamp(18, file.getSearchIndexedAt() != null
+                        ? Timestamp.valueOf(file.getSearchIndexedAt()) : null);
+                    ps.setTimestamp(19, Timestamp.valueOf(file.getCreatedAt()));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return files.size();
+                }
+            }, keys);
+
+        List<Map<String, Object>> generated = keys.getKeyList();
+        if (generated.size() != files.size()) {
+            throw new IllegalStateException("Expected " + files.size() + " generated ids, got " + generated.size());
+        }
+        for (int i = 0; i < files.size(); i++) {
+            files.get(i).setId(((Number) generated.get(i).values().iterator().next()).longValue());
+        }
+    }
+}
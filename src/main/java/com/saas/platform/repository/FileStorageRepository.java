@@ -1,19 +1,23 @@
 package com.saas.platform.repository;
 
 import com.saas.platform.model.FileStorage;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 //
 // FileStorageRepository - Database operations for file storage
  
 @Repository
-public interface FileStorageRepository extends JpaRepository<FileStorage, Long> {
+public interface FileStorageRepository extends JpaRepository<FileStorage, Long>, FileStorageBatchRepository {
     
     // Find files by tenant (excluding deleted)
     List<FileStorage> findByTenantIdAndDeletedAtIsNullOrderByCreatedAtDesc(Long tenantId);
@@ -21,25 +25,30 @@ public interface FileStorageRepository extends JpaRepository<FileStorage, Long>
     // Find files by user (excluding deleted)
     List<FileStorage> findByUploadedByAndDeletedAtIsNullOrderByCreatedAtDesc(Long uploadedBy);
     
+    // Live files of a tenant after an id, in id order (keyset paging for exports)
+    List<FileStorage> findByTenantIdAndDeletedAtIsNullAndIdGreaterThanOrderByIdAsc(
+        Long tenantId, Long afterId, Pageable pageable);
+    
+    // Files stored before the blob store (own file, known checksum) after an id (integrity scrubber)
+    List<FileStorage> findByBlobIdIsNullAndChecksumIsNotNullAndIdGreaterThanOrderByIdAsc(
+        Long afterId, Pageable pageable);
+    
     // Find files by category
     List<FileStorage> findByTenantIdAndCategoryAndDeletedAtIsNull(Long tenantId, String category);
     
-    // Search files by name
-    List<FileStorage> findByTenantIdAndOriginalFilenameContainingIgnoreCaseAndDeletedAtIsNull(
-        Long tenantId, String keyword);
-    
     // Find deleted files (trash)
     List<FileStorage> findByTenantIdAndDeletedAtIsNotNull(Long tenantId);
     
     // Find recent files
     List<FileStorage> findTop10ByTenantIdAndDeletedAtIsNullOrderByCreatedAtDesc(Long tenantId);
     
-    // Find files by tags
-    List<FileStorage> findByTenantIdAndTagsContainingAndDeletedAtIsNull(Long tenantId, String tag);
+    // Live files not yet in the search index (backfill)
+    @Query("SELECT f.id FROM FileStorage f WHERE f.searchIndexedAt IS NULL AND f.deletedAt IS NULL ORDER BY f.id")
+    List<Long> findUnindexedIds(Pageable pageable);
     
-    // Find shared files for a user
-    @Query("SELECT f FROM FileStorage f WHERE f.tenantId = :tenantId AND f.sharedWith LIKE CONCAT('%', :userId, '%') AND f.deletedAt IS NULL")
-    List<FileStorage> findSharedFiles(@Param("tenantId") Long tenantId, @Param("userId") String userId);
+    // Files still carrying the legacy comma-separated share list
+    @Query("SELECT f.id FROM FileStorage f WHERE f.sharedWith IS NOT NULL ORDER BY f.id")
+    List<Long> findIdsWithLegacyShares(Pageable pageable);
     
     // Find expired files
     List<FileStorage> findByExpiresAtBeforeAndDeletedAtIsNull(LocalDateTime dateTime);
@@ -59,6 +68,59 @@ public interface FileStorageRepository extends JpaRepository<FileStorage, Long>
     @Query("SELECT f FROM FileStorage f WHERE f.tenantId = ?1 AND f.fileSize > ?2 AND f.deletedAt IS NULL")
     List<FileStorage> findLargeFiles(Long tenantId, Long minSize);
     
+    // Add coalesced downloads
+    @Modifying
+    @Query("UPDATE FileStorage f SET f.downloadCount = COALESCE(f.downloadCount, 0) + :delta, " +
+           "f.lastAccessedAt = :accessedAt WHERE f.id = :id")
+    int addDownloads(@Param("id") Long id, @Param("delta") long delta, @Param("accessedAt") LocalDateTime accessedAt);
+    
+    // Record where the shared blob of these files currently lives
+    @Modifying
+    @Query("UPDATE FileStorage f SET f.storageProvider = :provider, f.cloudStorageUrl = :url WHERE f.blobId = :blobId")
+    int updateStorageLocation(@Param("blobId") Long blobId, @Param("provider") String provider, @Param("url") String url);
+    
+    //
+// Lock live files past their expiry; rows locked by another node are skipped
+     
+    @Query(value = "SELECT id FROM file_storage WHERE expires_at < :now AND deleted_at IS NULL " +
+                   "ORDER BY expires_at LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Long> lockExpired(@Param("now") LocalDateTime now, @Param("limit") int limit);
+    
+    @Modifying
+    @Query("UPDATE FileStorage f SET f.deletedAt = :now WHERE f.id IN :ids AND f.deletedAt IS NULL")
+    int moveToTrash(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+    
+    //
+// Lock trash past retention that no purge holds a live lease on
+     
+    @Query(value = "SELECT id FROM file_storage WHERE deleted_at < :cutoff " +
+                   "AND (purge_lease_until IS NULL OR purge_lease_until < :now) " +
+                   "ORDER BY deleted_at LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Long> lockPurgeable(@Param("cutoff") LocalDateTime cutoff,
+                             @Param("now") LocalDateTime now,
+                             @Param("limit") int limit);
+    
+    @Modifying
+    @Query("UPDATE FileStorage f SET f.purgeLeaseUntil = :leaseUntil WHERE f.id IN :ids")
+    int claimForPurge(@Param("ids") Collection<Long> ids, @Param("leaseUntil") LocalDateTime leaseUntil);
+    
+    //
+// Re-lock claimed rows before deleting them; rows restored, deleted or
+// re-claimed by another node since (different lease) drop out
+     
+    @Query(value = "SELECT id FROM file_storage WHERE id IN (:ids) AND purge_lease_until = :leaseUntil " +
+                   "AND deleted_at IS NOT NULL FOR UPDATE",
+           nativeQuery = true)
+    List<Long> lockClaimed(@Param("ids") Collection<Long> ids, @Param("leaseUntil") LocalDateTime leaseUntil);
+    
+    //
+// Lock a file while a new version replaces its content
+     
+    @Query(value = "SELECT * FROM file_storage WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<FileStorage> lockById(@Param("id") Long id);
+    
     // Find files uploaded in date range
     List<FileStorage> findByTenantIdAndCreatedAtBetweenAndDeletedAtIsNull(
         Long tenantId, LocalDateTime start, LocalDateTime end);
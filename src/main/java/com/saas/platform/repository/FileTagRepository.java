@@ -0,0 +1,31 @@
+package com.saas.platform.repository;
+
+import com.saas.platform.model.FileTag;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+//
+// FileTagRepository - Normalized file tags
+ 
+@Repository
+public interface FileTagRepository extends JpaRepository<FileTag, Long> {
+    
+    // Files carrying a tag, newest first
+    @Query("SELECT t.fileId FROM FileTag t WHERE t.tenantId = :tenantId AND t.tag = :tag ORDER BY t.fileId DESC")
+    List<Long> findFileIds(@Param("tenantId") Long tenantId, @Param("tag") String tag, Pageable pageable);
+    
+    @Modifying
+    @Query("DELETE FROM FileTag t WHERE t.fileId = :fileId")
+    int deleteByFileId(@Param("fileId") Long fileId);
+    
+    @Modifying
+    @Query("DELETE FROM FileTag t WHERE t.fileId IN :fileIds")
+    int deleteByFileIdIn(@Param("fileIds") Collection<Long> fileIds);
+}
@@ -0,0 +1,28 @@
+package com.saas.platform.repository;
+
+import com.saas.platform.model.FileVersionChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+//
+// FileVersionChunkRepository - Chunk lists of archived file versions
+ 
+@Repository
+public interface FileVersionChunkRepository extends JpaRepository<FileVersionChunk, Long> {
+    
+    List<FileVersionChunk> findByVersionIdOrderBySeqAsc(Long versionId);
+    
+    // One entry per row (duplicates included), i.e. one per blob reference held
+    @Query("SELECT c.blobId FROM FileVersionChunk c WHERE c.versionId IN :versionIds")
+    List<Long> findBlobIdsByVersionIdIn(@Param("versionIds") Collection<Long> versionIds);
+    
+    @Modifying
+    @Query("DELETE FROM FileVersionChunk c WHERE c.versionId IN :versionIds")
+    int deleteByVersionIdIn(@Param("versionIds") Collection<Long> versionIds);
+}
@@ -0,0 +1,25 @@
+package com.saas.platform.repository;
+
+import com.saas.platform.model.FileVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+//
+// FileVersionRepository - Version history of files
+ 
+@Repository
+public interface FileVersionRepository extends JpaRepository<FileVersion, Long> {
+    
+    List<FileVersion> findByFileIdOrderByVersionNumberDesc(Long fileId);
+    
+    Optional<FileVersion> findByFileIdAndVersionNumber(Long fileId, Integer versionNumber);
+    
+    @Query("SELECT v.id FROM FileVersion v WHERE v.fileId IN :fileIds")
+    List<Long> findIdsByFileIdIn(@Param("fileIds") Collection<Long> fileIds);
+}
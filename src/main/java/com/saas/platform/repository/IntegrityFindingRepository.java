@@ -0,0 +1,53 @@
+package com.saas.platform.repository;
+
+import com.saas.platform.model.IntegrityFinding;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+//
+// IntegrityFindingRepository - Content that failed verification
+ 
+@Repository
+public interface IntegrityFindingRepository extends JpaRepository<IntegrityFinding, Long> {
+    
+    //
+// Record a failed check; a finding seen again is reopened and keeps its first detection time
+     
+    @Modifying
+    @Query(value = "INSERT INTO integrity_findings (target_type, target_id, problem, path, expected_checksum, " +
+                   "actual_checksum, detail, detected_at, last_checked_at) " +
+                   "VALUES (:targetType, :targetId, :problem, :path, :expected, :actual, :detail, :now, :now) " +
+                   "ON DUPLICATE KEY UPDATE problem = :problem, path = :path, expected_checksum = :expected, " +
+                   "actual_checksum = :actual, detail = :detail, last_checked_at = :now, resolved_at = NULL",
+           nativeQuery = true)
+    int record(@Param("targetType") String targetType,
+               @Param("targetId") Long targetId,
+               @Param("problem") String problem,
+               @Param("path") String path,
+               @Param("expected") String expected,
+               @Param("actual") String actual,
+               @Param("detail") String detail,
+               @Param("now") LocalDateTime now);
+    
+    //
+// Close open findings of objects that verified fine
+     
+    @Modifying
+    @Query("UPDATE IntegrityFinding f SET f.resolvedAt = :now, f.lastCheckedAt = :now " +
+           "WHERE f.targetType = :targetType AND f.targetId IN :targetIds AND f.resolvedAt IS NULL")
+    int resolve(@Param("targetType") String targetType,
+                @Param("targetIds") Collection<Long> targetIds,
+                @Param("now") LocalDateTime now);
+    
+    List<IntegrityFinding> findByResolvedAtIsNullOrderByDetectedAtDesc(Pageable pageable);
+    
+    long countByResolvedAtIsNull();
+}
@@ -0,0 +1,56 @@
+package com.saas.platform.repository;
+
+import com.saas.platform.model.ScrubCursor;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+//
+// ScrubCursorRepository - Persisted positions of the integrity scrubber
+ 
+@Repository
+public interface ScrubCursorRepository extends JpaRepository<ScrubCursor, String> {
+    
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO scrub_cursors (name, last_id, updated_at) VALUES (:name, 0, :now)",
+           nativeQuery = true)
+    int createIfMissing(@Param("name") String name, @Param("now") LocalDateTime now);
+    
+    //
+// Take (or extend) the lease; 0 if another node holds it
+     
+    @Modifying
+    @Query(value = "UPDATE scrub_cursors SET lease_owner = :owner, lease_until = :leaseUntil " +
+                   "WHERE name = :name AND (lease_until IS NULL OR lease_until < :now OR lease_owner = :owner)",
+           nativeQuery = true)
+    int claim(@Param("name") String name,
+              @Param("owner") String owner,
+              @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+    
+    @Modifying
+    @Query(value = "UPDATE scrub_cursors SET last_id = :lastId, updated_at = :now, " +
+                   "pass_started_at = COALESCE(pass_started_at, :now) " +
+                   "WHERE name = :name AND lease_owner = :owner",
+           nativeQuery = true)
+    int advance(@Param("name") String name,
+                @Param("owner") String owner,
+                @Param("lastId") long lastId,
+                @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query(value = "UPDATE scrub_cursors SET last_id = 0, pass_started_at = NULL, last_pass_completed_at = :now, " +
+                   "updated_at = :now WHERE name = :name AND lease_owner = :owner",
+           nativeQuery = true)
+    int completePass(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query(value = "UPDATE scrub_cursors SET lease_owner = NULL, lease_until = NULL " +
+                   "WHERE name = :name AND lease_owner = :owner",
+           nativeQuery = true)
+    int release(@Param("name") String name, @Param("owner") String owner);
+}
@@ -0,0 +1,120 @@
+package com.saas.platform.repository;
+
+import com.saas.platform.model.StoredBlob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+//
+// StoredBlobRepository - Reference-counted content-addressed blobs
+ 
+@Repository
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, Long> {
+    
+    Optional<StoredBlob> findByScopeAndChecksum(String scope, String checksum);
+    
+    //
+// Add a reference, creating the row on first use.
+// Returns 1 when the row was inserted, 2 when an existing row was updated.
+// encoding and stored_size are only taken on insert: an existing blob keeps its file.
+     
+    @Modifying
+    @Query(value = "INSERT INTO stored_blobs (scope, checksum, size_bytes, crc32, encoding, stored_size, path, ref_count, created_at, last_referenced_at) " +
+                   "VALUES (:scope, :checksum, :size, :crc32, :encoding, :storedSize, :path, 1, :now, :now) " +
+                   "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1, last_referenced_at = :now, orphaned_at = NULL, " +
+                   "crc32 = COALESCE(crc32, :crc32)",
+           nativeQuery = true)
+    int addReference(@Param("scope") String scope,
+                     @Param("checksum") String checksum,
+                     @Param("size") long size,
+                     @Param("crc32") long crc32,
+                     @Param("encoding") String encoding,
+                     @Param("storedSize") long storedSize,
+                     @Param("path") String path,
+                     @Param("now") LocalDateTime now);
+    
+    //
+// Drop a reference; orphaned_at is assigned first because MySQL applies SET left to right
+     
+    @Modifying
+    @Query(value = "UPDATE stored_blobs SET orphaned_at = CASE WHEN ref_count <= 1 THEN :now ELSE NULL END, " +
+                   "ref_count = ref_count - 1 WHERE id = :id AND ref_count > 0",
+           nativeQuery = true)
+    int releaseReference(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    //
+// Unreferenced blobs past the grace period
+     
+    @Query("SELECT b.id FROM StoredBlob b WHERE b.refCount = 0 AND b.orphanedAt < :cutoff ORDER BY b.orphanedAt")
+    List<Long> findOrphanIds(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+    
+    // Referenced blobs with a hot copy after an id, in id order (integrity scrubber)
+    @Query("SELECT b FROM StoredBlob b WHERE b.id > :afterId AND b.hotCopy = TRUE AND b.refCount > 0 ORDER BY b.id")
+    List<StoredBlob> findHotAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    //
+// Lock a blob for collection; empty if it was referenced again meanwhile
+     
+    @Query(value = "SELECT * FROM stored_blobs WHERE id = :id AND ref_count = 0 FOR UPDATE", nativeQuery = true)
+    Optional<StoredBlob> lockOrphan(@Param("id") Long id);
+    
+    //
+// Hot blobs whose every file has been idle since the cutoff (popular files use the longer cutoff)
+     
+    @Query(value = "SELECT b.id FROM stored_blobs b " +
+                   "WHERE b.hot_copy = TRUE AND b.demoted_at IS NULL AND b.ref_count > 0 " +
+                   "AND b.size_bytes >= :minSize AND b.created_at < :cutoff " +
+                   "AND NOT EXISTS (SELECT 1 FROM file_storage f WHERE f.blob_id = b.id " +
+                   "  AND COALESCE(f.last_accessed_at, f.created_at) >= " +
+                   "      CASE WHEN f.download_count >= :popularDownloads THEN :popularCutoff ELSE :cutoff END) " +
+                   "ORDER BY b.id LIMIT :limit",
+           nativeQuery = true)
+    List<Long> findDemotionCandidates(@Param("cutoff") LocalDateTime cutoff,
+                                      @Param("popularCutoff") LocalDateTime popularCutoff,
+                                      @Param("popularDownloads") long popularDownloads,
+                                      @Param("minSize") long minSize,
+                                      @Param("limit") int limit);
+    
+    @Modifying
+    @Query("UPDATE StoredBlob b SET b.demotedAt = :now, b.coldBackend = :backend, b.coldLocator = :locator " +
+           "WHERE b.id = :id AND b.hotCopy = TRUE AND b.demotedAt IS NULL")
+    int markDemoted(@Param("id") Long id,
+                    @Param("backend") String backend,
+                    @Param("locator") String locator,
+                    @Param("now") LocalDateTime now);
+    
+    @Query("SELECT b.id FROM StoredBlob b WHERE b.hotCopy = TRUE AND b.demotedAt < :cutoff ORDER BY b.demotedAt")
+    List<Long> findHotCopiesToDrop(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+    
+    //
+// Drop the hot copy flag; fails if the blob was read (demotion cancelled) meanwhile
+     
+    @Modifying
+    @Query("UPDATE StoredBlob b SET b.hotCopy = FALSE WHERE b.id = :id AND b.hotCopy = TRUE AND b.demotedAt < :cutoff")
+    int markCold(@Param("id") Long id, @Param("cutoff") LocalDateTime cutoff);
+    
+    @Modifying
+    @Query("UPDATE StoredBlob b SET b.hotCopy = TRUE, b.demotedAt = NULL WHERE b.id = :id")
+    int markHot(@Param("id") Long id);
+    
+    @Modifying
+    @Query("UPDATE StoredBlob b SET b.demotedAt = NULL WHERE b.id = :id AND b.hotCopy = TRUE AND b.demotedAt IS NOT NULL")
+    int cancelDemotion(@Param("id") Long id);
+    
+    long countByHotCopy(Boolean hotCopy);
+    
+    long countByRefCount(Integer refCount);
+    
+    @Query("SELECT COALESCE(SUM(b.sizeBytes), 0) FROM StoredBlob b")
+    Long sumSizeBytes();
+    
+    @Query("SELECT COALESCE(SUM(COALESCE(b.storedSize, b.sizeBytes)), 0) FROM StoredBlob b")
+    Long sumStoredSizeBytes();
+}
@@ -0,0 +1,40 @@
+package com.saas.platform.repository;
+
+import com.saas.platform.model.UploadSessionChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+//
+// UploadSessionChunkRepository - Received chunks of resumable uploads
+ 
+@Repository
+public interface UploadSessionChunkRepository extends JpaRepository<UploadSessionChunk, Long> {
+    
+    //
+// Mark a chunk received; re-sending a chunk just refreshes the row
+     
+    @Modifying
+    @Query(value = "INSERT INTO upload_session_chunks (session_id, chunk_index, size_bytes, received_at) " +
+                   "VALUES (:sessionId, :chunkIndex, :size, :now) " +
+                   "ON DUPLICATE KEY UPDATE size_bytes = :size, received_at = :now",
+           nativeQuery = true)
+    int recordChunk(@Param("sessionId") String sessionId,
+                    @Param("chunkIndex") int chunkIndex,
+                    @Param("size") long size,
+                    @Param("now") LocalDateTime now);
+    
+    @Query("SELECT c.chunkIndex FROM UploadSessionChunk c WHERE c.sessionId = :sessionId ORDER BY c.chunkIndex")
+    List<Integer> findChunkIndexes(@Param("sessionId") String sessionId);
+    
+    long countBySessionId(String sessionId);
+    
+    @Modifying
+    @Query("DELETE FROM UploadSessionChunk c WHERE c.sessionId = :sessionId")
+    int deleteBySessionId(@Param("sessionId") String sessionId);
+}
@@ -0,0 +1,46 @@
+package com.saas.platform.repository;
+
+import com.saas.platform.model.UploadSession;
+import com.saas.platform.model.UploadSessionStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+//
+// UploadSessionRepository - Resumable upload sessions
+ 
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+    
+    //
+// Compare-and-set the status; returns 0 if the session was not in the expected state
+     
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.status = :to, s.expiresAt = :expiresAt WHERE s.id = :id AND s.status = :from")
+    int transition(@Param("id") String id,
+                   @Param("from") UploadSessionStatus from,
+                   @Param("to") UploadSessionStatus to,
+                   @Param("expiresAt") LocalDateTime expiresAt);
+    
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.expiresAt = :expiresAt WHERE s.id = :id AND s.status = :status")
+    int extend(@Param("id") String id,
+               @Param("status") UploadSessionStatus status,
+               @Param("expiresAt") LocalDateTime expiresAt);
+    
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.status = :status, s.fileId = :fileId WHERE s.id = :id")
+    int complete(@Param("id") String id,
+                 @Param("status") UploadSessionStatus status,
+                 @Param("fileId") Long fileId);
+    
+    List<UploadSession> findByExpiresAtBefore(LocalDateTime cutoff, Pageable pageable);
+    
+    long countByStatus(UploadSessionStatus status);
+}
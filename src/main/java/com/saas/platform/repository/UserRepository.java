@@ -4,8 +4,11 @@ import com.saas.platform.model.User;
 import com.saas.platform.model.UserRole;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,6 +33,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
      
     List<User> findByTenantId(Long tenantId);
     
+    // Which of these users belong to the tenant
+    @Query("SELECT u.id FROM User u WHERE u.tenant.id = :tenantId AND u.id IN :ids")
+    List<Long> findIdsInTenant(@Param("tenantId") Long tenantId, @Param("ids") Collection<Long> ids);
+    
     //
 // Find user by email and tenant (ensures tenant isolation)
      
@@ -0,0 +1,42 @@
+package com.saas.platform.repository;
+
+import com.saas.platform.model.WebhookDeliveryAttempt;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+//
+// WebhookDeliveryAttemptRepository - Database operations for the webhook attempt log
+ 
+@Repository
+public interface WebhookDeliveryAttemptRepository extends JpaRepository<WebhookDeliveryAttempt, Long> {
+    
+    //
+// Attempts for a webhook in a time range (uses webhook_id, attempted_at index)
+     
+    Page<WebhookDeliveryAttempt> findByWebhookIdAndAttemptedAtBetween(
+        Long webhookId, LocalDateTime from, LocalDateTime to, Pageable pageable);
+    
+    Page<WebhookDeliveryAttempt> findByWebhookIdAndSuccessAndAttemptedAtBetween(
+        Long webhookId, Boolean success, LocalDateTime from, LocalDateTime to, Pageable pageable);
+    
+    //
+// All attempts for one event or batch
+     
+    List<WebhookDeliveryAttempt> findByEventIdOrderByAttemptedAtAsc(String eventId);
+    
+    //
+// Delete one chunk of attempts older than the cutoff
+     
+    @Modifying
+    @Query(value = "DELETE FROM webhook_delivery_attempts WHERE attempted_at < :cutoff LIMIT :limit",
+           nativeQuery = true)
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
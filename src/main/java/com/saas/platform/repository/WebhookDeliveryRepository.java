@@ -0,0 +1,130 @@
+package com.saas.platform.repository;
+
+import com.saas.platform.model.WebhookDelivery;
+import com.saas.platform.model.WebhookDeliveryStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+//
+// WebhookDeliveryRepository - Database operations for the webhook outbox
+ 
+@Repository
+public interface WebhookDeliveryRepository extends JpaRepository<WebhookDelivery, Long> {
+    
+    //
+// Lock due PENDING rows; rows locked by another poller are skipped, not waited on
+     
+    @Query(value = "SELECT id FROM webhook_deliveries WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+                   "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Long> lockDuePending(@Param("now") LocalDateTime now, @Param("limit") int limit);
+    
+    //
+// Lock IN_FLIGHT rows whose lease ran out (claiming node crashed or stalled)
+     
+    @Query(value = "SELECT id FROM webhook_deliveries WHERE status = 'IN_FLIGHT' AND lease_until < :now " +
+                   "ORDER BY lease_until LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Long> lockExpiredLeases(@Param("now") LocalDateTime now, @Param("limit") int limit);
+    
+    //
+// Mark locked rows as claimed by this node
+     
+    @Modifying
+    @Query("UPDATE WebhookDelivery d SET d.status = :status, d.leaseUntil = :leaseUntil, " +
+           "d.claimedBy = :node, d.claimCount = d.claimCount + 1 WHERE d.id IN :ids")
+    int claim(@Param("ids") Collection<Long> ids,
+              @Param("status") WebhookDeliveryStatus status,
+              @Param("leaseUntil") LocalDateTime leaseUntil,
+              @Param("node") String node);
+    
+    //
+// Record the final outcome; only applies while the row is still in flight
+     
+    @Transactional
+    @Modifying
+    @Query("UPDATE WebhookDelivery d SET d.status = :status, d.lastStatusCode = :statusCode, " +
+           "d.lastError = :error, d.completedAt = :at, d.leaseUntil = null " +
+           "WHERE d.id = :id AND d.status = com.saas.platform.model.WebhookDeliveryStatus.IN_FLIGHT")
+    int complete(@Param("id") Long id,
+                 @Param("status") WebhookDeliveryStatus status,
+                 @Param("statusCode") Integer statusCode,
+                 @Param("error") String error,
+                 @Param("at") LocalDateTime at);
+    
+    //
+// Hand an in-flight row back to the pollers, e.g. when the engine had no room
+     
+    @Transactional
+    @Modifying
+    @Query("UPDATE WebhookDelivery d SET d.status = com.saas.platform.model.WebhookDeliveryStatus.PENDING, " +
+           "d.nextAttemptAt = :nextAttemptAt, d.leaseUntil = null, d.claimedBy = null, " +
+           "d.claimCount = d.claimCount - 1, d.lastError = :reason " +
+           "WHERE d.id = :id AND d.status = com.saas.platform.model.WebhookDeliveryStatus.IN_FLIGHT")
+    int release(@Param("id") Long id,
+                @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                @Param("reason") String reason);
+    
+    //
+// Bulk forms of complete/release for batched deliveries
+     
+    @Transactional
+    @Modifying
+    @Query("UPDATE WebhookDelivery d SET d.status = :status, d.lastStatusCode = :statusCode, " +
+           "d.lastError = :error, d.completedAt = :at, d.leaseUntil = null " +
+           "WHERE d.id IN :ids AND d.status = com.saas.platform.model.WebhookDeliveryStatus.IN_FLIGHT")
+    int completeAll(@Param("ids") Collection<Long> ids,
+                    @Param("status") WebhookDeliveryStatus status,
+                    @Param("statusCode") Integer statusCode,
+                    @Param("error") String error,
+                    @Param("at") LocalDateTime at);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE WebhookDelivery d SET d.status = com.saas.platform.model.WebhookDeliveryStatus.PENDING, " +
+           "d.nextAttemptAt = :nextAttemptAt, d.leaseUntil = null, d.claimedBy = null, " +
+           "d.claimCount = d.claimCount - 1, d.lastError = :reason " +
+           "WHERE d.id IN :ids AND d.status = com.saas.platform.model.WebhookDeliveryStatus.IN_FLIGHT")
+    int releaseAll(@Param("ids") Collection<Long> ids,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                   @Param("reason") String reason);
+    
+    //
+// Send rows again later, counting this attempt (e.g. items a receiver rejected)
+     
+    @Transactional
+    @Modifying
+    @Query("UPDATE WebhookDelivery d SET d.status = com.saas.platform.model.WebhookDeliveryStatus.PENDING, " +
+           "d.nextAttemptAt = :nextAttemptAt, d.leaseUntil = null, d.claimedBy = null, d.lastError = :reason " +
+           "WHERE d.id IN :ids AND d.status = com.saas.platform.model.WebhookDeliveryStatus.IN_FLIGHT")
+    int rescheduleAll(@Param("ids") Collection<Long> ids,
+                      @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                      @Param("reason") String reason);
+    
+    //
+// Existing rows of a webhook for a set of events (used by replay)
+     
+    List<WebhookDelivery> findByWebhookIdAndWebhookEventIdIn(Long webhookId, Collection<Long> webhookEventIds);
+    
+    //
+// Count rows by status (outbox backlog monitoring)
+     
+    long countByStatus(WebhookDeliveryStatus status);
+    
+    //
+// Delete one chunk of finished rows older than the cutoff
+     
+    @Modifying
+    @Query(value = "DELETE FROM webhook_deliveries WHERE status IN ('DELIVERED', 'FAILED') " +
+                   "AND completed_at < :cutoff LIMIT :limit",
+           nativeQuery = true)
+    int deleteCompletedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
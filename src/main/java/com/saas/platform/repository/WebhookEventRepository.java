@@ -0,0 +1,46 @@
+package com.saas.platform.repository;
+
+import com.saas.platform.model.WebhookEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+//
+// WebhookEventRepository - Database operations for outbox events
+ 
+@Repository
+public interface WebhookEventRepository extends JpaRepository<WebhookEvent, Long> {
+    
+    //
+// Find event by its public id
+     
+    Optional<WebhookEvent> findByEventId(String eventId);
+    
+    //
+// Next page of a tenant's events in a time range, keyed by id (used by replay)
+     
+    @Query("SELECT e FROM WebhookEvent e WHERE e.tenantId = :tenantId AND e.createdAt BETWEEN :from AND :to " +
+           "AND e.id > :afterId ORDER BY e.id")
+    List<WebhookEvent> findReplayPage(@Param("tenantId") Long tenantId,
+                                      @Param("from") LocalDateTime from,
+                                      @Param("to") LocalDateTime to,
+                                      @Param("afterId") Long afterId,
+                                      Pageable pageable);
+    
+    //
+// Delete one chunk of old events that have no delivery still in progress
+     
+    @Modifying
+    @Query(value = "DELETE FROM webhook_events WHERE created_at < :cutoff " +
+                   "AND NOT EXISTS (SELECT 1 FROM webhook_deliveries d WHERE d.webhook_event_id = webhook_events.id " +
+                   "AND d.status IN ('PENDING', 'IN_FLIGHT')) LIMIT :limit",
+           nativeQuery = true)
+    int deleteExpired(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
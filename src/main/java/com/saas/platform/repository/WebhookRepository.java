@@ -2,7 +2,11 @@ package com.saas.platform.repository;
 
 import com.saas.platform.model.Webhook;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -42,4 +46,19 @@ public interface WebhookRepository extends JpaRepository<Webhook, Long> {
 // Find webhooks with high failure rates
      
     List<Webhook> findByFailureCountGreaterThan(Long threshold);
-}
\ No newline at end of file
+    
+    //
+// Record a delivery outcome in place (called from delivery threads)
+     
+    @Transactional
+    @Modifying
+    @Query("UPDATE Webhook w SET w.successCount = COALESCE(w.successCount, 0) + 1, " +
+           "w.lastTriggeredAt = :at WHERE w.id = :id")
+    int recordSuccess(@Param("id") Long id, @Param("at") LocalDateTime at);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE Webhook w SET w.failureCount = COALESCE(w.failureCount, 0) + 1, " +
+           "w.lastTriggeredAt = :at WHERE w.id = :id")
+    int recordFailure(@Param("id") Long id, @Param("at") LocalDateTime at);
+}
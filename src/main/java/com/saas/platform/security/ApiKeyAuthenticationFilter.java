@@ -0,0 +1,121 @@
+package com.saas.platform.security;
+
+import com.saas.platform.multitenancy.TenantContext;
+import com.saas.platform.service.ApiKeyService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+//
+// API Key Authentication Filter - machine-to-machine access via X-API-Key
+// Keys are resolved through ApiKeyCache, so a cached key costs no database access.
+// The key acts on behalf of the user that created it, limited by its scopes.
+
+@Component
+public class ApiKeyAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ApiKeyAuthenticationFilter.class);
+    public static final String API_KEY_HEADER = "X-API-Key";
+
+    private final ApiKeyService apiKeyService;
+
+    public ApiKeyAuthenticationFilter(ApiKeyService apiKeyService) {
+        this.apiKeyService = apiKeyService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String rawKey = request.getHeader(API_KEY_HEADER);
+
+        // JWT authentication takes precedence when both are present
+        if (rawKey == null || rawKey.isEmpty()
+                || SecurityContextHolder.getContext().getAuthentication() != null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        ApiKeyPrincipal principal = apiKeyService.authenticate(rawKey);
+
+        if (principal == null) {
+            log.warn("Rejected API key for {} {}", request.getMethod(), request.getRequestURI());
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (!principal.isIpAllowed(request.getRemoteAddr())) {
+            log.warn("API key {} used from disallowed address {}", principal.getKeyId(), request.getRemoteAddr());
+            response.sendError(HttpServletResponse.SC_FORBIDDEN, "API key is not allowed from this address");
+            return;
+        }
+
+        ApiKeyScope requiredScope = requiredScope(request);
+        if (!principal.hasScope(requiredScope)) {
+            log.warn("API key {} lacks scope '{}' for {} {}",
+                principal.getKeyId(), requiredScope.scopeName(), request.getMethod(), request.getRequestURI());
+            response.sendError(HttpServletResponse.SC_FORBIDDEN,
+                "API key lacks required scope: " + requiredScope.scopeName());
+            return;
+        }
+
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken(principal.getOwnerEmail(), null, authorities(principal));
+        authentication.setDetails(principal);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        TenantContext.setCurrentTenant(principal.getTenantId().toString());
+
+        apiKeyService.recordApiKeyUsage(principal.getKeyId());
+
+        log.debug("API key authentication successful for key {} (tenant: {})",
+            principal.getKeyId(), principal.getTenantId());
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SecurityContextHolder.clearContext();
+            TenantContext.clear();
+        }
+    }
+
+    //
+// Read-only methods need the "read" scope, everything else "write"
+
+    private ApiKeyScope requiredScope(HttpServletRequest request) {
+        String method = request.getMethod();
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method)
+            ? ApiKeyScope.READ : ApiKeyScope.WRITE;
+    }
+
+    private List<GrantedAuthority> authorities(ApiKeyPrincipal principal) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        authorities.add(new SimpleGrantedAuthority("ROLE_" + principal.getOwnerRole().name()));
+        authorities.add(new SimpleGrantedAuthority("ROLE_API_KEY"));
+        for (String scope : principal.getPolicy().getScopeNames()) {
+            authorities.add(new SimpleGrantedAuthority("SCOPE_" + scope));
+        }
+        return authorities;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        // API keys cannot be used to log in or to manage API keys
+        return path.startsWith("/api/auth/") || path.startsWith("/api/keys") || path.equals("/error");
+    }
+}
@@ -0,0 +1,143 @@
+package com.saas.platform.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+//
+// ApiKeyCache - In-memory cache of API key principals keyed by SHA-256 digest
+// Entries expire after a TTL; revoke/rotate/delete invalidate them explicitly,
+// and so do changes to the owning user (role, active flag, deletion), since
+// entries carry a snapshot of the owner.
+// Unknown keys are cached briefly as misses so bad keys can't hammer the database.
+
+@Component
+public class ApiKeyCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ApiKeyCache.class);
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final int maxEntries;
+
+    public ApiKeyCache(@Value("${app.api-key.cache.ttl-seconds:300}") long ttlSeconds,
+                       @Value("${app.api-key.cache.negative-ttl-seconds:30}") long negativeTtlSeconds,
+                       @Value("${app.api-key.cache.max-entries:10000}") int maxEntries) {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.negativeTtlNanos = TimeUnit.SECONDS.toNanos(negativeTtlSeconds);
+        this.maxEntries = maxEntries;
+    }
+
+    //
+// Get the cached principal for a key digest, loading it on a miss.
+// Returns null when the key is unknown or not usable.
+
+    public ApiKeyPrincipal get(String keyHash, Function<String, ApiKeyPrincipal> loader) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(keyHash);
+        if (entry != null && entry.expiresAt - now > 0) {
+            return entry.principal;
+        }
+
+        long generation = invalidations.get();
+        ApiKeyPrincipal loaded = loader.apply(keyHash);
+
+        // Don't cache a value that may have been read before a concurrent invalidation
+        if (generation == invalidations.get()) {
+            if (entries.size() >= maxEntries) {
+                evictExpired(now);
+            }
+            if (entries.size() < maxEntries) {
+                long ttl = loaded != null ? ttlNanos : negativeTtlNanos;
+                entries.put(keyHash, new Entry(loaded, now + ttl));
+            }
+        }
+        return loaded;
+    }
+
+    //
+// Drop a key from the cache now and again once the surrounding transaction commits
+
+    public void invalidate(String keyHash) {
+        if (keyHash == null) {
+            return;
+        }
+        evictNowAndAfterCompletion(() -> evict(keyHash));
+    }
+
+    //
+// Drop every key owned by a user, now and again once the surrounding transaction commits
+
+    public void invalidateOwner(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        evictNowAndAfterCompletion(() -> evictOwner(userId));
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // A load racing the change could cache the old state again, so evict once more at the end
+    private void evictNowAndAfterCompletion(Runnable eviction) {
+        eviction.run();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    private void evictOwner(Long userId) {
+        invalidations.incrementAndGet();
+        entries.entrySet().removeIf(e -> e.getValue().principal != null
+            && userId.equals(e.getValue().principal.getOwnerId()));
+        log.debug("API key cache entries of user {} invalidated", userId);
+    }
+
+    private void evict(String keyHash) {
+        invalidations.incrementAndGet();
+        entries.remove(keyHash);
+        log.debug("API key cache entry invalidated");
+    }
+
+    private void evictExpired(long now) {
+        entries.entrySet().removeIf(e -> e.getValue().expiresAt - now <= 0);
+        if (entries.size() >= maxEntries) {
+            // Still full: drop cached misses first, they are the cheapest to lose
+            entries.entrySet().removeIf(e -> e.getValue().principal == null);
+        }
+    }
+
+    private static final class Entry {
+        private final ApiKeyPrincipal principal;
+        private final long expiresAt;
+
+        private Entry(ApiKeyPrincipal principal, long expiresAt) {
+            this.principal = principal;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.saas.platform.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+//
+// ApiKeyHasher - SHA-256 digests for API keys
+// Keys are stored and looked up by digest only, never in plaintext
+
+public final class ApiKeyHasher {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private ApiKeyHasher() {
+    }
+
+    //
+// Raw digest bytes of the key
+
+    public static byte[] digest(String rawKey) {
+        MessageDigest digest = SHA_256.get();
+        digest.reset();
+        return digest.digest(rawKey.getBytes(StandardCharsets.UTF_8));
+    }
+
+    //
+// Lower-case hex digest of the key (64 chars)
+
+    public static String hash(String rawKey) {
+        return HEX.formatHex(digest(rawKey));
+    }
+
+    public static byte[] fromHex(String hash) {
+        return HEX.parseHex(hash);
+    }
+}
@@ -0,0 +1,81 @@
+package com.saas.platform.security;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+//
+// ApiKeyPolicy - Immutable, pre-compiled access policy of an API key
+// Scopes become a bitmask and allowed IPs a CIDR trie, so per-request
+// enforcement is a mask test plus a short trie walk.
+
+public final class ApiKeyPolicy {
+
+    private static final long ALL_SCOPES = allScopesMask();
+
+    private final long scopeMask;
+    private final CidrTrie allowedIps; // null = no IP restriction
+    private final List<String> scopeNames;
+
+    private ApiKeyPolicy(long scopeMask, CidrTrie allowedIps) {
+        this.scopeMask = scopeMask;
+        this.allowedIps = allowedIps;
+        this.scopeNames = namesOf(scopeMask);
+    }
+
+    //
+// Compile the comma-separated scopes and allowed IPs stored on ApiKey.
+// Throws IllegalArgumentException for unknown scopes or malformed addresses.
+
+    public static ApiKeyPolicy compile(String scopes, String allowedIps) {
+        long mask = 0L;
+        if (scopes != null) {
+            for (String token : scopes.split(",")) {
+                String name = token.trim();
+                if (!name.isEmpty()) {
+                    ApiKeyScope scope = ApiKeyScope.fromName(name);
+                    mask |= scope == ApiKeyScope.ADMIN ? ALL_SCOPES : scope.bit();
+                }
+            }
+        }
+        return new ApiKeyPolicy(mask, CidrTrie.compile(allowedIps));
+    }
+
+    public boolean allows(ApiKeyScope scope) {
+        return (scopeMask & scope.bit()) != 0;
+    }
+
+    public boolean allowsIp(String address) {
+        return allowedIps == null || allowedIps.contains(address);
+    }
+
+    public boolean hasIpRestriction() {
+        return allowedIps != null;
+    }
+
+    public long getScopeMask() {
+        return scopeMask;
+    }
+
+    public List<String> getScopeNames() {
+        return scopeNames;
+    }
+
+    private static long allScopesMask() {
+        long mask = 0L;
+        for (ApiKeyScope scope : ApiKeyScope.values()) {
+            mask |= scope.bit();
+        }
+        return mask;
+    }
+
+    private static List<String> namesOf(long mask) {
+        List<String> names = new ArrayList<>();
+        for (ApiKeyScope scope : ApiKeyScope.values()) {
+            if ((mask & scope.bit()) != 0) {
+                names.add(scope.scopeName());
+            }
+        }
+        return Collections.unmodifiableList(names);
+    }
+}
@@ -0,0 +1,69 @@
+package com.saas.platform.security;
+
+import com.saas.platform.model.ApiKey;
+import com.saas.platform.model.User;
+import com.saas.platform.model.UserRole;
+
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+
+//
+// ApiKeyPrincipal - Immutable snapshot of an API key, its owner and its compiled policy
+// Cached by ApiKeyCache so authenticated requests never touch the database
+
+public final class ApiKeyPrincipal {
+
+    private final Long keyId;
+    private final Long tenantId;
+    private final String keyName;
+    private final byte[] keyDigest;
+    private final Long ownerId;
+    private final String ownerEmail;
+    private final UserRole ownerRole;
+    private final ApiKeyPolicy policy;
+    private final LocalDateTime expiresAt;
+
+    private ApiKeyPrincipal(ApiKey apiKey, User owner) {
+        this.keyId = apiKey.getId();
+        this.tenantId = apiKey.getTenantId();
+        this.keyName = apiKey.getName();
+        this.keyDigest = ApiKeyHasher.fromHex(apiKey.getKeyHash());
+        this.ownerId = owner.getId();
+        this.ownerEmail = owner.getEmail();
+        this.ownerRole = owner.getRole();
+        this.policy = ApiKeyPolicy.compile(apiKey.getScopes(), apiKey.getAllowedIps());
+        this.expiresAt = apiKey.getExpiresAt();
+    }
+
+    public static ApiKeyPrincipal of(ApiKey apiKey, User owner) {
+        return new ApiKeyPrincipal(apiKey, owner);
+    }
+
+    public Long getKeyId() { return keyId; }
+    public Long getTenantId() { return tenantId; }
+    public String getKeyName() { return keyName; }
+    public Long getOwnerId() { return ownerId; }
+    public String getOwnerEmail() { return ownerEmail; }
+    public UserRole getOwnerRole() { return ownerRole; }
+    public ApiKeyPolicy getPolicy() { return policy; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+
+    public boolean isExpired() {
+        return expiresAt != null && LocalDateTime.now().isAfter(expiresAt);
+    }
+
+    public boolean hasScope(ApiKeyScope scope) {
+        return policy.allows(scope);
+    }
+    
+    public boolean isIpAllowed(String address) {
+        return policy.allowsIp(address);
+    }
+
+    //
+// Constant-time comparison against a freshly computed digest
+
+    public boolean matches(byte[] digest) {
+        return MessageDigest.isEqual(keyDigest, digest);
+    }
+}
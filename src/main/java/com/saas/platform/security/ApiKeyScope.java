@@ -0,0 +1,31 @@
+package com.saas.platform.security;
+
+//
+// API key scopes - each scope is one bit in a compiled ApiKeyPolicy mask
+// ADMIN implies every other scope
+
+public enum ApiKeyScope {
+    READ,
+    WRITE,
+    ADMIN;
+
+    public long bit() {
+        return 1L << ordinal();
+    }
+
+    public String scopeName() {
+        return name().toLowerCase();
+    }
+
+    //
+// Parse a scope name as stored on ApiKey.scopes (case-insensitive)
+
+    public static ApiKeyScope fromName(String name) {
+        for (ApiKeyScope scope : values()) {
+            if (scope.name().equalsIgnoreCase(name)) {
+                return scope;
+            }
+        }
+        throw new IllegalArgumentException("Unknown API key scope: " + name);
+    }
+}
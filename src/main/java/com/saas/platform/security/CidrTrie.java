@@ -0,0 +1,146 @@
+package com.saas.platform.security;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+//
+// CidrTrie - Binary prefix trie of IPv4 and IPv6 CIDR ranges
+// Built once per API key policy; a lookup walks at most 32 (IPv4) or 128 (IPv6)
+// bits and stops at the first range that covers the address.
+
+public final class CidrTrie {
+
+    private final Node ipv4Root = new Node();
+    private final Node ipv6Root = new Node();
+
+    private CidrTrie() {
+    }
+
+    //
+// Compile a comma-separated list of addresses and CIDR ranges, e.g.
+// "10.0.0.0/8, 192.168.1.7, 2001:db8::/32". Returns null when the list is empty.
+
+    public static CidrTrie compile(String spec) {
+        if (spec == null || spec.isBlank()) {
+            return null;
+        }
+
+        CidrTrie trie = new CidrTrie();
+        int entries = 0;
+        for (String token : spec.split(",")) {
+            String entry = token.trim();
+            if (!entry.isEmpty()) {
+                trie.insert(entry);
+                entries++;
+            }
+        }
+        return entries > 0 ? trie : null;
+    }
+
+    public boolean contains(String address) {
+        try {
+            return contains(parseAddress(address));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    public boolean contains(byte[] address) {
+        Node node = address.length == 4 ? ipv4Root : ipv6Root;
+        int bits = address.length * 8;
+
+        for (int i = 0; i < bits; i++) {
+            if (node.terminal) {
+                return true;
+            }
+            node = bitAt(address, i) == 0 ? node.zero : node.one;
+            if (node == null) {
+                return false;
+            }
+        }
+        return node.terminal;
+    }
+
+    private void insert(String cidr) {
+        String addressPart = cidr;
+        int prefixLength = -1;
+
+        int slash = cidr.indexOf('/');
+        if (slash >= 0) {
+            addressPart = cidr.substring(0, slash);
+            try {
+                prefixLength = Integer.parseInt(cidr.substring(slash + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid CIDR prefix: " + cidr);
+            }
+        }
+
+        byte[] address = parseAddress(addressPart.trim());
+        int maxBits = address.length * 8;
+        if (prefixLength > maxBits || (slash >= 0 && prefixLength < 0)) {
+            throw new IllegalArgumentException("Invalid CIDR prefix: " + cidr);
+        }
+        if (prefixLength < 0) {
+            prefixLength = maxBits;
+        }
+
+        Node node = address.length == 4 ? ipv4Root : ipv6Root;
+        for (int i = 0; i < prefixLength; i++) {
+            if (node.terminal) {
+                return; // Already covered by a wider range
+            }
+            if (bitAt(address, i) == 0) {
+                if (node.zero == null) node.zero = new Node();
+                node = node.zero;
+            } else {
+                if (node.one == null) node.one = new Node();
+                node = node.one;
+            }
+        }
+
+        // Narrower ranges below this node are now redundant
+        node.terminal = true;
+        node.zero = null;
+        node.one = null;
+    }
+
+    //
+// Parse an IP literal without ever falling back to a DNS lookup.
+// IPv4-mapped IPv6 addresses come back as 4 bytes.
+
+    static byte[] parseAddress(String literal) {
+        if (literal == null || literal.isEmpty()) {
+            throw new IllegalArgumentException("Empty IP address");
+        }
+        // Hex digits are only legal in IPv6 literals (which always contain ':')
+        boolean ipv6 = literal.indexOf(':') >= 0;
+        int dots = 0;
+        for (int i = 0; i < literal.length(); i++) {
+            char c = literal.charAt(i);
+            boolean hex = (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+            boolean valid = (c >= '0' && c <= '9') || c == '.' || (ipv6 && (hex || c == ':'));
+            if (!valid) {
+                throw new IllegalArgumentException("Invalid IP address: " + literal);
+            }
+            if (c == '.') dots++;
+        }
+        if (!ipv6 && dots != 3) {
+            throw new IllegalArgumentException("Invalid IP address: " + literal);
+        }
+        try {
+            return InetAddress.getByName(literal).getAddress();
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Invalid IP address: " + literal);
+        }
+    }
+
+    private static int bitAt(byte[] address, int index) {
+        return (address[index >>> 3] >>> (7 - (index & 7))) & 1;
+    }
+
+    private static final class Node {
+        private Node zero;
+        private Node one;
+        private boolean terminal;
+    }
+}
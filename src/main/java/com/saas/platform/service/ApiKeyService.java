@@ -3,8 +3,15 @@ package com.saas.platform.service;
 import com.saas.platform.model.ApiKey;
 import com.saas.platform.model.User;
 import com.saas.platform.repository.ApiKeyRepository;
+import com.saas.platform.security.ApiKeyCache;
+import com.saas.platform.security.ApiKeyHasher;
+import com.saas.platform.security.ApiKeyPolicy;
+import com.saas.platform.security.ApiKeyPrincipal;
+import com.saas.platform.security.ApiKeyScope;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,13 +30,19 @@ public class ApiKeyService {
     private final ApiKeyRepository apiKeyRepository;
     private final ActivityLogService activityLogService;
     private final UserService userService;
+    private final ApiKeyCache apiKeyCache;
+    private final ApiKeyUsageTracker usageTracker;
     
     public ApiKeyService(ApiKeyRepository apiKeyRepository,
                         ActivityLogService activityLogService,
-                        UserService userService) {
+                        UserService userService,
+                        ApiKeyCache apiKeyCache,
+                        ApiKeyUsageTracker usageTracker) {
         this.apiKeyRepository = apiKeyRepository;
         this.activityLogService = activityLogService;
         this.userService = userService;
+        this.apiKeyCache = apiKeyCache;
+        this.usageTracker = usageTracker;
     }
     
     //
@@ -38,8 +51,17 @@ public class ApiKeyService {
     @Transactional
     public ApiKey createApiKey(Long tenantId, Long userId, String name, 
                                String scopes, Integer expiresInDays) {
+        return createApiKey(tenantId, userId, name, scopes, null, expiresInDays);
+    }
+    
+    @Transactional
+    public ApiKey createApiKey(Long tenantId, Long userId, String name, 
+                               String scopes, String allowedIps, Integer expiresInDays) {
         log.info("Creating API key '{}' for tenant ID: {}", name, tenantId);
         
+        // Reject unknown scopes and malformed IP ranges up front
+        ApiKeyPolicy.compile(scopes, allowedIps);
+        
         // Validate user belongs to tenant
         User user = userService.getUserById(userId);
         if (!user.getTenant().getId().equals(tenantId)) {
@@ -48,6 +70,8 @@ public class ApiKeyService {
         
         // Create API key
         ApiKey apiKey = new ApiKey(name, tenantId, userId);
+        String rawKey = ApiKey.generateApiKey();
+        apiKey.assignKey(rawKey, ApiKeyHasher.hash(rawKey));
         
         if (scopes != null && !scopes.isEmpty()) {
             apiKey.setScopes(scopes);
@@ -55,6 +79,10 @@ public class ApiKeyService {
             apiKey.setScopes("read,write"); // Default scopes
         }
         
+        if (allowedIps != null && !allowedIps.isBlank()) {
+            apiKey.setAllowedIps(allowedIps);
+        }
+        
         // Set expiration if specified
         if (expiresInDays != null && expiresInDays > 0) {
             apiKey.setExpiresAt(LocalDateTime.now().plusDays(expiresInDays));
@@ -97,54 +125,138 @@ public class ApiKeyService {
 // Get API key by key value (for authentication)
      
     public ApiKey getApiKeyByValue(String keyValue) {
-        return apiKeyRepository.findByKeyValue(keyValue)
+        return apiKeyRepository.findByKeyHash(ApiKeyHasher.hash(keyValue))
             .orElseThrow(() -> new IllegalArgumentException("Invalid API key"));
     }
     
     //
-// Validate API key and check permissions
+// Authenticate a raw API key against the in-memory cache.
+// Only a cache miss reaches the database; returns null if the key is not usable.
      
-    public boolean validateApiKey(String keyValue, String requiredScope) {
+    public ApiKeyPrincipal authenticate(String rawKey) {
+        if (rawKey == null || rawKey.isBlank()) {
+            return null;
+        }
+        
+        byte[] digest = ApiKeyHasher.digest(rawKey);
+        ApiKeyPrincipal principal = apiKeyCache.get(ApiKeyHasher.hash(rawKey), this::loadPrincipal);
+        
+        if (principal == null || !principal.matches(digest)) {
+            return null;
+        }
+        
+        if (principal.isExpired()) {
+            log.warn("Expired API key attempted: {}", principal.getKeyId());
+            return null;
+        }
+        
+        return principal;
+    }
+    
+    //
+// Load a cacheable principal for a key digest (cache miss path)
+     
+    private ApiKeyPrincipal loadPrincipal(String keyHash) {
+        ApiKey apiKey = apiKeyRepository.findByKeyHash(keyHash).orElse(null);
+        
+        if (apiKey == null) {
+            log.warn("Unknown API key attempted");
+            return null;
+        }
+        
+        if (!apiKey.getIsActive()) {
+            log.warn("Inactive API key attempted: {}", apiKey.getId());
+            return null;
+        }
+        
         try {
-            ApiKey apiKey = getApiKeyByValue(keyValue);
-            
-            // Check if key is active
-            if (!apiKey.getIsActive()) {
-                log.warn("Inactive API key attempted: {}", keyValue);
-                return false;
-            }
-            
-            // Check if key is expired
-            if (apiKey.isExpired()) {
-                log.warn("Expired API key attempted: {}", keyValue);
-                return false;
+            User owner = userService.getUserById(apiKey.getCreatedBy());
+            if (!Boolean.TRUE.equals(owner.getActive())
+                    || !owner.getTenant().getId().equals(apiKey.getTenantId())) {
+                log.warn("API key {} belongs to an inactive or foreign user", apiKey.getId());
+                return null;
             }
-            
-            // Check if key has required scope
-            if (requiredScope != null && !apiKey.hasScope(requiredScope)) {
-                log.warn("API key lacks required scope '{}': {}", requiredScope, keyValue);
-                return false;
-            }
-            
-            // Record usage
-            recordApiKeyUsage(apiKey.getId());
-            
-            return true;
-            
+            return ApiKeyPrincipal.of(apiKey, owner);
         } catch (IllegalArgumentException e) {
+            // Missing owner or a policy that no longer compiles: fail closed
+            log.warn("API key {} cannot be used: {}", apiKey.getId(), e.getMessage());
+            return null;
+        }
+    }
+    
+    //
+// Validate API key and check permissions
+     
+    public boolean validateApiKey(String keyValue, String requiredScope) {
+        ApiKeyPrincipal principal = authenticate(keyValue);
+        
+        if (principal == null) {
             log.warn("Invalid API key validation attempt");
             return false;
         }
+        
+        // Check if key has required scope
+        if (requiredScope != null && !hasScope(principal, requiredScope)) {
+            log.warn("API key {} lacks required scope '{}'", principal.getKeyId(), requiredScope);
+            return false;
+        }
+        
+        // Record usage
+        recordApiKeyUsage(principal.getKeyId());
+        
+        return true;
+    }
+    
+    private boolean hasScope(ApiKeyPrincipal principal, String scope) {
+        try {
+            return principal.hasScope(ApiKeyScope.fromName(scope));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
     }
     
     //
-// Record API key usage
+// Record API key usage (buffered in memory, flushed periodically)
      
-    @Transactional
     public void recordApiKeyUsage(Long keyId) {
-        ApiKey apiKey = getApiKeyById(keyId);
-        apiKey.incrementUsage();
-        apiKeyRepository.save(apiKey);
+        usageTracker.record(keyId);
+    }
+    
+    //
+// Total usage including requests not yet flushed to the database
+     
+    public long getUsageCount(ApiKey apiKey) {
+        long persisted = apiKey.getUsageCount() != null ? apiKey.getUsageCount() : 0L;
+        return persisted + usageTracker.getPendingCount(apiKey.getId());
+    }
+    
+    //
+// Per-minute usage history for a key (in-memory, this node only)
+     
+    public List<ApiKeyUsageTracker.UsageBucket> getUsageHistory(Long keyId, int minutes) {
+        getApiKeyById(keyId);
+        return usageTracker.getUsageHistory(keyId, minutes);
+    }
+    
+    //
+// Hash any keys still stored in plaintext from before digests were introduced
+     
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void hashLegacyApiKeys() {
+        List<ApiKey> legacyKeys = apiKeyRepository.findByKeyHashStartingWith("sk_");
+        
+        for (ApiKey apiKey : legacyKeys) {
+            if (apiKey.isLegacyPlainText()) {
+                apiKey.assignKey(apiKey.getKeyHash(), ApiKeyHasher.hash(apiKey.getKeyHash()));
+                apiKeyRepository.save(apiKey);
+            }
+        }
+        
+        if (!legacyKeys.isEmpty()) {
+            apiKeyCache.invalidateAll();
+            log.info("Hashed {} legacy plaintext API keys", legacyKeys.size());
+        }
     }
     
     //
@@ -157,6 +269,7 @@ public class ApiKeyService {
         ApiKey apiKey = getApiKeyById(keyId);
         apiKey.setIsActive(false);
         apiKeyRepository.save(apiKey);
+        apiKeyCache.invalidate(apiKey.getKeyHash());
         
         // Log activity
         activityLogService.logActivity(
@@ -184,6 +297,8 @@ public class ApiKeyService {
         String name = apiKey.getName();
         
         apiKeyRepository.delete(apiKey);
+        apiKeyCache.invalidate(apiKey.getKeyHash());
+        usageTracker.forget(keyId);
         
         // Log activity
         activityLogService.logActivity(
@@ -229,6 +344,7 @@ public class ApiKeyService {
             userId,
             oldKey.getName() + " (Rotated)",
             oldKey.getScopes(),
+            oldKey.getAllowedIps(),
             null // No expiration by default
         );
         
@@ -250,6 +366,11 @@ public class ApiKeyService {
         
         ApiKey apiKey = getApiKeyById(keyId);
         
+        ApiKeyPolicy.compile(
+            scopes != null ? scopes : apiKey.getScopes(),
+            allowedIps != null ? allowedIps : apiKey.getAllowedIps()
+        );
+        
         if (name != null && !name.isEmpty()) {
             apiKey.setName(name);
         }
@@ -267,6 +388,7 @@ public class ApiKeyService {
         }
         
         ApiKey updated = apiKeyRepository.save(apiKey);
+        apiKeyCache.invalidate(apiKey.getKeyHash());
         
         // Log activity
         activityLogService.logActivity(
@@ -0,0 +1,192 @@
+package com.saas.platform.service;
+
+import com.saas.platform.repository.ApiKeyRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+//
+// ApiKeyUsageTracker - Coalesced API key usage telemetry
+// Requests only bump in-memory counters; a scheduled flush writes one
+// incremental UPDATE per key that saw traffic since the last flush.
+// Optional per-minute buckets keep a short in-memory usage history.
+
+@Service
+public class ApiKeyUsageTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(ApiKeyUsageTracker.class);
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    private final ApiKeyRepository apiKeyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int historyMinutes;
+
+    private final Map<Long, KeyUsage> usageByKey = new ConcurrentHashMap<>();
+
+    public ApiKeyUsageTracker(ApiKeyRepository apiKeyRepository,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${app.api-key.usage.history-minutes:60}") int historyMinutes) {
+        this.apiKeyRepository = apiKeyRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.historyMinutes = Math.max(0, historyMinutes);
+    }
+
+    //
+// Record one request for a key (no database access)
+
+    public void record(Long keyId) {
+        long now = System.currentTimeMillis();
+        usageByKey.computeIfAbsent(keyId, id -> new KeyUsage(historyMinutes)).record(now);
+    }
+
+    //
+// Requests recorded in memory but not yet written to the database
+
+    public long getPendingCount(Long keyId) {
+        KeyUsage usage = usageByKey.get(keyId);
+        return usage != null ? usage.pending() : 0L;
+    }
+
+    //
+// Per-minute request counts for the last N minutes, oldest first
+
+    public List<UsageBucket> getUsageHistory(Long keyId, int minutes) {
+        int span = Math.min(Math.max(minutes, 1), historyMinutes);
+        long currentMinute = System.currentTimeMillis() / MINUTE_MILLIS;
+        KeyUsage usage = usageByKey.get(keyId);
+
+        List<UsageBucket> buckets = new ArrayList<>(span);
+        for (long minute = currentMinute - span + 1; minute <= currentMinute; minute++) {
+            long count = usage != null ? usage.countAt(minute) : 0L;
+            buckets.add(new UsageBucket(toLocalDateTime(minute * MINUTE_MILLIS), count));
+        }
+        return buckets;
+    }
+
+    public void forget(Long keyId) {
+        usageByKey.remove(keyId);
+    }
+
+    //
+// Flush accumulated deltas as incremental updates
+
+    @Scheduled(fixedDelayString = "${app.api-key.usage.flush-interval-ms:10000}")
+    public void flush() {
+        int flushed = 0;
+
+        for (Map.Entry<Long, KeyUsage> entry : usageByKey.entrySet()) {
+            Long keyId = entry.getKey();
+            KeyUsage usage = entry.getValue();
+            long delta = usage.pending();
+            if (delta <= 0) {
+                continue;
+            }
+
+            LocalDateTime lastUsedAt = toLocalDateTime(usage.lastUsedAt.get());
+            try {
+                Integer updated = transactionTemplate.execute(status ->
+                    apiKeyRepository.addUsage(keyId, delta, lastUsedAt));
+                usage.markFlushed(delta);
+                flushed++;
+
+                if (updated == null || updated == 0) {
+                    // Key was deleted in the meantime
+                    usageByKey.remove(keyId, usage);
+                }
+            } catch (Exception e) {
+                // Keep the delta; it is retried on the next flush
+                log.warn("Failed to flush usage for API key {}: {}", keyId, e.getMessage());
+            }
+        }
+
+        if (flushed > 0) {
+            log.debug("Flushed API key usage for {} keys", flushed);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    //
+// In-memory counters for a single key
+
+    private static final class KeyUsage {
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong flushedTotal = new AtomicLong();
+        private final AtomicLong lastUsedAt = new AtomicLong();
+
+        // Ring of minute buckets; stamps hold the minute each slot currently represents
+        private final AtomicLongArray minuteStamps;
+        private final AtomicLongArray minuteCounts;
+
+        private KeyUsage(int historyMinutes) {
+            this.minuteStamps = historyMinutes > 0 ? new AtomicLongArray(historyMinutes) : null;
+            this.minuteCounts = historyMinutes > 0 ? new AtomicLongArray(historyMinutes) : null;
+        }
+
+        private void record(long now) {
+            total.increment();
+            lastUsedAt.accumulateAndGet(now, Math::max);
+
+            if (minuteStamps != null) {
+                long minute = now / MINUTE_MILLIS;
+                int slot = (int) (minute % minuteStamps.length());
+                long stamp = minuteStamps.get(slot);
+                if (stamp != minute && minuteStamps.compareAndSet(slot, stamp, minute)) {
+                    minuteCounts.set(slot, 0);
+                }
+                minuteCounts.incrementAndGet(slot);
+            }
+        }
+
+        private long pending() {
+            return total.sum() - flushedTotal.get();
+        }
+
+        private void markFlushed(long delta) {
+            flushedTotal.addAndGet(delta);
+        }
+
+        private long countAt(long minute) {
+            if (minuteStamps == null) {
+                return 0L;
+            }
+            int slot = (int) (minute % minuteStamps.length());
+            return minuteStamps.get(slot) == minute ? minuteCounts.get(slot) : 0L;
+        }
+    }
+
+    public static class UsageBucket {
+        private final LocalDateTime minute;
+        private final long requests;
+
+        public UsageBucket(LocalDateTime minute, long requests) {
+            this.minute = minute;
+            this.requests = requests;
+        }
+
+        public LocalDateTime getMinute() { return minute; }
+        public long getRequests() { return requests; }
+    }
+}
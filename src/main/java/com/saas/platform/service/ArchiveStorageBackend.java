@@ -0,0 +1,99 @@
+package com.saas.platform.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+//
+// ArchiveStorageBackend - Cold tier: gzip-compressed files on a cheaper archive volume
+// Also serves as the stand-in for object storage: an S3-compatible backend only
+// has to implement StorageBackend and be selected as the cold backend.
+
+@Component
+public class ArchiveStorageBackend implements StorageBackend {
+
+    public static final String NAME = "ARCHIVE";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path root;
+    private final int compressionLevel;
+
+    public ArchiveStorageBackend(@Value("${app.storage.tiering.archive-dir:uploads/archive}") String archiveDir,
+                                 @Value("${app.storage.tiering.archive-compression-level:6}") int compressionLevel) {
+        this.root = Paths.get(archiveDir);
+        this.compressionLevel = Math.min(Math.max(compressionLevel, 1), 9);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public StoredObject store(InputStream in, String key) throws IOException {
+        Path target = root.resolve(key + ".gz");
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        Files.createDirectories(target.getParent());
+
+        MessageDigest digest = sha256();
+        long size = 0;
+        try (DigestInputStream source = new DigestInputStream(in, digest);
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(partial), BUFFER_SIZE) {
+                 { def.setLevel(compressionLevel); }
+             }) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = source.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                size += read;
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+
+        try {
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return new StoredObject(target.toString(), size, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    @Override
+    public InputStream open(String locator) throws IOException {
+        return new GZIPInputStream(Files.newInputStream(Paths.get(locator)), BUFFER_SIZE);
+    }
+
+    @Override
+    public boolean exists(String locator) {
+        return Files.exists(Paths.get(locator));
+    }
+
+    @Override
+    public void delete(String locator) throws IOException {
+        Files.deleteIfExists(Paths.get(locator));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package com.saas.platform.service;
+
+import com.saas.platform.model.StoredBlob;
+import com.saas.platform.repository.FileStorageRepository;
+import com.saas.platform.repository.StoredBlobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiPredicate;
+
+//
+// BlobStore - Content-addressed, deduplicated storage for uploaded files
+// Files live at <root>/<scope>/<h0h1>/<h2h3>/<sha256>, so identical uploads
+// share one file and no directory grows past a few thousand entries.
+// The scope is "global" or "tenant_<id>" (app.storage.blob.dedup-scope).
+// A blob's file may hold its content gzipped (see ContentCompressor); that is
+// decided when the row is created and every later placement follows the row.
+// stored_blobs rows count the FileStorage rows and version chunks using each
+// blob; a blob whose count reaches zero is deleted by the collector after a
+// grace period.
+//
+// Ordering keeps the collector and concurrent uploads safe: a reference is
+// taken (row locked) before the file is placed, and the collector deletes the
+// file while holding the row lock of a blob that is still unreferenced.
+
+@Component
+public class BlobStore {
+
+    private static final Logger log = LoggerFactory.getLogger(BlobStore.class);
+    private static final int GC_CHUNK = 500;
+
+    public enum DedupScope {
+        GLOBAL,
+        TENANT
+    }
+
+    private final StoredBlobRepository blobRepository;
+    private final FileStorageRepository fileStorageRepository;
+    private final StorageBackendRegistry backends;
+    private final ContentCompressor compressor;
+    private final TransactionTemplate transactionTemplate;
+    private final Path root;
+    private final Path staging;
+    private final DedupScope dedupScope;
+    private final long gcGraceMinutes;
+
+    public BlobStore(StoredBlobRepository blobRepository,
+                     FileStorageRepository fileStorageRepository,
+                     StorageBackendRegistry backends,
+                     ContentCompressor compressor,
+                     TransactionTemplate transactionTemplate,
+                     @Value("${file.upload.dir:uploads}") String uploadDir,
+                     @Value("${app.storage.blob.dedup-scope:TENANT}") DedupScope dedupScope,
+                     @Value("${app.storage.blob.gc-grace-minutes:60}") long gcGraceMinutes) {
+        this.blobRepository = blobRepository;
+        this.fileStorageRepository = fileStorageRepository;
+        this.backends = backends;
+        this.compressor = compressor;
+        this.transactionTemplate = transactionTemplate;
+        this.root = Paths.get(uploadDir, "blobs");
+        this.staging = root.resolve("staging");
+        this.dedupScope = dedupScope;
+        this.gcGraceMinutes = Math.max(0, gcGraceMinutes);
+    }
+
+    //
+// Stream an upload into the staging area, hashing it on the way
+
+    public StagedBlob stage(InputStream in, long maxBytes) throws IOException {
+        Files.createDirectories(staging);
+        Path path = staging.resolve(UUID.randomUUID().toString());
+        DigestingFileWriter.WrittenFile written = DigestingFileWriter.write(in, path, maxBytes);
+        return new StagedBlob(path, written.getSize(), written.getSha256(), written.getCrc32());
+    }
+
+    //
+// A path in the staging area (same filesystem as the blobs, so placement is a rename)
+
+    public Path stagingFile(String name) throws IOException {
+        Files.createDirectories(staging);
+        return staging.resolve(name);
+    }
+
+    //
+// Take a reference to the staged content for a tenant. Must run inside a
+// transaction; if it rolls back, a blob file placed by this call is removed.
+
+    public StoredBlob commit(StagedBlob staged, Long tenantId) {
+        long storedSize = staged.getEncoding() != null ? staged.getEncodedSize() : staged.getSize();
+        return reference(tenantId, staged.getSha256(), staged.getSize(), staged.getCrc32(),
+            staged.getEncoding(), storedSize, (target, blob) -> {
+                if (Files.exists(target)) {
+                    return false;
+                }
+                // The file must be stored the way the row says, whatever this upload chose
+                if (blob.getEncoding() == null) {
+                    return place(staged.getPath(), target);
+                }
+                if (!blob.getEncoding().equals(staged.getEncoding())) {
+                    try {
+                        staged.discardEncoding();
+                        compressor.encode(staged);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Failed to compress blob " + staged.getSha256(), e);
+                    }
+                }
+                return place(staged.getEncodedPath(), target);
+            });
+    }
+
+    //
+// Take a reference to a chunk held in memory (see FileVersionService). The
+// bytes are only written when the scope does not hold this chunk yet.
+
+    public StoredBlob commitBytes(byte[] data, int offset, int length, Long tenantId) {
+        DigestingFileWriter.WrittenFile digest = DigestingFileWriter.digest(data, offset, length);
+        return reference(tenantId, digest.getSha256(), length, digest.getCrc32(), null, length, (target, blob) -> {
+            if (Files.exists(target)) {
+                return false;
+            }
+            Path temp = null;
+            try {
+                temp = stagingFile(UUID.randomUUID().toString());
+                if (blob.getEncoding() != null) {
+                    compressor.encode(data, offset, length, temp);
+                } else {
+                    try (OutputStream out = Files.newOutputStream(temp)) {
+                        out.write(data, offset, length);
+                    }
+                }
+                return place(temp, target);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to store chunk " + digest.getSha256(), e);
+            } finally {
+                if (temp != null) {
+                    deleteQuietly(temp);
+                }
+            }
+        });
+    }
+
+    //
+// Remove whatever is left of a staged upload (no-op once it was placed)
+
+    public void discard(StagedBlob staged) {
+        deleteQuietly(staged.getPath());
+        staged.discardEncoding();
+    }
+
+    //
+// Whether the scope already holds this content (then compressing an upload is wasted work)
+
+    public boolean isStored(Long tenantId, String sha256) {
+        return blobRepository.findByScopeAndChecksum(scopeFor(tenantId), sha256).isPresent();
+    }
+
+    //
+// Drop one reference (call within the transaction that removes the FileStorage row)
+
+    public void release(Long blobId) {
+        blobRepository.releaseReference(blobId, LocalDateTime.now());
+    }
+
+    //
+// Delete blobs that stayed unreferenced past the grace period
+
+    @Scheduled(fixedDelayString = "${app.storage.blob.gc-interval-ms:300000}")
+    public void collectGarbage() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(gcGraceMinutes);
+        int collected = 0;
+        int round;
+
+        List<Long> orphanIds;
+        do {
+            round = 0;
+            orphanIds = blobRepository.findOrphanIds(cutoff, PageRequest.of(0, GC_CHUNK));
+            for (Long id : orphanIds) {
+                try {
+                    Boolean deleted = transactionTemplate.execute(status ->
+                        blobRepository.lockOrphan(id).map(blob -> {
+                            try {
+                                Files.deleteIfExists(Paths.get(blob.getPath()));
+                                Files.deleteIfExists(Paths.get(blob.getPath() + ThumbnailService.THUMBNAIL_SUFFIX));
+                                Files.deleteIfExists(Paths.get(blob.getPath() + ThumbnailService.FAILED_SUFFIX));
+                                if (blob.getColdLocator() != null) {
+                                    backends.get(blob.getColdBackend()).delete(blob.getColdLocator());
+                                }
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                            blobRepository.delete(blob);
+                            return true;
+                        }).orElse(false));
+                    if (Boolean.TRUE.equals(deleted)) {
+                        round++;
+                    }
+                } catch (Exception e) {
+                    log.warn("Failed to collect blob {}: {}", id, e.getMessage());
+                }
+            }
+            collected += round;
+        } while (orphanIds.size() == GC_CHUNK && round > 0);
+
+        if (collected > 0) {
+            log.info("Collected {} unreferenced blobs", collected);
+        }
+    }
+
+    public BlobStats getStats() {
+        return new BlobStats(dedupScope, blobRepository.count(), blobRepository.countByRefCount(0),
+            blobRepository.countByHotCopy(false), blobRepository.sumSizeBytes(), blobRepository.sumStoredSizeBytes());
+    }
+
+    // Reference first, then place: the row lock keeps the collector away from the new file
+    private StoredBlob reference(Long tenantId, String sha256, long size, long crc32, String encoding, long storedSize,
+                                 BiPredicate<Path, StoredBlob> placement) {
+        String scope = scopeFor(tenantId);
+        Path target = blobPath(scope, sha256);
+        LocalDateTime now = LocalDateTime.now();
+
+        boolean created = blobRepository.addReference(scope, sha256, size, crc32, encoding, storedSize,
+            target.toString(), now) == 1;
+
+        // The row is locked by this transaction now, so the collector cannot race the placement
+        StoredBlob blob = blobRepository.findByScopeAndChecksum(scope, sha256)
+            .orElseThrow(() -> new IllegalStateException("Blob row missing after reference: " + sha256));
+        boolean placed = placement.test(target, blob);
+
+        if (created && placed && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        deleteQuietly(target);
+                    }
+                }
+            });
+        }
+
+        if (!created) {
+            log.debug("Deduplicated content {} in scope {}", sha256, scope);
+        }
+
+        // Re-uploading demoted content restores the hot copy for free
+        if (placed && !Boolean.TRUE.equals(blob.getHotCopy())) {
+            blobRepository.markHot(blob.getId());
+            fileStorageRepository.updateStorageLocation(blob.getId(), LocalStorageBackend.NAME, null);
+        }
+        return blob;
+    }
+
+    private String scopeFor(Long tenantId) {
+        return dedupScope == DedupScope.GLOBAL ? "global" : "tenant_" + tenantId;
+    }
+
+    //
+// Storage key of a blob, relative to a backend's root: <scope>/<h0h1>/<h2h3>/<sha256>
+
+    public static String keyFor(String scope, String sha256) {
+        return scope + "/" + sha256.substring(0, 2) + "/" + sha256.substring(2, 4) + "/" + sha256;
+    }
+
+    private Path blobPath(String scope, String sha256) {
+        return root.resolve(keyFor(scope, sha256));
+    }
+
+    // Move the staged file into place unless identical content is already there
+    private static boolean place(Path stagedPath, Path target) {
+        if (Files.exists(target)) {
+            return false;
+        }
+        try {
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(stagedPath, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(stagedPath, target);
+            }
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store blob " + target.getFileName(), e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    public static class StagedBlob {
+        private final Path path;
+        private final long size;
+        private final String sha256;
+        private final long crc32;
+        private Path encodedPath; // Compressed copy, if ContentCompressor made one
+        private String encoding;
+        private long encodedSize;
+
+        public StagedBlob(Path path, long size, String sha256, long crc32) {
+            this.path = path;
+            this.size = size;
+            this.sha256 = sha256;
+            this.crc32 = crc32;
+        }
+
+        public Path getPath() { return path; }
+        public long getSize() { return size; }
+        public String getSha256() { return sha256; }
+        public long getCrc32() { return crc32; }
+        public Path getEncodedPath() { return encodedPath; }
+        public String getEncoding() { return encoding; }
+        public long getEncodedSize() { return encodedSize; }
+        
+        public void setEncoded(Path encodedPath, String encoding, long encodedSize) {
+            this.encodedPath = encodedPath;
+            this.encoding = encoding;
+            this.encodedSize = encodedSize;
+        }
+        
+        public void discardEncoding() {
+            if (encodedPath != null) {
+                deleteQuietly(encodedPath);
+            }
+            setEncoded(null, null, 0);
+        }
+    }
+
+    public static class BlobStats {
+        private final DedupScope dedupScope;
+        private final long blobs;
+        private final long unreferencedBlobs;
+        private final long coldBlobs;
+        private final long storedBytes;
+        private final long diskBytes;
+
+        public BlobStats(DedupScope dedupScope, long blobs, long unreferencedBlobs, long coldBlobs, Long storedBytes,
+                         Long diskBytes) {
+            this.dedupScope = dedupScope;
+            this.blobs = blobs;
+            this.unreferencedBlobs = unreferencedBlobs;
+            this.coldBlobs = coldBlobs;
+            this.storedBytes = storedBytes != null ? storedBytes : 0L;
+            this.diskBytes = diskBytes != null ? diskBytes : 0L;
+        }
+
+        public DedupScope getDedupScope() { return dedupScope; }
+        public long getBlobs() { return blobs; }
+        public long getUnreferencedBlobs() { return unreferencedBlobs; }
+        public long getColdBlobs() { return coldBlobs; }
+        public long getStoredBytes() { return storedBytes; }
+        public long getDiskBytes() { return diskBytes; } // After compression
+    }
+}
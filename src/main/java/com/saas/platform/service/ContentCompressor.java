@@ -0,0 +1,169 @@
+package com.saas.platform.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+//
+// ContentCompressor - Stores compressible uploads (text, CSV, JSON, logs) gzipped
+// Eligible uploads (by MIME type or extension, at least min-size-bytes) are
+// first measured: the leading sample-bytes are deflated in memory and the file
+// is only compressed if that sample saves at least min-savings-percent, and the
+// result is only kept if the whole file does too. gzip is used because every
+// HTTP client accepts it, so downloads can send the stored bytes as they are
+// with Content-Encoding: gzip; other clients get them decompressed on the fly.
+// Blobs keep the checksum, size and CRC-32 of the original content, so dedup,
+// ETags and ZIP downloads do not depend on how a blob is stored.
+
+@Component
+public class ContentCompressor {
+
+    public static final String GZIP = "gzip";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final boolean enabled;
+    private final Set<String> mimeTypes;
+    private final Set<String> extensions;
+    private final long minSizeBytes;
+    private final int level;
+    private final int minSavingsPercent;
+    private final int sampleBytes;
+
+    public ContentCompressor(@Value("${app.storage.compression.enabled:true}") boolean enabled,
+                             @Value("${app.storage.compression.mime-types:text/*,application/json,application/x-ndjson,application/xml,application/csv,application/sql,application/x-yaml,application/javascript}") String mimeTypes,
+                             @Value("${app.storage.compression.extensions:txt,csv,tsv,json,ndjson,jsonl,log,xml,yaml,yml,sql,md,html,htm,css,js,svg}") String extensions,
+                             @Value("${app.storage.compression.min-size-bytes:8192}") long minSizeBytes,
+                             @Value("${app.storage.compression.level:6}") int level,
+                             @Value("${app.storage.compression.min-savings-percent:20}") int minSavingsPercent,
+                             @Value("${app.storage.compression.sample-bytes:1048576}") int sampleBytes) {
+        this.enabled = enabled;
+        this.mimeTypes = toSet(mimeTypes);
+        this.extensions = toSet(extensions);
+        this.minSizeBytes = Math.max(0, minSizeBytes);
+        this.level = Math.min(Math.max(level, 1), 9);
+        this.minSavingsPercent = Math.min(Math.max(minSavingsPercent, 0), 99);
+        this.sampleBytes = Math.max(BUFFER_SIZE, sampleBytes);
+    }
+
+    //
+// Compress a staged upload if its type is eligible and it is worth it; the
+// original staged file is left in place (see BlobStore.commit)
+
+    public void compressIfWorthwhile(BlobStore.StagedBlob staged, String contentType, String extension) throws IOException {
+        if (!enabled || staged.getEncoding() != null || staged.getSize() < minSizeBytes
+                || !isEligible(contentType, extension) || !sampleCompresses(staged.getPath())) {
+            return;
+        }
+        encode(staged);
+        if (staged.getEncodedSize() * 100 > staged.getSize() * (100 - minSavingsPercent)) {
+            staged.discardEncoding();
+        }
+    }
+
+    //
+// Write the gzipped copy of a staged upload next to it
+
+    public void encode(BlobStore.StagedBlob staged) throws IOException {
+        Path target = staged.getPath().resolveSibling(staged.getPath().getFileName() + ".gz");
+        try (InputStream in = Files.newInputStream(staged.getPath());
+             OutputStream out = open(Files.newOutputStream(target))) {
+            in.transferTo(out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        staged.setEncoded(target, GZIP, Files.size(target));
+    }
+
+    //
+// Gzip bytes held in memory to a file (chunks landing on a gzip blob row)
+
+    public void encode(byte[] data, int offset, int length, Path target) throws IOException {
+        try (OutputStream out = open(Files.newOutputStream(target))) {
+            out.write(data, offset, length);
+        }
+    }
+
+    public boolean isEligible(String contentType, String extension) {
+        if (extension != null && extensions.contains(extension.toLowerCase(Locale.ROOT))) {
+            return true;
+        }
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+        int slash = type.indexOf('/');
+        return mimeTypes.contains(type) || (slash > 0 && mimeTypes.contains(type.substring(0, slash) + "/*"));
+    }
+
+    //
+// The original content of a stored blob, given how it is encoded (null = as is)
+
+    public static InputStream decode(InputStream stored, String encoding) throws IOException {
+        if (encoding == null) {
+            return stored;
+        }
+        if (GZIP.equals(encoding)) {
+            try {
+                return new GZIPInputStream(stored, BUFFER_SIZE);
+            } catch (IOException e) {
+                stored.close();
+                throw e;
+            }
+        }
+        stored.close();
+        throw new IOException("Unknown content encoding: " + encoding);
+    }
+
+    // Deflate the head of the file in memory; cheap enough to run on every eligible upload
+    private boolean sampleCompresses(Path path) throws IOException {
+        byte[] sample;
+        try (InputStream in = Files.newInputStream(path)) {
+            sample = in.readNBytes(sampleBytes);
+        }
+        if (sample.length == 0) {
+            return false;
+        }
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(sample);
+            deflater.finish();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long compressed = 0;
+            while (!deflater.finished()) {
+                compressed += deflater.deflate(buffer);
+            }
+            return compressed * 100 <= (long) sample.length * (100 - minSavingsPercent);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private OutputStream open(OutputStream out) throws IOException {
+        return new GZIPOutputStream(out, BUFFER_SIZE) {
+            {
+                def.setLevel(level);
+            }
+        };
+    }
+
+    private static Set<String> toSet(String list) {
+        return Arrays.stream(list.split(","))
+            .map(value -> value.trim().toLowerCase(Locale.ROOT))
+            .filter(value -> !value.isEmpty())
+            .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,109 @@
+package com.saas.platform.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.SplittableRandom;
+
+//
+// ContentDefinedChunker - Splits a stream where its content says so (FastCDC)
+// A gear hash rolls over the bytes and a chunk ends wherever its top bits are
+// all zero, so boundaries depend only on the last 64 bytes. An edit therefore
+// changes the chunks it touches and at most the one after; all other chunks of
+// an edited file come out identical and deduplicate in the blob store.
+// Chunks are between avg/4 and avg*4 bytes; normalized chunking (a stricter
+// mask before avg, a looser one after) keeps most of them close to avg.
+// The gear table is seeded with a constant: changing it (or the sizes) keeps
+// old data readable but stops new chunks from matching the stored ones.
+
+public final class ContentDefinedChunker {
+
+    private static final long[] GEAR = new long[256];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5eedc0deL);
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+    }
+
+    @FunctionalInterface
+    public interface ChunkSink {
+        void accept(byte[] data, int offset, int length) throws IOException;
+    }
+
+    private final int minSize;
+    private final int avgSize;
+    private final int maxSize;
+    private final long maskSmall;
+    private final long maskLarge;
+
+    public ContentDefinedChunker(int avgSize) {
+        // Power of two between 4 KB and 4 MB
+        int bits = 31 - Integer.numberOfLeadingZeros(Math.min(Math.max(avgSize, 4096), 4 * 1024 * 1024));
+        this.avgSize = 1 << bits;
+        this.minSize = this.avgSize / 4;
+        this.maxSize = this.avgSize * 4;
+        this.maskSmall = -1L << (64 - (bits + 1));
+        this.maskLarge = -1L << (64 - (bits - 1));
+    }
+
+    public int getMaxSize() { return maxSize; }
+
+    //
+// Feed the stream to the sink chunk by chunk; one buffer of 2 * max bytes is used
+
+    public void split(InputStream in, ChunkSink sink) throws IOException {
+        byte[] buffer = new byte[maxSize * 2];
+        int start = 0;
+        int end = 0;
+        boolean eof = false;
+
+        while (true) {
+            if (!eof && end - start < maxSize) {
+                System.arraycopy(buffer, start, buffer, 0, end - start);
+                end -= start;
+                start = 0;
+                while (end < buffer.length) {
+                    int read = in.read(buffer, end, buffer.length - end);
+                    if (read == -1) {
+                        eof = true;
+                        break;
+                    }
+                    end += read;
+                }
+            }
+
+            int available = end - start;
+            if (available == 0) {
+                return;
+            }
+            int cut = cutPoint(buffer, start, available);
+            sink.accept(buffer, start, cut);
+            start += cut;
+        }
+    }
+
+    // Length of the chunk starting at offset
+    int cutPoint(byte[] data, int offset, int length) {
+        if (length <= minSize) {
+            return length;
+        }
+        int limit = Math.min(length, maxSize);
+        int normal = Math.min(avgSize, limit);
+        long hash = 0;
+        int i = minSize;
+        for (; i < normal; i++) {
+            hash = (hash << 1) + GEAR[data[offset + i] & 0xff];
+            if ((hash & maskSmall) == 0) {
+                return i + 1;
+            }
+        }
+        for (; i < limit; i++) {
+            hash = (hash << 1) + GEAR[data[offset + i] & 0xff];
+            if ((hash & maskLarge) == 0) {
+                return i + 1;
+            }
+        }
+        return limit;
+    }
+}
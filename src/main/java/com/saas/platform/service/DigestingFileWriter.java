@@ -0,0 +1,146 @@
+package com.saas.platform.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.CRC32;
+
+//
+// DigestingFileWriter - Streams an upload to disk once, hashing it in flight
+// Bytes go from the source through one fixed buffer into a FileChannel while
+// SHA-256 and CRC-32 (for ZIP entries) are updated from the same buffer, so
+// memory per upload is constant and the file is never read back. Data lands
+// in a ".part" sibling that is moved into place only when the whole stream
+// was written.
+
+public final class DigestingFileWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final HexFormat HEX = HexFormat.of();
+
+    private DigestingFileWriter() {
+    }
+
+    //
+// Copy the stream to target; fails with IllegalArgumentException past maxBytes (0 = no limit)
+
+    public static WrittenFile write(InputStream source, Path target, long maxBytes) throws IOException {
+        MessageDigest digest = sha256();
+        CRC32 crc = new CRC32();
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        byte[] buffer = new byte[BUFFER_SIZE];
+        ByteBuffer view = ByteBuffer.wrap(buffer);
+        long size = 0;
+
+        try (FileChannel channel = FileChannel.open(partial,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            int read;
+            while ((read = source.read(buffer)) != -1) {
+                size += read;
+                if (maxBytes > 0 && size > maxBytes) {
+                    throw new IllegalArgumentException(
+                        "File size exceeds maximum allowed size: " + (maxBytes / 1024 / 1024) + "MB");
+                }
+                digest.update(buffer, 0, read);
+                crc.update(buffer, 0, read);
+                view.clear().limit(read);
+                while (view.hasRemaining()) {
+                    channel.write(view);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+
+        try {
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        return new WrittenFile(size, HEX.formatHex(digest.digest()), crc.getValue());
+    }
+
+    //
+// SHA-256 and CRC-32 of a file already on disk (sequential read through one buffer)
+
+    public static WrittenFile digest(Path path) throws IOException {
+        MessageDigest digest = sha256();
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        long size = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            int read;
+            while ((read = channel.read(buffer)) != -1) {
+                size += read;
+                buffer.flip();
+                digest.update(buffer.duplicate());
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return new WrittenFile(size, HEX.formatHex(digest.digest()), crc.getValue());
+    }
+
+    //
+// SHA-256 and CRC-32 of a stream, read to the end (decoded compressed blobs)
+
+    public static WrittenFile digest(InputStream in) throws IOException {
+        MessageDigest digest = sha256();
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long size = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            size += read;
+            digest.update(buffer, 0, read);
+            crc.update(buffer, 0, read);
+        }
+        return new WrittenFile(size, HEX.formatHex(digest.digest()), crc.getValue());
+    }
+
+    //
+// SHA-256 and CRC-32 of bytes in memory (version chunks)
+
+    public static WrittenFile digest(byte[] data, int offset, int length) {
+        MessageDigest digest = sha256();
+        CRC32 crc = new CRC32();
+        digest.update(data, offset, length);
+        crc.update(data, offset, length);
+        return new WrittenFile(length, HEX.formatHex(digest.digest()), crc.getValue());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public static class WrittenFile {
+        private final long size;
+        private final String sha256;
+        private final long crc32;
+
+        public WrittenFile(long size, String sha256, long crc32) {
+            this.size = size;
+            this.sha256 = sha256;
+            this.crc32 = crc32;
+        }
+
+        public long getSize() { return size; }
+        public String getSha256() { return sha256; }
+        public long getCrc32() { return crc32; }
+    }
+}
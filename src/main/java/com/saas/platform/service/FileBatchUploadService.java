@@ -0,0 +1,279 @@
+package com.saas.platform.service;
+
+import com.saas.platform.model.FileStorage;
+import com.saas.platform.model.StoredBlob;
+import com.saas.platform.repository.FileStorageRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//
+// FileBatchUploadService - Uploads many files sent in one multipart request
+// Permissions are checked once by the caller and the quota once for the total
+// of the batch. The parts are staged (written, hashed, compressed) in parallel
+// on a bounded pool; the blob references and file records are then written in
+// one transaction, the records as a single JDBC batch, with one activity entry
+// for the whole batch. Parts that fail validation or staging are reported per
+// file and do not stop the rest; a failure in the transaction fails them all.
+
+@Service
+public class FileBatchUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(FileBatchUploadService.class);
+    private static final int MAX_ACTIVITY_LINES = 50;
+
+    public static final String STATUS_UPLOADED = "UPLOADED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private final FileStorageService fileStorageService;
+    private final FileStorageRepository fileStorageRepository;
+    private final BlobStore blobStore;
+    private final FileSearchService searchService;
+    private final ActivityLogService activityLogService;
+    private final ThumbnailService thumbnailService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int maxFiles;
+    private final long maxFileSize;
+    private final ExecutorService stagingPool;
+
+    public FileBatchUploadService(FileStorageService fileStorageService,
+                                  FileStorageRepository fileStorageRepository,
+                                  BlobStore blobStore,
+                                  FileSearchService searchService,
+                                  ActivityLogService activityLogService,
+                                  ThumbnailService thumbnailService,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${app.file.batch-upload.max-files:500}") int maxFiles,
+                                  @Value("${app.file.batch-upload.threads:4}") int threads,
+                                  @Value("${file.max.size:10485760}") long maxFileSize) {
+        this.fileStorageService = fileStorageService;
+        this.fileStorageRepository = fileStorageRepository;
+        this.blobStore = blobStore;
+        this.searchService = searchService;
+        this.activityLogService = activityLogService;
+        this.thumbnailService = thumbnailService;
+        this.transactionTemplate = transactionTemplate;
+        this.maxFiles = Math.max(1, maxFiles);
+        this.maxFileSize = maxFileSize;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.stagingPool = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "batch-upload-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stagingPool.shutdownNow();
+    }
+
+    //
+// Upload the parts as separate files; results come back in the order of the parts
+
+    public BatchUploadResult uploadBatch(List<MultipartFile> parts, Long tenantId, Long userId,
+                                         String description, String category) throws IOException {
+        if (parts == null || parts.isEmpty()) {
+            throw new IllegalArgumentException("No files in batch");
+        }
+        if (parts.size() > maxFiles) {
+            throw new IllegalArgumentException("Batch exceeds maximum of " + maxFiles + " files");
+        }
+
+        List<Item> items = new ArrayList<>(parts.size());
+        long totalBytes = 0;
+        for (MultipartFile part : parts) {
+            Item item = new Item(part);
+            item.error = validate(part);
+            if (item.error == null) {
+                totalBytes += part.getSize();
+            }
+            items.add(item);
+        }
+
+        // One quota check for everything the batch adds
+        fileStorageService.checkStorageQuota(tenantId, totalBytes);
+
+        try {
+            stageAll(items, tenantId);
+
+            List<Item> staged = items.stream().filter(item -> item.staged != null).toList();
+            if (!staged.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> register(staged, tenantId, userId, description, category));
+                staged.forEach(item -> thumbnailService.requestThumbnail(item.file));
+            }
+        } finally {
+            for (Item item : items) {
+                if (item.staged != null) {
+                    blobStore.discard(item.staged);
+                }
+            }
+        }
+
+        List<ItemResult> results = items.stream().map(Item::toResult).toList();
+        log.info("Batch upload for tenant {}: {} of {} files stored", tenantId,
+            results.stream().filter(result -> STATUS_UPLOADED.equals(result.getStatus())).count(), results.size());
+        return new BatchUploadResult(results);
+    }
+
+    private String validate(MultipartFile part) {
+        if (part == null || part.isEmpty()) {
+            return "File is empty or null";
+        }
+        if (part.getOriginalFilename() == null || part.getOriginalFilename().trim().isEmpty()) {
+            return "Invalid filename";
+        }
+        if (part.getSize() > maxFileSize) {
+            return "File size exceeds maximum allowed size: " + (maxFileSize / 1024 / 1024) + "MB";
+        }
+        return null;
+    }
+
+    // Write, hash and compress the parts in parallel; a part that fails keeps its error
+    private void stageAll(List<Item> items, Long tenantId) throws IOException {
+        List<Future<?>> futures = new ArrayList<>(items.size());
+        for (Item item : items) {
+            if (item.error != null) {
+                continue;
+            }
+            futures.add(stagingPool.submit(() -> {
+                try (InputStream in = item.part.getInputStream()) {
+                    item.staged = blobStore.stage(in, maxFileSize);
+                    fileStorageService.compress(item.staged, tenantId, item.part.getContentType(), item.extension);
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Failed to stage {} in batch upload: {}", item.filename, e.getMessage());
+                    item.error = e.getMessage() != null ? e.getMessage() : "Upload failed";
+                }
+            }));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new IOException("Batch upload interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch upload failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    // Blob references in checksum order, so concurrent batches lock shared blobs in the same order
+    private void register(List<Item> staged, Long tenantId, Long userId, String description, String category) {
+        LocalDateTime now = LocalDateTime.now();
+        List<FileStorage> files = new ArrayList<>(staged.size());
+        for (Item item : staged.stream().sorted(Comparator.comparing(item -> item.staged.getSha256())).toList()) {
+            StoredBlob blob = blobStore.commit(item.staged, tenantId);
+
+            FileStorage file = new FileStorage(
+                tenantId, userId, item.filename, UUID.randomUUID() + "." + item.extension,
+                blob.getPath(), item.staged.getSize(), item.part.getContentType(), item.extension
+            );
+            file.setBlobId(blob.getId());
+            file.setDescription(description);
+            file.setCategory(category);
+            file.setChecksum(item.staged.getSha256());
+            file.setSearchIndexedAt(now);
+            item.file = file;
+            files.add(file);
+        }
+
+        fileStorageRepository.insertAll(files);
+        files.forEach(searchService::indexFile);
+
+        long totalBytes = files.stream().mapToLong(FileStorage::getFileSize).sum();
+        StringBuilder details = new StringBuilder(String.format("%d files, %d bytes", files.size(), totalBytes));
+        staged.stream().limit(MAX_ACTIVITY_LINES).forEach(item -> details.append("\n").append(item.filename)
+            .append(" (id ").append(item.file.getId()).append(", ").append(item.file.getFileSizeFormatted()).append(")"));
+        if (staged.size() > MAX_ACTIVITY_LINES) {
+            details.append("\n... and ").append(staged.size() - MAX_ACTIVITY_LINES).append(" more");
+        }
+        activityLogService.logActivity(
+            tenantId, userId, "system", "System",
+            "Batch upload: " + files.size() + " files",
+            "data",
+            details.toString()
+        );
+    }
+
+    // One part of the batch while it is processed
+    private static final class Item {
+        private final MultipartFile part;
+        private final String filename;
+        private final String extension;
+        private volatile BlobStore.StagedBlob staged;
+        private volatile String error;
+        private FileStorage file;
+
+        private Item(MultipartFile part) {
+            this.part = part;
+            this.filename = part != null ? part.getOriginalFilename() : null;
+            this.extension = FileStorageService.getFileExtension(filename);
+        }
+
+        private ItemResult toResult() {
+            if (file != null) {
+                return new ItemResult(filename, STATUS_UPLOADED, file.getId(), file.getFileSize(), null);
+            }
+            return new ItemResult(filename, STATUS_FAILED, null, null, error != null ? error : "Upload failed");
+        }
+    }
+
+    public static class ItemResult {
+        private final String filename;
+        private final String status;
+        private final Long fileId;
+        private final Long fileSize;
+        private final String error;
+
+        public ItemResult(String filename, String status, Long fileId, Long fileSize, String error) {
+            this.filename = filename;
+            this.status = status;
+            this.fileId = fileId;
+            this.fileSize = fileSize;
+            this.error = error;
+        }
+
+        public String getFilename() { return filename; }
+        public String getStatus() { return status; }
+        public Long getFileId() { return fileId; }
+        public Long getFileSize() { return fileSize; }
+        public String getError() { return error; }
+    }
+
+    public static class BatchUploadResult {
+        private final List<ItemResult> files;
+        private final int uploaded;
+        private final int failed;
+
+        public BatchUploadResult(List<ItemResult> files) {
+            this.files = files;
+            this.uploaded = (int) files.stream().filter(file -> STATUS_UPLOADED.equals(file.getStatus())).count();
+            this.failed = files.size() - uploaded;
+        }
+
+        public List<ItemResult> getFiles() { return files; }
+        public int getUploaded() { return uploaded; }
+        public int getFailed() { return failed; }
+    }
+}
@@ -0,0 +1,314 @@
+package com.saas.platform.service;
+
+import com.saas.platform.model.FileStorage;
+import com.saas.platform.repository.FileStorageRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+//
+// FilePurgeService - Moves expired files to the trash and purges old trash
+// Runs in chunks of batch-size rows:
+// 1. Live files past expires_at are moved to the trash (rows locked with
+//    SKIP LOCKED, so nodes running the job at the same time take different rows).
+// 2. Trash older than trash-retention-days is claimed with a lease
+//    (purge_lease_until), physical files are deleted on a small pool paced to
+//    max-deletes-per-second, then the rows are deleted in one transaction that
+//    releases blob references (version chunks included) and drops search and
+//    share entries.
+// A node that dies mid-batch leaves leased rows behind; once the lease runs
+// out another run picks them up again, and every step is idempotent.
+// Deduplicated content is only dereferenced here; BlobStore collects it.
+// Runs happen on their own thread, not on the shared scheduler thread.
+
+@Component
+public class FilePurgeService {
+
+    private static final Logger log = LoggerFactory.getLogger(FilePurgeService.class);
+
+    private final FileStorageRepository fileStorageRepository;
+    private final BlobStore blobStore;
+    private final FileSearchService searchService;
+    private final FileShareService shareService;
+    private final FileVersionService versionService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final int trashRetentionDays;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final long leaseSeconds;
+    private final long ioIntervalNanos;
+
+    private final ExecutorService ioPool;
+    private final ThreadPoolExecutor runner;
+    private final AtomicLong nextIoSlot = new AtomicLong();
+    private final ReentrantLock runLock = new ReentrantLock();
+    private final LongAdder expiredTrashed = new LongAdder();
+    private final LongAdder filesPurged = new LongAdder();
+    private final LongAdder bytesPurged = new LongAdder();
+    private final LongAdder deleteFailures = new LongAdder();
+    private volatile LocalDateTime lastRunAt;
+
+    public FilePurgeService(FileStorageRepository fileStorageRepository,
+                            BlobStore blobStore,
+                            FileSearchService searchService,
+                            FileShareService shareService,
+                            FileVersionService versionService,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${app.file.purge.enabled:true}") boolean enabled,
+                            @Value("${app.file.purge.trash-retention-days:30}") int trashRetentionDays,
+                            @Value("${app.file.purge.batch-size:200}") int batchSize,
+                            @Value("${app.file.purge.max-batches-per-run:50}") int maxBatchesPerRun,
+                            @Value("${app.file.purge.lease-seconds:600}") long leaseSeconds,
+                            @Value("${app.file.purge.io-threads:4}") int ioThreads,
+                            @Value("${app.file.purge.max-deletes-per-second:200}") int maxDeletesPerSecond) {
+        this.fileStorageRepository = fileStorageRepository;
+        this.blobStore = blobStore;
+        this.searchService = searchService;
+        this.shareService = shareService;
+        this.versionService = versionService;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.trashRetentionDays = Math.max(0, trashRetentionDays);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatchesPerRun = Math.max(1, maxBatchesPerRun);
+        this.leaseSeconds = Math.max(30, leaseSeconds);
+        this.ioIntervalNanos = 1_000_000_000L / Math.max(1, maxDeletesPerSecond);
+
+        AtomicInteger counter = new AtomicInteger();
+        this.ioPool = Executors.newFixedThreadPool(Math.max(1, ioThreads), runnable -> {
+            Thread thread = new Thread(runnable, "file-purge-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Separate from ioPool, which the run waits on for its deletes; a trigger while a run is going is dropped
+        this.runner = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "file-purge-run");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @Scheduled(fixedDelayString = "${app.file.purge.interval-ms:600000}",
+               initialDelayString = "${app.file.purge.initial-delay-ms:120000}")
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        runner.execute(this::purge);
+    }
+
+    private void purge() {
+        if (!runLock.tryLock()) {
+            return;
+        }
+        try {
+            int trashed = trashExpired();
+            int purged = purgeTrash();
+            lastRunAt = LocalDateTime.now();
+            if (trashed > 0 || purged > 0) {
+                log.info("File purge: {} expired files moved to trash, {} files purged", trashed, purged);
+            }
+        } catch (Exception e) {
+            log.error("File purge run failed: {}", e.getMessage(), e);
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    public PurgeStats getStats() {
+        return new PurgeStats(enabled, trashRetentionDays, expiredTrashed.sum(), filesPurged.sum(),
+            bytesPurged.sum(), deleteFailures.sum(), lastRunAt);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+        ioPool.shutdownNow();
+    }
+
+    private int trashExpired() {
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<Long> ids = transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                List<Long> locked = fileStorageRepository.lockExpired(now, batchSize);
+                if (!locked.isEmpty()) {
+                    fileStorageRepository.moveToTrash(locked, now);
+                    searchService.removeFiles(locked);
+                }
+                return locked;
+            });
+            total += ids.size();
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+        expiredTrashed.add(total);
+        return total;
+    }
+
+    private int purgeTrash() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(trashRetentionDays);
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            // Whole seconds, so the lease compares equal after a round trip through the database
+            LocalDateTime leaseUntil = LocalDateTime.now().plusSeconds(leaseSeconds).truncatedTo(ChronoUnit.SECONDS);
+            List<FileStorage> claimed = transactionTemplate.execute(status -> {
+                List<Long> ids = fileStorageRepository.lockPurgeable(cutoff, LocalDateTime.now(), batchSize);
+                if (ids.isEmpty()) {
+                    return List.<FileStorage>of();
+                }
+                fileStorageRepository.claimForPurge(ids, leaseUntil);
+                return fileStorageRepository.findAllById(ids);
+            });
+            if (claimed.isEmpty()) {
+                break;
+            }
+
+            Set<Long> ready = deletePhysicalFiles(claimed);
+            total += deleteRows(claimed, ready, leaseUntil);
+
+            if (claimed.size() < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    // Delete per-file storage in parallel; returns the ids whose rows may go
+    private Set<Long> deletePhysicalFiles(List<FileStorage> files) {
+        Set<Long> ready = new HashSet<>();
+        Map<Long, Future<?>> pending = new LinkedHashMap<>();
+
+        for (FileStorage file : files) {
+            if (file.getBlobId() != null || file.getFilePath() == null) {
+                ready.add(file.getId());
+                continue;
+            }
+            pending.put(file.getId(), ioPool.submit(() -> {
+                awaitIoSlot();
+                Files.deleteIfExists(Paths.get(file.getFilePath()));
+                return null;
+            }));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(leaseSeconds / 2);
+        for (Map.Entry<Long, Future<?>> entry : pending.entrySet()) {
+            try {
+                entry.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                ready.add(entry.getKey());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                // Left in the trash; retried once the lease runs out
+                entry.getValue().cancel(true);
+                deleteFailures.increment();
+                log.warn("Failed to delete stored file of file {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+        return ready;
+    }
+
+    private int deleteRows(List<FileStorage> claimed, Set<Long> ready, LocalDateTime leaseUntil) {
+        if (ready.isEmpty()) {
+            return 0;
+        }
+        Map<Long, FileStorage> byId = new LinkedHashMap<>();
+        for (FileStorage file : claimed) {
+            byId.put(file.getId(), file);
+        }
+
+        Integer deleted = transactionTemplate.execute(status -> {
+            List<Long> locked = fileStorageRepository.lockClaimed(ready, leaseUntil);
+            if (locked.isEmpty()) {
+                return 0;
+            }
+            long bytes = 0;
+            for (Long id : locked) {
+                FileStorage file = byId.get(id);
+                if (file.getBlobId() != null) {
+                    blobStore.release(file.getBlobId());
+                }
+                bytes += file.getFileSize() != null ? file.getFileSize() : 0L;
+            }
+            searchService.removeFiles(locked);
+            shareService.removeAll(locked);
+            versionService.removeAll(locked);
+            fileStorageRepository.deleteAllByIdInBatch(new ArrayList<>(locked));
+            bytesPurged.add(bytes);
+            return locked.size();
+        });
+
+        int count = deleted != null ? deleted : 0;
+        filesPurged.add(count);
+        return count;
+    }
+
+    // Spread deletions evenly to at most max-deletes-per-second across all workers
+    private void awaitIoSlot() throws InterruptedException {
+        long now = System.nanoTime();
+        long slot = Math.max(nextIoSlot.getAndUpdate(prev -> Math.max(prev, now) + ioIntervalNanos), now);
+        if (slot > now) {
+            TimeUnit.NANOSECONDS.sleep(slot - now);
+        }
+    }
+
+    public static class PurgeStats {
+        private final boolean enabled;
+        private final int trashRetentionDays;
+        private final long expiredTrashed;
+        private final long filesPurged;
+        private final long bytesPurged;
+        private final long deleteFailures;
+        private final LocalDateTime lastRunAt;
+
+        public PurgeStats(boolean enabled, int trashRetentionDays, long expiredTrashed, long filesPurged,
+                          long bytesPurged, long deleteFailures, LocalDateTime lastRunAt) {
+            this.enabled = enabled;
+            this.trashRetentionDays = trashRetentionDays;
+            this.expiredTrashed = expiredTrashed;
+            this.filesPurged = filesPurged;
+            this.bytesPurged = bytesPurged;
+            this.deleteFailures = deleteFailures;
+            this.lastRunAt = lastRunAt;
+        }
+
+        public boolean isEnabled() { return enabled; }
+        public int getTrashRetentionDays() { return trashRetentionDays; }
+        public long getExpiredTrashed() { return expiredTrashed; }
+        public long getFilesPurged() { return filesPurged; }
+        public long getBytesPurged() { return bytesPurged; }
+        public long getDeleteFailures() { return deleteFailures; }
+        public LocalDateTime getLastRunAt() { return lastRunAt; }
+    }
+}
@@ -0,0 +1,258 @@
+package com.saas.platform.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+//
+// FileRangeSender - Writes a stored file to the response with HTTP range and validator support
+// - If-None-Match against the checksum ETag answers 304 without a body
+// - A single "bytes=" range (honoured only if If-Range still matches) answers 206;
+//   multiple ranges are served as the full file, unsatisfiable ones get 416
+// - The body is handed to Tomcat's sendfile when the connector offers it, otherwise
+//   copied with FileChannel.transferTo, so file bytes never pass through the heap
+// - Files stored compressed go out as stored with Content-Encoding when the client
+//   accepts it and asks for the whole file; otherwise they are decompressed while
+//   streaming (ranges refer to the original content)
+
+@Component
+public class FileRangeSender {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final long[] UNSATISFIABLE = new long[0];
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    //
+// Send the file; returns true if the response body starts at byte 0 (a download to count)
+
+    public boolean send(HttpServletRequest request, HttpServletResponse response,
+                        FileStorageService.DownloadTarget target) throws IOException {
+        long size = target.getSize();
+        String etag = target.getEtag();
+        boolean encoded = target.getEncoding() != null;
+        boolean sendEncoded = encoded && request.getHeader(HttpHeaders.RANGE) == null
+            && acceptsEncoding(request.getHeader(HttpHeaders.ACCEPT_ENCODING), target.getEncoding());
+        if (sendEncoded) {
+            // A different representation of the same content needs its own validator
+            size = target.getStoredSize();
+            etag = etag.substring(0, etag.length() - 1) + "-" + target.getEncoding() + "\"";
+        }
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, target.getLastModifiedMillis());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // Tenant data: never stored by shared caches, always revalidated
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        if (encoded) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (sendEncoded) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, target.getEncoding());
+        }
+
+        if (matchesAny(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return false;
+        }
+
+        long start = 0;
+        long end = size - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+
+        if (range != null && ifRangeMatches(request, target)) {
+            long[] parsed = parseRange(range, size);
+            if (parsed == UNSATISFIABLE) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return false;
+            }
+            if (parsed != null) {
+                start = parsed[0];
+                end = parsed[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+
+        long length = end - start + 1;
+        response.setContentType(target.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+            .filename(target.getFilename(), StandardCharsets.UTF_8).build().toString());
+        response.setContentLengthLong(length);
+
+        if ("HEAD".equals(request.getMethod()) || length == 0) {
+            return false;
+        }
+
+        if (encoded && !sendEncoded) {
+            copyDecoded(target, start, length, response.getOutputStream());
+        } else if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, target.getPath().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+        } else {
+            transfer(target.getPath(), start, length, Channels.newChannel(response.getOutputStream()));
+        }
+        return start == 0;
+    }
+
+    private static void transfer(Path path, long position, long count, WritableByteChannel out) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    throw new IOException("File truncated while sending: " + path.getFileName());
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    private static void copyDecoded(FileStorageService.DownloadTarget target, long start, long length,
+                                    OutputStream out) throws IOException {
+        try (InputStream in = ContentCompressor.decode(Files.newInputStream(target.getPath()), target.getEncoding())) {
+            in.skipNBytes(start);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long remaining = length;
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read == -1) {
+                    throw new IOException("File truncated while sending: " + target.getPath().getFileName());
+                }
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+    }
+
+    //
+// Whether Accept-Encoding allows a coding; an explicit entry wins over "*", q=0 refuses
+
+    static boolean acceptsEncoding(String header, String encoding) {
+        if (header == null) {
+            return false;
+        }
+        Double explicit = null;
+        Double wildcard = null;
+        for (String entry : header.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals(encoding) || coding.equals("x-" + encoding)) {
+                explicit = q;
+            } else if (coding.equals("*")) {
+                wildcard = q;
+            }
+        }
+        Double q = explicit != null ? explicit : wildcard;
+        return q != null && q > 0;
+    }
+
+    //
+// Parse a single byte range into {start, end} (inclusive); null means serve the whole file
+
+    static long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=")) {
+            return null;
+        }
+        String spec = header.substring(6).trim();
+        if (spec.contains(",")) {
+            return null;
+        }
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+
+            if (first.isEmpty()) {
+                // Suffix range: the last N bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || size == 0) {
+                    return UNSATISFIABLE;
+                }
+                return new long[] { Math.max(0, size - suffix), size - 1 };
+            }
+
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            if (start >= size) {
+                return UNSATISFIABLE;
+            }
+            if (end < start) {
+                return null;
+            }
+            return new long[] { start, end };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // If-Range needs a strong validator match (or an exact date match)
+    private static boolean ifRangeMatches(HttpServletRequest request, FileStorageService.DownloadTarget target) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return !target.getEtag().startsWith("W/") && ifRange.trim().equals(target.getEtag());
+        }
+        try {
+            long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return date / 1000 == target.getLastModifiedMillis() / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    // If-None-Match uses weak comparison
+    private static boolean matchesAny(String header, String etag) {
+        if (header == null) {
+            return false;
+        }
+        String opaque = stripWeak(etag);
+        for (String candidate : header.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || stripWeak(value).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
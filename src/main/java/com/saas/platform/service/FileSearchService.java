@@ -0,0 +1,286 @@
+package com.saas.platform.service;
+
+import com.saas.platform.model.FileSearchTerm;
+import com.saas.platform.model.FileStorage;
+import com.saas.platform.model.FileTag;
+import com.saas.platform.repository.FileSearchTermRepository;
+import com.saas.platform.repository.FileStorageRepository;
+import com.saas.platform.repository.FileTagRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+//
+// FileSearchService - Word index over file names, tags and descriptions
+// Each live file has one file_search_terms row per distinct word (lower-cased,
+// split on anything that is not a letter or digit) and one file_tags row per
+// tag, written in the same transaction as the file change. Queries match whole
+// words, the last one as a prefix while the user is typing, and are ranked by
+// where the words occur (name > tag > description), newest first on ties.
+// Lookups only read postings of the query words, so their cost does not
+// depend on how many files a tenant has.
+
+@Service
+public class FileSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(FileSearchService.class);
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final int FILENAME_WEIGHT = 4;
+    private static final int TAG_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int MAX_TERM_LENGTH = 64;
+    private static final int MAX_TAG_LENGTH = 100;
+    private static final int MAX_FIELD_TERMS = 50;
+    private static final int MAX_DESCRIPTION_TERMS = 200;
+    private static final int MAX_QUERY_TERMS = 8;
+
+    private final FileStorageRepository fileStorageRepository;
+    private final FileSearchTermRepository termRepository;
+    private final FileTagRepository tagRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxPageSize;
+    private final int minPrefixLength;
+    private final int suggestScanLimit;
+    private final int backfillBatch;
+
+    private volatile boolean backfillComplete;
+
+    public FileSearchService(FileStorageRepository fileStorageRepository,
+                             FileSearchTermRepository termRepository,
+                             FileTagRepository tagRepository,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${app.file.search.max-page-size:100}") int maxPageSize,
+                             @Value("${app.file.search.min-prefix-length:2}") int minPrefixLength,
+                             @Value("${app.file.search.suggest-scan-limit:5000}") int suggestScanLimit,
+                             @Value("${app.file.search.backfill-batch:500}") int backfillBatch) {
+        this.fileStorageRepository = fileStorageRepository;
+        this.termRepository = termRepository;
+        this.tagRepository = tagRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.maxPageSize = Math.max(1, maxPageSize);
+        this.minPrefixLength = Math.max(1, minPrefixLength);
+        this.suggestScanLimit = Math.max(100, suggestScanLimit);
+        this.backfillBatch = Math.max(1, backfillBatch);
+    }
+
+    //
+// (Re)build the index entries of a file. The file must be managed by the
+// current transaction, so the searchIndexedAt stamp is flushed with it.
+
+    @Transactional
+    public void indexFile(FileStorage file) {
+        termRepository.deleteByFileId(file.getId());
+        tagRepository.deleteByFileId(file.getId());
+
+        if (!file.isDeleted()) {
+            Set<String> tags = normalizeTags(file.getTags());
+
+            Map<String, Integer> weights = new LinkedHashMap<>();
+            addTerms(weights, tokenize(file.getOriginalFilename(), MAX_FIELD_TERMS), FILENAME_WEIGHT);
+            Set<String> tagTerms = new LinkedHashSet<>();
+            for (String tag : tags) {
+                tagTerms.addAll(tokenize(tag, MAX_FIELD_TERMS));
+            }
+            addTerms(weights, tagTerms, TAG_WEIGHT);
+            addTerms(weights, tokenize(file.getDescription(), MAX_DESCRIPTION_TERMS), DESCRIPTION_WEIGHT);
+
+            List<FileSearchTerm> postings = new ArrayList<>(weights.size());
+            weights.forEach((term, weight) ->
+                postings.add(new FileSearchTerm(file.getTenantId(), file.getId(), term, weight)));
+            termRepository.saveAll(postings);
+
+            List<FileTag> tagRows = new ArrayList<>(tags.size());
+            for (String tag : tags) {
+                tagRows.add(new FileTag(file.getTenantId(), file.getId(), tag));
+            }
+            tagRepository.saveAll(tagRows);
+        }
+
+        file.setSearchIndexedAt(LocalDateTime.now());
+    }
+
+    //
+// Drop a file from the index (trash or permanent delete)
+
+    @Transactional
+    public void removeFile(Long fileId) {
+        termRepository.deleteByFileId(fileId);
+        tagRepository.deleteByFileId(fileId);
+    }
+
+    @Transactional
+    public void removeFiles(Collection<Long> fileIds) {
+        termRepository.deleteByFileIdIn(fileIds);
+        tagRepository.deleteByFileIdIn(fileIds);
+    }
+
+    //
+// Ranked, paginated search; a trailing partial word matches as a prefix
+
+    public List<FileStorage> search(Long tenantId, String query, int page, int size) {
+        List<String> words = new ArrayList<>(tokenize(query, MAX_QUERY_TERMS));
+        if (words.isEmpty()) {
+            return List.of();
+        }
+
+        String last = words.remove(words.size() - 1);
+        Set<String> exact = new LinkedHashSet<>(words);
+        boolean typing = Character.isLetterOrDigit(query.charAt(query.length() - 1));
+
+        String prefix = null;
+        if (!typing || last.length() < minPrefixLength) {
+            exact.add(last);
+        } else if (exact.stream().noneMatch(word -> word.startsWith(last))) {
+            prefix = last + "%";
+        }
+
+        int required = exact.size() + (prefix != null ? 1 : 0);
+        // Without a prefix, LIKE on an exact word only matches postings already counted by IN
+        String likePattern = prefix != null ? prefix : exact.iterator().next();
+        Collection<String> terms = exact.isEmpty() ? List.of("") : exact;
+
+        int pageSize = clampPageSize(size);
+        List<Long> ids = termRepository.searchFileIds(tenantId, terms, likePattern, required,
+            pageSize, Math.max(0, page) * pageSize);
+        return loadInOrder(ids);
+    }
+
+    //
+// Completions for the word being typed, most common first
+
+    public List<String> suggest(Long tenantId, String prefix, int limit) {
+        List<String> words = new ArrayList<>(tokenize(prefix, MAX_QUERY_TERMS));
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        String last = words.get(words.size() - 1);
+        return termRepository.suggestTerms(tenantId, last + "%", suggestScanLimit, Math.min(Math.max(1, limit), 20));
+    }
+
+    //
+// Files carrying a tag, newest first
+
+    public List<FileStorage> getFilesByTag(Long tenantId, String tag, int page, int size) {
+        String normalized = normalizeTag(tag);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = tagRepository.findFileIds(tenantId, normalized,
+            PageRequest.of(Math.max(0, page), clampPageSize(size)));
+        return loadInOrder(ids);
+    }
+
+    //
+// Index files stored before the search index existed, one batch per run
+
+    @Scheduled(fixedDelayString = "${app.file.search.backfill-interval-ms:10000}",
+               initialDelayString = "${app.file.search.backfill-initial-delay-ms:30000}")
+    public void backfill() {
+        if (backfillComplete) {
+            return;
+        }
+        List<Long> ids = fileStorageRepository.findUnindexedIds(PageRequest.of(0, backfillBatch));
+        if (ids.isEmpty()) {
+            backfillComplete = true;
+            log.info("File search index is up to date");
+            return;
+        }
+
+        int indexed = 0;
+        for (Long id : ids) {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                    fileStorageRepository.findById(id).ifPresent(this::indexFile));
+                indexed++;
+            } catch (Exception e) {
+                log.warn("Failed to index file {}: {}", id, e.getMessage());
+            }
+        }
+        log.info("Indexed {} existing files for search", indexed);
+    }
+
+    private int clampPageSize(int size) {
+        return Math.min(Math.max(1, size), maxPageSize);
+    }
+
+    private List<FileStorage> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, FileStorage> byId = new HashMap<>();
+        for (FileStorage file : fileStorageRepository.findAllById(ids)) {
+            byId.put(file.getId(), file);
+        }
+        return ids.stream()
+            .map(byId::get)
+            .filter(Objects::nonNull)
+            .filter(file -> !file.isDeleted())
+            .toList();
+    }
+
+    private static void addTerms(Map<String, Integer> weights, Set<String> terms, int weight) {
+        for (String term : terms) {
+            weights.merge(term, weight, Integer::sum);
+        }
+    }
+
+    // Distinct lower-cased words, in order of appearance
+    static Set<String> tokenize(String text, int maxTerms) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+        for (String word : WORD_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            terms.add(word.length() > MAX_TERM_LENGTH ? word.substring(0, MAX_TERM_LENGTH) : word);
+            if (terms.size() >= maxTerms) {
+                break;
+            }
+        }
+        return terms;
+    }
+
+    private static Set<String> normalizeTags(String tags) {
+        Set<String> normalized = new LinkedHashSet<>();
+        if (tags == null || tags.isBlank()) {
+            return normalized;
+        }
+        for (String tag : tags.split(",")) {
+            String value = normalizeTag(tag);
+            if (!value.isEmpty()) {
+                normalized.add(value);
+            }
+        }
+        return normalized;
+    }
+
+    private static String normalizeTag(String tag) {
+        if (tag == null) {
+            return "";
+        }
+        String value = WHITESPACE.matcher(tag.trim().toLowerCase(Locale.ROOT)).replaceAll(" ");
+        return value.length() > MAX_TAG_LENGTH ? value.substring(0, MAX_TAG_LENGTH) : value;
+    }
+}
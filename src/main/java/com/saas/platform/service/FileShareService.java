@@ -0,0 +1,204 @@
+package com.saas.platform.service;
+
+import com.saas.platform.model.FileShare;
+import com.saas.platform.model.FileSharePermission;
+import com.saas.platform.model.FileStorage;
+import com.saas.platform.repository.FileShareRepository;
+import com.saas.platform.repository.FileStorageRepository;
+import com.saas.platform.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+//
+// FileShareService - Per-user access grants for files (file_shares)
+// Sharing is additive and batched: each call grants or revokes a set of users
+// without touching the other grants. Expired grants stop matching at once and
+// are purged in the background. Share lists left in the old comma-separated
+// FileStorage.sharedWith column are migrated into file_shares on startup.
+
+@Service
+public class FileShareService {
+
+    private static final Logger log = LoggerFactory.getLogger(FileShareService.class);
+    private static final int MIGRATION_BATCH = 200;
+    private static final int PURGE_BATCH = 1000;
+
+    private final FileShareRepository shareRepository;
+    private final FileStorageRepository fileStorageRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBatchSize;
+    private final int maxPageSize;
+
+    private volatile boolean migrationComplete;
+
+    public FileShareService(FileShareRepository shareRepository,
+                            FileStorageRepository fileStorageRepository,
+                            UserRepository userRepository,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${app.file.share.max-batch-size:500}") int maxBatchSize,
+                            @Value("${app.file.share.max-page-size:100}") int maxPageSize) {
+        this.shareRepository = shareRepository;
+        this.fileStorageRepository = fileStorageRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxPageSize = Math.max(1, maxPageSize);
+    }
+
+    //
+// Grant (or update) access for a batch of users of the file's tenant
+
+    @Transactional
+    public List<FileShare> share(FileStorage file, Collection<Long> userIds, FileSharePermission permission,
+                                 LocalDateTime expiresAt, Long sharedBy) {
+        Set<Long> ids = validateBatch(userIds);
+        if (expiresAt != null && !expiresAt.isAfter(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Share expiry must be in the future");
+        }
+
+        Set<Long> members = new HashSet<>(userRepository.findIdsInTenant(file.getTenantId(), ids));
+        if (!members.containsAll(ids)) {
+            Set<Long> unknown = new LinkedHashSet<>(ids);
+            unknown.removeAll(members);
+            throw new IllegalArgumentException("Users not found in tenant: " + unknown);
+        }
+
+        String level = (permission != null ? permission : FileSharePermission.VIEW).name();
+        LocalDateTime now = LocalDateTime.now();
+        for (Long userId : ids) {
+            shareRepository.upsert(file.getId(), userId, file.getTenantId(), level, sharedBy, now, expiresAt);
+        }
+        return shareRepository.findByFileIdOrderByCreatedAtAsc(file.getId());
+    }
+
+    //
+// Revoke access for a batch of users; returns how many grants were removed
+
+    @Transactional
+    public int unshare(Long fileId, Collection<Long> userIds) {
+        return shareRepository.deleteByFileIdAndUserIds(fileId, validateBatch(userIds));
+    }
+
+    public List<FileShare> getShares(Long fileId) {
+        return shareRepository.findByFileIdOrderByCreatedAtAsc(fileId);
+    }
+
+    //
+// Live files shared with a user, newest first
+
+    public List<FileStorage> getFilesSharedWith(Long userId, Long tenantId, int page, int size) {
+        return shareRepository.findFilesSharedWith(userId, tenantId, LocalDateTime.now(),
+            PageRequest.of(Math.max(0, page), Math.min(Math.max(1, size), maxPageSize)));
+    }
+
+    //
+// Drop every grant of a file (call within the transaction that deletes it)
+
+    public void removeAll(Long fileId) {
+        shareRepository.deleteByFileId(fileId);
+    }
+
+    public void removeAll(Collection<Long> fileIds) {
+        shareRepository.deleteByFileIdIn(fileIds);
+    }
+
+    //
+// Delete grants that have expired
+
+    @Scheduled(fixedDelayString = "${app.file.share.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int purged = 0;
+        List<Long> ids;
+        do {
+            ids = shareRepository.findExpiredIds(now, PageRequest.of(0, PURGE_BATCH));
+            if (!ids.isEmpty()) {
+                List<Long> batch = ids;
+                transactionTemplate.executeWithoutResult(status -> shareRepository.deleteAllByIdInBatch(batch));
+                purged += ids.size();
+            }
+        } while (ids.size() == PURGE_BATCH);
+
+        if (purged > 0) {
+            log.info("Purged {} expired file shares", purged);
+        }
+    }
+
+    //
+// Move legacy sharedWith lists into file_shares, one batch per run
+
+    @Scheduled(fixedDelayString = "${app.file.share.migration-interval-ms:10000}",
+               initialDelayString = "${app.file.share.migration-initial-delay-ms:20000}")
+    public void migrateLegacyShares() {
+        if (migrationComplete) {
+            return;
+        }
+        List<Long> ids = fileStorageRepository.findIdsWithLegacyShares(PageRequest.of(0, MIGRATION_BATCH));
+        if (ids.isEmpty()) {
+            migrationComplete = true;
+            return;
+        }
+
+        for (Long id : ids) {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                    fileStorageRepository.findById(id).ifPresent(this::migrate));
+            } catch (Exception e) {
+                log.warn("Failed to migrate shares of file {}: {}", id, e.getMessage());
+            }
+        }
+        log.info("Migrated legacy share lists of {} files", ids.size());
+    }
+
+    private void migrate(FileStorage file) {
+        Set<Long> userIds = new LinkedHashSet<>();
+        for (String part : file.getSharedWith().split(",")) {
+            try {
+                if (!part.isBlank()) {
+                    userIds.add(Long.parseLong(part.trim()));
+                }
+            } catch (NumberFormatException e) {
+                log.debug("Skipping invalid user id '{}' shared on file {}", part, file.getId());
+            }
+        }
+
+        if (!userIds.isEmpty()) {
+            // Users that left the tenant lose access, as they would with any new share
+            LocalDateTime now = LocalDateTime.now();
+            for (Long userId : userRepository.findIdsInTenant(file.getTenantId(), userIds)) {
+                shareRepository.upsert(file.getId(), userId, file.getTenantId(),
+                    FileSharePermission.VIEW.name(), file.getUploadedBy(), now, null);
+            }
+        }
+        file.setSharedWith(null);
+    }
+
+    private Set<Long> validateBatch(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one user is required");
+        }
+        Set<Long> ids = new LinkedHashSet<>(userIds);
+        ids.remove(null);
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("At least one user is required");
+        }
+        if (ids.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Cannot share with more than " + maxBatchSize + " users at once");
+        }
+        return ids;
+    }
+}
@@ -1,24 +1,34 @@
 package com.saas.platform.service;
 
+import com.saas.platform.model.FileShare;
+import com.saas.platform.model.FileSharePermission;
 import com.saas.platform.model.FileStorage;
+import com.saas.platform.model.FileVersion;
+import com.saas.platform.model.StoredBlob;
 import com.saas.platform.repository.FileStorageRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.security.MessageDigest;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 //
@@ -29,6 +39,7 @@ import java.util.UUID;
 public class FileStorageService {
     
     private static final Logger log = LoggerFactory.getLogger(FileStorageService.class);
+    private static final int ARCHIVE_PAGE_SIZE = 500;
     
     @Value("${file.upload.dir:uploads}")
     private String uploadDir;
@@ -38,18 +49,50 @@ public class FileStorageService {
     
     private final FileStorageRepository fileStorageRepository;
     private final ActivityLogService activityLogService;
+    private final TransactionTemplate transactionTemplate;
+    private final BlobStore blobStore;
+    private final FileDownloadCounter downloadCounter;
+    private final StorageTierManager tierManager;
+    private final ThumbnailService thumbnailService;
+    private final FileSearchService searchService;
+    private final FileShareService shareService;
+    private final FileArchiveStreamer archiveStreamer;
+    private final FileVersionService versionService;
+    private final ContentCompressor contentCompressor;
+    
+    @Value("${app.file.archive.max-files:1000}")
+    private int maxArchiveFiles;
 
     
     public FileStorageService(FileStorageRepository fileStorageRepository,
-                            ActivityLogService activityLogService) {
+                            ActivityLogService activityLogService,
+                            TransactionTemplate transactionTemplate,
+                            BlobStore blobStore,
+                            FileDownloadCounter downloadCounter,
+                            StorageTierManager tierManager,
+                            ThumbnailService thumbnailService,
+                            FileSearchService searchService,
+                            FileShareService shareService,
+                            FileArchiveStreamer archiveStreamer,
+                            FileVersionService versionService,
+                            ContentCompressor contentCompressor) {
         this.fileStorageRepository = fileStorageRepository;
         this.activityLogService = activityLogService;
+        this.transactionTemplate = transactionTemplate;
+        this.blobStore = blobStore;
+        this.downloadCounter = downloadCounter;
+        this.tierManager = tierManager;
+        this.thumbnailService = thumbnailService;
+        this.searchService = searchService;
+        this.shareService = shareService;
+        this.archiveStreamer = archiveStreamer;
+        this.versionService = versionService;
+        this.contentCompressor = contentCompressor;
     }
     
     //
-// Upload a file
+// Upload a multipart file
      
-    @Transactional
     public FileStorage uploadFile(MultipartFile file, Long tenantId, Long userId,
                                   String description, String category) throws IOException {
         log.info("Uploading file: {} for tenant: {}", file.getOriginalFilename(), tenantId);
@@ -57,54 +100,271 @@ public class FileStorageService {
         // Validate file
         validateFile(file);
         
-        // Check storage quota
-        checkStorageQuota(tenantId, file.getSize());
+        try (InputStream in = file.getInputStream()) {
+            return storeUpload(in, file.getOriginalFilename(), file.getContentType(), file.getSize(),
+                tenantId, userId, description, category);
+        }
+    }
+    
+    //
+// Upload a raw request body (no multipart parsing, so no container temp file)
+// declaredSize is the Content-Length, or -1 if unknown
+     
+    public FileStorage uploadStream(InputStream in, String originalFilename, String contentType, long declaredSize,
+                                    Long tenantId, Long userId, String description, String category) throws IOException {
+        log.info("Streaming upload: {} for tenant: {}", originalFilename, tenantId);
         
-        // Create upload directory if not exists
-        Path uploadPath = createUploadDirectory(tenantId);
+        validateFilename(originalFilename);
+        if (declaredSize > maxFileSize) {
+            throw new IllegalArgumentException(
+                "File size exceeds maximum allowed size: " + (maxFileSize / 1024 / 1024) + "MB");
+        }
         
+        return storeUpload(in, originalFilename, contentType, declaredSize,
+            tenantId, userId, description, category);
+    }
+    
+    //
+// Stream to staging once, hashing on the way; the record and its blob
+// reference are saved in a short transaction after the bytes are on disk.
+// Identical content is stored once (see BlobStore).
+     
+    private FileStorage storeUpload(InputStream in, String originalFilename, String contentType, long declaredSize,
+                                    Long tenantId, Long userId, String description, String category) throws IOException {
+        // Check storage quota up front when the size is known
+        if (declaredSize > 0) {
+            checkStorageQuota(tenantId, declaredSize);
+        }
+        
+        // Save file to staging, computing the checksum in the same pass
+        BlobStore.StagedBlob written = blobStore.stage(in, maxFileSize);
+        
+        return registerStagedUpload(written, originalFilename, contentType,
+            tenantId, userId, description, category);
+    }
+    
+    //
+// Turn fully written, hashed staging content into a file record.
+// The staged file is always consumed (moved into the blob store or deleted).
+     
+    public FileStorage registerStagedUpload(BlobStore.StagedBlob written, String originalFilename, String contentType,
+                                            Long tenantId, Long userId, String description, String category) {
         // Generate unique filename
-        String originalFilename = file.getOriginalFilename();
         String fileExtension = getFileExtension(originalFilename);
         String storedFilename = UUID.randomUUID().toString() + "." + fileExtension;
         
-        // Save file to disk
-        Path filePath = uploadPath.resolve(storedFilename);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-        
-        // Calculate checksum
-        String checksum = calculateChecksum(filePath);
-        
-        // Create file record
-        FileStorage fileStorage = new FileStorage(
-            tenantId, userId, originalFilename, storedFilename,
-            filePath.toString(), file.getSize(), file.getContentType(), fileExtension
-        );
-        
-        fileStorage.setDescription(description);
-        fileStorage.setCategory(category);
-        fileStorage.setChecksum(checksum);
-        
-        FileStorage saved = fileStorageRepository.save(fileStorage);
+        try {
+            if (written.getSize() == 0) {
+                throw new IllegalArgumentException("File is empty or null");
+            }
+            checkStorageQuota(tenantId, written.getSize());
+            compress(written, tenantId, contentType, fileExtension);
+            
+            FileStorage stored = transactionTemplate.execute(status -> {
+                // Reference (or create) the content-addressed blob
+                StoredBlob blob = blobStore.commit(written, tenantId);
+                
+                // Create file record
+                FileStorage fileStorage = new FileStorage(
+                    tenantId, userId, originalFilename, storedFilename,
+                    blob.getPath(), written.getSize(), contentType, fileExtension
+                );
+                
+                fileStorage.setBlobId(blob.getId());
+                fileStorage.setDescription(description);
+                fileStorage.setCategory(category);
+                fileStorage.setChecksum(written.getSha256());
+                
+                FileStorage saved = fileStorageRepository.save(fileStorage);
+                searchService.indexFile(saved);
+                
+                // Log activity
+                activityLogService.logActivity(
+                    tenantId, userId, "system", "System",
+                    "File uploaded: " + originalFilename,
+                    "data",
+                    String.format("Size: %s, Type: %s", saved.getFileSizeFormatted(), fileExtension)
+                );
+                
+                log.info("File uploaded successfully with ID: {}", saved.getId());
+                
+                return saved;
+            });
+            
+            // Previews are made in the background once the record is committed
+            thumbnailService.requestThumbnail(stored);
+            
+            return stored;
+        } finally {
+            blobStore.discard(written);
+        }
+    }
+    
+    //
+// Upload a new version of an existing file (same id, shares and links)
+     
+    public FileStorage uploadNewVersion(Long fileId, MultipartFile file, Long userId) throws IOException {
+        log.info("Uploading new version of file ID: {}", fileId);
         
-        // Log activity
-        activityLogService.logActivity(
-            tenantId, userId, "system", "System",
-            "File uploaded: " + originalFilename,
-            "data",
-            String.format("Size: %s, Type: %s", saved.getFileSizeFormatted(), fileExtension)
-        );
+        validateFile(file);
         
-        log.info("File uploaded successfully with ID: {}", saved.getId());
+        BlobStore.StagedBlob written;
+        try (InputStream in = file.getInputStream()) {
+            written = blobStore.stage(in, maxFileSize);
+        }
+        return storeNewVersion(fileId, written, file.getOriginalFilename(), file.getContentType(),
+            userId, "New version uploaded");
+    }
+    
+    //
+// Versions of a file, newest first
+     
+    public List<FileVersion> getFileVersions(Long fileId) {
+        return versionService.getVersions(getFileById(fileId));
+    }
+    
+    //
+// Stream the content of one version
+     
+    public void writeVersion(Long fileId, int versionNumber, OutputStream out) throws IOException {
+        FileStorage file = getFileById(fileId);
+        if (file.isDeleted()) {
+            throw new IllegalArgumentException("File has been deleted");
+        }
+        FileVersion version = versionService.getVersion(file, versionNumber);
+        downloadCounter.markActivity();
+        try (InputStream in = versionService.openVersion(file, version)) {
+            in.transferTo(out);
+        }
+    }
+    
+    public FileVersion getFileVersion(Long fileId, int versionNumber) {
+        return versionService.getVersion(getFileById(fileId), versionNumber);
+    }
+    
+    //
+// Make an older version current again, as a new version (history is kept)
+     
+    public FileStorage restoreVersion(Long fileId, int versionNumber, Long userId) throws IOException {
+        FileStorage file = getFileById(fileId);
+        if (file.isDeleted()) {
+            throw new IllegalArgumentException("File has been deleted");
+        }
+        FileVersion version = versionService.getVersion(file, versionNumber);
+        if (version.isCurrent()) {
+            throw new IllegalArgumentException("Version " + versionNumber + " is already the current version");
+        }
         
-        return saved;
+        BlobStore.StagedBlob written;
+        try (InputStream in = versionService.openVersion(file, version)) {
+            written = blobStore.stage(in, 0);
+        }
+        if (version.getChecksum() != null && !version.getChecksum().equals(written.getSha256())) {
+            blobStore.discard(written);
+            throw new IOException("Version " + versionNumber + " of file " + fileId + " is corrupt");
+        }
+        return storeNewVersion(fileId, written, version.getOriginalFilename(), version.getMimeType(),
+            userId, "Restored version " + versionNumber);
+    }
+    
+    //
+// Replace a file's content with staged content as its next version. The old
+// content goes into the version history (only chunks not stored yet are
+// written) and versions past the plan's limit are pruned, in one transaction.
+// The staged file is always consumed.
+     
+    private FileStorage storeNewVersion(Long fileId, BlobStore.StagedBlob written, String originalFilename,
+                                        String contentType, Long userId, String note) {
+        try {
+            if (written.getSize() == 0) {
+                throw new IllegalArgumentException("File is empty or null");
+            }
+            FileStorage current = getFileById(fileId);
+            if (current.isDeleted()) {
+                throw new IllegalArgumentException("File has been deleted");
+            }
+            if (written.getSha256().equals(current.getChecksum())) {
+                throw new IllegalArgumentException("Content is identical to the current version");
+            }
+            checkStorageQuota(current.getTenantId(), Math.max(0L, written.getSize() - current.getFileSize()));
+            compress(written, current.getTenantId(), contentType, getFileExtension(
+                originalFilename != null && !originalFilename.isBlank() ? originalFilename : current.getOriginalFilename()));
+            
+            List<Path> replacedLegacyFiles = new ArrayList<>(1);
+            FileStorage saved = transactionTemplate.execute(status -> {
+                FileStorage file = fileStorageRepository.lockById(fileId)
+                    .orElseThrow(() -> new IllegalArgumentException("File not found with ID: " + fileId));
+                if (file.isDeleted()) {
+                    throw new IllegalArgumentException("File has been deleted");
+                }
+                
+                try {
+                    versionService.archiveCurrent(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to archive current version of file " + fileId, e);
+                }
+                
+                StoredBlob blob = blobStore.commit(written, file.getTenantId());
+                if (file.getBlobId() != null) {
+                    blobStore.release(file.getBlobId());
+                } else {
+                    replacedLegacyFiles.add(Paths.get(file.getFilePath()));
+                }
+                
+                String filename = originalFilename != null && !originalFilename.isBlank()
+                    ? originalFilename : file.getOriginalFilename();
+                file.setBlobId(blob.getId());
+                file.setFilePath(blob.getPath());
+                file.setFileSize(written.getSize());
+                file.setChecksum(written.getSha256());
+                file.setOriginalFilename(filename);
+                file.setFileExtension(getFileExtension(filename));
+                file.setMimeType(contentType);
+                if (Boolean.TRUE.equals(blob.getHotCopy())) {
+                    file.setStorageProvider(LocalStorageBackend.NAME);
+                    file.setCloudStorageUrl(null);
+                } else {
+                    file.setStorageProvider(blob.getColdBackend());
+                    file.setCloudStorageUrl(blob.getColdLocator());
+                }
+                file.setVersion((file.getVersion() != null ? file.getVersion() : 1) + 1);
+                
+                versionService.recordCurrent(file, userId);
+                int pruned = versionService.prune(file);
+                searchService.indexFile(file);
+                
+                activityLogService.logActivity(
+                    file.getTenantId(), userId, "system", "System",
+                    "File updated: " + filename,
+                    "data",
+                    String.format("%s: version %d, Size: %s", note, file.getVersion(), file.getFileSizeFormatted())
+                );
+                
+                log.info("File {} is now at version {} ({} old versions pruned)", fileId, file.getVersion(), pruned);
+                return file;
+            });
+            
+            // Content stored before the blob store now lives in the version history
+            for (Path path : replacedLegacyFiles) {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    log.warn("Could not delete replaced file {}: {}", path, e.getMessage());
+                }
+            }
+            
+            thumbnailService.requestThumbnail(saved);
+            return saved;
+        } finally {
+            blobStore.discard(written);
+        }
     }
     
     //
-// Download a file
+// Resolve a file for download (validators and path, no body)
      
-    public Resource downloadFile(Long fileId, Long userId) throws IOException {
-        log.info("Downloading file ID: {} by user: {}", fileId, userId);
+    public DownloadTarget openDownload(Long fileId, Long userId) throws IOException {
+        log.debug("Downloading file ID: {} by user: {}", fileId, userId);
         
         FileStorage file = getFileById(fileId);
         
@@ -118,20 +378,124 @@ public class FileStorageService {
             throw new IllegalArgumentException("File has expired");
         }
         
-        Path filePath = Paths.get(file.getFilePath());
-        Resource resource = new UrlResource(filePath.toUri());
+        downloadCounter.markActivity();
         
-        if (!resource.exists() || !resource.isReadable()) {
+        // Cold files are brought back to the hot tier first
+        StorageTierManager.LocalContent content = tierManager.resolveContent(file);
+        Path filePath = content.getPath();
+        if (!Files.isReadable(filePath)) {
             throw new IOException("File not found or not readable: " + file.getOriginalFilename());
         }
         
-        // Increment download count
-        file.incrementDownloadCount();
-        fileStorageRepository.save(file);
+        // A new version changes the content of the same file, so it must move Last-Modified too
+        LocalDateTime modified = file.getUpdatedAt() != null ? file.getUpdatedAt() : file.getCreatedAt();
+        long lastModified = modified != null
+            ? modified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+            : Files.getLastModifiedTime(filePath).toMillis();
+        
+        // The checksum identifies the content of the current version, so it is a strong validator
+        String etag = file.getChecksum() != null && !file.getChecksum().isEmpty()
+            ? "\"" + file.getChecksum() + "\""
+            : "W/\"" + file.getFileSize() + "-" + lastModified + "\"";
+        
+        String contentType = file.getMimeType() != null ? file.getMimeType() : "application/octet-stream";
+        
+        // Compressed files are sent as stored or decoded on the way, per request (see FileRangeSender)
+        long storedSize = Files.size(filePath);
+        long size = content.getEncoding() != null ? content.getSize() : storedSize;
+        return new DownloadTarget(filePath, size, etag, lastModified,
+            contentType, file.getOriginalFilename(), content.getEncoding(), storedSize);
+    }
+    
+    //
+// Thumbnail of an image file; pending while it is still being generated
+     
+    public ThumbnailService.Thumbnail getThumbnail(Long fileId) {
+        FileStorage file = getFileById(fileId);
         
-        log.info("File downloaded: {}", file.getOriginalFilename());
+        if (file.isDeleted()) {
+            throw new IllegalArgumentException("File has been deleted");
+        }
+        if (!thumbnailService.isSupported(file)) {
+            throw new IllegalArgumentException("No preview available for this file type");
+        }
         
-        return resource;
+        return thumbnailService.getThumbnail(file);
+    }
+    
+    //
+// Files for a ZIP download, in the requested order
+     
+    public List<FileStorage> getFilesForArchive(List<Long> fileIds) {
+        if (fileIds == null || fileIds.isEmpty()) {
+            throw new IllegalArgumentException("No files selected");
+        }
+        List<Long> ids = fileIds.stream().distinct().toList();
+        if (ids.size() > maxArchiveFiles) {
+            throw new IllegalArgumentException("Cannot download more than " + maxArchiveFiles + " files at once");
+        }
+        
+        Map<Long, FileStorage> byId = new HashMap<>();
+        for (FileStorage file : fileStorageRepository.findAllById(ids)) {
+            byId.put(file.getId(), file);
+        }
+        
+        List<FileStorage> files = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            FileStorage file = byId.get(id);
+            if (file == null || file.isDeleted()) {
+                throw new IllegalArgumentException("File not found with ID: " + id);
+            }
+            files.add(file);
+        }
+        return files;
+    }
+    
+    //
+// Stream the given files as a ZIP
+     
+    public void writeArchive(List<FileStorage> files, OutputStream out) throws IOException {
+        try (FileArchiveStreamer.ArchiveWriter archive = archiveStreamer.open(out)) {
+            archive.addFiles("", files);
+            archive.finish();
+            log.info("Streamed archive of {} files ({} bytes)", archive.getEntries(), archive.getBytes());
+        }
+    }
+    
+    //
+// Stream all live files of a tenant as a ZIP, one folder per category
+     
+    public void writeTenantArchive(Long tenantId, OutputStream out) throws IOException {
+        try (FileArchiveStreamer.ArchiveWriter archive = archiveStreamer.open(out)) {
+            long afterId = 0;
+            List<FileStorage> page;
+            do {
+                page = fileStorageRepository.findByTenantIdAndDeletedAtIsNullAndIdGreaterThanOrderByIdAsc(
+                    tenantId, afterId, PageRequest.of(0, ARCHIVE_PAGE_SIZE));
+                if (!page.isEmpty()) {
+                    Map<String, List<FileStorage>> byCategory = new LinkedHashMap<>();
+                    for (FileStorage file : page) {
+                        String folder = file.getCategory() != null && !file.getCategory().isBlank()
+                            ? file.getCategory() : "uncategorized";
+                        byCategory.computeIfAbsent(folder, key -> new ArrayList<>()).add(file);
+                    }
+                    for (Map.Entry<String, List<FileStorage>> entry : byCategory.entrySet()) {
+                        archive.addFiles(entry.getKey(), entry.getValue());
+                    }
+                    afterId = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == ARCHIVE_PAGE_SIZE);
+            
+            archive.finish();
+            log.info("Streamed archive of tenant {}: {} files ({} bytes)", tenantId, archive.getEntries(), archive.getBytes());
+        }
+    }
+    
+    //
+// Count a download (coalesced, written asynchronously)
+     
+    public void recordDownload(Long fileId) {
+        downloadCounter.record(fileId);
     }
     
     //
@@ -156,11 +520,24 @@ public class FileStorageService {
     }
     
     //
-// Search files by name
+// Search files by name, tags and description (ranked, paginated)
+     
+    public List<FileStorage> searchFiles(Long tenantId, String keyword, int page, int size) {
+        return searchService.search(tenantId, keyword, page, size);
+    }
+    
+    //
+// Autocomplete for the search box
+     
+    public List<String> suggestSearchTerms(Long tenantId, String prefix, int limit) {
+        return searchService.suggest(tenantId, prefix, limit);
+    }
+    
+    //
+// Get files by tag
      
-    public List<FileStorage> searchFiles(Long tenantId, String keyword) {
-        return fileStorageRepository.findByTenantIdAndOriginalFilenameContainingIgnoreCaseAndDeletedAtIsNull(
-            tenantId, keyword);
+    public List<FileStorage> getFilesByTag(Long tenantId, String tag, int page, int size) {
+        return searchService.getFilesByTag(tenantId, tag, page, size);
     }
     
     //
@@ -175,26 +552,58 @@ public class FileStorageService {
         if (category != null) file.setCategory(category);
         if (tags != null) file.setTags(tags);
         
-        return fileStorageRepository.save(file);
+        FileStorage saved = fileStorageRepository.save(file);
+        searchService.indexFile(saved);
+        
+        return saved;
     }
     
     //
-// Share file with users
+// Share file with users (view access, added to existing shares)
      
     @Transactional
     public FileStorage shareFile(Long fileId, List<Long> userIds) {
         FileStorage file = getFileById(fileId);
+        shareService.share(file, userIds, FileSharePermission.VIEW, null, file.getUploadedBy());
+        return file;
+    }
+    
+    //
+// Grant or update access for a batch of users
+     
+    @Transactional
+    public List<FileShare> shareFile(Long fileId, List<Long> userIds, FileSharePermission permission,
+                                     LocalDateTime expiresAt, Long sharedBy) {
+        FileStorage file = getFileById(fileId);
         
-        String sharedWith = userIds.stream()
-            .map(String::valueOf)
-            .reduce((a, b) -> a + "," + b)
-            .orElse("");
-        
-        file.setSharedWith(sharedWith);
-        
-        FileStorage saved = fileStorageRepository.save(file);
+        if (file.isDeleted()) {
+            throw new IllegalArgumentException("File has been deleted");
+        }
         
-        return saved;
+        return shareService.share(file, userIds, permission, expiresAt, sharedBy);
+    }
+    
+    //
+// Revoke access for a batch of users
+     
+    @Transactional
+    public int unshareFile(Long fileId, List<Long> userIds) {
+        getFileById(fileId);
+        return shareService.unshare(fileId, userIds);
+    }
+    
+    //
+// Users a file is shared with
+     
+    public List<FileShare> getFileShares(Long fileId) {
+        return shareService.getShares(fileId);
+    }
+    
+    //
+// Files shared with a user
+     
+    public List<FileStorage> getFilesSharedWith(Long userId, Long tenantId, int page, int size) {
+        return shareService.getFilesSharedWith(userId, tenantId, page, size);
     }
     
     //
@@ -208,6 +617,7 @@ public class FileStorageService {
         file.softDelete();
         
         fileStorageRepository.save(file);
+        searchService.removeFile(fileId);
         
         // Log activity
         activityLogService.logActivity(
@@ -229,11 +639,21 @@ public class FileStorageService {
         
         FileStorage file = getFileById(fileId);
         
-        // Delete physical file
-        Path filePath = Paths.get(file.getFilePath());
-        Files.deleteIfExists(filePath);
+        if (file.isBeingPurged()) {
+            throw new IllegalStateException("File is already being purged");
+        }
+        
+        // Delete physical file; shared blobs are collected once unreferenced
+        if (file.getBlobId() != null) {
+            blobStore.release(file.getBlobId());
+        } else {
+            Files.deleteIfExists(Paths.get(file.getFilePath()));
+        }
         
         // Delete database record
+        searchService.removeFile(fileId);
+        shareService.removeAll(fileId);
+        versionService.removeAll(fileId);
         fileStorageRepository.delete(file);
         
         log.info("File permanently deleted");
@@ -244,14 +664,22 @@ public class FileStorageService {
      
     @Transactional
     public FileStorage restoreFile(Long fileId) {
-        FileStorage file = getFileById(fileId);
+        // Row lock held until commit: a purge cannot claim the file between the lease check and the save
+        FileStorage file = fileStorageRepository.lockById(fileId)
+            .orElseThrow(() -> new IllegalArgumentException("File not found with ID: " + fileId));
         
         if (!file.isDeleted()) {
             throw new IllegalArgumentException("File is not deleted");
         }
+        if (file.isBeingPurged()) {
+            throw new IllegalStateException("File is being purged and cannot be restored");
+        }
         
         file.setDeletedAt(null);
-        return fileStorageRepository.save(file);
+        FileStorage saved = fileStorageRepository.save(file);
+        searchService.indexFile(saved);
+        
+        return saved;
     }
     
     //
@@ -291,13 +719,16 @@ public class FileStorageService {
                 "File size exceeds maximum allowed size: " + (maxFileSize / 1024 / 1024) + "MB");
         }
         
-        String filename = file.getOriginalFilename();
+        validateFilename(file.getOriginalFilename());
+    }
+    
+    private void validateFilename(String filename) {
         if (filename == null || filename.trim().isEmpty()) {
             throw new IllegalArgumentException("Invalid filename");
         }
     }
     
-    private void checkStorageQuota(Long tenantId, Long fileSize) {
+    public void checkStorageQuota(Long tenantId, Long fileSize) {
         Long currentStorage = getTotalStorageUsed(tenantId);
         Long maxStorage = 1024L * 1024 * 1024 * 10; // 10GB default
         
@@ -306,42 +737,63 @@ public class FileStorageService {
         }
     }
     
-    private Path createUploadDirectory(Long tenantId) throws IOException {
-        Path uploadPath = Paths.get(uploadDir, "tenant_" + tenantId);
-        
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
-            log.info("Created upload directory: {}", uploadPath);
+    //
+// Compress staged content where it pays off (see ContentCompressor). Runs before
+// the transaction so no row lock is held meanwhile; content already stored
+// keeps its file, so compressing it again would be wasted work.
+     
+    public void compress(BlobStore.StagedBlob written, Long tenantId, String contentType, String extension) {
+        if (blobStore.isStored(tenantId, written.getSha256())) {
+            return;
+        }
+        try {
+            contentCompressor.compressIfWorthwhile(written, contentType, extension);
+        } catch (IOException e) {
+            // Stored uncompressed instead
+            log.warn("Could not compress upload {}: {}", written.getSha256(), e.getMessage());
+            written.discardEncoding();
         }
-        
-        return uploadPath;
     }
     
     //
 // ✅ FIXED: Added null safety check
      
-    private String getFileExtension(String filename) {
+    static String getFileExtension(String filename) {
         if (filename == null || filename.trim().isEmpty() || !filename.contains(".")) {
             return "";
         }
         return filename.substring(filename.lastIndexOf(".") + 1).toLowerCase();
     }
     
-    private String calculateChecksum(Path filePath) throws IOException {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] fileBytes = Files.readAllBytes(filePath);
-            byte[] hashBytes = digest.digest(fileBytes);
-            
-            StringBuilder sb = new StringBuilder();
-            for (byte b : hashBytes) {
-                sb.append(String.format("%02x", b));
-            }
-            return sb.toString();
-            
-        } catch (Exception e) {
-            log.error("Failed to calculate checksum: {}", e.getMessage());
-            return "";
+    public static class DownloadTarget {
+        private final Path path;
+        private final long size;
+        private final String etag;
+        private final long lastModifiedMillis;
+        private final String contentType;
+        private final String filename;
+        private final String encoding;
+        private final long storedSize;
+        
+        public DownloadTarget(Path path, long size, String etag, long lastModifiedMillis,
+                              String contentType, String filename, String encoding, long storedSize) {
+            this.path = path;
+            this.size = size;
+            this.etag = etag;
+            this.lastModifiedMillis = lastModifiedMillis;
+            this.contentType = contentType;
+            this.filename = filename;
+            this.encoding = encoding;
+            this.storedSize = storedSize;
         }
+        
+        public Path getPath() { return path; }
+        public long getSize() { return size; }
+        public String getEtag() { return etag; }
+        public long getLastModifiedMillis() { return lastModifiedMillis; }
+        public String getContentType() { return contentType; }
+        public String getFilename() { return filename; }
+        public String getEncoding() { return encoding; } // null = the file is the content as is
+        public long getStoredSize() { return storedSize; }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,279 @@
+package com.saas.platform.service;
+
+import com.saas.platform.model.FileStorage;
+import com.saas.platform.model.FileVersion;
+import com.saas.platform.model.FileVersionChunk;
+import com.saas.platform.model.StoredBlob;
+import com.saas.platform.model.Subscription;
+import com.saas.platform.model.SubscriptionPlan;
+import com.saas.platform.repository.FileVersionChunkRepository;
+import com.saas.platform.repository.FileVersionRepository;
+import com.saas.platform.repository.StoredBlobRepository;
+import com.saas.platform.repository.SubscriptionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+//
+// FileVersionService - Version history of files, stored as content-defined chunks
+// The current version of a file is its blob, so downloads and previews are
+// unaffected. When a new version replaces it, the old content is split with
+// ContentDefinedChunker and each chunk is referenced in the blob store; chunks
+// already held for earlier versions (everything the edit did not touch) are
+// only referenced again, so history grows by the edited bytes, not the file
+// size. Archived versions are reassembled from their chunks on read; chunks
+// are never read by downloads of the current version, so the tiering job
+// moves them to the cold tier like any other idle blob.
+// The number of versions kept per file follows the tenant's plan.
+
+@Service
+public class FileVersionService {
+
+    private static final Logger log = LoggerFactory.getLogger(FileVersionService.class);
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final FileVersionRepository versionRepository;
+    private final FileVersionChunkRepository chunkRepository;
+    private final StoredBlobRepository blobRepository;
+    private final SubscriptionRepository subscriptionRepository;
+    private final BlobStore blobStore;
+    private final StorageTierManager tierManager;
+    private final ContentDefinedChunker chunker;
+
+    public FileVersionService(FileVersionRepository versionRepository,
+                              FileVersionChunkRepository chunkRepository,
+                              StoredBlobRepository blobRepository,
+                              SubscriptionRepository subscriptionRepository,
+                              BlobStore blobStore,
+                              StorageTierManager tierManager,
+                              @Value("${app.file.versioning.avg-chunk-bytes:262144}") int avgChunkBytes) {
+        this.versionRepository = versionRepository;
+        this.chunkRepository = chunkRepository;
+        this.blobRepository = blobRepository;
+        this.subscriptionRepository = subscriptionRepository;
+        this.blobStore = blobStore;
+        this.tierManager = tierManager;
+        this.chunker = new ContentDefinedChunker(avgChunkBytes);
+    }
+
+    //
+// Move the current content of a file into its history as chunks. Call within
+// the transaction that replaces the content, with the file row locked.
+
+    public FileVersion archiveCurrent(FileStorage file) throws IOException {
+        FileVersion version = versionRepository.findByFileIdAndVersionNumber(file.getId(), currentNumber(file))
+            .orElseGet(() -> new FileVersion(file, file.getUploadedBy(), file.getCreatedAt()));
+        if (!version.isCurrent()) {
+            throw new IllegalStateException("Version " + version.getVersionNumber() + " of file "
+                + file.getId() + " is already archived");
+        }
+        FileVersion saved = versionRepository.save(version);
+
+        StoredBlob blob = file.getBlobId() != null ? findBlob(file, file.getBlobId()) : null;
+        MessageDigest digest = sha256();
+        List<FileVersionChunk> chunks = new ArrayList<>();
+        long[] size = new long[1];
+
+        try (InputStream in = new DigestInputStream(tierManager.openStream(file, blob), digest)) {
+            chunker.split(in, (data, offset, length) -> {
+                StoredBlob chunk = blobStore.commitBytes(data, offset, length, file.getTenantId());
+                chunks.add(new FileVersionChunk(saved.getId(), chunks.size(), chunk.getId(), length));
+                size[0] += length;
+            });
+        }
+        chunkRepository.saveAll(chunks);
+
+        // Reassembly is checked against what was actually chunked
+        String checksum = HEX.formatHex(digest.digest());
+        if (file.getChecksum() != null && !file.getChecksum().equals(checksum)) {
+            log.warn("Content of file {} does not match its checksum; archived as read", file.getId());
+        }
+        saved.setChecksum(checksum);
+        saved.setFileSize(size[0]);
+        saved.setChunkCount(chunks.size());
+        saved.setArchivedAt(LocalDateTime.now());
+        return saved;
+    }
+
+    //
+// Record the version a file was just updated to
+
+    public FileVersion recordCurrent(FileStorage file, Long uploadedBy) {
+        return versionRepository.save(new FileVersion(file, uploadedBy, LocalDateTime.now()));
+    }
+
+    //
+// Drop the oldest versions beyond the plan's limit; returns how many went
+
+    public int prune(FileStorage file) {
+        int limit = maxVersions(file.getTenantId());
+        if (limit < 0) {
+            return 0;
+        }
+        List<Long> expired = versionRepository.findByFileIdOrderByVersionNumberDesc(file.getId()).stream()
+            .filter(version -> !version.isCurrent())
+            .skip(Math.max(0, limit - 1))
+            .map(FileVersion::getId)
+            .toList();
+        removeVersions(expired);
+        return expired.size();
+    }
+
+    //
+// All versions of a file, newest first; a file never replaced has just its current one
+
+    public List<FileVersion> getVersions(FileStorage file) {
+        List<FileVersion> versions = versionRepository.findByFileIdOrderByVersionNumberDesc(file.getId());
+        if (versions.isEmpty()) {
+            return List.of(new FileVersion(file, file.getUploadedBy(), file.getCreatedAt()));
+        }
+        return versions;
+    }
+
+    public FileVersion getVersion(FileStorage file, int versionNumber) {
+        return versionRepository.findByFileIdAndVersionNumber(file.getId(), versionNumber)
+            .or(() -> versionNumber == currentNumber(file)
+                ? Optional.of(new FileVersion(file, file.getUploadedBy(), file.getCreatedAt()))
+                : Optional.<FileVersion>empty())
+            .orElseThrow(() -> new IllegalArgumentException(
+                "Version " + versionNumber + " not found for file " + file.getId()));
+    }
+
+    //
+// Content of a version: the file's blob for the current one, its chunks otherwise
+
+    public InputStream openVersion(FileStorage file, FileVersion version) throws IOException {
+        if (version.isCurrent()) {
+            StoredBlob blob = file.getBlobId() != null ? findBlob(file, file.getBlobId()) : null;
+            return tierManager.openStream(file, blob);
+        }
+
+        List<FileVersionChunk> chunks = chunkRepository.findByVersionIdOrderBySeqAsc(version.getId());
+        if (version.getChunkCount() == null || chunks.size() != version.getChunkCount()) {
+            throw new IOException("Chunks missing for version " + version.getVersionNumber() + " of file " + file.getId());
+        }
+        Map<Long, StoredBlob> blobs = new HashMap<>();
+        for (StoredBlob blob : blobRepository.findAllById(chunks.stream().map(FileVersionChunk::getBlobId).distinct().toList())) {
+            blobs.put(blob.getId(), blob);
+        }
+        return new ChunkInputStream(file, chunks.iterator(), blobs);
+    }
+
+    //
+// Drop the history of files being deleted (call within the deleting transaction)
+
+    public void removeAll(Long fileId) {
+        removeAll(List.of(fileId));
+    }
+
+    public void removeAll(Collection<Long> fileIds) {
+        if (!fileIds.isEmpty()) {
+            removeVersions(versionRepository.findIdsByFileIdIn(fileIds));
+        }
+    }
+
+    private void removeVersions(List<Long> versionIds) {
+        if (versionIds.isEmpty()) {
+            return;
+        }
+        for (Long blobId : chunkRepository.findBlobIdsByVersionIdIn(versionIds)) {
+            blobStore.release(blobId);
+        }
+        chunkRepository.deleteByVersionIdIn(versionIds);
+        versionRepository.deleteAllByIdInBatch(versionIds);
+    }
+
+    private int maxVersions(Long tenantId) {
+        return subscriptionRepository.findByTenantId(tenantId)
+            .map(Subscription::getPlan)
+            .orElse(SubscriptionPlan.FREE)
+            .getMaxFileVersions();
+    }
+
+    private static int currentNumber(FileStorage file) {
+        return file.getVersion() != null ? file.getVersion() : 1;
+    }
+
+    private StoredBlob findBlob(FileStorage file, Long blobId) throws IOException {
+        return blobRepository.findById(blobId)
+            .orElseThrow(() -> new IOException("Stored content missing for file " + file.getId()));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Concatenates the chunks of a version, opening each one only when it is reached
+    private class ChunkInputStream extends InputStream {
+
+        private final FileStorage file;
+        private final Iterator<FileVersionChunk> chunks;
+        private final Map<Long, StoredBlob> blobs;
+        private InputStream current;
+
+        private ChunkInputStream(FileStorage file, Iterator<FileVersionChunk> chunks, Map<Long, StoredBlob> blobs) {
+            this.file = file;
+            this.chunks = chunks;
+            this.blobs = blobs;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (true) {
+                if (current == null) {
+                    if (!chunks.hasNext()) {
+                        return -1;
+                    }
+                    StoredBlob blob = blobs.get(chunks.next().getBlobId());
+                    if (blob == null) {
+                        throw new IOException("Chunk missing for file " + file.getId());
+                    }
+                    current = tierManager.openStream(file, blob);
+                }
+                int read = current.read(buffer, offset, length);
+                if (read != -1) {
+                    return read;
+                }
+                current.close();
+                current = null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (current != null) {
+                current.close();
+                current = null;
+            }
+        }
+    }
+}
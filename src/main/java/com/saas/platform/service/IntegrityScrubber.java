@@ -0,0 +1,609 @@
+package com.saas.platform.service;
+
+import com.saas.platform.model.FileStorage;
+import com.saas.platform.model.IntegrityFinding;
+import com.saas.platform.model.ScrubCursor;
+import com.saas.platform.model.StoredBlob;
+import com.saas.platform.repository.FileStorageRepository;
+import com.saas.platform.repository.IntegrityFindingRepository;
+import com.saas.platform.repository.ScrubCursorRepository;
+import com.saas.platform.repository.StoredBlobRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+//
+// IntegrityScrubber - Re-verifies stored content against its SHA-256 in the background
+// Walks the hot copies of blobs (stored_blobs.checksum) and files stored before
+// the blob store (file_storage.checksum) in id order. Each object is read
+// sequentially through a large direct buffer and hashed, several objects at a
+// time on a small pool. Missing, unreadable and mismatching content is recorded
+// in integrity_findings (and logged); findings close when a later pass reads
+// the content back intact.
+//
+// Position is kept per table in scrub_cursors, so a restart resumes where the
+// last batch ended; the cursor's lease keeps one node scrubbing at a time.
+// Reads share one max-bytes-per-second budget across the pool, and stop while
+// any download, archive or version was served within quiet-period-ms, so the
+// scrubber only uses disk time foreground traffic leaves idle. A full pass is
+// started at most every pass-interval-hours. Cold copies are verified when they
+// are rehydrated and are not read here. Compressed blobs are hashed decoded,
+// since their checksum is of the original content. Runs happen on their own
+// thread, not on the shared scheduler thread, and end at max-run-seconds even
+// while reads are held back by foreground traffic or pacing. Batches are cut to
+// the bytes half a run can read; what was verified when time runs out is still
+// recorded, and an object too large for one run gets a deadline of its own.
+// The lease is renewed while a batch is read.
+
+@Component
+public class IntegrityScrubber {
+
+    private static final Logger log = LoggerFactory.getLogger(IntegrityScrubber.class);
+    private static final HexFormat HEX = HexFormat.of();
+    private static final String BLOBS = "blobs";
+    private static final String LEGACY_FILES = "legacy_files";
+    private static final int DECODE_BUFFER_SIZE = 64 * 1024;
+
+    private final StoredBlobRepository blobRepository;
+    private final FileStorageRepository fileStorageRepository;
+    private final ScrubCursorRepository cursorRepository;
+    private final IntegrityFindingRepository findingRepository;
+    private final FileDownloadCounter downloadCounter;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final long maxBytesPerSecond;
+    private final int readBufferBytes;
+    private final long quietPeriodMs;
+    private final long passIntervalHours;
+    private final long maxRunSeconds;
+    private final long leaseSeconds;
+    private final long batchBytes;
+    private final String nodeId;
+
+    private final ExecutorService pool;
+    private final ThreadPoolExecutor runner;
+    private final ThreadLocal<ByteBuffer> buffers;
+    private final AtomicLong nextIoSlot = new AtomicLong();
+    private final ReentrantLock runLock = new ReentrantLock();
+    private final LongAdder objectsVerified = new LongAdder();
+    private final LongAdder bytesVerified = new LongAdder();
+    private final LongAdder mismatches = new LongAdder();
+    private final LongAdder missing = new LongAdder();
+    private final LongAdder unreadable = new LongAdder();
+    private final LongAdder foregroundWaitMillis = new LongAdder();
+    private volatile LocalDateTime lastRunAt;
+
+    public IntegrityScrubber(StoredBlobRepository blobRepository,
+                             FileStorageRepository fileStorageRepository,
+                             ScrubCursorRepository cursorRepository,
+                             IntegrityFindingRepository findingRepository,
+                             FileDownloadCounter downloadCounter,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${app.storage.scrub.enabled:true}") boolean enabled,
+                             @Value("${app.storage.scrub.threads:2}") int threads,
+                             @Value("${app.storage.scrub.batch-size:100}") int batchSize,
+                             @Value("${app.storage.scrub.max-bytes-per-second:33554432}") long maxBytesPerSecond,
+                             @Value("${app.storage.scrub.read-buffer-bytes:1048576}") int readBufferBytes,
+                             @Value("${app.storage.scrub.quiet-period-ms:3000}") long quietPeriodMs,
+                             @Value("${app.storage.scrub.pass-interval-hours:168}") long passIntervalHours,
+                             @Value("${app.storage.scrub.max-run-seconds:300}") long maxRunSeconds,
+                             @Value("${app.storage.scrub.lease-seconds:900}") long leaseSeconds) {
+        this.blobRepository = blobRepository;
+        this.fileStorageRepository = fileStorageRepository;
+        this.cursorRepository = cursorRepository;
+        this.findingRepository = findingRepository;
+        this.downloadCounter = downloadCounter;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBytesPerSecond = Math.max(1024 * 1024, maxBytesPerSecond);
+        this.readBufferBytes = Math.max(64 * 1024, readBufferBytes);
+        this.quietPeriodMs = Math.max(0, quietPeriodMs);
+        this.passIntervalHours = Math.max(0, passIntervalHours);
+        this.maxRunSeconds = Math.max(10, maxRunSeconds);
+        // Renewed every third of its length while a batch is read, so it outlives the reads
+        this.leaseSeconds = Math.max(this.maxRunSeconds * 2, leaseSeconds);
+        this.batchBytes = this.maxBytesPerSecond * this.maxRunSeconds / 2;
+
+        String runtime = ManagementFactory.getRuntimeMXBean().getName();
+        String node = runtime + "/" + UUID.randomUUID().toString().substring(0, 8);
+        this.nodeId = node.length() > 100 ? node.substring(node.length() - 100) : node;
+
+        int poolSize = Math.max(1, Math.min(threads, Runtime.getRuntime().availableProcessors()));
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "integrity-scrub-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        this.buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(this.readBufferBytes));
+
+        // One run at a time; a trigger while a run is still going is dropped
+        this.runner = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "integrity-scrub-run");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @Scheduled(fixedDelayString = "${app.storage.scrub.interval-ms:60000}",
+               initialDelayString = "${app.storage.scrub.initial-delay-ms:600000}")
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        runner.execute(this::scrubAll);
+    }
+
+    private void scrubAll() {
+        if (!runLock.tryLock()) {
+            return;
+        }
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(maxRunSeconds);
+            if (scrub(BLOBS, deadline)) {
+                scrub(LEGACY_FILES, deadline);
+            }
+            lastRunAt = LocalDateTime.now();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Integrity scrub run failed: {}", e.getMessage(), e);
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    public ScrubStats getStats() {
+        return new ScrubStats(enabled, maxBytesPerSecond, objectsVerified.sum(), bytesVerified.sum(),
+            mismatches.sum(), missing.sum(), unreadable.sum(), findingRepository.countByResolvedAtIsNull(),
+            foregroundWaitMillis.sum(), lastRunAt);
+    }
+
+    //
+// Open findings, newest first
+
+    public List<IntegrityFinding> getOpenFindings(int limit) {
+        return findingRepository.findByResolvedAtIsNullOrderByDetectedAtDesc(
+            PageRequest.of(0, Math.min(Math.max(1, limit), 500)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    // Scrub one table until the pass ends or the run's time is up; false if the run should stop
+    private boolean scrub(String name, long deadline) throws InterruptedException {
+        Boolean claimed = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            cursorRepository.createIfMissing(name, now);
+            return cursorRepository.claim(name, nodeId, now, now.plusSeconds(leaseSeconds)) == 1;
+        });
+        if (!Boolean.TRUE.equals(claimed)) {
+            return true;
+        }
+
+        try {
+            ScrubCursor cursor = cursorRepository.findById(name)
+                .orElseThrow(() -> new IllegalStateException("Scrub cursor missing: " + name));
+            long lastId = cursor.getLastId();
+            if (lastId == 0 && cursor.getLastPassCompletedAt() != null
+                    && cursor.getLastPassCompletedAt().isAfter(LocalDateTime.now().minusHours(passIntervalHours))) {
+                return true;
+            }
+
+            while (System.nanoTime() < deadline) {
+                List<Target> batch = nextBatch(name, lastId);
+                if (batch.isEmpty()) {
+                    transactionTemplate.execute(status ->
+                        cursorRepository.completePass(name, nodeId, LocalDateTime.now()));
+                    log.info("Integrity scrub of {} completed a full pass", name);
+                    return true;
+                }
+
+                List<Result> results = verifyAll(name, batch, batchDeadline(batch, deadline));
+                if (!results.isEmpty()) {
+                    lastId = results.get(results.size() - 1).target.id;
+                    if (!record(name, results, lastId)) {
+                        log.warn("Lost the integrity scrub lease on {}; stopping", name);
+                        return false;
+                    }
+                }
+                if (results.size() < batch.size()) {
+                    // Time ran out mid-batch; the next run resumes after what was verified
+                    return false;
+                }
+            }
+            return false;
+        } finally {
+            transactionTemplate.execute(status -> cursorRepository.release(name, nodeId));
+        }
+    }
+
+    // Up to batch-size rows, cut at the bytes half a run can read (at least one row)
+    private List<Target> nextBatch(String name, long afterId) {
+        PageRequest page = PageRequest.of(0, batchSize);
+        List<Target> rows = new ArrayList<>(batchSize);
+        if (BLOBS.equals(name)) {
+            for (StoredBlob blob : blobRepository.findHotAfter(afterId, page)) {
+                long size = blob.getStoredSize() != null ? blob.getStoredSize() : sizeOrZero(blob.getSizeBytes());
+                rows.add(new Target(IntegrityFinding.TARGET_BLOB, blob.getId(), blob.getPath(), blob.getChecksum(),
+                    blob.getEncoding(), size));
+            }
+        } else {
+            for (FileStorage file : fileStorageRepository
+                    .findByBlobIdIsNullAndChecksumIsNotNullAndIdGreaterThanOrderByIdAsc(afterId, page)) {
+                rows.add(new Target(IntegrityFinding.TARGET_FILE, file.getId(), file.getFilePath(), file.getChecksum(),
+                    null, sizeOrZero(file.getFileSize())));
+            }
+        }
+
+        List<Target> batch = new ArrayList<>(rows.size());
+        long bytes = 0;
+        for (Target target : rows) {
+            if (!batch.isEmpty() && bytes + target.size > batchBytes) {
+                break;
+            }
+            batch.add(target);
+            bytes += target.size;
+        }
+        return batch;
+    }
+
+    // A lone object larger than a batch may take longer than a run: give it time to be read at the budget
+    private long batchDeadline(List<Target> batch, long runDeadline) {
+        Target first = batch.get(0);
+        if (batch.size() > 1 || first.size <= batchBytes) {
+            return runDeadline;
+        }
+        long seconds = maxRunSeconds + 2 * first.size / maxBytesPerSecond;
+        return Math.max(runDeadline, System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    // Results for the verified prefix of the batch, in batch order; shorter than the batch if the
+    // deadline passed or the lease was lost. The lease is renewed while the objects are read.
+    private List<Result> verifyAll(String name, List<Target> batch, long deadline) throws InterruptedException {
+        List<Future<Result>> futures = new ArrayList<>(batch.size());
+        for (Target target : batch) {
+            futures.add(pool.submit(() -> verify(target, deadline)));
+        }
+        long renewEvery = TimeUnit.SECONDS.toNanos(leaseSeconds) / 3;
+        long renewAt = System.nanoTime() + renewEvery;
+        List<Result> results = new ArrayList<>(batch.size());
+        try {
+            for (Future<Result> future : futures) {
+                while (true) {
+                    try {
+                        results.add(future.get(Math.max(0, renewAt - System.nanoTime()), TimeUnit.NANOSECONDS));
+                        break;
+                    } catch (TimeoutException e) {
+                        if (!renewLease(name)) {
+                            return results;
+                        }
+                        renewAt = System.nanoTime() + renewEvery;
+                    }
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RunExpiredException) {
+                return results;
+            }
+            throw new IllegalStateException("Integrity check failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return results;
+    }
+
+    private boolean renewLease(String name) {
+        Boolean kept = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            return cursorRepository.claim(name, nodeId, now, now.plusSeconds(leaseSeconds)) == 1;
+        });
+        return Boolean.TRUE.equals(kept);
+    }
+
+    // Hash one object through the pooled buffer, paced by the I/O budget
+    private Result verify(Target target, long deadline) throws InterruptedException {
+        if (target.encoding != null) {
+            return verifyDecoded(target, deadline);
+        }
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = buffers.get();
+        buffer.clear();
+        long size = 0;
+
+        try (FileChannel channel = FileChannel.open(Paths.get(target.path), StandardOpenOption.READ)) {
+            while (true) {
+                awaitBudget(buffer.capacity(), deadline);
+                int read = channel.read(buffer);
+                if (read == -1) {
+                    break;
+                }
+                size += read;
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        } catch (NoSuchFileException e) {
+            return new Result(target, IntegrityFinding.PROBLEM_MISSING, null, "File not found", 0);
+        } catch (IOException e) {
+            return new Result(target, IntegrityFinding.PROBLEM_UNREADABLE, null, e.getMessage(), size);
+        }
+        return compare(target, digest, size);
+    }
+
+    // Compressed content goes through the decoder; the budget counts the bytes read from disk
+    private Result verifyDecoded(Target target, long deadline) throws InterruptedException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[DECODE_BUFFER_SIZE];
+        long size = 0;
+
+        try (InputStream in = ContentCompressor.decode(
+                new PacedInputStream(Files.newInputStream(Paths.get(target.path)), deadline), target.encoding)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                size += read;
+                digest.update(buffer, 0, read);
+            }
+        } catch (InterruptedIOException e) {
+            throw new InterruptedException(e.getMessage());
+        } catch (NoSuchFileException e) {
+            return new Result(target, IntegrityFinding.PROBLEM_MISSING, null, "File not found", 0);
+        } catch (IOException e) {
+            return new Result(target, IntegrityFinding.PROBLEM_UNREADABLE, null, e.getMessage(), size);
+        }
+        return compare(target, digest, size);
+    }
+
+    private static Result compare(Target target, MessageDigest digest, long size) {
+        String actual = HEX.formatHex(digest.digest());
+        if (!actual.equalsIgnoreCase(target.expectedChecksum)) {
+            return new Result(target, IntegrityFinding.PROBLEM_CHECKSUM_MISMATCH, actual,
+                "Read " + size + " bytes", size);
+        }
+        return new Result(target, null, actual, null, size);
+    }
+
+    // Write findings and move the cursor in one transaction; false if the lease was lost
+    private boolean record(String name, List<Result> results, long lastId) {
+        Boolean kept = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            if (cursorRepository.claim(name, nodeId, now, now.plusSeconds(leaseSeconds)) == 0) {
+                return false;
+            }
+
+            List<Long> intact = new ArrayList<>(results.size());
+            String targetType = null;
+            for (Result result : results) {
+                Target target = result.target;
+                targetType = target.type;
+                objectsVerified.increment();
+                bytesVerified.add(result.bytes);
+
+                if (result.problem == null) {
+                    intact.add(target.id);
+                } else if (stillStoredAt(target)) {
+                    findingRepository.record(target.type, target.id, result.problem, target.path,
+                        target.expectedChecksum, result.actualChecksum, truncate(result.detail), now);
+                    countProblem(result.problem);
+                    log.error("Integrity check failed for {} {} at {}: {} ({})", target.type, target.id,
+                        target.path, result.problem, result.detail);
+                }
+            }
+            if (!intact.isEmpty()) {
+                findingRepository.resolve(targetType, intact, now);
+            }
+            return cursorRepository.advance(name, nodeId, lastId, now) == 1;
+        });
+        return Boolean.TRUE.equals(kept);
+    }
+
+    // Content moved (demoted, collected, replaced) while it was read is not a finding
+    private boolean stillStoredAt(Target target) {
+        if (IntegrityFinding.TARGET_BLOB.equals(target.type)) {
+            return blobRepository.findById(target.id)
+                .filter(blob -> Boolean.TRUE.equals(blob.getHotCopy()) && blob.getRefCount() > 0)
+                .filter(blob -> Objects.equals(blob.getPath(), target.path))
+                .isPresent();
+        }
+        return fileStorageRepository.findById(target.id)
+            .filter(file -> file.getBlobId() == null && Objects.equals(file.getFilePath(), target.path))
+            .isPresent();
+    }
+
+    private void countProblem(String problem) {
+        switch (problem) {
+            case IntegrityFinding.PROBLEM_MISSING -> missing.increment();
+            case IntegrityFinding.PROBLEM_CHECKSUM_MISMATCH -> mismatches.increment();
+            default -> unreadable.increment();
+        }
+    }
+
+    // Foreground reads first, then spread reads evenly to at most max-bytes-per-second across the pool;
+    // throws RunExpiredException once the deadline has passed or a wait would end after it
+    private void awaitBudget(long bytes, long deadline) throws InterruptedException {
+        long idle;
+        while ((idle = downloadCounter.millisSinceActivity()) < quietPeriodMs) {
+            long left = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (left <= 0) {
+                throw new RunExpiredException();
+            }
+            long wait = Math.min(quietPeriodMs - idle, left);
+            foregroundWaitMillis.add(wait);
+            TimeUnit.MILLISECONDS.sleep(wait);
+        }
+
+        long cost = bytes * 1_000_000_000L / maxBytesPerSecond;
+        long now = System.nanoTime();
+        if (now >= deadline || Math.max(nextIoSlot.get(), now) >= deadline) {
+            throw new RunExpiredException();
+        }
+        long slot = Math.max(nextIoSlot.getAndUpdate(prev -> Math.max(prev, now) + cost), now);
+        if (slot > now) {
+            TimeUnit.NANOSECONDS.sleep(slot - now);
+        }
+    }
+
+    private static long sizeOrZero(Long size) {
+        return size != null ? size : 0;
+    }
+
+    private static String truncate(String detail) {
+        return detail != null && detail.length() > 500 ? detail.substring(0, 500) : detail;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Reads from disk taken out of the shared budget, for streams that need a decoder on top
+    private class PacedInputStream extends FilterInputStream {
+
+        private final long deadline;
+
+        private PacedInputStream(InputStream in, long deadline) {
+            super(in);
+            this.deadline = deadline;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int chunk = Math.min(length, readBufferBytes);
+            try {
+                awaitBudget(chunk, deadline);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Scrub interrupted");
+            }
+            return super.read(buffer, offset, chunk);
+        }
+    }
+
+    // Thrown from a read held back past the end of the run; abandons that object
+    private static final class RunExpiredException extends RuntimeException {
+        private RunExpiredException() {
+            super("Integrity scrub run time is up", null, false, false);
+        }
+    }
+
+    private static final class Target {
+        private final String type;
+        private final Long id;
+        private final String path;
+        private final String expectedChecksum;
+        private final String encoding; // null = the file is the content as is
+        private final long size; // Bytes on disk, as recorded
+
+        private Target(String type, Long id, String path, String expectedChecksum, String encoding, long size) {
+            this.type = type;
+            this.id = id;
+            this.path = path;
+            this.expectedChecksum = expectedChecksum;
+            this.encoding = encoding;
+            this.size = size;
+        }
+    }
+
+    private static final class Result {
+        private final Target target;
+        private final String problem; // null = intact
+        private final String actualChecksum;
+        private final String detail;
+        private final long bytes;
+
+        private Result(Target target, String problem, String actualChecksum, String detail, long bytes) {
+            this.target = target;
+            this.problem = problem;
+            this.actualChecksum = actualChecksum;
+            this.detail = detail;
+            this.bytes = bytes;
+        }
+    }
+
+    public static class ScrubStats {
+        private final boolean enabled;
+        private final long maxBytesPerSecond;
+        private final long objectsVerified;
+        private final long bytesVerified;
+        private final long mismatches;
+        private final long missing;
+        private final long unreadable;
+        private final long openFindings;
+        private final long foregroundWaitMillis;
+        private final LocalDateTime lastRunAt;
+
+        public ScrubStats(boolean enabled, long maxBytesPerSecond, long objectsVerified, long bytesVerified,
+                          long mismatches, long missing, long unreadable, long openFindings,
+                          long foregroundWaitMillis, LocalDateTime lastRunAt) {
+            this.enabled = enabled;
+            this.maxBytesPerSecond = maxBytesPerSecond;
+            this.objectsVerified = objectsVerified;
+            this.bytesVerified = bytesVerified;
+            this.mismatches = mismatches;
+            this.missing = missing;
+            this.unreadable = unreadable;
+            this.openFindings = openFindings;
+            this.foregroundWaitMillis = foregroundWaitMillis;
+            this.lastRunAt = lastRunAt;
+        }
+
+        public boolean isEnabled() { return enabled; }
+        public long getMaxBytesPerSecond() { return maxBytesPerSecond; }
+        public long getObjectsVerified() { return objectsVerified; }
+        public long getBytesVerified() { return bytesVerified; }
+        public long getMismatches() { return mismatches; }
+        public long getMissing() { return missing; }
+        public long getUnreadable() { return unreadable; }
+        public long getOpenFindings() { return openFindings; }
+        public long getForegroundWaitMillis() { return foregroundWaitMillis; }
+        public LocalDateTime getLastRunAt() { return lastRunAt; }
+    }
+}
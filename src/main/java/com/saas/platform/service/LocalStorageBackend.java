@@ -0,0 +1,55 @@
+package com.saas.platform.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+//
+// LocalStorageBackend - Hot tier: plain files on the fast upload volume
+// Keys are blob keys relative to <upload dir>/blobs, so locators are the same
+// paths BlobStore places new uploads at.
+
+@Component
+public class LocalStorageBackend implements StorageBackend {
+
+    public static final String NAME = "LOCAL";
+
+    private final Path root;
+
+    public LocalStorageBackend(@Value("${file.upload.dir:uploads}") String uploadDir) {
+        this.root = Paths.get(uploadDir, "blobs");
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public StoredObject store(InputStream in, String key) throws IOException {
+        Path target = root.resolve(key);
+        Files.createDirectories(target.getParent());
+        DigestingFileWriter.WrittenFile written = DigestingFileWriter.write(in, target, 0);
+        return new StoredObject(target.toString(), written.getSize(), written.getSha256());
+    }
+
+    @Override
+    public InputStream open(String locator) throws IOException {
+        return Files.newInputStream(Paths.get(locator));
+    }
+
+    @Override
+    public boolean exists(String locator) {
+        return Files.exists(Paths.get(locator));
+    }
+
+    @Override
+    public void delete(String locator) throws IOException {
+        Files.deleteIfExists(Paths.get(locator));
+    }
+}
@@ -0,0 +1,343 @@
+package com.saas.platform.service;
+
+import com.saas.platform.model.FileStorage;
+import com.saas.platform.model.UploadSession;
+import com.saas.platform.model.UploadSessionStatus;
+import com.saas.platform.repository.UploadSessionChunkRepository;
+import com.saas.platform.repository.UploadSessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+//
+// ResumableUploadService - Chunked uploads that survive broken connections
+// 1. createSession: the staging file is preallocated to the full size
+// 2. writeChunk: chunks arrive in any order (also in parallel) and are written
+//    with positional channel writes at index * chunkSize; re-sending is harmless
+// 3. commit: once every chunk is in, the file is hashed once, checked against
+//    the client's checksum and handed to FileStorageService / BlobStore
+// Sessions without activity for the TTL are collected with their data.
+
+@Service
+public class ResumableUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(ResumableUploadService.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_CHUNKS = 10_000;
+    private static final int GC_CHUNK = 200;
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+
+    private final UploadSessionRepository sessionRepository;
+    private final UploadSessionChunkRepository chunkRepository;
+    private final FileStorageService fileStorageService;
+    private final BlobStore blobStore;
+    private final TransactionTemplate transactionTemplate;
+
+    private final long maxSizeBytes;
+    private final int defaultChunkSize;
+    private final int minChunkSize;
+    private final int maxChunkSize;
+    private final long sessionTtlMinutes;
+
+    public ResumableUploadService(UploadSessionRepository sessionRepository,
+                                  UploadSessionChunkRepository chunkRepository,
+                                  FileStorageService fileStorageService,
+                                  BlobStore blobStore,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${app.file.resumable.max-size-bytes:5368709120}") long maxSizeBytes,
+                                  @Value("${app.file.resumable.default-chunk-size-bytes:8388608}") int defaultChunkSize,
+                                  @Value("${app.file.resumable.min-chunk-size-bytes:1048576}") int minChunkSize,
+                                  @Value("${app.file.resumable.max-chunk-size-bytes:67108864}") int maxChunkSize,
+                                  @Value("${app.file.resumable.session-ttl-minutes:1440}") long sessionTtlMinutes) {
+        this.sessionRepository = sessionRepository;
+        this.chunkRepository = chunkRepository;
+        this.fileStorageService = fileStorageService;
+        this.blobStore = blobStore;
+        this.transactionTemplate = transactionTemplate;
+        this.maxSizeBytes = maxSizeBytes;
+        this.minChunkSize = Math.max(1, minChunkSize);
+        this.maxChunkSize = Math.max(this.minChunkSize, maxChunkSize);
+        this.defaultChunkSize = Math.min(Math.max(defaultChunkSize, this.minChunkSize), this.maxChunkSize);
+        this.sessionTtlMinutes = Math.max(1, sessionTtlMinutes);
+    }
+
+    //
+// Start an upload; the staging file is preallocated to the full size
+
+    public UploadSession createSession(Long tenantId, Long userId, String filename, String contentType,
+                                       long totalSize, Integer chunkSize, String checksum,
+                                       String description, String category) throws IOException {
+        if (filename == null || filename.trim().isEmpty()) {
+            throw new IllegalArgumentException("Invalid filename");
+        }
+        if (totalSize <= 0) {
+            throw new IllegalArgumentException("File size must be positive");
+        }
+        if (totalSize > maxSizeBytes) {
+            throw new IllegalArgumentException(
+                "File size exceeds maximum allowed size: " + (maxSizeBytes / 1024 / 1024) + "MB");
+        }
+        if (checksum != null && !SHA256_HEX.matcher(checksum).matches()) {
+            throw new IllegalArgumentException("Checksum must be a lowercase hex SHA-256");
+        }
+
+        int chunk = chunkSize != null ? chunkSize : defaultChunkSize;
+        if (chunk < minChunkSize || chunk > maxChunkSize) {
+            throw new IllegalArgumentException(
+                "Chunk size must be between " + minChunkSize + " and " + maxChunkSize + " bytes");
+        }
+        long chunkCount = (totalSize + chunk - 1) / chunk;
+        if (chunkCount > MAX_CHUNKS) {
+            throw new IllegalArgumentException("Too many chunks; use a larger chunk size");
+        }
+
+        fileStorageService.checkStorageQuota(tenantId, totalSize);
+
+        UploadSession session = new UploadSession();
+        session.setId(UUID.randomUUID().toString());
+        session.setTenantId(tenantId);
+        session.setUserId(userId);
+        session.setFilename(filename);
+        session.setContentType(contentType != null ? contentType : "application/octet-stream");
+        session.setDescription(description);
+        session.setCategory(category);
+        session.setTotalSize(totalSize);
+        session.setChunkSize(chunk);
+        session.setChunkCount((int) chunkCount);
+        session.setExpectedChecksum(checksum);
+        session.setCreatedAt(LocalDateTime.now());
+        session.setExpiresAt(LocalDateTime.now().plusMinutes(sessionTtlMinutes));
+
+        // Sparse preallocation: chunks are written in place, in any order
+        Path path = stagingPath(session.getId());
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(totalSize);
+        }
+
+        try {
+            UploadSession saved = sessionRepository.save(session);
+            log.info("Upload session {} created for {} ({} bytes, {} chunks)",
+                saved.getId(), filename, totalSize, chunkCount);
+            return saved;
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
+
+    //
+// Write one chunk at its offset; the body must be exactly the chunk's length
+
+    public UploadStatus writeChunk(String sessionId, int index, InputStream in, long contentLength) throws IOException {
+        UploadSession session = getOpenSession(sessionId);
+
+        if (index < 0 || index >= session.getChunkCount()) {
+            throw new IllegalArgumentException("Chunk index out of range: " + index);
+        }
+        long expected = session.chunkLength(index);
+        if (contentLength >= 0 && contentLength != expected) {
+            throw new IllegalArgumentException("Chunk " + index + " must be " + expected + " bytes");
+        }
+
+        long position = (long) index * session.getChunkSize();
+        long written = 0;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        ByteBuffer view = ByteBuffer.wrap(buffer);
+
+        try (FileChannel channel = FileChannel.open(stagingPath(sessionId), StandardOpenOption.WRITE)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (written + read > expected) {
+                    throw new IllegalArgumentException("Chunk " + index + " must be " + expected + " bytes");
+                }
+                view.clear().limit(read);
+                while (view.hasRemaining()) {
+                    written += channel.write(view, position + written);
+                }
+            }
+        }
+        if (written != expected) {
+            throw new IllegalArgumentException("Chunk " + index + " must be " + expected + " bytes");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            chunkRepository.recordChunk(sessionId, index, expected, now);
+            sessionRepository.extend(sessionId, UploadSessionStatus.OPEN, now.plusMinutes(sessionTtlMinutes));
+        });
+
+        return getStatus(sessionId);
+    }
+
+    public UploadStatus getStatus(String sessionId) {
+        UploadSession session = getSession(sessionId);
+        List<Integer> received = session.getStatus() == UploadSessionStatus.OPEN
+            ? chunkRepository.findChunkIndexes(sessionId)
+            : List.of();
+        return new UploadStatus(session, received);
+    }
+
+    //
+// Verify and register the completed upload
+
+    public FileStorage commit(String sessionId) throws IOException {
+        UploadSession session = getOpenSession(sessionId);
+
+        long received = chunkRepository.countBySessionId(sessionId);
+        if (received < session.getChunkCount()) {
+            throw new IllegalStateException("Upload incomplete: " + (session.getChunkCount() - received)
+                + " of " + session.getChunkCount() + " chunks missing");
+        }
+
+        // Only one commit wins; its lease also keeps the collector away while hashing
+        Integer claimed = transactionTemplate.execute(status -> sessionRepository.transition(sessionId,
+            UploadSessionStatus.OPEN, UploadSessionStatus.COMMITTING,
+            LocalDateTime.now().plusMinutes(sessionTtlMinutes)));
+        if (claimed == null || claimed == 0) {
+            throw new IllegalStateException("Upload session is already being committed");
+        }
+
+        Path path = stagingPath(sessionId);
+        try {
+            DigestingFileWriter.WrittenFile digest = DigestingFileWriter.digest(path);
+            if (session.getExpectedChecksum() != null && !session.getExpectedChecksum().equals(digest.getSha256())) {
+                throw new IllegalArgumentException("Checksum mismatch: upload data is corrupt");
+            }
+
+            FileStorage saved = fileStorageService.registerStagedUpload(
+                new BlobStore.StagedBlob(path, session.getTotalSize(), digest.getSha256(), digest.getCrc32()),
+                session.getFilename(), session.getContentType(),
+                session.getTenantId(), session.getUserId(), session.getDescription(), session.getCategory());
+
+            transactionTemplate.executeWithoutResult(status -> {
+                sessionRepository.complete(sessionId, UploadSessionStatus.COMMITTED, saved.getId());
+                chunkRepository.deleteBySessionId(sessionId);
+            });
+            log.info("Upload session {} committed as file {}", sessionId, saved.getId());
+            return saved;
+
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(path);
+            transactionTemplate.executeWithoutResult(status -> {
+                sessionRepository.complete(sessionId, UploadSessionStatus.FAILED, null);
+                chunkRepository.deleteBySessionId(sessionId);
+            });
+            throw e;
+        }
+    }
+
+    public void abort(String sessionId) throws IOException {
+        UploadSession session = getSession(sessionId);
+        if (session.getStatus() == UploadSessionStatus.COMMITTING) {
+            throw new IllegalStateException("Upload session is being committed");
+        }
+        discard(session);
+        log.info("Upload session {} aborted", sessionId);
+    }
+
+    public UploadSession getSession(String sessionId) {
+        return sessionRepository.findById(sessionId)
+            .orElseThrow(() -> new IllegalArgumentException("Upload session not found: " + sessionId));
+    }
+
+    //
+// Collect sessions whose TTL ran out (abandoned, failed or long committed)
+
+    @Scheduled(fixedDelayString = "${app.file.resumable.gc-interval-ms:600000}")
+    public void collectExpired() {
+        int collected = 0;
+        int round;
+        List<UploadSession> expired;
+        do {
+            round = 0;
+            expired = sessionRepository.findByExpiresAtBefore(LocalDateTime.now(), PageRequest.of(0, GC_CHUNK));
+            for (UploadSession session : expired) {
+                try {
+                    discard(session);
+                    round++;
+                } catch (Exception e) {
+                    log.warn("Failed to collect upload session {}: {}", session.getId(), e.getMessage());
+                }
+            }
+            collected += round;
+        } while (expired.size() == GC_CHUNK && round > 0);
+
+        if (collected > 0) {
+            log.info("Collected {} expired upload sessions", collected);
+        }
+    }
+
+    private void discard(UploadSession session) throws IOException {
+        Files.deleteIfExists(stagingPath(session.getId()));
+        transactionTemplate.executeWithoutResult(status -> {
+            chunkRepository.deleteBySessionId(session.getId());
+            sessionRepository.deleteById(session.getId());
+        });
+    }
+
+    private UploadSession getOpenSession(String sessionId) {
+        UploadSession session = getSession(sessionId);
+        if (session.getStatus() != UploadSessionStatus.OPEN) {
+            throw new IllegalStateException("Upload session is " + session.getStatus());
+        }
+        if (session.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new IllegalStateException("Upload session has expired");
+        }
+        return session;
+    }
+
+    private Path stagingPath(String sessionId) throws IOException {
+        return blobStore.stagingFile(sessionId + ".upload");
+    }
+
+    public static class UploadStatus {
+        private final String sessionId;
+        private final UploadSessionStatus status;
+        private final String filename;
+        private final long totalSize;
+        private final int chunkSize;
+        private final int chunkCount;
+        private final List<Integer> receivedChunks;
+        private final LocalDateTime expiresAt;
+        private final Long fileId;
+
+        public UploadStatus(UploadSession session, List<Integer> receivedChunks) {
+            this.sessionId = session.getId();
+            this.status = session.getStatus();
+            this.filename = session.getFilename();
+            this.totalSize = session.getTotalSize();
+            this.chunkSize = session.getChunkSize();
+            this.chunkCount = session.getChunkCount();
+            this.receivedChunks = receivedChunks;
+            this.expiresAt = session.getExpiresAt();
+            this.fileId = session.getFileId();
+        }
+
+        public String getSessionId() { return sessionId; }
+        public UploadSessionStatus getStatus() { return status; }
+        public String getFilename() { return filename; }
+        public long getTotalSize() { return totalSize; }
+        public int getChunkSize() { return chunkSize; }
+        public int getChunkCount() { return chunkCount; }
+        public List<Integer> getReceivedChunks() { return receivedChunks; }
+        public LocalDateTime getExpiresAt() { return expiresAt; }
+        public Long getFileId() { return fileId; }
+    }
+}
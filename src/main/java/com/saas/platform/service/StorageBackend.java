@@ -0,0 +1,45 @@
+package com.saas.platform.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+//
+// StorageBackend - Where blob bytes physically live
+// Implementations are Spring beans identified by getName(), which is also the
+// value written to FileStorage.storageProvider. The hot tier is LOCAL; the cold
+// tier is chosen with app.storage.tiering.cold-backend.
+
+public interface StorageBackend {
+
+    String getName();
+
+    //
+// Store the stream under a key; returns where it went and what was written
+
+    StoredObject store(InputStream in, String key) throws IOException;
+
+    //
+// Open the original (uncompressed) content
+
+    InputStream open(String locator) throws IOException;
+
+    boolean exists(String locator);
+
+    void delete(String locator) throws IOException;
+
+    class StoredObject {
+        private final String locator;
+        private final long size;
+        private final String sha256;
+
+        public StoredObject(String locator, long size, String sha256) {
+            this.locator = locator;
+            this.size = size;
+            this.sha256 = sha256;
+        }
+
+        public String getLocator() { return locator; }
+        public long getSize() { return size; }
+        public String getSha256() { return sha256; }
+    }
+}
@@ -0,0 +1,45 @@
+package com.saas.platform.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+//
+// StorageBackendRegistry - Looks up storage backends by name
+
+@Component
+public class StorageBackendRegistry {
+
+    private final Map<String, StorageBackend> backends;
+    private final String coldBackendName;
+
+    public StorageBackendRegistry(List<StorageBackend> backends,
+                                  @Value("${app.storage.tiering.cold-backend:ARCHIVE}") String coldBackendName) {
+        this.backends = backends.stream()
+            .collect(Collectors.toMap(StorageBackend::getName, Function.identity()));
+        this.coldBackendName = coldBackendName;
+        if (!this.backends.containsKey(coldBackendName)) {
+            throw new IllegalStateException("Unknown cold storage backend: " + coldBackendName);
+        }
+    }
+
+    public StorageBackend get(String name) {
+        StorageBackend backend = backends.get(name);
+        if (backend == null) {
+            throw new IllegalStateException("Unknown storage backend: " + name);
+        }
+        return backend;
+    }
+
+    public StorageBackend getHot() {
+        return get(LocalStorageBackend.NAME);
+    }
+
+    public StorageBackend getCold() {
+        return get(coldBackendName);
+    }
+}
@@ -0,0 +1,374 @@
+package com.saas.platform.service;
+
+import com.saas.platform.model.FileStorage;
+import com.saas.platform.model.StoredBlob;
+import com.saas.platform.repository.FileStorageRepository;
+import com.saas.platform.repository.StoredBlobRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.ZipException;
+
+//
+// StorageTierManager - Moves idle blobs between the hot and the cold tier
+// Demotion (scheduled): blobs whose files all sat idle for demote-after-days
+// (popular files: popular-demote-after-days) get a verified cold copy; the hot
+// copy is dropped only after hot-copy-grace-minutes, and any read in between
+// cancels the demotion. Reads of a cold blob rehydrate it into the hot tier
+// first (verified against the checksum), so callers always get a local path.
+// A hot copy is deleted under the same per-blob lock as rehydration, and a read
+// that loses the race to cancel a demotion goes through that lock as well.
+// Compressed blobs move between tiers as stored and are verified decoded.
+// Files stored before the blob store (no blob) always stay hot.
+// Runs happen on their own thread, not on the shared scheduler thread.
+
+@Component
+public class StorageTierManager {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageTierManager.class);
+    private static final int BATCH = 200;
+
+    private final StoredBlobRepository blobRepository;
+    private final FileStorageRepository fileStorageRepository;
+    private final StorageBackendRegistry backends;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final int demoteAfterDays;
+    private final int popularDemoteAfterDays;
+    private final long popularDownloads;
+    private final long minSizeBytes;
+    private final long hotCopyGraceMinutes;
+
+    private final ThreadPoolExecutor tieringRunner;
+    private final Map<Long, Object> blobLocks = new ConcurrentHashMap<>();
+    private final LongAdder demotions = new LongAdder();
+    private final LongAdder rehydrations = new LongAdder();
+
+    public StorageTierManager(StoredBlobRepository blobRepository,
+                              FileStorageRepository fileStorageRepository,
+                              StorageBackendRegistry backends,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${app.storage.tiering.enabled:true}") boolean enabled,
+                              @Value("${app.storage.tiering.demote-after-days:7}") int demoteAfterDays,
+                              @Value("${app.storage.tiering.popular-demote-after-days:30}") int popularDemoteAfterDays,
+                              @Value("${app.storage.tiering.popular-downloads:100}") long popularDownloads,
+                              @Value("${app.storage.tiering.min-size-bytes:65536}") long minSizeBytes,
+                              @Value("${app.storage.tiering.hot-copy-grace-minutes:60}") long hotCopyGraceMinutes) {
+        this.blobRepository = blobRepository;
+        this.fileStorageRepository = fileStorageRepository;
+        this.backends = backends;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.demoteAfterDays = Math.max(1, demoteAfterDays);
+        this.popularDemoteAfterDays = Math.max(this.demoteAfterDays, popularDemoteAfterDays);
+        this.popularDownloads = Math.max(1, popularDownloads);
+        this.minSizeBytes = Math.max(0, minSizeBytes);
+        this.hotCopyGraceMinutes = Math.max(0, hotCopyGraceMinutes);
+
+        // One run at a time; a trigger while a run is still going is dropped
+        this.tieringRunner = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "storage-tiering");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    //
+// Local path with the file's content, rehydrating it from the cold tier if needed
+
+    public Path resolve(FileStorage file) throws IOException {
+        return resolveContent(file).getPath();
+    }
+
+    //
+// Local path of the file as stored, with the encoding needed to read it
+
+    public LocalContent resolveContent(FileStorage file) throws IOException {
+        if (file.getBlobId() == null) {
+            return new LocalContent(Paths.get(file.getFilePath()), null, null);
+        }
+        StoredBlob blob = blobRepository.findById(file.getBlobId())
+            .orElseThrow(() -> new IOException("Stored content missing for file " + file.getId()));
+
+        if (Boolean.TRUE.equals(blob.getHotCopy())) {
+            boolean kept = true;
+            if (blob.getDemotedAt() != null) {
+                // Read during the grace period: keep it hot. No row updated means the hot
+                // copy may be being dropped, so the read waits for the blob's lock instead
+                Integer cancelled = transactionTemplate.execute(status -> blobRepository.cancelDemotion(blob.getId()));
+                kept = cancelled != null && cancelled > 0;
+            }
+            Path path = Paths.get(blob.getPath());
+            if (kept && backends.getHot().exists(blob.getPath())) {
+                return new LocalContent(path, blob.getEncoding(), blob.getSizeBytes());
+            }
+        }
+        return new LocalContent(rehydrate(blob.getId()), blob.getEncoding(), blob.getSizeBytes());
+    }
+
+    //
+// Stream a file's content from whichever tier holds it, without rehydrating;
+// meant for bulk reads (archives) that should not pull cold data back in
+
+    public InputStream openStream(FileStorage file, StoredBlob blob) throws IOException {
+        if (blob == null) {
+            return Files.newInputStream(Paths.get(file.getFilePath()));
+        }
+        if (Boolean.TRUE.equals(blob.getHotCopy()) && backends.getHot().exists(blob.getPath())) {
+            return ContentCompressor.decode(backends.getHot().open(blob.getPath()), blob.getEncoding());
+        }
+        if (blob.getColdLocator() != null) {
+            return ContentCompressor.decode(backends.get(blob.getColdBackend()).open(blob.getColdLocator()),
+                blob.getEncoding());
+        }
+        throw new IOException("Stored content missing for file " + file.getId());
+    }
+
+    //
+// Demote idle blobs, then drop hot copies whose grace period is over
+
+    @Scheduled(fixedDelayString = "${app.storage.tiering.interval-ms:3600000}",
+               initialDelayString = "${app.storage.tiering.initial-delay-ms:300000}")
+    public void runTiering() {
+        if (!enabled) {
+            return;
+        }
+        tieringRunner.execute(this::tier);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        tieringRunner.shutdownNow();
+    }
+
+    public TierStats getStats() {
+        return new TierStats(enabled, blobRepository.countByHotCopy(true), blobRepository.countByHotCopy(false),
+            demotions.sum(), rehydrations.sum());
+    }
+
+    private void tier() {
+        try {
+            int demoted = demoteIdle();
+            int dropped = dropHotCopies();
+            if (demoted > 0 || dropped > 0) {
+                log.info("Storage tiering: {} blobs demoted, {} hot copies dropped", demoted, dropped);
+            }
+        } catch (Exception e) {
+            log.error("Storage tiering run failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private int demoteIdle() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> candidates = blobRepository.findDemotionCandidates(
+            now.minusDays(demoteAfterDays), now.minusDays(popularDemoteAfterDays),
+            popularDownloads, minSizeBytes, BATCH);
+
+        int demoted = 0;
+        for (Long id : candidates) {
+            try {
+                if (demote(id)) {
+                    demoted++;
+                }
+            } catch (Exception e) {
+                log.warn("Failed to demote blob {}: {}", id, e.getMessage());
+            }
+        }
+        return demoted;
+    }
+
+    private boolean demote(Long blobId) throws IOException {
+        StoredBlob blob = blobRepository.findById(blobId).orElse(null);
+        if (blob == null || !Boolean.TRUE.equals(blob.getHotCopy()) || blob.getDemotedAt() != null) {
+            return false;
+        }
+
+        String backendName = blob.getColdBackend();
+        String locator = blob.getColdLocator();
+
+        // A cold copy from an earlier demotion is reused
+        if (locator == null || !backends.get(backendName).exists(locator)) {
+            StorageBackend cold = backends.getCold();
+            StorageBackend.StoredObject stored;
+            try (InputStream in = backends.getHot().open(blob.getPath())) {
+                stored = cold.store(in, BlobStore.keyFor(blob.getScope(), blob.getChecksum()));
+            }
+            if (!holdsContent(blob, cold, stored)) {
+                cold.delete(stored.getLocator());
+                log.error("Blob {} does not match its checksum; not demoted", blobId);
+                return false;
+            }
+            backendName = cold.getName();
+            locator = stored.getLocator();
+        }
+
+        String finalBackend = backendName;
+        String finalLocator = locator;
+        Integer updated = transactionTemplate.execute(status ->
+            blobRepository.markDemoted(blobId, finalBackend, finalLocator, LocalDateTime.now()));
+        if (updated != null && updated > 0) {
+            demotions.increment();
+            return true;
+        }
+        return false;
+    }
+
+    private int dropHotCopies() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(hotCopyGraceMinutes);
+        List<Long> ids = blobRepository.findHotCopiesToDrop(cutoff, PageRequest.of(0, BATCH));
+
+        int dropped = 0;
+        for (Long id : ids) {
+            Object lock = blobLocks.computeIfAbsent(id, key -> new Object());
+            try {
+                synchronized (lock) {
+                    if (dropHotCopy(id, cutoff)) {
+                        dropped++;
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("Failed to drop hot copy of blob {}: {}", id, e.getMessage());
+            } finally {
+                blobLocks.remove(id, lock);
+            }
+        }
+        return dropped;
+    }
+
+    // Called with the blob's lock held, so no rehydration lands between markCold and the delete
+    private boolean dropHotCopy(Long id, LocalDateTime cutoff) throws IOException {
+        StoredBlob blob = transactionTemplate.execute(status -> {
+            if (blobRepository.markCold(id, cutoff) == 0) {
+                return null;
+            }
+            StoredBlob cold = blobRepository.findById(id).orElse(null);
+            if (cold != null) {
+                fileStorageRepository.updateStorageLocation(id, cold.getColdBackend(), cold.getColdLocator());
+            }
+            return cold;
+        });
+        if (blob == null) {
+            return false;
+        }
+        boolean hotAgain = blobRepository.findById(id)
+            .map(current -> Boolean.TRUE.equals(current.getHotCopy()))
+            .orElse(true);
+        if (hotAgain) {
+            return false;
+        }
+        backends.getHot().delete(blob.getPath());
+        return true;
+    }
+
+    // One rehydration (or hot copy drop) per blob at a time; concurrent readers wait for it
+    private Path rehydrate(Long blobId) throws IOException {
+        Object lock = blobLocks.computeIfAbsent(blobId, id -> new Object());
+        try {
+            synchronized (lock) {
+                StoredBlob blob = blobRepository.findById(blobId)
+                    .orElseThrow(() -> new IOException("Stored content missing: blob " + blobId));
+                StorageBackend hot = backends.getHot();
+
+                if (Boolean.TRUE.equals(blob.getHotCopy()) && hot.exists(blob.getPath())) {
+                    return Paths.get(blob.getPath());
+                }
+                if (blob.getColdLocator() == null) {
+                    throw new IOException("Stored content missing: blob " + blobId);
+                }
+
+                StorageBackend.StoredObject restored;
+                try (InputStream in = backends.get(blob.getColdBackend()).open(blob.getColdLocator())) {
+                    restored = hot.store(in, BlobStore.keyFor(blob.getScope(), blob.getChecksum()));
+                }
+                if (!holdsContent(blob, hot, restored)) {
+                    hot.delete(restored.getLocator());
+                    throw new IOException("Cold copy of blob " + blobId + " is corrupt");
+                }
+
+                transactionTemplate.executeWithoutResult(status -> {
+                    blobRepository.markHot(blobId);
+                    fileStorageRepository.updateStorageLocation(blobId, LocalStorageBackend.NAME, null);
+                });
+                rehydrations.increment();
+                log.info("Rehydrated blob {} from {}", blobId, blob.getColdBackend());
+                return Paths.get(restored.getLocator());
+            }
+        } finally {
+            blobLocks.remove(blobId, lock);
+        }
+    }
+
+    // Plain copies are checked with the hash taken while storing; compressed ones
+    // are read back and hashed decoded, since the checksum is of the original
+    private static boolean holdsContent(StoredBlob blob, StorageBackend backend,
+                                        StorageBackend.StoredObject stored) throws IOException {
+        if (blob.getEncoding() == null) {
+            return blob.getChecksum().equals(stored.getSha256());
+        }
+        try (InputStream in = ContentCompressor.decode(backend.open(stored.getLocator()), blob.getEncoding())) {
+            return blob.getChecksum().equals(DigestingFileWriter.digest(in).getSha256());
+        } catch (ZipException | EOFException e) {
+            return false;
+        }
+    }
+
+    public static class LocalContent {
+        private final Path path;
+        private final String encoding;
+        private final Long size;
+
+        public LocalContent(Path path, String encoding, Long size) {
+            this.path = path;
+            this.encoding = encoding;
+            this.size = size;
+        }
+
+        public Path getPath() { return path; }
+        public String getEncoding() { return encoding; } // null = the file holds the content as is
+        public Long getSize() { return size; } // Size of the content; null for files stored before the blob store
+    }
+
+    public static class TierStats {
+        private final boolean enabled;
+        private final long hotBlobs;
+        private final long coldBlobs;
+        private final long demotions;
+        private final long rehydrations;
+
+        public TierStats(boolean enabled, long hotBlobs, long coldBlobs, long demotions, long rehydrations) {
+            this.enabled = enabled;
+            this.hotBlobs = hotBlobs;
+            this.coldBlobs = coldBlobs;
+            this.demotions = demotions;
+            this.rehydrations = rehydrations;
+        }
+
+        public boolean isEnabled() { return enabled; }
+        public long getHotBlobs() { return hotBlobs; }
+        public long getColdBlobs() { return coldBlobs; }
+        public long getDemotions() { return demotions; }
+        public long getRehydrations() { return rehydrations; }
+    }
+}
@@ -4,6 +4,7 @@ import com.saas.platform.dto.PlatformStatsDto;
 import com.saas.platform.dto.TenantManagementDto;
 import com.saas.platform.model.*;
 import com.saas.platform.repository.*;
+import com.saas.platform.security.ApiKeyCache;
 import com.saas.platform.security.JwtUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,11 +19,9 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
 
 import java.io.IOException;
-import java.nio.file.Files;
- import java.nio.file.Path;
+import java.io.OutputStream;
  
  
 //
@@ -51,6 +50,10 @@ public class SuperAdminService {
     private final WebhookRepository webhookRepository;
     private final JwtUtil jwtUtil;
     private final PasswordEncoder passwordEncoder;
+    private final FileArchiveStreamer fileArchiveStreamer;
+    private final ApiKeyCache apiKeyCache;
+    
+    private static final int EXPORT_PAGE_SIZE = 500;
     
     @Autowired
     private final PlanRepository planRepository;
@@ -63,7 +66,9 @@ public class SuperAdminService {
                             ApiKeyRepository apiKeyRepository,
                             WebhookRepository webhookRepository,
                             JwtUtil jwtUtil,
-                            PasswordEncoder passwordEncoder,PlanRepository planRepository) {
+                            PasswordEncoder passwordEncoder,PlanRepository planRepository,
+                            FileArchiveStreamer fileArchiveStreamer,
+                            ApiKeyCache apiKeyCache) {
         this.tenantRepository = tenantRepository;
         this.userRepository = userRepository;
         this.subscriptionRepository = subscriptionRepository;
@@ -74,6 +79,8 @@ public class SuperAdminService {
         this.jwtUtil = jwtUtil;
         this.passwordEncoder = passwordEncoder;
         this.planRepository=planRepository;
+        this.fileArchiveStreamer = fileArchiveStreamer;
+        this.apiKeyCache = apiKeyCache;
     }
     
     // ========================================
@@ -530,6 +537,7 @@ public class SuperAdminService {
         
         user.setActive(false);
         userRepository.save(user);
+        apiKeyCache.invalidateOwner(userId);
     }
     
     // ========================================
@@ -676,84 +684,65 @@ public class SuperAdminService {
  // TENANT DATA EXPORT & BACKUP
  // ========================================
 
- @Transactional(readOnly = true)
- public Resource exportTenantData(Long tenantId) {
+ //
+// Stream a tenant export (metadata JSON plus every live file) as a ZIP.
+// Nothing is staged on disk; files are read in id order, one page at a time.
+ 
+ public void exportTenantData(Long tenantId, OutputStream out) throws IOException {
      log.info("Exporting data for tenant ID: {}", tenantId);
      
-     try {
-         Tenant tenant = tenantRepository.findById(tenantId)
-             .orElseThrow(() -> new IllegalArgumentException("Tenant not found"));
-         
-         // Create temporary directory for export
-         Path exportDir = Files.createTempDirectory("tenant_export_" + tenantId);
-         
-         // Export tenant metadata
-         Map<String, Object> tenantData = new HashMap<>();
-         tenantData.put("tenant", tenant);
-         tenantData.put("users", userRepository.findByTenantId(tenantId));
-         tenantData.put("subscription", subscriptionRepository.findByTenantId(tenantId).orElse(null));
-         tenantData.put("activityLogs", activityLogRepository.findByTenantIdOrderByCreatedAtDesc(tenantId));
-         tenantData.put("exportDate", LocalDateTime.now());
-         
-         // Write to JSON file
-         Path dataFile = exportDir.resolve("tenant_data.json");
-         Files.writeString(dataFile, new com.fasterxml.jackson.databind.ObjectMapper()
-             .writerWithDefaultPrettyPrinter()
-             .writeValueAsString(tenantData));
-         
-         // Create ZIP archive
-         Path zipFile = Files.createTempFile("tenant_" + tenantId + "_export_", ".zip");
-         zipDirectory(exportDir, zipFile);
-         
-         // Clean up temp directory
-         deleteDirectory(exportDir);
+     Tenant tenant = tenantRepository.findById(tenantId)
+         .orElseThrow(() -> new IllegalArgumentException("Tenant not found"));
+     
+     // Export tenant metadata
+     Map<String, Object> tenantData = new HashMap<>();
+     tenantData.put("tenant", tenant);
+     tenantData.put("users", userRepository.findByTenantId(tenantId));
+     tenantData.put("subscription", subscriptionRepository.findByTenantId(tenantId).orElse(null));
+     tenantData.put("activityLogs", activityLogRepository.findByTenantIdOrderByCreatedAtDesc(tenantId));
+     tenantData.put("exportDate", LocalDateTime.now());
+     
+     try (FileArchiveStreamer.ArchiveWriter archive = fileArchiveStreamer.open(out)) {
+         archive.addBytes("tenant_data.json", exportMapper().writeValueAsBytes(tenantData));
          
-         log.info("Tenant data exported successfully");
-         return new org.springframework.core.io.UrlResource(zipFile.toUri());
+         long afterId = 0;
+         List<FileStorage> page;
+         do {
+             page = fileStorageRepository.findByTenantIdAndDeletedAtIsNullAndIdGreaterThanOrderByIdAsc(
+                 tenantId, afterId, PageRequest.of(0, EXPORT_PAGE_SIZE));
+             if (!page.isEmpty()) {
+                 archive.addFiles("files", page);
+                 afterId = page.get(page.size() - 1).getId();
+             }
+         } while (page.size() == EXPORT_PAGE_SIZE);
          
-     } catch (Exception e) {
-         log.error("Failed to export tenant data: {}", e.getMessage());
-         throw new RuntimeException("Export failed: " + e.getMessage());
+         archive.finish();
+         log.info("Tenant data exported successfully: {} entries, {} bytes", archive.getEntries(), archive.getBytes());
      }
  }
 
- public Resource bulkExportAllTenants() {
+ //
+// Stream metadata of all tenants as a ZIP (one folder per tenant)
+ 
+ public void bulkExportAllTenants(OutputStream out) throws IOException {
      log.info("Bulk exporting all tenants data");
      
-     try {
-         List<Tenant> allTenants = tenantRepository.findAll();
-         Path exportDir = Files.createTempDirectory("all_tenants_export_");
-         
+     List<Tenant> allTenants = tenantRepository.findAll();
+     com.fasterxml.jackson.databind.ObjectMapper mapper = exportMapper();
+     
+     try (FileArchiveStreamer.ArchiveWriter archive = fileArchiveStreamer.open(out)) {
          for (Tenant tenant : allTenants) {
-             // Export each tenant to a separate folder
-             Path tenantDir = exportDir.resolve("tenant_" + tenant.getId());
-             Files.createDirectories(tenantDir);
-             
              Map<String, Object> tenantData = new HashMap<>();
              tenantData.put("tenant", tenant);
              tenantData.put("userCount", userRepository.countByTenantId(tenant.getId()));
              tenantData.put("subscription", subscriptionRepository.findByTenantId(tenant.getId()).orElse(null));
              
-             Path dataFile = tenantDir.resolve("data.json");
-             Files.writeString(dataFile, new com.fasterxml.jackson.databind.ObjectMapper()
-                 .writerWithDefaultPrettyPrinter()
-                 .writeValueAsString(tenantData));
+             archive.addBytes("tenant_" + tenant.getId() + "/data.json", mapper.writeValueAsBytes(tenantData));
          }
-         
-         // Create ZIP archive
-         Path zipFile = Files.createTempFile("all_tenants_export_", ".zip");
-         zipDirectory(exportDir, zipFile);
-         
-         // Clean up
-         deleteDirectory(exportDir);
-         
-         log.info("Bulk export completed: {} tenants", allTenants.size());
-         return new org.springframework.core.io.UrlResource(zipFile.toUri());
-         
-     } catch (Exception e) {
-         log.error("Bulk export failed: {}", e.getMessage());
-         throw new RuntimeException("Bulk export failed: " + e.getMessage());
+         archive.finish();
      }
+     
+     log.info("Bulk export completed: {} tenants", allTenants.size());
  }
 
  // ========================================
@@ -1217,34 +1206,10 @@ public class SuperAdminService {
      return List.of();
  }
 
- private void zipDirectory(Path sourceDir, Path zipFile) throws IOException {
-     try (java.util.zip.ZipOutputStream zos = new java.util.zip.ZipOutputStream(
-             Files.newOutputStream(zipFile))) {
-         Files.walk(sourceDir)
-             .filter(path -> !Files.isDirectory(path))
-             .forEach(path -> {
-                 try {
-                     String zipEntry = sourceDir.relativize(path).toString();
-                     zos.putNextEntry(new java.util.zip.ZipEntry(zipEntry));
-                     Files.copy(path, zos);
-                     zos.closeEntry();
-                 } catch (IOException e) {
-                     throw new RuntimeException(e);
-                 }
-             });
-     }
- }
-
- private void deleteDirectory(Path dir) throws IOException {
-     Files.walk(dir)
-         .sorted(java.util.Comparator.reverseOrder())
-         .forEach(path -> {
-             try {
-                 Files.delete(path);
-             } catch (IOException e) {
-                 log.error("Failed to delete: {}", path);
-             }
-         });
+ private com.fasterxml.jackson.databind.ObjectMapper exportMapper() {
+     return new com.fasterxml.jackson.databind.ObjectMapper()
+         .findAndRegisterModules()
+         .enable(com.fasterxml.jackson.databind.SerializationFeature.INDENT_OUTPUT);
  }
 
 }
\ No newline at end of file
@@ -0,0 +1,334 @@
+package com.saas.platform.service;
+
+import com.saas.platform.model.FileStorage;
+import com.saas.platform.model.StoredBlob;
+import com.saas.platform.repository.StoredBlobRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+//
+// ThumbnailService - Background JPEG thumbnails for image uploads
+// One thumbnail per blob, stored next to it (<blob path>.thumb.jpg), so
+// deduplicated uploads share it and it stays on the hot volume when the blob
+// is demoted. Decoding runs on a small fixed pool with a bounded queue; when
+// the queue is full the job is skipped and done lazily on first request.
+// Images are decoded with source subsampling, so memory scales with the
+// thumbnail size rather than the original. Blobs that cannot be turned into a
+// thumbnail (undecodable, too large) get an empty <blob path>.thumb.failed
+// marker instead, so they are not queued again on every request.
+
+@Component
+public class ThumbnailService {
+
+    public static final String THUMBNAIL_SUFFIX = ".thumb.jpg";
+    public static final String FAILED_SUFFIX = ".thumb.failed";
+
+    private static final Logger log = LoggerFactory.getLogger(ThumbnailService.class);
+    private static final Set<String> SUPPORTED_TYPES = Set.of(
+        "image/jpeg", "image/jpg", "image/png", "image/gif", "image/bmp");
+
+    private final StoredBlobRepository blobRepository;
+    private final StorageTierManager tierManager;
+    private final int size;
+    private final long maxSourceBytes;
+    private final long maxPixels;
+    private final float quality;
+
+    private final ThreadPoolExecutor workers;
+    private final Set<Long> inProgress = ConcurrentHashMap.newKeySet();
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public ThumbnailService(StoredBlobRepository blobRepository,
+                            StorageTierManager tierManager,
+                            @Value("${app.file.thumbnail.size:256}") int size,
+                            @Value("${app.file.thumbnail.threads:2}") int threads,
+                            @Value("${app.file.thumbnail.queue-capacity:500}") int queueCapacity,
+                            @Value("${app.file.thumbnail.max-source-bytes:52428800}") long maxSourceBytes,
+                            @Value("${app.file.thumbnail.max-pixels:100000000}") long maxPixels,
+                            @Value("${app.file.thumbnail.quality:0.8}") float quality) {
+        this.blobRepository = blobRepository;
+        this.tierManager = tierManager;
+        this.size = Math.max(16, size);
+        this.maxSourceBytes = maxSourceBytes;
+        this.maxPixels = maxPixels;
+        this.quality = Math.min(Math.max(quality, 0.1f), 1.0f);
+
+        AtomicInteger counter = new AtomicInteger();
+        int poolSize = Math.max(1, threads);
+        this.workers = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                Thread thread = new Thread(runnable, "thumbnail-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public boolean isSupported(FileStorage file) {
+        return file.getBlobId() != null
+            && file.getMimeType() != null
+            && SUPPORTED_TYPES.contains(file.getMimeType().toLowerCase())
+            && file.getFileSize() != null
+            && file.getFileSize() <= maxSourceBytes;
+    }
+
+    //
+// Queue thumbnail generation for a new upload (no-op for unsupported types)
+
+    public void requestThumbnail(FileStorage file) {
+        if (!isSupported(file) || !inProgress.add(file.getBlobId())) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    generate(file);
+                } finally {
+                    inProgress.remove(file.getBlobId());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inProgress.remove(file.getBlobId());
+            skipped.increment();
+            log.debug("Thumbnail queue full; file {} will be done on first request", file.getId());
+        }
+    }
+
+    //
+// The thumbnail if it exists; otherwise queues it (unless it already failed) and reports it pending
+
+    public Thumbnail getThumbnail(FileStorage file) {
+        if (!isSupported(file)) {
+            return Thumbnail.FAILED;
+        }
+        Optional<Path> path = thumbnailPath(file.getBlobId());
+        if (path.isEmpty()) {
+            return Thumbnail.FAILED;
+        }
+        if (Files.exists(path.get())) {
+            return new Thumbnail(path.get(), false);
+        }
+        if (Files.exists(failedMarker(path.get()))) {
+            return Thumbnail.FAILED;
+        }
+        requestThumbnail(file);
+        return Thumbnail.PENDING;
+    }
+
+    public ThumbnailStats getStats() {
+        return new ThumbnailStats(generated.sum(), skipped.sum(), failed.sum(),
+            workers.getQueue().size(), workers.getActiveCount());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private Optional<Path> thumbnailPath(Long blobId) {
+        return blobRepository.findById(blobId).map(blob -> Paths.get(blob.getPath() + THUMBNAIL_SUFFIX));
+    }
+
+    private static Path failedMarker(Path thumbnail) {
+        String name = thumbnail.getFileName().toString();
+        return thumbnail.resolveSibling(name.substring(0, name.length() - THUMBNAIL_SUFFIX.length()) + FAILED_SUFFIX);
+    }
+
+    private void generate(FileStorage file) {
+        try {
+            StoredBlob blob = blobRepository.findById(file.getBlobId()).orElse(null);
+            if (blob == null) {
+                return;
+            }
+            Path target = Paths.get(blob.getPath() + THUMBNAIL_SUFFIX);
+            if (Files.exists(target) || Files.exists(failedMarker(target))) {
+                return;
+            }
+            if (blob.getEncoding() != null) {
+                // Only text-like content is stored compressed (see ContentCompressor)
+                markFailed(file, target, "stored compressed");
+                return;
+            }
+
+            Path source = tierManager.resolve(file);
+            BufferedImage image;
+            try {
+                image = decodeSubsampled(source);
+            } catch (IOException | RuntimeException e) {
+                markFailed(file, target, e.getMessage());
+                return;
+            }
+            if (image == null) {
+                markFailed(file, target, "not a decodable image within limits");
+                return;
+            }
+            writeJpeg(scale(image), target);
+            generated.increment();
+
+        } catch (Exception e) {
+            // Storage errors may be temporary; the next request tries again
+            skipped.increment();
+            log.warn("Failed to create thumbnail for file {}: {}", file.getId(), e.getMessage());
+        }
+    }
+
+    // The content will never produce a thumbnail; remember that next to the blob
+    private void markFailed(FileStorage file, Path thumbnail, String reason) {
+        failed.increment();
+        log.info("No thumbnail possible for file {} ({})", file.getId(), reason);
+        try {
+            Files.write(failedMarker(thumbnail), new byte[0]);
+        } catch (IOException e) {
+            log.warn("Failed to record thumbnail failure for file {}: {}", file.getId(), e.getMessage());
+        }
+    }
+
+    // Decode only every n-th pixel in each direction, refusing oversized images
+    private BufferedImage decodeSubsampled(Path path) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(path.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    log.debug("Image {}x{} too large for a thumbnail", width, height);
+                    return null;
+                }
+
+                int step = Math.max(1, Math.min(width, height) / (size * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Fit within size x size, flattening transparency onto white
+    private BufferedImage scale(BufferedImage source) {
+        double ratio = Math.min(1.0, Math.min((double) size / source.getWidth(), (double) size / source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = thumbnail.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return thumbnail;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(partial.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        } finally {
+            writer.dispose();
+        }
+
+        try {
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    //
+// Result of a thumbnail lookup: ready (with its path), pending, or failed for good
+
+    public static class Thumbnail {
+        static final Thumbnail PENDING = new Thumbnail(null, false);
+        static final Thumbnail FAILED = new Thumbnail(null, true);
+
+        private final Path path;
+        private final boolean failed;
+
+        private Thumbnail(Path path, boolean failed) {
+            this.path = path;
+            this.failed = failed;
+        }
+
+        public boolean isReady() { return path != null; }
+        public boolean isFailed() { return failed; }
+        public Path getPath() { return path; }
+    }
+
+    public static class ThumbnailStats {
+        private final long generated;
+        private final long skipped;
+        private final long failed;
+        private final int queued;
+        private final int active;
+
+        public ThumbnailStats(long generated, long skipped, long failed, int queued, int active) {
+            this.generated = generated;
+            this.skipped = skipped;
+            this.failed = failed;
+            this.queued = queued;
+            this.active = active;
+        }
+
+        public long getGenerated() { return generated; }
+        public long getSkipped() { return skipped; }
+        public long getFailed() { return failed; }
+        public int getQueued() { return queued; }
+        public int getActive() { return active; }
+    }
+}
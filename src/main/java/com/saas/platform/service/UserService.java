@@ -7,6 +7,7 @@ import com.saas.platform.model.User;
 import com.saas.platform.model.Notification;
 import com.saas.platform.model.NotificationType;
 import com.saas.platform.repository.UserRepository;
+import com.saas.platform.security.ApiKeyCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -29,6 +30,7 @@ public class UserService {
     private final UserRepository userRepository;
     private final TenantService tenantService;
     private final ActivityLogService activityLogService;
+    private final ApiKeyCache apiKeyCache;
   
     private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
     
@@ -37,10 +39,12 @@ public class UserService {
      
     public UserService(UserRepository userRepository, 
                       TenantService tenantService,
-                      ActivityLogService activityLogService) {
+                      ActivityLogService activityLogService,
+                      ApiKeyCache apiKeyCache) {
         this.userRepository = userRepository;
         this.tenantService = tenantService;
         this.activityLogService = activityLogService;
+        this.apiKeyCache = apiKeyCache;
 
         
       
@@ -138,6 +142,9 @@ public class UserService {
         user.setRole(userDetails.getRole());
         user.setActive(userDetails.getActive());
         
+        // Cached API keys carry the owner's role and active flag
+        apiKeyCache.invalidateOwner(id);
+        
         return userRepository.save(user);
     }
     
@@ -168,6 +175,7 @@ public class UserService {
     public void deleteUser(Long id) {
         User user = getUserById(id);
         userRepository.delete(user);
+        apiKeyCache.invalidateOwner(id);
     }
     
     public boolean verifyPassword(String rawPassword, String encodedPassword) {
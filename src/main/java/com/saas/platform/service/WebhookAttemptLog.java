@@ -0,0 +1,138 @@
+package com.saas.platform.service;
+
+import com.saas.platform.model.WebhookDeliveryAttempt;
+import com.saas.platform.repository.WebhookDeliveryAttemptRepository;
+import com.saas.platform.service.WebhookDeliveryEngine.DeliveryJob;
+import com.saas.platform.service.WebhookDeliveryEngine.DeliveryResult;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+//
+// WebhookAttemptLog - Append-only log of webhook HTTP attempts
+// Delivery threads only enqueue; a scheduled flush writes the rows in one
+// transaction per chunk. If the buffer is full new entries are dropped and
+// counted rather than slowing deliveries down.
+
+@Component
+public class WebhookAttemptLog {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookAttemptLog.class);
+    private static final int FLUSH_CHUNK = 500;
+    private static final int PURGE_CHUNK = 1000;
+
+    private final WebhookDeliveryAttemptRepository attemptRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBuffered;
+    private final int retentionDays;
+
+    private final ConcurrentLinkedQueue<WebhookDeliveryAttempt> buffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger buffered = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+
+    public WebhookAttemptLog(WebhookDeliveryAttemptRepository attemptRepository,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${app.webhook.attempt-log.max-buffered:50000}") int maxBuffered,
+                             @Value("${app.webhook.attempt-log.retention-days:30}") int retentionDays) {
+        this.attemptRepository = attemptRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.maxBuffered = Math.max(1, maxBuffered);
+        this.retentionDays = retentionDays;
+    }
+
+    //
+// Record one attempt (no database access)
+
+    public void record(DeliveryJob job, DeliveryResult result) {
+        if (buffered.incrementAndGet() > maxBuffered) {
+            buffered.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+
+        WebhookDeliveryAttempt attempt = new WebhookDeliveryAttempt();
+        attempt.setTenantId(job.getEndpoint().getTenantId());
+        attempt.setWebhookId(job.getEndpoint().getId());
+        attempt.setEventId(job.getEventId());
+        attempt.setEventType(job.getEventType());
+        attempt.setBatchSize(job.getBatchSize());
+        attempt.setAttemptNumber(job.getAttempt());
+        attempt.setSuccess(result.isSuccess());
+        attempt.setResponseCode(result.getStatusCode() > 0 ? result.getStatusCode() : null);
+        attempt.setLatencyMs(result.getLatencyMs());
+        String error = result.getError();
+        attempt.setError(error != null && error.length() > 500 ? error.substring(0, 500) : error);
+        attempt.setAttemptedAt(LocalDateTime.now());
+        buffer.add(attempt);
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    //
+// Write buffered attempts
+
+    @Scheduled(fixedDelayString = "${app.webhook.attempt-log.flush-interval-ms:2000}")
+    public void flush() {
+        while (true) {
+            List<WebhookDeliveryAttempt> chunk = new ArrayList<>(FLUSH_CHUNK);
+            WebhookDeliveryAttempt next;
+            while (chunk.size() < FLUSH_CHUNK && (next = buffer.poll()) != null) {
+                chunk.add(next);
+            }
+            if (chunk.isEmpty()) {
+                return;
+            }
+            buffered.addAndGet(-chunk.size());
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> attemptRepository.saveAll(chunk));
+            } catch (Exception e) {
+                // The log is best-effort; outcomes themselves live on the outbox rows
+                dropped.add(chunk.size());
+                log.warn("Failed to write {} webhook attempt records: {}", chunk.size(), e.getMessage());
+                return;
+            }
+        }
+    }
+
+    //
+// Drop attempts older than the retention period, in chunks
+
+    @Scheduled(cron = "${app.webhook.attempt-log.purge-cron:0 45 * * * *}")
+    public void purge() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        long total = 0;
+        while (true) {
+            Integer deleted = transactionTemplate.execute(status ->
+                attemptRepository.deleteOlderThan(cutoff, PURGE_CHUNK));
+            if (deleted == null || deleted == 0) {
+                break;
+            }
+            total += deleted;
+            if (deleted < PURGE_CHUNK) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Purged {} webhook attempt records", total);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
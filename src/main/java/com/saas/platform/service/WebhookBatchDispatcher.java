@@ -0,0 +1,262 @@
+package com.saas.platform.service;
+
+import com.saas.platform.model.WebhookDeliveryStatus;
+import com.saas.platform.repository.WebhookDeliveryRepository;
+import com.saas.platform.repository.WebhookRepository;
+import com.saas.platform.service.WebhookDeliveryEngine.DeliveryJob;
+import com.saas.platform.service.WebhookDeliveryEngine.DeliveryListener;
+import com.saas.platform.service.WebhookDeliveryEngine.DeliveryResult;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+//
+// WebhookBatchDispatcher - Accumulates claimed outbox deliveries for batching webhooks
+// A batch is sent when it reaches the webhook's batchMaxItems or batchMaxWaitMs
+// after its first item, as one JSON array of the stored event envelopes
+// (concatenated, not re-serialized). Large arrays are gzip-compressed.
+// Buffered rows stay leased in the outbox, so a crash loses nothing.
+
+@Component
+public class WebhookBatchDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookBatchDispatcher.class);
+
+    private final WebhookDeliveryEngine deliveryEngine;
+    private final WebhookDeliveryRepository deliveryRepository;
+    private final WebhookRepository webhookRepository;
+
+    private final int maxItemsLimit;
+    private final int gzipThresholdBytes;
+    private final long rejectedRetryDelayMs;
+    private final long releaseDelayMs;
+
+    private final Map<Long, PendingBatch> pending = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor flushTimer;
+
+    public WebhookBatchDispatcher(WebhookDeliveryEngine deliveryEngine,
+                                  WebhookDeliveryRepository deliveryRepository,
+                                  WebhookRepository webhookRepository,
+                                  @Value("${app.webhook.batch.max-items-limit:500}") int maxItemsLimit,
+                                  @Value("${app.webhook.batch.gzip-threshold-bytes:16384}") int gzipThresholdBytes,
+                                  @Value("${app.webhook.batch.rejected-retry-delay-ms:30000}") long rejectedRetryDelayMs,
+                                  @Value("${app.webhook.outbox.release-delay-ms:5000}") long releaseDelayMs) {
+        this.deliveryEngine = deliveryEngine;
+        this.deliveryRepository = deliveryRepository;
+        this.webhookRepository = webhookRepository;
+        this.maxItemsLimit = Math.max(1, maxItemsLimit);
+        this.gzipThresholdBytes = gzipThresholdBytes;
+        this.rejectedRetryDelayMs = Math.max(0, rejectedRetryDelayMs);
+        this.releaseDelayMs = Math.max(0, releaseDelayMs);
+
+        this.flushTimer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "webhook-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flushTimer.setRemoveOnCancelPolicy(true);
+    }
+
+    //
+// Add a claimed delivery to its webhook's open batch
+
+    public void add(WebhookEndpoint endpoint, Long deliveryId, String eventId, byte[] body) {
+        int maxItems = Math.min(endpoint.getBatchMaxItems(), maxItemsLimit);
+        PendingBatch full = null;
+
+        synchronized (this) {
+            PendingBatch batch = pending.computeIfAbsent(endpoint.getId(), id -> new PendingBatch(endpoint));
+            batch.items.add(new BatchItem(deliveryId, eventId, body));
+
+            if (batch.items.size() >= maxItems) {
+                pending.remove(endpoint.getId());
+                full = batch;
+            } else if (batch.items.size() == 1) {
+                flushTimer.schedule(() -> flushIfPending(endpoint.getId(), batch),
+                    endpoint.getBatchMaxWaitMs(), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (full != null) {
+            send(full);
+        }
+    }
+
+    public int getBufferedCount() {
+        synchronized (this) {
+            return pending.values().stream().mapToInt(batch -> batch.items.size()).sum();
+        }
+    }
+
+    private void flushIfPending(Long webhookId, PendingBatch batch) {
+        boolean due;
+        synchronized (this) {
+            due = pending.remove(webhookId, batch);
+        }
+        if (due) {
+            send(batch);
+        }
+    }
+
+    private void send(PendingBatch batch) {
+        List<BatchItem> items = batch.items;
+        try {
+            byte[] body = toJsonArray(items);
+            byte[] gzipBody = body.length > gzipThresholdBytes ? gzip(body) : null;
+
+            deliveryEngine.submit(DeliveryJob.batch(batch.endpoint, UUID.randomUUID().toString(),
+                LocalDateTime.now(), body, gzipBody, items.size(), new BatchListener(items)));
+        } catch (Exception e) {
+            log.error("Failed to send webhook batch for endpoint {}: {}", batch.endpoint.getId(), e.getMessage());
+            deliveryRepository.releaseAll(ids(items),
+                LocalDateTime.now().plus(Duration.ofMillis(releaseDelayMs)), "Requeued: batch not sent");
+        }
+    }
+
+    //
+// Stored bodies are complete JSON envelopes, so the array is plain concatenation
+
+    private static byte[] toJsonArray(List<BatchItem> items) {
+        int size = 2 + items.size();
+        for (BatchItem item : items) {
+            size += item.body.length;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+        out.write('[');
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.writeBytes(items.get(i).body);
+        }
+        out.write(']');
+        return out.toByteArray();
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private static List<Long> ids(List<BatchItem> items) {
+        List<Long> ids = new ArrayList<>(items.size());
+        for (BatchItem item : items) {
+            ids.add(item.deliveryId);
+        }
+        return ids;
+    }
+
+    //
+// Hand buffered rows back to the outbox instead of waiting for their leases to expire
+
+    @PreDestroy
+    public void shutdown() {
+        flushTimer.shutdownNow();
+        List<Long> buffered = new ArrayList<>();
+        synchronized (this) {
+            pending.values().forEach(batch -> buffered.addAll(ids(batch.items)));
+            pending.clear();
+        }
+        if (!buffered.isEmpty()) {
+            try {
+                deliveryRepository.releaseAll(buffered, LocalDateTime.now(), "Requeued: shutdown");
+            } catch (Exception e) {
+                log.warn("Could not release {} buffered webhook deliveries: {}", buffered.size(), e.getMessage());
+            }
+        }
+    }
+
+    // Records per-item outcomes of one batch request
+    private final class BatchListener implements DeliveryListener {
+        private final List<BatchItem> items;
+
+        private BatchListener(List<BatchItem> items) {
+            this.items = items;
+        }
+
+        @Override
+        public void onDelivered(DeliveryJob job, DeliveryResult result) {
+            LocalDateTime now = LocalDateTime.now();
+            Set<String> rejected = result.getRejectedEventIds();
+
+            List<Long> delivered = new ArrayList<>(items.size());
+            List<Long> retry = new ArrayList<>();
+            for (BatchItem item : items) {
+                (rejected.contains(item.eventId) ? retry : delivered).add(item.deliveryId);
+            }
+
+            if (!delivered.isEmpty()) {
+                deliveryRepository.completeAll(delivered, WebhookDeliveryStatus.DELIVERED,
+                    result.getStatusCode(), null, now);
+            }
+            if (!retry.isEmpty()) {
+                log.warn("Receiver rejected {} of {} events in webhook batch {}",
+                    retry.size(), items.size(), job.getEventId());
+                deliveryRepository.rescheduleAll(retry, now.plus(Duration.ofMillis(rejectedRetryDelayMs)),
+                    "Rejected in batch " + job.getEventId());
+            }
+            webhookRepository.recordSuccess(job.getEndpoint().getId(), now);
+        }
+
+        @Override
+        public void onFailed(DeliveryJob job, DeliveryResult result) {
+            LocalDateTime now = LocalDateTime.now();
+            String error = result.getError();
+            deliveryRepository.completeAll(ids(items), WebhookDeliveryStatus.FAILED,
+                result.getStatusCode() > 0 ? result.getStatusCode() : null,
+                error != null && error.length() > 500 ? error.substring(0, 500) : error, now);
+            webhookRepository.recordFailure(job.getEndpoint().getId(), now);
+        }
+
+        @Override
+        public void onDropped(DeliveryJob job, String reason) {
+            deliveryRepository.releaseAll(ids(items),
+                LocalDateTime.now().plus(Duration.ofMillis(releaseDelayMs)), "Requeued: " + reason);
+        }
+
+        @Override
+        public void onParked(DeliveryJob job, LocalDateTime retryAfter) {
+            deliveryRepository.releaseAll(ids(items), retryAfter, "Parked: circuit open");
+        }
+    }
+
+    private static final class PendingBatch {
+        private final WebhookEndpoint endpoint;
+        private final List<BatchItem> items = new ArrayList<>();
+
+        private PendingBatch(WebhookEndpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+    }
+
+    private static final class BatchItem {
+        private final Long deliveryId;
+        private final String eventId;
+        private final byte[] body;
+
+        private BatchItem(Long deliveryId, String eventId, byte[] body) {
+            this.deliveryId = deliveryId;
+            this.eventId = eventId;
+            this.body = body;
+        }
+    }
+}
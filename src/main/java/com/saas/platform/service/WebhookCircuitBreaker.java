@@ -0,0 +1,329 @@
+package com.saas.platform.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//
+// WebhookCircuitBreaker - Per-webhook circuit breaker with a rolling failure-rate window
+// - CLOSED: attempts flow; outcomes land in time buckets covering the window
+// - OPEN: the failure rate crossed the threshold; attempts are refused until the
+//   open period (exponential per consecutive trip, capped) runs out
+// - HALF_OPEN: a single trial attempt decides between CLOSED and OPEN again;
+//   the trial is identified by its Permit, so late results of attempts
+//   started earlier are counted but cannot decide it
+// An endpoint counts as unhealthy from its first trip until a trial succeeds.
+// State is kept per node.
+
+@Component
+public class WebhookCircuitBreaker {
+
+    private final Map<Long, Circuit> circuits = new ConcurrentHashMap<>();
+
+    private final long bucketMs;
+    private final int bucketCount;
+    private final int minRequests;
+    private final int failureRatePercent;
+    private final long openMs;
+    private final long maxOpenMs;
+
+    public WebhookCircuitBreaker(@Value("${app.webhook.circuit.window-seconds:60}") long windowSeconds,
+                                 @Value("${app.webhook.circuit.buckets:6}") int buckets,
+                                 @Value("${app.webhook.circuit.min-requests:10}") int minRequests,
+                                 @Value("${app.webhook.circuit.failure-rate-percent:50}") int failureRatePercent,
+                                 @Value("${app.webhook.circuit.open-seconds:30}") long openSeconds,
+                                 @Value("${app.webhook.circuit.max-open-seconds:900}") long maxOpenSeconds) {
+        this.bucketCount = Math.max(1, buckets);
+        this.bucketMs = Math.max(1000L, windowSeconds * 1000L / bucketCount);
+        this.minRequests = Math.max(1, minRequests);
+        this.failureRatePercent = Math.min(Math.max(1, failureRatePercent), 100);
+        this.openMs = Math.max(1000L, openSeconds * 1000L);
+        this.maxOpenMs = Math.max(openMs, maxOpenSeconds * 1000L);
+    }
+
+    //
+// Ask to attempt a delivery; the permit says when to retry if it is not granted
+
+    public Permit acquirePermission(Long webhookId) {
+        return acquirePermission(webhookId, System.currentTimeMillis());
+    }
+
+    Permit acquirePermission(Long webhookId, long now) {
+        Circuit circuit = circuits.get(webhookId);
+        return circuit != null ? circuit.acquire(now) : Permit.GRANTED;
+    }
+
+    //
+// Give back a granted permit whose attempt never reached the receiver, so a
+// half-open trial can be started again right away
+
+    public void releasePermission(Long webhookId, Permit permit) {
+        Circuit circuit = circuits.get(webhookId);
+        if (circuit != null && permit.isTrial()) {
+            circuit.release(permit.trial);
+        }
+    }
+
+    //
+// Time left until the circuit may allow an attempt, without claiming the half-open trial
+
+    public long remainingOpenMs(Long webhookId) {
+        Circuit circuit = circuits.get(webhookId);
+        return circuit != null ? circuit.remaining(System.currentTimeMillis()) : 0L;
+    }
+
+    public void recordResult(Long webhookId, Permit permit, boolean success) {
+        recordResult(webhookId, permit, success, System.currentTimeMillis());
+    }
+
+    void recordResult(Long webhookId, Permit permit, boolean success, long now) {
+        circuits.computeIfAbsent(webhookId, id -> new Circuit())
+            .record(now, permit.trial, success);
+    }
+
+    //
+// Webhooks that have been unhealthy for at least the given time
+
+    public List<Long> getUnhealthyFor(long minDurationMs) {
+        long cutoff = System.currentTimeMillis() - minDurationMs;
+        List<Long> unhealthy = new ArrayList<>();
+        circuits.forEach((id, circuit) -> {
+            long since = circuit.unhealthySince();
+            if (since > 0 && since <= cutoff) {
+                unhealthy.add(id);
+            }
+        });
+        return unhealthy;
+    }
+
+    public CircuitHealth getHealth(Long webhookId) {
+        return getHealth(webhookId, System.currentTimeMillis());
+    }
+
+    CircuitHealth getHealth(Long webhookId, long now) {
+        Circuit circuit = circuits.get(webhookId);
+        return circuit != null
+            ? circuit.health(now)
+            : new CircuitHealth(CircuitState.CLOSED, 0, 0, null, null);
+    }
+
+    public void reset(Long webhookId) {
+        circuits.remove(webhookId);
+    }
+
+    public enum CircuitState {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final class Circuit {
+        private final long[] bucketEpoch = new long[bucketCount];
+        private final int[] successes = new int[bucketCount];
+        private final int[] failures = new int[bucketCount];
+
+        private CircuitState state = CircuitState.CLOSED;
+        private long openUntil;
+        private int consecutiveTrips;
+        private long trialStartedAt; // 0 = no half-open trial running
+        private long trial; // Id of the running trial, 0 = none
+        private long trialCount;
+        private long unhealthySince; // 0 = healthy
+
+        synchronized Permit acquire(long now) {
+            switch (state) {
+                case OPEN:
+                    if (now < openUntil) {
+                        return Permit.denied(openUntil - now);
+                    }
+                    state = CircuitState.HALF_OPEN;
+                    return startTrial(now);
+                case HALF_OPEN:
+                    // One trial at a time; a trial whose outcome never arrives is replaced
+                    if (trialStartedAt > 0 && now - trialStartedAt < openMs) {
+                        return Permit.denied(openMs - (now - trialStartedAt));
+                    }
+                    return startTrial(now);
+                default:
+                    return Permit.GRANTED;
+            }
+        }
+
+        synchronized void release(long releasedTrial) {
+            if (state == CircuitState.HALF_OPEN && releasedTrial == trial) {
+                endTrial();
+            }
+        }
+
+        synchronized long remaining(long now) {
+            if (state == CircuitState.OPEN) {
+                return Math.max(0L, openUntil - now);
+            }
+            if (state == CircuitState.HALF_OPEN && trialStartedAt > 0) {
+                return Math.max(0L, openMs - (now - trialStartedAt));
+            }
+            return 0L;
+        }
+
+        synchronized void record(long now, long resultTrial, boolean success) {
+            int index = bucketFor(now);
+            if (success) {
+                successes[index]++;
+            } else {
+                failures[index]++;
+            }
+
+            if (state == CircuitState.HALF_OPEN) {
+                if (resultTrial == 0 || resultTrial != trial) {
+                    // Started before the trial (or by a replaced trial); it does not decide
+                    return;
+                }
+                endTrial();
+                if (success) {
+                    close();
+                } else {
+                    trip(now);
+                }
+            } else if (state == CircuitState.CLOSED && !success) {
+                int[] totals = totals(now);
+                int total = totals[0] + totals[1];
+                if (total >= minRequests && totals[1] * 100L >= (long) failureRatePercent * total) {
+                    trip(now);
+                }
+            }
+        }
+
+        synchronized long unhealthySince() {
+            return unhealthySince;
+        }
+
+        synchronized CircuitHealth health(long now) {
+            int[] totals = totals(now);
+            int total = totals[0] + totals[1];
+            return new CircuitHealth(
+                state,
+                total,
+                total > 0 ? totals[1] * 100.0 / total : 0.0,
+                state == CircuitState.OPEN ? toLocalDateTime(openUntil) : null,
+                unhealthySince > 0 ? toLocalDateTime(unhealthySince) : null
+            );
+        }
+
+        private Permit startTrial(long now) {
+            trialStartedAt = now;
+            trial = ++trialCount;
+            return Permit.trial(trial);
+        }
+
+        private void endTrial() {
+            trialStartedAt = 0;
+            trial = 0;
+        }
+
+        private void trip(long now) {
+            state = CircuitState.OPEN;
+            consecutiveTrips++;
+            long duration = openMs << Math.min(consecutiveTrips - 1, 20);
+            openUntil = now + Math.min(duration, maxOpenMs);
+            if (unhealthySince == 0) {
+                unhealthySince = now;
+            }
+        }
+
+        private void close() {
+            state = CircuitState.CLOSED;
+            consecutiveTrips = 0;
+            unhealthySince = 0;
+            Arrays.fill(successes, 0);
+            Arrays.fill(failures, 0);
+        }
+
+        private int bucketFor(long now) {
+            long epoch = now / bucketMs;
+            int index = (int) (epoch % bucketCount);
+            if (bucketEpoch[index] != epoch) {
+                bucketEpoch[index] = epoch;
+                successes[index] = 0;
+                failures[index] = 0;
+            }
+            return index;
+        }
+
+        // {successes, failures} over the buckets still inside the window
+        private int[] totals(long now) {
+            long currentEpoch = now / bucketMs;
+            int ok = 0;
+            int failed = 0;
+            for (int i = 0; i < bucketCount; i++) {
+                if (currentEpoch - bucketEpoch[i] < bucketCount) {
+                    ok += successes[i];
+                    failed += failures[i];
+                }
+            }
+            return new int[] { ok, failed };
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    //
+// Outcome of asking to attempt a delivery; a granted permit is handed back
+// with the result so a half-open trial is only decided by its own attempt
+
+    public static final class Permit {
+        static final Permit GRANTED = new Permit(0L, 0L);
+
+        private final long waitMs;
+        private final long trial; // 0 = not a half-open trial
+
+        private Permit(long waitMs, long trial) {
+            this.waitMs = waitMs;
+            this.trial = trial;
+        }
+
+        static Permit denied(long waitMs) {
+            return new Permit(Math.max(1L, waitMs), 0L);
+        }
+
+        static Permit trial(long trial) {
+            return new Permit(0L, trial);
+        }
+
+        public boolean isGranted() { return waitMs == 0; }
+        public long getWaitMs() { return waitMs; }
+        public boolean isTrial() { return trial != 0; }
+    }
+
+    public static class CircuitHealth {
+        private final CircuitState state;
+        private final int windowRequests;
+        private final double windowFailureRate;
+        private final LocalDateTime openUntil;
+        private final LocalDateTime unhealthySince;
+
+        public CircuitHealth(CircuitState state, int windowRequests, double windowFailureRate,
+                             LocalDateTime openUntil, LocalDateTime unhealthySince) {
+            this.state = state;
+            this.windowRequests = windowRequests;
+            this.windowFailureRate = windowFailureRate;
+            this.openUntil = openUntil;
+            this.unhealthySince = unhealthySince;
+        }
+
+        public CircuitState getState() { return state; }
+        public int getWindowRequests() { return windowRequests; }
+        public double getWindowFailureRate() { return windowFailureRate; }
+        public LocalDateTime getOpenUntil() { return openUntil; }
+        public LocalDateTime getUnhealthySince() { return unhealthySince; }
+    }
+}
@@ -0,0 +1,553 @@
+package com.saas.platform.service;
+
+import com.saas.platform.service.WebhookCircuitBreaker.Permit;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+//
+// WebhookDeliveryEngine - Bounded webhook delivery
+// - Fixed worker pool instead of a thread per delivery
+// - Retries wait in a delay queue (scheduled executor), not in sleeping threads
+// - Each endpoint has its own queue and concurrency cap, so one slow
+//   receiver can never hold more than its share of the workers
+// - Submissions beyond the global/per-endpoint bounds are dropped and counted
+// - Endpoints whose circuit is open are not attempted; their jobs are parked
+// - Attempts the sender refused locally (too many requests in flight) never
+//   reached the receiver; they are requeued without counting as an attempt
+
+@Service
+public class WebhookDeliveryEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookDeliveryEngine.class);
+    public static final String BATCH_EVENT_TYPE = "webhook.batch";
+
+    private final WebhookHttpSender sender;
+    private final WebhookCircuitBreaker circuitBreaker;
+    private final WebhookAttemptLog attemptLog;
+
+    private final ThreadPoolExecutor workers;
+    private final ScheduledThreadPoolExecutor retryTimer;
+    private final Map<Long, EndpointLane> lanes = new ConcurrentHashMap<>();
+
+    private final int maxQueued;
+    private final int perEndpointConcurrency;
+    private final int perEndpointQueue;
+    private final long retryBaseDelayMs;
+    private final long retryMaxDelayMs;
+
+    // Jobs waiting in a lane or in the retry timer
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder parked = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder latencyTotalMs = new LongAdder();
+    private final AtomicLong latencyMaxMs = new AtomicLong();
+
+    public WebhookDeliveryEngine(WebhookHttpSender sender,
+                                 WebhookCircuitBreaker circuitBreaker,
+                                 WebhookAttemptLog attemptLog,
+                                 @Value("${app.webhook.delivery.workers:8}") int workerCount,
+                                 @Value("${app.webhook.delivery.max-queued:10000}") int maxQueued,
+                                 @Value("${app.webhook.delivery.per-endpoint-concurrency:8}") int perEndpointConcurrency,
+                                 @Value("${app.webhook.delivery.per-endpoint-queue:1000}") int perEndpointQueue,
+                                 @Value("${app.webhook.delivery.retry-base-delay-ms:1000}") long retryBaseDelayMs,
+                                 @Value("${app.webhook.delivery.retry-max-delay-ms:60000}") long retryMaxDelayMs) {
+        this.sender = sender;
+        this.circuitBreaker = circuitBreaker;
+        this.attemptLog = attemptLog;
+        this.maxQueued = maxQueued;
+        this.perEndpointConcurrency = Math.max(1, perEndpointConcurrency);
+        this.perEndpointQueue = perEndpointQueue;
+        this.retryBaseDelayMs = retryBaseDelayMs;
+        this.retryMaxDelayMs = retryMaxDelayMs;
+
+        // Lanes never hand out more than perEndpointConcurrency jobs each, so the
+        // executor queue only ever holds jobs that are already admitted
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), namedThreads("webhook-worker-"));
+        this.retryTimer = new ScheduledThreadPoolExecutor(1, namedThreads("webhook-retry-"));
+        this.retryTimer.setRemoveOnCancelPolicy(true);
+    }
+
+    //
+// Queue a delivery; returns false if it was dropped because the engine is full
+
+    public boolean submit(DeliveryJob job) {
+        submitted.increment();
+        return enqueue(job);
+    }
+
+    //
+// Drop any queued work for an endpoint (e.g. after the webhook was deleted)
+
+    public void forget(Long webhookId) {
+        EndpointLane lane = lanes.remove(webhookId);
+        if (lane != null) {
+            synchronized (lane) {
+                queued.addAndGet(-lane.queue.size());
+                lane.queue.clear();
+            }
+        }
+    }
+
+    //
+// Free slots in the engine queue, used by the outbox poller to avoid claiming
+// more rows than can be dispatched right now
+
+    public int getRemainingCapacity() {
+        return Math.max(0, maxQueued - queued.get() - inFlight.get());
+    }
+
+    public DeliveryMetrics getMetrics() {
+        long attemptCount = attempts.sum();
+        return new DeliveryMetrics(
+            queued.get(),
+            inFlight.get(),
+            workers.getActiveCount(),
+            lanes.size(),
+            submitted.sum(),
+            attemptCount,
+            delivered.sum(),
+            failed.sum(),
+            retried.sum(),
+            dropped.sum(),
+            parked.sum(),
+            throttled.sum(),
+            attemptCount > 0 ? latencyTotalMs.sum() / (double) attemptCount : 0.0,
+            latencyMaxMs.get()
+        );
+    }
+
+    private boolean enqueue(DeliveryJob job) {
+        if (queued.get() >= maxQueued) {
+            drop(job, "engine queue full");
+            return false;
+        }
+
+        EndpointLane lane = lanes.computeIfAbsent(job.getEndpoint().getId(), id -> new EndpointLane());
+        synchronized (lane) {
+            if (lane.queue.size() >= perEndpointQueue) {
+                drop(job, "endpoint queue full");
+                return false;
+            }
+            lane.queue.addLast(job);
+            queued.incrementAndGet();
+        }
+        drain(lane);
+        return true;
+    }
+
+    private void drain(EndpointLane lane) {
+        List<DeliveryJob> rejected = null;
+        synchronized (lane) {
+            while (lane.inFlight < perEndpointConcurrency && !lane.queue.isEmpty()) {
+                DeliveryJob job = lane.queue.pollFirst();
+                queued.decrementAndGet();
+                lane.inFlight++;
+                inFlight.incrementAndGet();
+                try {
+                    workers.execute(() -> attempt(lane, job));
+                } catch (RejectedExecutionException e) {
+                    // Pool is shutting down: give the slot back and hand this job and
+                    // the rest of the lane to their owners instead of stranding them
+                    lane.inFlight--;
+                    inFlight.decrementAndGet();
+                    rejected = new ArrayList<>(lane.queue.size() + 1);
+                    rejected.add(job);
+                    rejected.addAll(lane.queue);
+                    queued.addAndGet(-lane.queue.size());
+                    lane.queue.clear();
+                    break;
+                }
+            }
+        }
+        if (rejected != null) {
+            rejected.forEach(job -> drop(job, "worker pool unavailable"));
+        }
+    }
+
+    private void attempt(EndpointLane lane, DeliveryJob job) {
+        Permit permit = circuitBreaker.acquirePermission(job.getEndpoint().getId());
+        if (!permit.isGranted()) {
+            park(lane, job, permit.getWaitMs());
+            return;
+        }
+
+        long start = System.nanoTime();
+
+        try {
+            // Sends are asynchronous: the worker is released immediately and the
+            // outcome (listener callbacks may hit the database) is handled back
+            // on a worker rather than on the HTTP client's threads
+            sender.send(job).whenComplete((result, error) -> {
+                long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                DeliveryResult outcome = error != null
+                    ? DeliveryResult.failure(0, error.getMessage(), latencyMs)
+                    : result.withLatency(latencyMs);
+                try {
+                    workers.execute(() -> complete(lane, job, permit, outcome));
+                } catch (RejectedExecutionException e) {
+                    // Shutting down; settle here so the lane slot is still released
+                    complete(lane, job, permit, outcome);
+                }
+            });
+        } catch (Exception e) {
+            long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            complete(lane, job, permit, DeliveryResult.failure(0, e.getMessage(), latencyMs));
+        }
+    }
+
+    private void complete(EndpointLane lane, DeliveryJob job, Permit permit, DeliveryResult result) {
+        synchronized (lane) {
+            lane.inFlight--;
+        }
+        inFlight.decrementAndGet();
+
+        if (result.isRejectedLocally()) {
+            // Nothing was sent: the receiver's circuit and the job's attempts are untouched
+            circuitBreaker.releasePermission(job.getEndpoint().getId(), permit);
+            throttled.increment();
+            log.debug("Webhook {} attempt {} not sent ({}), requeued",
+                job.getEndpoint().getId(), job.getAttempt(), result.getError());
+            try {
+                schedule(job, retryBaseDelayMs);
+            } finally {
+                drain(lane);
+            }
+            return;
+        }
+
+        attempts.increment();
+        latencyTotalMs.add(result.getLatencyMs());
+        latencyMaxMs.accumulateAndGet(result.getLatencyMs(), Math::max);
+
+        circuitBreaker.recordResult(job.getEndpoint().getId(), permit, result.isSuccess());
+        attemptLog.record(job, result);
+
+        try {
+            if (result.isSuccess()) {
+                delivered.increment();
+                job.getListener().onDelivered(job, result);
+            } else if (job.getAttempt() < job.getEndpoint().getMaxAttempts()) {
+                log.warn("Webhook {} attempt {} failed ({}), retrying",
+                    job.getEndpoint().getId(), job.getAttempt(), result.describe());
+                scheduleRetry(job.nextAttempt());
+            } else {
+                failed.increment();
+                log.error("Webhook {} delivery of event {} failed after {} attempts: {}",
+                    job.getEndpoint().getId(), job.getEventId(), job.getAttempt(), result.describe());
+                job.getListener().onFailed(job, result);
+            }
+        } catch (Exception e) {
+            log.error("Webhook delivery listener failed: {}", e.getMessage());
+        } finally {
+            drain(lane);
+        }
+    }
+
+    //
+// Hand a job for an open circuit back to its owner instead of attempting it
+
+    private void park(EndpointLane lane, DeliveryJob job, long openMs) {
+        synchronized (lane) {
+            lane.inFlight--;
+        }
+        inFlight.decrementAndGet();
+        parked.increment();
+
+        try {
+            job.getListener().onParked(job, LocalDateTime.now().plus(Duration.ofMillis(openMs)));
+        } catch (Exception e) {
+            log.error("Webhook delivery listener failed: {}", e.getMessage());
+        } finally {
+            drain(lane);
+        }
+    }
+
+    private void scheduleRetry(DeliveryJob job) {
+        retried.increment();
+        schedule(job, backoffDelayMs(job.getAttempt() - 1));
+    }
+
+    private void schedule(DeliveryJob job, long delay) {
+        queued.incrementAndGet();
+        try {
+            retryTimer.schedule(() -> {
+                queued.decrementAndGet();
+                enqueue(job);
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            queued.decrementAndGet();
+            drop(job, "retry timer unavailable");
+        }
+    }
+
+    //
+// Exponential backoff with +/-20% jitter, capped at retryMaxDelayMs
+
+    long backoffDelayMs(int failedAttempts) {
+        long delay = retryBaseDelayMs << Math.min(Math.max(failedAttempts - 1, 0), 20);
+        delay = Math.min(delay, retryMaxDelayMs);
+        double jitter = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        return (long) (delay * jitter);
+    }
+
+    private void drop(DeliveryJob job, String reason) {
+        dropped.increment();
+        log.warn("Dropped webhook delivery for endpoint {} ({})", job.getEndpoint().getId(), reason);
+        try {
+            job.getListener().onDropped(job, reason);
+        } catch (Exception e) {
+            log.error("Webhook delivery listener failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryTimer.shutdownNow();
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static java.util.concurrent.ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class EndpointLane {
+        private final ArrayDeque<DeliveryJob> queue = new ArrayDeque<>();
+        private int inFlight;
+    }
+
+    // Delivery job, result, listener and metrics types
+
+    public interface DeliveryListener {
+        void onDelivered(DeliveryJob job, DeliveryResult result);
+
+        void onFailed(DeliveryJob job, DeliveryResult result);
+
+        default void onDropped(DeliveryJob job, String reason) {
+        }
+
+        // Circuit open: the job was not attempted and may be retried after the given time
+        default void onParked(DeliveryJob job, LocalDateTime retryAfter) {
+            onDropped(job, "circuit open");
+        }
+    }
+
+    public static class DeliveryJob {
+        private final WebhookEndpoint endpoint;
+        private final Long deliveryId;
+        private final String eventId;
+        private final String eventType;
+        private final LocalDateTime occurredAt;
+        private final byte[] body; // Serialized once per event, shared by all subscribers
+        private final byte[] gzipBody; // Compressed form of a large batch body, null otherwise
+        private final int batchSize; // 0 for a single event
+        private final int attempt;
+        private final DeliveryListener listener;
+
+        public DeliveryJob(WebhookEndpoint endpoint, String eventId, String eventType,
+                           LocalDateTime occurredAt, byte[] body, DeliveryListener listener) {
+            this(endpoint, null, eventId, eventType, occurredAt, body, null, 0, 1, listener);
+        }
+
+        public DeliveryJob(WebhookEndpoint endpoint, Long deliveryId, String eventId, String eventType,
+                           LocalDateTime occurredAt, byte[] body, DeliveryListener listener) {
+            this(endpoint, deliveryId, eventId, eventType, occurredAt, body, null, 0, 1, listener);
+        }
+
+        private DeliveryJob(WebhookEndpoint endpoint, Long deliveryId, String eventId, String eventType,
+                            LocalDateTime occurredAt, byte[] body, byte[] gzipBody, int batchSize,
+                            int attempt, DeliveryListener listener) {
+            this.endpoint = endpoint;
+            this.deliveryId = deliveryId;
+            this.eventId = eventId;
+            this.eventType = eventType;
+            this.occurredAt = occurredAt;
+            this.body = body;
+            this.gzipBody = gzipBody;
+            this.batchSize = batchSize;
+            this.attempt = attempt;
+            this.listener = listener;
+        }
+
+        //
+// A JSON array of event envelopes sent as one request; eventId is the batch id
+
+        public static DeliveryJob batch(WebhookEndpoint endpoint, String batchId, LocalDateTime occurredAt,
+                                        byte[] body, byte[] gzipBody, int batchSize, DeliveryListener listener) {
+            return new DeliveryJob(endpoint, null, batchId, BATCH_EVENT_TYPE, occurredAt,
+                body, gzipBody, batchSize, 1, listener);
+        }
+
+        public DeliveryJob nextAttempt() {
+            return new DeliveryJob(endpoint, deliveryId, eventId, eventType, occurredAt, body, gzipBody,
+                batchSize, attempt + 1, listener);
+        }
+
+        public WebhookEndpoint getEndpoint() { return endpoint; }
+        public Long getDeliveryId() { return deliveryId; } // Outbox row, null for ad-hoc sends and batches
+        public String getEventId() { return eventId; }
+        public String getEventType() { return eventType; }
+        public LocalDateTime getOccurredAt() { return occurredAt; }
+        public byte[] getBody() { return body; }
+        public byte[] getGzipBody() { return gzipBody; }
+        public int getBatchSize() { return batchSize; }
+        public boolean isBatch() { return batchSize > 0; }
+        public int getAttempt() { return attempt; }
+        public DeliveryListener getListener() { return listener; }
+    }
+
+    public static class DeliveryResult {
+        private final boolean success;
+        private final int statusCode;
+        private final String error;
+        private final long latencyMs;
+        private final Set<String> rejectedEventIds; // Batch items the receiver asked to retry
+        private final boolean rejectedLocally; // Not sent at all; the receiver never saw it
+
+        private DeliveryResult(boolean success, int statusCode, String error, long latencyMs,
+                               Set<String> rejectedEventIds, boolean rejectedLocally) {
+            this.success = success;
+            this.statusCode = statusCode;
+            this.error = error;
+            this.latencyMs = latencyMs;
+            this.rejectedEventIds = rejectedEventIds;
+            this.rejectedLocally = rejectedLocally;
+        }
+
+        public static DeliveryResult success(int statusCode) {
+            return new DeliveryResult(true, statusCode, null, 0, Set.of(), false);
+        }
+
+        //
+// Batch accepted except for the listed events, which should be sent again
+
+        public static DeliveryResult partial(int statusCode, Set<String> rejectedEventIds) {
+            return new DeliveryResult(true, statusCode, null, 0, Set.copyOf(rejectedEventIds), false);
+        }
+
+        public static DeliveryResult failure(int statusCode, String error) {
+            return new DeliveryResult(false, statusCode, error, 0, Set.of(), false);
+        }
+
+        static DeliveryResult failure(int statusCode, String error, long latencyMs) {
+            return new DeliveryResult(false, statusCode, error, latencyMs, Set.of(), false);
+        }
+
+        //
+// The request was refused before it left this node (local capacity), so it
+// says nothing about the receiver and should simply be tried again
+
+        public static DeliveryResult rejectedLocally(String reason) {
+            return new DeliveryResult(false, 0, reason, 0, Set.of(), true);
+        }
+
+        DeliveryResult withLatency(long latencyMs) {
+            return new DeliveryResult(success, statusCode, error, latencyMs, rejectedEventIds, rejectedLocally);
+        }
+
+        public boolean isSuccess() { return success; }
+        public int getStatusCode() { return statusCode; }
+        public String getError() { return error; }
+        public long getLatencyMs() { return latencyMs; }
+        public Set<String> getRejectedEventIds() { return rejectedEventIds; }
+        public boolean isRejectedLocally() { return rejectedLocally; }
+
+        public String describe() {
+            return statusCode > 0 ? "HTTP " + statusCode : String.valueOf(error);
+        }
+    }
+
+    public static class DeliveryMetrics {
+        private final int queueDepth;
+        private final int inFlight;
+        private final int activeWorkers;
+        private final int endpoints;
+        private final long submitted;
+        private final long attempts;
+        private final long delivered;
+        private final long failed;
+        private final long retried;
+        private final long dropped;
+        private final long parked;
+        private final long throttled;
+        private final double averageLatencyMs;
+        private final long maxLatencyMs;
+
+        public DeliveryMetrics(int queueDepth, int inFlight, int activeWorkers, int endpoints,
+                               long submitted, long attempts, long delivered, long failed,
+                               long retried, long dropped, long parked, long throttled,
+                               double averageLatencyMs, long maxLatencyMs) {
+            this.queueDepth = queueDepth;
+            this.inFlight = inFlight;
+            this.activeWorkers = activeWorkers;
+            this.endpoints = endpoints;
+            this.submitted = submitted;
+            this.attempts = attempts;
+            this.delivered = delivered;
+            this.failed = failed;
+            this.retried = retried;
+            this.dropped = dropped;
+            this.parked = parked;
+            this.throttled = throttled;
+            this.averageLatencyMs = averageLatencyMs;
+            this.maxLatencyMs = maxLatencyMs;
+        }
+
+        public int getQueueDepth() { return queueDepth; }
+        public int getInFlight() { return inFlight; }
+        public int getActiveWorkers() { return activeWorkers; }
+        public int getEndpoints() { return endpoints; }
+        public long getSubmitted() { return submitted; }
+        public long getAttempts() { return attempts; }
+        public long getDelivered() { return delivered; }
+        public long getFailed() { return failed; }
+        public long getRetried() { return retried; }
+        public long getDropped() { return dropped; }
+        public long getParked() { return parked; }
+        public long getThrottled() { return throttled; }
+        public double getAverageLatencyMs() { return averageLatencyMs; }
+        public long getMaxLatencyMs() { return maxLatencyMs; }
+    }
+}
@@ -0,0 +1,61 @@
+package com.saas.platform.service;
+
+import com.saas.platform.model.Webhook;
+
+import javax.crypto.spec.SecretKeySpec;
+
+//
+// WebhookEndpoint - Immutable delivery snapshot of a Webhook
+// Delivery threads work from this copy instead of sharing the JPA entity
+
+public final class WebhookEndpoint {
+
+    private final Long id;
+    private final Long tenantId;
+    private final String name;
+    private final String url;
+    private final String secretKey;
+    private final SecretKeySpec signingKey; // Derived once per snapshot
+    private final int timeoutSeconds;
+    private final int maxRetries;
+    private final boolean batchEnabled;
+    private final int batchMaxItems;
+    private final int batchMaxWaitMs;
+
+    private WebhookEndpoint(Webhook webhook) {
+        this.id = webhook.getId();
+        this.tenantId = webhook.getTenantId();
+        this.name = webhook.getName();
+        this.url = webhook.getUrl();
+        this.secretKey = webhook.getSecretKey();
+        this.signingKey = WebhookSigner.key(secretKey);
+        this.timeoutSeconds = webhook.getTimeoutSeconds() != null && webhook.getTimeoutSeconds() > 0
+            ? webhook.getTimeoutSeconds() : 30;
+        this.maxRetries = webhook.getRetryCount() != null ? Math.max(0, webhook.getRetryCount()) : 0;
+        this.batchEnabled = Boolean.TRUE.equals(webhook.getBatchEnabled());
+        this.batchMaxItems = webhook.getBatchMaxItems() != null && webhook.getBatchMaxItems() > 0
+            ? webhook.getBatchMaxItems() : 100;
+        this.batchMaxWaitMs = webhook.getBatchMaxWaitMs() != null && webhook.getBatchMaxWaitMs() >= 0
+            ? webhook.getBatchMaxWaitMs() : 1000;
+    }
+
+    public static WebhookEndpoint from(Webhook webhook) {
+        return new WebhookEndpoint(webhook);
+    }
+
+    public Long getId() { return id; }
+    public Long getTenantId() { return tenantId; }
+    public String getName() { return name; }
+    public String getUrl() { return url; }
+    public String getSecretKey() { return secretKey; }
+    public SecretKeySpec getSigningKey() { return signingKey; }
+    public int getTimeoutSeconds() { return timeoutSeconds; }
+    public int getMaxRetries() { return maxRetries; }
+    public boolean isBatchEnabled() { return batchEnabled; }
+    public int getBatchMaxItems() { return batchMaxItems; }
+    public int getBatchMaxWaitMs() { return batchMaxWaitMs; }
+
+    public int getMaxAttempts() {
+        return maxRetries + 1;
+    }
+}
@@ -0,0 +1,99 @@
+package com.saas.platform.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+//
+// WebhookEventFilter - Parsed form of a webhook's comma-separated event list
+// Entries match exactly ("user.created" does not match "user.created_v2"),
+// except "prefix.*" which matches any event under that prefix and "*"
+// which matches every event.
+
+public final class WebhookEventFilter {
+
+    private static final String WILDCARD = "*";
+    private static final String WILDCARD_SUFFIX = ".*";
+
+    private final Set<String> exact;
+    private final List<String> prefixes; // "user.*" is stored as "user."
+    private final boolean matchAll;
+
+    private WebhookEventFilter(Set<String> exact, List<String> prefixes, boolean matchAll) {
+        this.exact = Collections.unmodifiableSet(exact);
+        this.prefixes = Collections.unmodifiableList(prefixes);
+        this.matchAll = matchAll;
+    }
+
+    //
+// Parse a stored event list; never throws, malformed wildcards are kept as literals
+
+    public static WebhookEventFilter compile(String events) {
+        Set<String> exact = new LinkedHashSet<>();
+        List<String> prefixes = new ArrayList<>();
+        boolean matchAll = false;
+
+        if (events != null) {
+            for (String token : events.split(",")) {
+                String pattern = token.trim();
+                if (pattern.isEmpty()) {
+                    continue;
+                }
+                if (pattern.equals(WILDCARD)) {
+                    matchAll = true;
+                } else if (isPrefixPattern(pattern)) {
+                    prefixes.add(pattern.substring(0, pattern.length() - 1));
+                } else {
+                    exact.add(pattern);
+                }
+            }
+        }
+        return new WebhookEventFilter(exact, prefixes, matchAll);
+    }
+
+    //
+// Strict check used when a webhook is created or updated
+
+    public static void validate(String events) {
+        if (events == null || events.isBlank()) {
+            throw new IllegalArgumentException("At least one event is required");
+        }
+        for (String token : events.split(",")) {
+            String pattern = token.trim();
+            if (pattern.isEmpty()) {
+                continue;
+            }
+            if (pattern.contains(WILDCARD) && !pattern.equals(WILDCARD) && !isPrefixPattern(pattern)) {
+                throw new IllegalArgumentException(
+                    "Invalid event pattern '" + pattern + "': use an exact event, 'prefix.*' or '*'");
+            }
+        }
+    }
+
+    public boolean matches(String eventType) {
+        if (eventType == null) {
+            return false;
+        }
+        if (matchAll || exact.contains(eventType)) {
+            return true;
+        }
+        for (String prefix : prefixes) {
+            if (eventType.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Set<String> getExactEvents() { return exact; }
+    public List<String> getPrefixes() { return prefixes; }
+    public boolean isMatchAll() { return matchAll; }
+
+    private static boolean isPrefixPattern(String pattern) {
+        return pattern.length() > WILDCARD_SUFFIX.length()
+            && pattern.endsWith(WILDCARD_SUFFIX)
+            && pattern.indexOf('*') == pattern.length() - 1;
+    }
+}
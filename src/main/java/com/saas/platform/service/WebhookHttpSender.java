@@ -0,0 +1,164 @@
+package com.saas.platform.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.saas.platform.service.WebhookDeliveryEngine.DeliveryJob;
+import com.saas.platform.service.WebhookDeliveryEngine.DeliveryResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+
+//
+// WebhookHttpSender - Performs a single webhook HTTP attempt
+// Requests are sent asynchronously on the shared webhook HttpClient; the
+// returned future completes when the receiver answers or the per-webhook
+// timeout expires. Retries, concurrency and bookkeeping are handled by
+// WebhookDeliveryEngine.
+//
+// Batch requests carry X-Webhook-Batch-ID and may be gzip-compressed; the
+// signature always covers the uncompressed JSON array. A receiver can accept
+// a batch partially by answering 2xx with {"failed": ["<event id>", ...]}.
+
+@Component
+public class WebhookHttpSender {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookHttpSender.class);
+    static final String SIGNATURE_HEADER = "X-Webhook-Signature";
+    static final String TIMESTAMP_HEADER = "X-Webhook-Timestamp";
+    static final String BATCH_ID_HEADER = "X-Webhook-Batch-ID";
+    private static final int MAX_RESPONSE_BYTES = 256 * 1024;
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+
+    // Global cap on requests awaiting a response
+    private final Semaphore inFlight;
+
+    public WebhookHttpSender(HttpClient webhookHttpClient,
+                             ObjectMapper objectMapper,
+                             @Value("${app.webhook.http.max-in-flight:5000}") int maxInFlight) {
+        this.httpClient = webhookHttpClient;
+        this.objectMapper = objectMapper;
+        this.inFlight = new Semaphore(Math.max(1, maxInFlight));
+    }
+
+    //
+// Send one attempt of a delivery job without blocking the calling thread
+
+    public CompletableFuture<DeliveryResult> send(DeliveryJob job) {
+        WebhookEndpoint endpoint = job.getEndpoint();
+        log.debug("Sending webhook {} (attempt {}) to URL: {}", job.getEventId(), job.getAttempt(), endpoint.getUrl());
+
+        HttpRequest request;
+        try {
+            request = buildRequest(job);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(DeliveryResult.failure(0, e.getMessage()));
+        }
+
+        if (!inFlight.tryAcquire()) {
+            return CompletableFuture.completedFuture(
+                DeliveryResult.rejectedLocally("Too many webhook requests in flight"));
+        }
+
+        try {
+            if (job.isBatch()) {
+                // Batch responses may list rejected items, so their body is read
+                return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                    .handle((response, error) -> {
+                        inFlight.release();
+                        return error != null ? failure(error) : toBatchResult(response);
+                    });
+            }
+            return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, error) -> {
+                    inFlight.release();
+                    return error != null ? failure(error) : toResult(response.statusCode());
+                });
+        } catch (Exception e) {
+            inFlight.release();
+            return CompletableFuture.completedFuture(DeliveryResult.failure(0, e.getMessage()));
+        }
+    }
+
+    private HttpRequest buildRequest(DeliveryJob job) {
+        WebhookEndpoint endpoint = job.getEndpoint();
+        byte[] body = job.getBody();
+
+        // Signed per attempt so the timestamp is fresh on retries
+        long timestamp = System.currentTimeMillis() / 1000;
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(endpoint.getUrl()))
+            .timeout(Duration.ofSeconds(endpoint.getTimeoutSeconds()))
+            .header("Content-Type", "application/json")
+            .header(SIGNATURE_HEADER, WebhookSigner.sign(endpoint.getSigningKey(), timestamp, body))
+            .header(TIMESTAMP_HEADER, Long.toString(timestamp))
+            .header("X-Webhook-Event", job.getEventType())
+            .header("X-Webhook-ID", endpoint.getId().toString());
+
+        if (job.isBatch()) {
+            request.header(BATCH_ID_HEADER, job.getEventId())
+                .header("X-Webhook-Batch-Size", Integer.toString(job.getBatchSize()));
+        } else {
+            request.header("X-Webhook-Event-ID", job.getEventId());
+        }
+
+        if (job.getGzipBody() != null) {
+            request.header("Content-Encoding", "gzip");
+            return request.POST(HttpRequest.BodyPublishers.ofByteArray(job.getGzipBody())).build();
+        }
+        return request.POST(HttpRequest.BodyPublishers.ofByteArray(body)).build();
+    }
+
+    private DeliveryResult toResult(int status) {
+        return status >= 200 && status < 300
+            ? DeliveryResult.success(status)
+            : DeliveryResult.failure(status, "Webhook returned status: " + status);
+    }
+
+    private DeliveryResult toBatchResult(HttpResponse<byte[]> response) {
+        int status = response.statusCode();
+        if (status < 200 || status >= 300) {
+            return toResult(status);
+        }
+
+        byte[] body = response.body();
+        if (body == null || body.length == 0 || body.length > MAX_RESPONSE_BYTES) {
+            return DeliveryResult.success(status);
+        }
+        try {
+            JsonNode failed = objectMapper.readTree(body).path("failed");
+            if (!failed.isArray() || failed.isEmpty()) {
+                return DeliveryResult.success(status);
+            }
+            Set<String> rejected = new HashSet<>();
+            failed.forEach(id -> rejected.add(id.asText()));
+            return DeliveryResult.partial(status, rejected);
+        } catch (Exception e) {
+            // Not a partial-failure report; treat the batch as accepted
+            return DeliveryResult.success(status);
+        }
+    }
+
+    private DeliveryResult failure(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+            ? error.getCause() : error;
+        String message = cause instanceof HttpTimeoutException
+            ? "Timed out: " + cause.getMessage()
+            : cause.getClass().getSimpleName() + ": " + cause.getMessage();
+        return DeliveryResult.failure(0, message);
+    }
+}
@@ -0,0 +1,509 @@
+package com.saas.platform.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.saas.platform.model.Webhook;
+import com.saas.platform.model.WebhookDelivery;
+import com.saas.platform.model.WebhookDeliveryStatus;
+import com.saas.platform.model.WebhookEvent;
+import com.saas.platform.repository.WebhookDeliveryRepository;
+import com.saas.platform.repository.WebhookEventRepository;
+import com.saas.platform.repository.WebhookRepository;
+import com.saas.platform.service.WebhookDeliveryEngine.DeliveryJob;
+import com.saas.platform.service.WebhookDeliveryEngine.DeliveryListener;
+import com.saas.platform.service.WebhookDeliveryEngine.DeliveryResult;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+//
+// WebhookOutboxService - Durable transactional outbox for webhook events
+// - Events and per-subscriber delivery rows are written in the caller's
+//   transaction, so an event exists exactly when the business change committed
+// - Pollers claim due rows with SELECT ... FOR UPDATE SKIP LOCKED, mark them
+//   IN_FLIGHT with a lease, commit, and only then hand them to the engine
+// - A row whose lease expires (node crashed, outcome never recorded) is claimed
+//   again, so delivery is at-least-once; receivers dedupe on the event id
+// - Finished rows and old events are purged in small chunks
+
+@Service
+public class WebhookOutboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookOutboxService.class);
+    private static final int PURGE_CHUNK = 1000;
+    private static final int REPLAY_PAGE = 500;
+
+    private final WebhookEventRepository eventRepository;
+    private final WebhookDeliveryRepository deliveryRepository;
+    private final WebhookRepository webhookRepository;
+    private final WebhookDeliveryEngine deliveryEngine;
+    private final WebhookCircuitBreaker circuitBreaker;
+    private final WebhookBatchDispatcher batchDispatcher;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final int batchSize;
+    private final long leaseSeconds;
+    private final long releaseDelayMs;
+    private final int maxClaims;
+    private final int deliveryRetentionDays;
+    private final int eventRetentionDays;
+    private final double replayRatePerSecond;
+    private final int replayMaxEvents;
+
+    private final String nodeId;
+    private final ReentrantLock pollLock = new ReentrantLock();
+    private final AtomicBoolean wakeRequested = new AtomicBoolean();
+    private final ExecutorService wakeExecutor;
+
+    // Records the outcome on the outbox row and the webhook's counters
+    private final DeliveryListener outboxListener = new DeliveryListener() {
+        @Override
+        public void onDelivered(DeliveryJob job, DeliveryResult result) {
+            LocalDateTime now = LocalDateTime.now();
+            deliveryRepository.complete(job.getDeliveryId(), WebhookDeliveryStatus.DELIVERED,
+                result.getStatusCode(), null, now);
+            webhookRepository.recordSuccess(job.getEndpoint().getId(), now);
+        }
+
+        @Override
+        public void onFailed(DeliveryJob job, DeliveryResult result) {
+            LocalDateTime now = LocalDateTime.now();
+            deliveryRepository.complete(job.getDeliveryId(), WebhookDeliveryStatus.FAILED,
+                result.getStatusCode() > 0 ? result.getStatusCode() : null, truncate(result.getError()), now);
+            webhookRepository.recordFailure(job.getEndpoint().getId(), now);
+        }
+
+        @Override
+        public void onDropped(DeliveryJob job, String reason) {
+            // Engine had no room; give the row back instead of losing it
+            deliveryRepository.release(job.getDeliveryId(),
+                LocalDateTime.now().plus(Duration.ofMillis(releaseDelayMs)), "Requeued: " + reason);
+        }
+
+        @Override
+        public void onParked(DeliveryJob job, LocalDateTime retryAfter) {
+            deliveryRepository.release(job.getDeliveryId(), retryAfter, "Parked: circuit open");
+        }
+    };
+
+    public WebhookOutboxService(WebhookEventRepository eventRepository,
+                                WebhookDeliveryRepository deliveryRepository,
+                                WebhookRepository webhookRepository,
+                                WebhookDeliveryEngine deliveryEngine,
+                                WebhookCircuitBreaker circuitBreaker,
+                                WebhookBatchDispatcher batchDispatcher,
+                                TransactionTemplate transactionTemplate,
+                                ObjectMapper objectMapper,
+                                @Value("${app.webhook.outbox.batch-size:200}") int batchSize,
+                                @Value("${app.webhook.outbox.lease-seconds:600}") long leaseSeconds,
+                                @Value("${app.webhook.outbox.release-delay-ms:5000}") long releaseDelayMs,
+                                @Value("${app.webhook.outbox.max-claims:5}") int maxClaims,
+                                @Value("${app.webhook.outbox.delivery-retention-days:7}") int deliveryRetentionDays,
+                                @Value("${app.webhook.outbox.event-retention-days:30}") int eventRetentionDays,
+                                @Value("${app.webhook.replay.rate-per-second:5}") double replayRatePerSecond,
+                                @Value("${app.webhook.replay.max-events:100000}") int replayMaxEvents) {
+        this.eventRepository = eventRepository;
+        this.deliveryRepository = deliveryRepository;
+        this.webhookRepository = webhookRepository;
+        this.deliveryEngine = deliveryEngine;
+        this.circuitBreaker = circuitBreaker;
+        this.batchDispatcher = batchDispatcher;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = Math.max(1, batchSize);
+        this.leaseSeconds = Math.max(1, leaseSeconds);
+        this.releaseDelayMs = Math.max(0, releaseDelayMs);
+        this.maxClaims = Math.max(1, maxClaims);
+        this.deliveryRetentionDays = deliveryRetentionDays;
+        this.eventRetentionDays = eventRetentionDays;
+        this.replayRatePerSecond = replayRatePerSecond > 0 ? replayRatePerSecond : 5;
+        this.replayMaxEvents = Math.max(1, replayMaxEvents);
+
+        String runtime = ManagementFactory.getRuntimeMXBean().getName();
+        String node = runtime + "/" + UUID.randomUUID().toString().substring(0, 8);
+        this.nodeId = node.length() > 100 ? node.substring(node.length() - 100) : node;
+
+        this.wakeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "webhook-outbox");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    //
+// Record an event and one delivery row per subscriber in the current transaction.
+// Nothing is sent until the transaction commits.
+
+    @Transactional
+    public WebhookEvent enqueue(Long tenantId, String eventType, Object payload, List<WebhookEndpoint> subscribers) {
+        if (subscribers.isEmpty()) {
+            return null;
+        }
+
+        // The full request body is serialized once here and sent as-is to every subscriber
+        String eventId = UUID.randomUUID().toString();
+        LocalDateTime occurredAt = LocalDateTime.now();
+        String body = serialize(new WebhookService.WebhookPayload(eventId, eventType, occurredAt, tenantId, payload));
+
+        WebhookEvent event = new WebhookEvent(eventId, tenantId, eventType, body);
+        event.setCreatedAt(occurredAt);
+        event = eventRepository.save(event);
+
+        List<WebhookDelivery> deliveries = new ArrayList<>(subscribers.size());
+        for (WebhookEndpoint endpoint : subscribers) {
+            deliveries.add(new WebhookDelivery(event.getId(), endpoint.getId(), tenantId));
+        }
+        deliveryRepository.saveAll(deliveries);
+
+        afterCommit(this::wakeUp);
+
+        log.debug("Queued webhook event {} ({}) for {} subscribers", event.getEventId(), eventType, deliveries.size());
+        return event;
+    }
+
+    //
+// Poll soon instead of waiting for the next scheduled run; repeated calls coalesce
+
+    public void wakeUp() {
+        if (wakeRequested.compareAndSet(false, true)) {
+            try {
+                wakeExecutor.execute(() -> {
+                    wakeRequested.set(false);
+                    poll();
+                });
+            } catch (Exception e) {
+                wakeRequested.set(false);
+            }
+        }
+    }
+
+    //
+// Claim due rows and hand them to the delivery engine, as many as it has room for
+
+    @Scheduled(fixedDelayString = "${app.webhook.outbox.poll-interval-ms:1000}")
+    public void poll() {
+        if (!pollLock.tryLock()) {
+            return; // Another poll on this node is already running
+        }
+        try {
+            while (true) {
+                int capacity = Math.min(batchSize, deliveryEngine.getRemainingCapacity());
+                if (capacity <= 0) {
+                    return; // Engine is saturated; rows stay PENDING in the database
+                }
+
+                List<ClaimedDelivery> claimed = transactionTemplate.execute(status -> claim(capacity));
+                if (claimed == null || claimed.isEmpty()) {
+                    return;
+                }
+
+                // One byte[] per event, shared by all of its deliveries in this batch
+                Map<Long, byte[]> bodies = new HashMap<>();
+                for (ClaimedDelivery delivery : claimed) {
+                    byte[] body = bodies.computeIfAbsent(delivery.event.getId(),
+                        id -> delivery.event.getPayload().getBytes(StandardCharsets.UTF_8));
+                    if (delivery.endpoint.isBatchEnabled()) {
+                        batchDispatcher.add(delivery.endpoint, delivery.deliveryId, delivery.event.getEventId(), body);
+                    } else {
+                        dispatch(delivery, body);
+                    }
+                }
+
+                if (claimed.size() < capacity) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Webhook outbox poll failed: {}", e.getMessage());
+        } finally {
+            pollLock.unlock();
+        }
+    }
+
+    private List<ClaimedDelivery> claim(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Long> ids = new ArrayList<>(deliveryRepository.lockDuePending(now, limit));
+        if (ids.size() < limit) {
+            ids.addAll(deliveryRepository.lockExpiredLeases(now, limit - ids.size()));
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        deliveryRepository.claim(ids, WebhookDeliveryStatus.IN_FLIGHT, now.plusSeconds(leaseSeconds), nodeId);
+
+        List<WebhookDelivery> rows = deliveryRepository.findAllById(ids);
+        Set<Long> eventIds = new HashSet<>();
+        Set<Long> webhookIds = new HashSet<>();
+        for (WebhookDelivery row : rows) {
+            eventIds.add(row.getWebhookEventId());
+            webhookIds.add(row.getWebhookId());
+        }
+        Map<Long, WebhookEvent> events = eventRepository.findAllById(eventIds).stream()
+            .collect(Collectors.toMap(WebhookEvent::getId, Function.identity()));
+        Map<Long, Webhook> webhooks = webhookRepository.findAllById(webhookIds).stream()
+            .collect(Collectors.toMap(Webhook::getId, Function.identity()));
+
+        List<ClaimedDelivery> claimed = new ArrayList<>(rows.size());
+        for (WebhookDelivery row : rows) {
+            WebhookEvent event = events.get(row.getWebhookEventId());
+            Webhook webhook = webhooks.get(row.getWebhookId());
+            long openMs = circuitBreaker.remainingOpenMs(row.getWebhookId());
+
+            if (event == null || webhook == null || !Boolean.TRUE.equals(webhook.getIsActive())) {
+                abandon(row, now, "Webhook or event no longer available");
+            } else if (row.getClaimCount() > maxClaims) {
+                abandon(row, now, "Abandoned after " + maxClaims + " claims");
+            } else if (openMs > 0) {
+                // Receiver is unhealthy: leave the row parked until its circuit may close
+                park(row, now.plus(Duration.ofMillis(openMs)));
+            } else {
+                claimed.add(new ClaimedDelivery(row.getId(), event, WebhookEndpoint.from(webhook)));
+            }
+        }
+        return claimed;
+    }
+
+    private void abandon(WebhookDelivery row, LocalDateTime now, String reason) {
+        row.setStatus(WebhookDeliveryStatus.FAILED);
+        row.setLastError(reason);
+        row.setCompletedAt(now);
+        row.setLeaseUntil(null);
+    }
+
+    private void park(WebhookDelivery row, LocalDateTime until) {
+        row.setStatus(WebhookDeliveryStatus.PENDING);
+        row.setNextAttemptAt(until);
+        row.setLeaseUntil(null);
+        row.setClaimedBy(null);
+        row.setClaimCount(row.getClaimCount() - 1);
+        row.setLastError("Parked: circuit open");
+    }
+
+    private void dispatch(ClaimedDelivery delivery, byte[] body) {
+        WebhookEvent event = delivery.event;
+        try {
+            // A dropped job is released back to PENDING through the listener
+            deliveryEngine.submit(new DeliveryJob(
+                delivery.endpoint,
+                delivery.deliveryId,
+                event.getEventId(),
+                event.getEventType(),
+                event.getCreatedAt(),
+                body,
+                outboxListener
+            ));
+        } catch (Exception e) {
+            log.error("Failed to dispatch webhook delivery {}: {}", delivery.deliveryId, e.getMessage());
+            deliveryRepository.complete(delivery.deliveryId, WebhookDeliveryStatus.FAILED,
+                null, truncate(e.getMessage()), LocalDateTime.now());
+        }
+    }
+
+    //
+// Re-send a webhook's events from a time range.
+// New outbox rows are spread out at replayRatePerSecond (next_attempt_at), so
+// catch-up traffic flows through the normal per-endpoint caps and breaker at
+// a pace the receiver can absorb. Events already pending for the webhook are
+// skipped, and with onlyFailed so are events it has already received.
+
+    public ReplayResult replay(Webhook webhook, LocalDateTime from, LocalDateTime to, boolean onlyFailed) {
+        WebhookEventFilter filter = WebhookEventFilter.compile(webhook.getEvents());
+        long intervalNanos = (long) (1_000_000_000L / replayRatePerSecond);
+        LocalDateTime start = LocalDateTime.now();
+
+        int[] counts = new int[2]; // {queued, skipped}
+        long afterId = 0L;
+
+        while (counts[0] < replayMaxEvents) {
+            List<WebhookEvent> page = eventRepository.findReplayPage(
+                webhook.getTenantId(), from, to, afterId, PageRequest.of(0, REPLAY_PAGE));
+            if (page.isEmpty()) {
+                break;
+            }
+            afterId = page.get(page.size() - 1).getId();
+
+            transactionTemplate.executeWithoutResult(status -> {
+                List<WebhookEvent> matching = page.stream()
+                    .filter(event -> filter.matches(event.getEventType()))
+                    .toList();
+                counts[1] += page.size() - matching.size();
+                if (matching.isEmpty()) {
+                    return;
+                }
+
+                Map<Long, List<WebhookDeliveryStatus>> existing = new HashMap<>();
+                for (WebhookDelivery row : deliveryRepository.findByWebhookIdAndWebhookEventIdIn(
+                        webhook.getId(), matching.stream().map(WebhookEvent::getId).toList())) {
+                    existing.computeIfAbsent(row.getWebhookEventId(), id -> new ArrayList<>()).add(row.getStatus());
+                }
+
+                List<WebhookDelivery> rows = new ArrayList<>();
+                for (WebhookEvent event : matching) {
+                    List<WebhookDeliveryStatus> statuses = existing.getOrDefault(event.getId(), List.of());
+                    boolean inProgress = statuses.contains(WebhookDeliveryStatus.PENDING)
+                        || statuses.contains(WebhookDeliveryStatus.IN_FLIGHT);
+                    boolean received = statuses.contains(WebhookDeliveryStatus.DELIVERED);
+
+                    if (inProgress || (onlyFailed && received) || counts[0] >= replayMaxEvents) {
+                        counts[1]++;
+                        continue;
+                    }
+
+                    WebhookDelivery row = new WebhookDelivery(event.getId(), webhook.getId(), webhook.getTenantId());
+                    row.setNextAttemptAt(start.plusNanos(intervalNanos * counts[0]));
+                    rows.add(row);
+                    counts[0]++;
+                }
+                deliveryRepository.saveAll(rows);
+            });
+        }
+
+        LocalDateTime finishesAt = start.plusNanos(intervalNanos * Math.max(counts[0] - 1, 0));
+        log.info("Replay for webhook {} queued {} events ({} skipped), paced until {}",
+            webhook.getId(), counts[0], counts[1], finishesAt);
+        return new ReplayResult(counts[0], counts[1], start, finishesAt);
+    }
+
+    //
+// Purge finished deliveries and old events in small chunks
+
+    @Scheduled(cron = "${app.webhook.outbox.purge-cron:0 15 * * * *}")
+    public void purge() {
+        LocalDateTime deliveryCutoff = LocalDateTime.now().minusDays(deliveryRetentionDays);
+        LocalDateTime eventCutoff = LocalDateTime.now().minusDays(eventRetentionDays);
+
+        long deliveries = purgeInChunks(limit -> deliveryRepository.deleteCompletedBefore(deliveryCutoff, limit));
+        long events = purgeInChunks(limit -> eventRepository.deleteExpired(eventCutoff, limit));
+
+        if (deliveries > 0 || events > 0) {
+            log.info("Purged {} webhook deliveries and {} webhook events", deliveries, events);
+        }
+    }
+
+    private long purgeInChunks(Function<Integer, Integer> deleteChunk) {
+        long total = 0;
+        while (true) {
+            Integer deleted = transactionTemplate.execute(status -> deleteChunk.apply(PURGE_CHUNK));
+            if (deleted == null || deleted == 0) {
+                return total;
+            }
+            total += deleted;
+            if (deleted < PURGE_CHUNK) {
+                return total;
+            }
+        }
+    }
+
+    //
+// Outbox backlog (rows waiting and rows currently claimed)
+
+    public OutboxStats getOutboxStats() {
+        return new OutboxStats(
+            deliveryRepository.countByStatus(WebhookDeliveryStatus.PENDING),
+            deliveryRepository.countByStatus(WebhookDeliveryStatus.IN_FLIGHT)
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        wakeExecutor.shutdownNow();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private String serialize(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Webhook payload is not serializable: " + e.getOriginalMessage());
+        }
+    }
+
+    private static String truncate(String value) {
+        return value != null && value.length() > 500 ? value.substring(0, 500) : value;
+    }
+
+    private static final class ClaimedDelivery {
+        private final Long deliveryId;
+        private final WebhookEvent event;
+        private final WebhookEndpoint endpoint;
+
+        private ClaimedDelivery(Long deliveryId, WebhookEvent event, WebhookEndpoint endpoint) {
+            this.deliveryId = deliveryId;
+            this.event = event;
+            this.endpoint = endpoint;
+        }
+    }
+
+    public static class ReplayResult {
+        private final int queued;
+        private final int skipped;
+        private final LocalDateTime startsAt;
+        private final LocalDateTime finishesAt;
+
+        public ReplayResult(int queued, int skipped, LocalDateTime startsAt, LocalDateTime finishesAt) {
+            this.queued = queued;
+            this.skipped = skipped;
+            this.startsAt = startsAt;
+            this.finishesAt = finishesAt;
+        }
+
+        public int getQueued() { return queued; }
+        public int getSkipped() { return skipped; }
+        public LocalDateTime getStartsAt() { return startsAt; }
+        public LocalDateTime getFinishesAt() { return finishesAt; }
+    }
+
+    public static class OutboxStats {
+        private final long pending;
+        private final long inFlight;
+
+        public OutboxStats(long pending, long inFlight) {
+            this.pending = pending;
+            this.inFlight = inFlight;
+        }
+
+        public long getPending() { return pending; }
+        public long getInFlight() { return inFlight; }
+    }
+}
@@ -0,0 +1,180 @@
+package com.saas.platform.service;
+
+import com.saas.platform.model.Webhook;
+import com.saas.platform.repository.WebhookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//
+// WebhookRoutingIndex - In-memory tenant -> event type -> subscribers index
+// Built once per tenant from the active webhooks' parsed event filters, so
+// routing an event is a map lookup with no database access. Webhook
+// create/update/delete invalidate the tenant; a TTL bounds staleness for
+// changes made on other nodes.
+
+@Component
+public class WebhookRoutingIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookRoutingIndex.class);
+    private static final int MAX_RESOLVED_EVENT_TYPES = 1000;
+
+    private final WebhookRepository webhookRepository;
+    private final Map<Long, TenantRoutes> tenants = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final long ttlNanos;
+
+    public WebhookRoutingIndex(WebhookRepository webhookRepository,
+                               @Value("${app.webhook.routing.ttl-seconds:300}") long ttlSeconds) {
+        this.webhookRepository = webhookRepository;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    //
+// Active webhooks of a tenant subscribed to an event type
+
+    public List<WebhookEndpoint> route(Long tenantId, String eventType) {
+        return routesFor(tenantId).resolve(eventType);
+    }
+
+    //
+// Drop a tenant's routes now and again once the surrounding transaction completes
+
+    public void invalidate(Long tenantId) {
+        if (tenantId == null) {
+            return;
+        }
+        evict(tenantId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(tenantId);
+                }
+            });
+        }
+    }
+
+    public int size() {
+        return tenants.size();
+    }
+
+    private TenantRoutes routesFor(Long tenantId) {
+        long now = System.nanoTime();
+        TenantRoutes routes = tenants.get(tenantId);
+        if (routes != null && routes.expiresAt - now > 0) {
+            return routes;
+        }
+
+        long generation = invalidations.get();
+        TenantRoutes loaded = TenantRoutes.build(
+            webhookRepository.findByTenantIdAndIsActiveTrue(tenantId), now + ttlNanos);
+
+        // Don't install routes that may have been read before a concurrent invalidation
+        if (generation == invalidations.get()) {
+            tenants.put(tenantId, loaded);
+        }
+        return loaded;
+    }
+
+    private void evict(Long tenantId) {
+        invalidations.incrementAndGet();
+        tenants.remove(tenantId);
+        log.debug("Webhook routes invalidated for tenant {}", tenantId);
+    }
+
+    private static final class TenantRoutes {
+        private final Map<String, List<WebhookEndpoint>> exact;
+        private final List<PrefixRoute> prefixes;
+        private final List<WebhookEndpoint> catchAll;
+        private final long expiresAt;
+
+        // Resolved subscriber lists per event type, filled on first use
+        private final Map<String, List<WebhookEndpoint>> resolved = new ConcurrentHashMap<>();
+
+        private TenantRoutes(Map<String, List<WebhookEndpoint>> exact, List<PrefixRoute> prefixes,
+                             List<WebhookEndpoint> catchAll, long expiresAt) {
+            this.exact = exact;
+            this.prefixes = prefixes;
+            this.catchAll = catchAll;
+            this.expiresAt = expiresAt;
+        }
+
+        private static TenantRoutes build(List<Webhook> webhooks, long expiresAt) {
+            Map<String, List<WebhookEndpoint>> exact = new HashMap<>();
+            List<PrefixRoute> prefixes = new ArrayList<>();
+            List<WebhookEndpoint> catchAll = new ArrayList<>();
+
+            for (Webhook webhook : webhooks) {
+                WebhookEndpoint endpoint = WebhookEndpoint.from(webhook);
+                WebhookEventFilter filter = WebhookEventFilter.compile(webhook.getEvents());
+
+                if (filter.isMatchAll()) {
+                    catchAll.add(endpoint);
+                    continue;
+                }
+                for (String event : filter.getExactEvents()) {
+                    exact.computeIfAbsent(event, e -> new ArrayList<>()).add(endpoint);
+                }
+                for (String prefix : filter.getPrefixes()) {
+                    prefixes.add(new PrefixRoute(prefix, endpoint));
+                }
+            }
+            return new TenantRoutes(exact, prefixes, catchAll, expiresAt);
+        }
+
+        private List<WebhookEndpoint> resolve(String eventType) {
+            if (eventType == null) {
+                return List.of();
+            }
+            List<WebhookEndpoint> cached = resolved.get(eventType);
+            if (cached != null) {
+                return cached;
+            }
+
+            // A webhook may match through several patterns; deliver to it once
+            Map<Long, WebhookEndpoint> matches = new LinkedHashMap<>();
+            for (WebhookEndpoint endpoint : exact.getOrDefault(eventType, List.of())) {
+                matches.putIfAbsent(endpoint.getId(), endpoint);
+            }
+            for (PrefixRoute route : prefixes) {
+                if (eventType.startsWith(route.prefix)) {
+                    matches.putIfAbsent(route.endpoint.getId(), route.endpoint);
+                }
+            }
+            for (WebhookEndpoint endpoint : catchAll) {
+                matches.putIfAbsent(endpoint.getId(), endpoint);
+            }
+
+            List<WebhookEndpoint> result = Collections.unmodifiableList(new ArrayList<>(matches.values()));
+            if (resolved.size() < MAX_RESOLVED_EVENT_TYPES) {
+                resolved.put(eventType, result);
+            }
+            return result;
+        }
+    }
+
+    private static final class PrefixRoute {
+        private final String prefix;
+        private final WebhookEndpoint endpoint;
+
+        private PrefixRoute(String prefix, WebhookEndpoint endpoint) {
+            this.prefix = prefix;
+            this.endpoint = endpoint;
+        }
+    }
+}
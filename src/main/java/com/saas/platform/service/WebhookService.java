@@ -1,18 +1,30 @@
 package com.saas.platform.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.saas.platform.model.Notification;
+import com.saas.platform.model.NotificationType;
 import com.saas.platform.model.Webhook;
+import com.saas.platform.model.WebhookDeliveryAttempt;
+import com.saas.platform.repository.NotificationRepository;
+import com.saas.platform.repository.UserRepository;
+import com.saas.platform.repository.WebhookDeliveryAttemptRepository;
 import com.saas.platform.repository.WebhookRepository;
 
 
+import com.saas.platform.service.WebhookDeliveryEngine.DeliveryJob;
+import com.saas.platform.service.WebhookDeliveryEngine.DeliveryListener;
+import com.saas.platform.service.WebhookDeliveryEngine.DeliveryResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
@@ -22,27 +34,72 @@ import java.util.UUID;
 
 //
 // WebhookService - FIXED
-// Fixed: RestTemplate now injected via constructor instead of new instance
+// Deliveries run on WebhookDeliveryEngine (bounded workers, delayed retries)
  
 @Service
 public class WebhookService {
     
     private static final Logger log = LoggerFactory.getLogger(WebhookService.class);
-    private static final String SIGNATURE_HEADER = "X-Webhook-Signature";
+    private static final long SIGNATURE_TOLERANCE_SECONDS = 300;
+    private static final int MAX_BATCH_WAIT_MS = 60000;
     
     private final WebhookRepository webhookRepository;
     private final ActivityLogService activityLogService;
-    private final RestTemplate restTemplate;
+    private final WebhookDeliveryEngine deliveryEngine;
+    private final WebhookHttpSender httpSender;
+    private final WebhookOutboxService outboxService;
+    private final WebhookRoutingIndex routingIndex;
+    private final ObjectMapper objectMapper;
+    private final WebhookCircuitBreaker circuitBreaker;
+    private final WebhookAttemptLog attemptLog;
+    private final WebhookDeliveryAttemptRepository attemptRepository;
+    private final UserRepository userRepository;
+    private final NotificationRepository notificationRepository;
+    private final long disableAfterMs;
+    private final int batchMaxItemsLimit;
+    
+    // Keeps the success/failure counters on the webhook row up to date
+    private final DeliveryListener statsListener = new DeliveryListener() {
+        @Override
+        public void onDelivered(DeliveryJob job, DeliveryResult result) {
+            webhookRepository.recordSuccess(job.getEndpoint().getId(), LocalDateTime.now());
+        }
+        
+        @Override
+        public void onFailed(DeliveryJob job, DeliveryResult result) {
+            webhookRepository.recordFailure(job.getEndpoint().getId(), LocalDateTime.now());
+        }
+    };
     
-    //
-// ✅ FIXED: RestTemplate injected via constructor
-     
     public WebhookService(WebhookRepository webhookRepository,
                          ActivityLogService activityLogService,
-                         RestTemplate restTemplate) {
+                         WebhookDeliveryEngine deliveryEngine,
+                         WebhookHttpSender httpSender,
+                         WebhookOutboxService outboxService,
+                         WebhookRoutingIndex routingIndex,
+                         ObjectMapper objectMapper,
+                         WebhookCircuitBreaker circuitBreaker,
+                         WebhookAttemptLog attemptLog,
+                         WebhookDeliveryAttemptRepository attemptRepository,
+                         UserRepository userRepository,
+                         NotificationRepository notificationRepository,
+                         @Value("${app.webhook.circuit.disable-after-minutes:1440}") long disableAfterMinutes,
+                         @Value("${app.webhook.batch.max-items-limit:500}") int batchMaxItemsLimit) {
         this.webhookRepository = webhookRepository;
         this.activityLogService = activityLogService;
-        this.restTemplate = restTemplate;
+        this.deliveryEngine = deliveryEngine;
+        this.httpSender = httpSender;
+        this.outboxService = outboxService;
+        this.routingIndex = routingIndex;
+        this.objectMapper = objectMapper;
+        this.circuitBreaker = circuitBreaker;
+        this.attemptLog = attemptLog;
+        this.attemptRepository = attemptRepository;
+        this.userRepository = userRepository;
+        this.notificationRepository = notificationRepository;
+        this.disableAfterMs = disableAfterMinutes * 60_000L;
+        // Same limit the batch dispatcher applies when it assembles a batch
+        this.batchMaxItemsLimit = Math.max(1, batchMaxItemsLimit);
     }
     
     //
@@ -51,15 +108,29 @@ public class WebhookService {
     @Transactional
     public Webhook createWebhook(Long tenantId, String name, String url, 
                                  String events, Long userId) {
+        return createWebhook(tenantId, name, url, events, userId, null, null, null);
+    }
+    
+    //
+// Create a new webhook with its batching settings (null leaves the default)
+     
+    @Transactional
+    public Webhook createWebhook(Long tenantId, String name, String url, String events, Long userId,
+                                 Boolean batchEnabled, Integer batchMaxItems, Integer batchMaxWaitMs) {
         log.info("Creating webhook '{}' for tenant ID: {}", name, tenantId);
         
+        WebhookEventFilter.validate(events);
+        validateBatching(batchMaxItems, batchMaxWaitMs);
+        
         // Generate secret key for signature verification
         String secretKey = generateSecretKey();
         
         Webhook webhook = new Webhook(tenantId, name, url, events);
         webhook.setSecretKey(secretKey);
+        applyBatching(webhook, batchEnabled, batchMaxItems, batchMaxWaitMs);
         
         Webhook saved = webhookRepository.save(webhook);
+        routingIndex.invalidate(tenantId);
         
         // Log activity
         activityLogService.logActivity(
@@ -105,22 +176,54 @@ public class WebhookService {
     @Transactional
     public Webhook updateWebhook(Long webhookId, String name, String url, 
                                  String events, Boolean isActive) {
+        return updateWebhook(webhookId, name, url, events, isActive, null, null, null);
+    }
+    
+    //
+// Update webhook and its batching settings (null arguments leave the current value)
+     
+    @Transactional
+    public Webhook updateWebhook(Long webhookId, String name, String url, String events, Boolean isActive,
+                                 Boolean batchEnabled, Integer batchMaxItems, Integer batchMaxWaitMs) {
         log.info("Updating webhook ID: {}", webhookId);
         
         Webhook webhook = getWebhookById(webhookId);
         
+        if (events != null) WebhookEventFilter.validate(events);
+        validateBatching(batchMaxItems, batchMaxWaitMs);
         if (name != null) webhook.setName(name);
         if (url != null) webhook.setUrl(url);
         if (events != null) webhook.setEvents(events);
         if (isActive != null) webhook.setIsActive(isActive);
+        applyBatching(webhook, batchEnabled, batchMaxItems, batchMaxWaitMs);
         
         Webhook updated = webhookRepository.save(webhook);
+        routingIndex.invalidate(webhook.getTenantId());
+        if (url != null || Boolean.TRUE.equals(isActive)) {
+            // New target or re-enabled: start from a clean circuit
+            circuitBreaker.reset(webhookId);
+        }
         
         log.info("Webhook updated successfully");
         
         return updated;
     }
     
+    private void validateBatching(Integer maxItems, Integer maxWaitMs) {
+        if (maxItems != null && (maxItems < 1 || maxItems > batchMaxItemsLimit)) {
+            throw new IllegalArgumentException("Batch size must be between 1 and " + batchMaxItemsLimit);
+        }
+        if (maxWaitMs != null && (maxWaitMs < 0 || maxWaitMs > MAX_BATCH_WAIT_MS)) {
+            throw new IllegalArgumentException("Batch wait must be between 0 and " + MAX_BATCH_WAIT_MS + " ms");
+        }
+    }
+    
+    private void applyBatching(Webhook webhook, Boolean enabled, Integer maxItems, Integer maxWaitMs) {
+        if (enabled != null) webhook.setBatchEnabled(enabled);
+        if (maxItems != null) webhook.setBatchMaxItems(maxItems);
+        if (maxWaitMs != null) webhook.setBatchMaxWaitMs(maxWaitMs);
+    }
+    
     //
 // Delete webhook
      
@@ -130,118 +233,65 @@ public class WebhookService {
         
         Webhook webhook = getWebhookById(webhookId);
         webhookRepository.delete(webhook);
+        routingIndex.invalidate(webhook.getTenantId());
+        deliveryEngine.forget(webhookId);
+        circuitBreaker.reset(webhookId);
         
         log.info("Webhook deleted successfully");
     }
     
     //
 // Trigger webhook for an event
+// Joins the caller's transaction: the event is stored in the outbox together with
+// the business change and delivered after commit
      
     @Transactional
     public void triggerWebhook(Long tenantId, String eventType, Object payload) {
         log.info("Triggering webhooks for tenant {} with event: {}", tenantId, eventType);
         
-        List<Webhook> webhooks = getActiveWebhooks(tenantId);
-        
-        for (Webhook webhook : webhooks) {
-            if (webhook.supportsEvent(eventType)) {
-                sendWebhookAsync(webhook, eventType, payload);
-            }
+        // Routed from memory; the database is only touched if someone subscribes
+        List<WebhookEndpoint> subscribers = routingIndex.route(tenantId, eventType);
+        if (subscribers.isEmpty()) {
+            return;
         }
+        
+        outboxService.enqueue(tenantId, eventType, payload, subscribers);
     }
     
     //
-// Send webhook notification asynchronously
-     
-    private void sendWebhookAsync(Webhook webhook, String eventType, Object payload) {
-        new Thread(() -> {
-            try {
-                sendWebhook(webhook, eventType, payload);
-            } catch (Exception e) {
-                log.error("Failed to send webhook: {}", e.getMessage());
-            }
-        }).start();
-    }
-    
-    //
-// Send webhook HTTP request
+// Send a single webhook attempt synchronously (no retries)
      
-    @Transactional
-    public void sendWebhook(Webhook webhook, String eventType, Object payload) {
+    public boolean sendWebhook(Webhook webhook, String eventType, Object payload) {
         log.info("Sending webhook to URL: {}", webhook.getUrl());
         
+        String eventId = UUID.randomUUID().toString();
+        LocalDateTime occurredAt = LocalDateTime.now();
+        byte[] body;
         try {
-            // Prepare payload
-            WebhookPayload webhookPayload = new WebhookPayload(
-                UUID.randomUUID().toString(),
-                eventType,
-                LocalDateTime.now(),
-                webhook.getTenantId(),
-                payload
-            );
-            
-            // Generate signature
-            String signature = generateSignature(webhookPayload.toString(), webhook.getSecretKey());
-            
-            // Prepare HTTP request
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set(SIGNATURE_HEADER, signature);
-            headers.set("X-Webhook-Event", eventType);
-            headers.set("X-Webhook-ID", webhook.getId().toString());
-            
-            HttpEntity<WebhookPayload> request = new HttpEntity<>(webhookPayload, headers);
-            
-            // Send request with timeout
-            ResponseEntity<String> response = restTemplate.exchange(
-                webhook.getUrl(),
-                HttpMethod.POST,
-                request,
-                String.class
-            );
-            
-            // Check response
-            if (response.getStatusCode().is2xxSuccessful()) {
-                webhook.recordSuccess();
-                webhookRepository.save(webhook);
-                log.info("Webhook sent successfully to: {}", webhook.getUrl());
-            } else {
-                throw new RuntimeException("Webhook returned status: " + response.getStatusCode());
-            }
-            
-        } catch (Exception e) {
-            log.error("Failed to send webhook to {}: {}", webhook.getUrl(), e.getMessage());
-            webhook.recordFailure();
-            webhookRepository.save(webhook);
-            
-            // Retry logic
-            if (webhook.getRetryCount() > 0) {
-                retryWebhook(webhook, eventType, payload);
-            }
+            body = objectMapper.writeValueAsBytes(
+                new WebhookPayload(eventId, eventType, occurredAt, webhook.getTenantId(), payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Webhook payload is not serializable: " + e.getOriginalMessage());
         }
-    }
-    
-    //
-// Retry failed webhook with exponential backoff
-     
-    private void retryWebhook(Webhook webhook, String eventType, Object payload) {
-        Integer retriesLeft = webhook.getRetryCount();
-        
-        if (retriesLeft > 0) {
-            new Thread(() -> {
-                try {
-                    // Exponential backoff: 2^retry seconds
-                    int delay = (int) Math.pow(2, 3 - retriesLeft) * 1000;
-                    Thread.sleep(delay);
-                    
-                    webhook.setRetryCount(retriesLeft - 1);
-                    sendWebhook(webhook, eventType, payload);
-                    
-                } catch (InterruptedException e) {
-                    log.error("Webhook retry interrupted: {}", e.getMessage());
-                }
-            }).start();
+        
+        DeliveryJob job = new DeliveryJob(WebhookEndpoint.from(webhook), eventId,
+            eventType, occurredAt, body, statsListener);
+        long start = System.nanoTime();
+        DeliveryResult result = httpSender.send(job).join();
+        if (result.isRejectedLocally()) {
+            log.warn("Webhook to {} not sent: {}", webhook.getUrl(), result.getError());
+            return false;
+        }
+        attemptLog.record(job, result.withLatency((System.nanoTime() - start) / 1_000_000L));
+        
+        if (result.isSuccess()) {
+            statsListener.onDelivered(job, result);
+            log.info("Webhook sent successfully to: {}", webhook.getUrl());
+        } else {
+            statsListener.onFailed(job, result);
+            log.error("Failed to send webhook to {}: {}", webhook.getUrl(), result.describe());
         }
+        return result.isSuccess();
     }
     
     //
@@ -253,33 +303,13 @@ public class WebhookService {
         random.nextBytes(bytes);
         return "whsec_" + Base64.getEncoder().encodeToString(bytes).replace("=", "");
     }
-    //
-// Generate HMAC signature for webhook payload
-     
-    private String generateSignature(String payload, String secretKey) {
-        try {
-            Mac hmac = Mac.getInstance("HmacSHA256");
-            SecretKeySpec secretKeySpec = new SecretKeySpec(
-                secretKey.getBytes(StandardCharsets.UTF_8), 
-                "HmacSHA256"
-            );
-            hmac.init(secretKeySpec);
-            
-            byte[] hash = hmac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(hash);
-            
-        } catch (Exception e) {
-            log.error("Failed to generate signature: {}", e.getMessage());
-            return "";
-        }
-    }
     
     //
-// Verify webhook signature
+// Verify a "t=...,v1=..." signature header against the raw request body
      
     public boolean verifySignature(String payload, String signature, String secretKey) {
-        String expectedSignature = generateSignature(payload, secretKey);
-        return expectedSignature.equals(signature);
+        return WebhookSigner.verify(signature, payload.getBytes(StandardCharsets.UTF_8),
+            secretKey, SIGNATURE_TOLERANCE_SECONDS);
     }
     
     //
@@ -291,8 +321,7 @@ public class WebhookService {
         Webhook webhook = getWebhookById(webhookId);
         
         try {
-            sendWebhook(webhook, "webhook.test", new TestPayload("Webhook test successful"));
-            return true;
+            return sendWebhook(webhook, "webhook.test", new TestPayload("Webhook test successful"));
         } catch (Exception e) {
             log.error("Webhook test failed: {}", e.getMessage());
             return false;
@@ -300,7 +329,98 @@ public class WebhookService {
     }
     
     //
-// Get webhook statistics
+// Delivery attempts of a webhook in a time range, newest first
+     
+    public Page<WebhookDeliveryAttempt> getDeliveryAttempts(Long webhookId, LocalDateTime from, LocalDateTime to,
+                                                            Boolean success, int page, int size) {
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 200),
+            Sort.by("attemptedAt").descending());
+        return success != null
+            ? attemptRepository.findByWebhookIdAndSuccessAndAttemptedAtBetween(webhookId, success, from, to, pageRequest)
+            : attemptRepository.findByWebhookIdAndAttemptedAtBetween(webhookId, from, to, pageRequest);
+    }
+    
+    //
+// Re-send a webhook's events from a time range, paced for the receiver
+     
+    public WebhookOutboxService.ReplayResult replayEvents(Long webhookId, LocalDateTime from, LocalDateTime to,
+                                                          boolean onlyFailed) {
+        Webhook webhook = getWebhookById(webhookId);
+        
+        if (!Boolean.TRUE.equals(webhook.getIsActive())) {
+            throw new IllegalStateException("Webhook must be active to replay events");
+        }
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("Replay range must have 'from' before 'to'");
+        }
+        
+        // Events from before the webhook existed were never meant for it
+        LocalDateTime effectiveFrom = webhook.getCreatedAt() != null && webhook.getCreatedAt().isAfter(from)
+            ? webhook.getCreatedAt() : from;
+        
+        log.info("Replaying events {} - {} for webhook {} (onlyFailed={})", effectiveFrom, to, webhookId, onlyFailed);
+        return outboxService.replay(webhook, effectiveFrom, to, onlyFailed);
+    }
+    
+    //
+// Delivery engine metrics (queue depth, attempts, latency, drops)
+     
+    public WebhookDeliveryEngine.DeliveryMetrics getDeliveryMetrics() {
+        return deliveryEngine.getMetrics();
+    }
+    
+    //
+// Outbox backlog (pending and claimed deliveries)
+     
+    public WebhookOutboxService.OutboxStats getOutboxStats() {
+        return outboxService.getOutboxStats();
+    }
+    
+    //
+// Disable webhooks whose circuit has stayed open for too long and tell the tenant admins
+     
+    @Scheduled(fixedDelayString = "${app.webhook.circuit.health-check-interval-ms:60000}")
+    public void disableUnhealthyWebhooks() {
+        for (Long webhookId : circuitBreaker.getUnhealthyFor(disableAfterMs)) {
+            try {
+                webhookRepository.findById(webhookId).ifPresentOrElse(
+                    this::disableUnhealthyWebhook,
+                    () -> circuitBreaker.reset(webhookId));
+            } catch (Exception e) {
+                log.error("Failed to disable unhealthy webhook {}: {}", webhookId, e.getMessage());
+            }
+        }
+    }
+    
+    private void disableUnhealthyWebhook(Webhook webhook) {
+        WebhookCircuitBreaker.CircuitHealth health = circuitBreaker.getHealth(webhook.getId());
+        
+        if (Boolean.TRUE.equals(webhook.getIsActive())) {
+            webhook.setIsActive(false);
+            webhookRepository.save(webhook);
+            routingIndex.invalidate(webhook.getTenantId());
+            deliveryEngine.forget(webhook.getId());
+            
+            log.warn("Webhook {} disabled after being unhealthy since {}", webhook.getId(), health.getUnhealthySince());
+            
+            String message = "Webhook '" + webhook.getName() + "' (" + webhook.getUrl() + ") has been failing since "
+                + health.getUnhealthySince() + " and was disabled. Fix the receiver and re-enable it to resume deliveries.";
+            List<Notification> notifications = userRepository.findByTenantId(webhook.getTenantId()).stream()
+                .filter(user -> Boolean.TRUE.equals(user.getActive()) && user.getRole().canManageWebhooks())
+                .map(user -> {
+                    Notification notification = new Notification(webhook.getTenantId(), user.getId(),
+                        "Webhook disabled", message, NotificationType.ALERT);
+                    notification.setPriority("HIGH");
+                    return notification;
+                })
+                .toList();
+            notificationRepository.saveAll(notifications);
+        }
+        circuitBreaker.reset(webhook.getId());
+    }
+    
+    //
+// Get webhook statistics (lifetime counters plus rolling circuit health)
      
     public WebhookStats getWebhookStats(Long webhookId) {
         Webhook webhook = getWebhookById(webhookId);
@@ -311,7 +431,8 @@ public class WebhookService {
             webhook.getSuccessCount(),
             webhook.getFailureCount(),
             webhook.getLastTriggeredAt(),
-            webhook.getIsActive()
+            webhook.getIsActive(),
+            circuitBreaker.getHealth(webhookId)
         );
     }
     
@@ -339,12 +460,6 @@ public class WebhookService {
         public LocalDateTime getTimestamp() { return timestamp; }
         public Long getTenantId() { return tenantId; }
         public Object getData() { return data; }
-        
-        @Override
-        public String toString() {
-            return String.format("{\"id\":\"%s\",\"event\":\"%s\",\"timestamp\":\"%s\",\"tenantId\":%d}", 
-                id, event, timestamp, tenantId);
-        }
     }
     
     public static class TestPayload {
@@ -364,16 +479,18 @@ public class WebhookService {
         private Long failureCount;
         private LocalDateTime lastTriggered;
         private Boolean isActive;
+        private WebhookCircuitBreaker.CircuitHealth health;
         
         public WebhookStats(Long id, String name, Long successCount, 
                           Long failureCount, LocalDateTime lastTriggered, 
-                          Boolean isActive) {
+                          Boolean isActive, WebhookCircuitBreaker.CircuitHealth health) {
             this.id = id;
             this.name = name;
             this.successCount = successCount;
             this.failureCount = failureCount;
             this.lastTriggered = lastTriggered;
             this.isActive = isActive;
+            this.health = health;
         }
         
         // Getters
@@ -383,6 +500,7 @@ public class WebhookService {
         public Long getFailureCount() { return failureCount; }
         public LocalDateTime getLastTriggered() { return lastTriggered; }
         public Boolean getIsActive() { return isActive; }
+        public WebhookCircuitBreaker.CircuitHealth getHealth() { return health; }
         public Double getSuccessRate() {
             long total = successCount + failureCount;
             return total > 0 ? (successCount * 100.0) / total : 0.0;
@@ -0,0 +1,65 @@
+package com.saas.platform.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ApiKeyPolicyTest {
+
+    @Test
+    void eachScopeIsItsOwnBit() {
+        ApiKeyPolicy policy = ApiKeyPolicy.compile("read", null);
+
+        assertThat(policy.getScopeMask()).isEqualTo(ApiKeyScope.READ.bit());
+        assertThat(policy.allows(ApiKeyScope.READ)).isTrue();
+        assertThat(policy.allows(ApiKeyScope.WRITE)).isFalse();
+        assertThat(policy.allows(ApiKeyScope.ADMIN)).isFalse();
+    }
+
+    @Test
+    void scopeNamesAreTrimmedAndCaseInsensitive() {
+        ApiKeyPolicy policy = ApiKeyPolicy.compile(" Read , WRITE,,", null);
+
+        assertThat(policy.allows(ApiKeyScope.READ)).isTrue();
+        assertThat(policy.allows(ApiKeyScope.WRITE)).isTrue();
+        assertThat(policy.getScopeNames()).containsExactly("read", "write");
+    }
+
+    @Test
+    void adminImpliesEveryScope() {
+        ApiKeyPolicy policy = ApiKeyPolicy.compile("admin", null);
+
+        for (ApiKeyScope scope : ApiKeyScope.values()) {
+            assertThat(policy.allows(scope)).isTrue();
+        }
+        assertThat(policy.getScopeNames()).containsExactly("read", "write", "admin");
+    }
+
+    @Test
+    void noScopesAllowNothing() {
+        ApiKeyPolicy policy = ApiKeyPolicy.compile(null, null);
+
+        assertThat(policy.getScopeMask()).isZero();
+        assertThat(policy.getScopeNames()).isEmpty();
+    }
+
+    @Test
+    void unknownScopeIsRejected() {
+        assertThatThrownBy(() -> ApiKeyPolicy.compile("read,delete", null))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("delete");
+    }
+
+    @Test
+    void ipRestrictionOnlyWhenAddressesAreGiven() {
+        ApiKeyPolicy open = ApiKeyPolicy.compile("read", "");
+        ApiKeyPolicy restricted = ApiKeyPolicy.compile("read", "192.168.0.0/16");
+
+        assertThat(open.hasIpRestriction()).isFalse();
+        assertThat(open.allowsIp("8.8.8.8")).isTrue();
+        assertThat(restricted.hasIpRestriction()).isTrue();
+        assertThat(restricted.allowsIp("192.168.4.2")).isTrue();
+        assertThat(restricted.allowsIp("8.8.8.8")).isFalse();
+    }
+}
@@ -0,0 +1,90 @@
+package com.saas.platform.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CidrTrieTest {
+
+    @Test
+    void emptySpecMeansNoRestriction() {
+        assertThat(CidrTrie.compile(null)).isNull();
+        assertThat(CidrTrie.compile("  ")).isNull();
+        assertThat(CidrTrie.compile(" , ,")).isNull();
+    }
+
+    @Test
+    void matchesIpv4RangesAndSingleAddresses() {
+        CidrTrie trie = CidrTrie.compile("10.0.0.0/8, 192.168.1.7");
+
+        assertThat(trie.contains("10.0.0.1")).isTrue();
+        assertThat(trie.contains("10.255.255.255")).isTrue();
+        assertThat(trie.contains("11.0.0.1")).isFalse();
+        assertThat(trie.contains("192.168.1.7")).isTrue();
+        assertThat(trie.contains("192.168.1.8")).isFalse();
+    }
+
+    @Test
+    void rangeBoundariesAreExact() {
+        CidrTrie trie = CidrTrie.compile("172.16.0.0/12");
+
+        assertThat(trie.contains("172.16.0.0")).isTrue();
+        assertThat(trie.contains("172.31.255.255")).isTrue();
+        assertThat(trie.contains("172.15.255.255")).isFalse();
+        assertThat(trie.contains("172.32.0.0")).isFalse();
+    }
+
+    @Test
+    void zeroPrefixCoversEveryAddressOfItsFamily() {
+        CidrTrie trie = CidrTrie.compile("0.0.0.0/0");
+
+        assertThat(trie.contains("1.2.3.4")).isTrue();
+        assertThat(trie.contains("255.255.255.255")).isTrue();
+        assertThat(trie.contains("2001:db8::1")).isFalse();
+    }
+
+    @Test
+    void widerRangeAddedAfterNarrowerOneWins() {
+        CidrTrie trie = CidrTrie.compile("10.1.2.0/24, 10.0.0.0/8");
+
+        assertThat(trie.contains("10.1.2.3")).isTrue();
+        assertThat(trie.contains("10.200.0.1")).isTrue();
+    }
+
+    @Test
+    void matchesIpv6Ranges() {
+        CidrTrie trie = CidrTrie.compile("2001:db8::/32, ::1");
+
+        assertThat(trie.contains("2001:db8:0:1::42")).isTrue();
+        assertThat(trie.contains("2001:db9::1")).isFalse();
+        assertThat(trie.contains("::1")).isTrue();
+        assertThat(trie.contains("10.0.0.1")).isFalse();
+    }
+
+    @Test
+    void ipv4MappedIpv6AddressMatchesIpv4Range() {
+        CidrTrie trie = CidrTrie.compile("10.0.0.0/8");
+
+        assertThat(trie.contains("::ffff:10.1.2.3")).isTrue();
+    }
+
+    @Test
+    void malformedAddressesNeverMatch() {
+        CidrTrie trie = CidrTrie.compile("0.0.0.0/0");
+
+        assertThat(trie.contains("localhost")).isFalse();
+        assertThat(trie.contains("10.0.0")).isFalse();
+        assertThat(trie.contains("")).isFalse();
+        assertThat(trie.contains((String) null)).isFalse();
+    }
+
+    @Test
+    void rejectsInvalidEntries() {
+        assertThatThrownBy(() -> CidrTrie.compile("10.0.0.0/33")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CidrTrie.compile("10.0.0.0/x")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CidrTrie.compile("10.0.0.0/-1")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CidrTrie.compile("example.com")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CidrTrie.compile("2001:db8::/129")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,138 @@
+package com.saas.platform.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentDefinedChunkerTest {
+
+    private static final int AVG = 8192;
+
+    private final ContentDefinedChunker chunker = new ContentDefinedChunker(AVG);
+
+    @Test
+    void chunksReassembleToTheInputWithinSizeBounds() throws IOException {
+        byte[] data = random(2 * 1024 * 1024, 1);
+
+        List<byte[]> chunks = split(new ByteArrayInputStream(data));
+
+        ByteArrayOutputStream joined = new ByteArrayOutputStream();
+        chunks.forEach(joined::writeBytes);
+        assertThat(joined.toByteArray()).isEqualTo(data);
+
+        for (int i = 0; i < chunks.size() - 1; i++) {
+            assertThat(chunks.get(i).length).isBetween(AVG / 4, AVG * 4);
+        }
+        // Normalized chunking keeps the average near the target
+        assertThat(data.length / chunks.size()).isBetween(AVG / 2, AVG * 2);
+    }
+
+    @Test
+    void boundariesDoNotDependOnHowTheStreamIsRead() throws IOException {
+        byte[] data = random(512 * 1024, 2);
+
+        List<String> whole = digests(split(new ByteArrayInputStream(data)));
+        List<String> trickled = digests(split(new ShortReads(new ByteArrayInputStream(data), 3)));
+
+        assertThat(trickled).isEqualTo(whole);
+    }
+
+    @Test
+    void insertInTheMiddleOnlyChangesNearbyChunks() throws IOException {
+        byte[] original = random(4 * 1024 * 1024, 3);
+        byte[] inserted = random(100, 4);
+        int at = original.length / 2;
+
+        byte[] edited = new byte[original.length + inserted.length];
+        System.arraycopy(original, 0, edited, 0, at);
+        System.arraycopy(inserted, 0, edited, at, inserted.length);
+        System.arraycopy(original, at, edited, at + inserted.length, original.length - at);
+
+        List<String> before = digests(split(new ByteArrayInputStream(original)));
+        List<String> after = digests(split(new ByteArrayInputStream(edited)));
+
+        Set<String> stored = new HashSet<>(before);
+        long reused = after.stream().filter(stored::contains).count();
+
+        // The edited chunk and at most the one after it are new
+        assertThat(after.size() - reused).isBetween(1L, 2L);
+        assertThat(reused).isGreaterThanOrEqualTo(before.size() - 2L);
+    }
+
+    @Test
+    void overwriteNearTheStartLeavesTheRestIntact() throws IOException {
+        byte[] original = random(1024 * 1024, 5);
+        byte[] edited = original.clone();
+        for (int i = 100; i < 140; i++) {
+            edited[i] ^= 0x5a;
+        }
+
+        List<String> before = digests(split(new ByteArrayInputStream(original)));
+        List<String> after = digests(split(new ByteArrayInputStream(edited)));
+
+        assertThat(after.subList(2, after.size())).isEqualTo(before.subList(2, before.size()));
+    }
+
+    @Test
+    void streamsNoLargerThanTheMinimumAreOneChunk() throws IOException {
+        assertThat(split(new ByteArrayInputStream(random(AVG / 4, 6)))).hasSize(1);
+        assertThat(split(new ByteArrayInputStream(new byte[0]))).isEmpty();
+    }
+
+    private List<byte[]> split(InputStream in) throws IOException {
+        List<byte[]> chunks = new ArrayList<>();
+        chunker.split(in, (data, offset, length) -> {
+            byte[] chunk = new byte[length];
+            System.arraycopy(data, offset, chunk, 0, length);
+            chunks.add(chunk);
+        });
+        return chunks;
+    }
+
+    private static List<String> digests(List<byte[]> chunks) {
+        try {
+            List<String> digests = new ArrayList<>(chunks.size());
+            for (byte[] chunk : chunks) {
+                digests.add(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(chunk)));
+            }
+            return digests;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] random(int size, long seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    // Returns at most maxRead bytes per read call
+    private static final class ShortReads extends FilterInputStream {
+        private final int maxRead;
+
+        private ShortReads(InputStream in, int maxRead) {
+            super(in);
+            this.maxRead = maxRead;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, maxRead));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.saas.platform.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileRangeSenderTest {
+
+    @Test
+    void closedRangeIsInclusive() {
+        assertThat(FileRangeSender.parseRange("bytes=0-99", 1000)).containsExactly(0, 99);
+        assertThat(FileRangeSender.parseRange("bytes=500-500", 1000)).containsExactly(500, 500);
+    }
+
+    @Test
+    void openRangeRunsToTheEnd() {
+        assertThat(FileRangeSender.parseRange("bytes=900-", 1000)).containsExactly(900, 999);
+    }
+
+    @Test
+    void endPastTheFileIsClamped() {
+        assertThat(FileRangeSender.parseRange("bytes=900-5000", 1000)).containsExactly(900, 999);
+    }
+
+    @Test
+    void suffixRangeServesTheLastBytes() {
+        assertThat(FileRangeSender.parseRange("bytes=-100", 1000)).containsExactly(900, 999);
+        assertThat(FileRangeSender.parseRange("bytes=-5000", 1000)).containsExactly(0, 999);
+    }
+
+    @Test
+    void startBeyondTheFileIsUnsatisfiable() {
+        assertThat(FileRangeSender.parseRange("bytes=1000-", 1000)).isEmpty();
+        assertThat(FileRangeSender.parseRange("bytes=-0", 1000)).isEmpty();
+        assertThat(FileRangeSender.parseRange("bytes=-10", 0)).isEmpty();
+    }
+
+    @Test
+    void unsupportedOrMalformedRangesServeTheWholeFile() {
+        assertThat(FileRangeSender.parseRange("items=0-10", 1000)).isNull();
+        assertThat(FileRangeSender.parseRange("bytes=0-10,20-30", 1000)).isNull();
+        assertThat(FileRangeSender.parseRange("bytes=10", 1000)).isNull();
+        assertThat(FileRangeSender.parseRange("bytes=abc-def", 1000)).isNull();
+        assertThat(FileRangeSender.parseRange("bytes=50-10", 1000)).isNull();
+    }
+
+    @Test
+    void gzipIsAcceptedWhenListedOrCoveredByWildcard() {
+        assertThat(FileRangeSender.acceptsEncoding("gzip, deflate, br", "gzip")).isTrue();
+        assertThat(FileRangeSender.acceptsEncoding("GZIP", "gzip")).isTrue();
+        assertThat(FileRangeSender.acceptsEncoding("x-gzip", "gzip")).isTrue();
+        assertThat(FileRangeSender.acceptsEncoding("br;q=1.0, *;q=0.1", "gzip")).isTrue();
+    }
+
+    @Test
+    void gzipIsRefusedWhenMissingOrWeightedZero() {
+        assertThat(FileRangeSender.acceptsEncoding(null, "gzip")).isFalse();
+        assertThat(FileRangeSender.acceptsEncoding("", "gzip")).isFalse();
+        assertThat(FileRangeSender.acceptsEncoding("identity", "gzip")).isFalse();
+        assertThat(FileRangeSender.acceptsEncoding("deflate, br", "gzip")).isFalse();
+        assertThat(FileRangeSender.acceptsEncoding("gzip;q=0", "gzip")).isFalse();
+        assertThat(FileRangeSender.acceptsEncoding("gzip; q=0.0, deflate", "gzip")).isFalse();
+        assertThat(FileRangeSender.acceptsEncoding("gzip;q=abc", "gzip")).isFalse();
+    }
+
+    @Test
+    void explicitEntryWinsOverWildcard() {
+        assertThat(FileRangeSender.acceptsEncoding("*, gzip;q=0", "gzip")).isFalse();
+        assertThat(FileRangeSender.acceptsEncoding("*;q=0, gzip", "gzip")).isTrue();
+    }
+}
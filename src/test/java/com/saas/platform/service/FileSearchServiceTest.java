@@ -0,0 +1,210 @@
+package com.saas.platform.service;
+
+import com.saas.platform.repository.FileSearchTermRepository;
+import com.saas.platform.repository.FileStorageRepository;
+import com.saas.platform.repository.FileTagRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FileSearchServiceTest {
+
+    private static final Long TENANT = 3L;
+
+    private FileSearchTermRepository termRepository;
+    private FileSearchService service;
+
+    @BeforeEach
+    void setUp() {
+        termRepository = mock(FileSearchTermRepository.class);
+        when(termRepository.searchFileIds(anyLong(), any(), anyString(), anyInt(), anyInt(), anyInt()))
+            .thenReturn(List.of());
+        service = new FileSearchService(mock(FileStorageRepository.class), termRepository,
+            mock(FileTagRepository.class), mock(TransactionTemplate.class), 100, 2, 5000, 500);
+    }
+
+    // tokenize
+
+    @Test
+    void tokenizeLowerCasesAndSplitsOnNonAlphanumerics() {
+        assertThat(FileSearchService.tokenize("Q3_Annual-Report (FINAL).pdf", 50))
+            .containsExactly("q3", "annual", "report", "final", "pdf");
+    }
+
+    @Test
+    void tokenizeKeepsFirstOccurrenceOrderWithoutDuplicates() {
+        assertThat(FileSearchService.tokenize("report draft REPORT v2 draft", 50))
+            .containsExactly("report", "draft", "v2");
+    }
+
+    @Test
+    void tokenizeKeepsNonLatinLetters() {
+        assertThat(FileSearchService.tokenize("Überblick café 東京", 50))
+            .containsExactly("überblick", "café", "東京");
+    }
+
+    @Test
+    void tokenizeStopsAtMaxTermsAndTruncatesLongWords() {
+        assertThat(FileSearchService.tokenize("a b c d e", 3)).containsExactly("a", "b", "c");
+        assertThat(FileSearchService.tokenize("x".repeat(100), 5)).containsExactly("x".repeat(64));
+    }
+
+    @Test
+    void tokenizeOfBlankTextIsEmpty() {
+        assertThat(FileSearchService.tokenize(null, 5)).isEmpty();
+        assertThat(FileSearchService.tokenize("  -- ", 5)).isEmpty();
+    }
+
+    // search arguments
+
+    @Test
+    void wordBeingTypedBecomesAPrefixTerm() {
+        Query query = search("annual rep");
+
+        assertThat(query.terms).containsExactly("annual");
+        assertThat(query.like).isEqualTo("rep%");
+        assertThat(query.required).isEqualTo(2);
+    }
+
+    @Test
+    void finishedWordsAreAllExact() {
+        Query query = search("annual report ");
+
+        assertThat(query.terms).containsExactly("annual", "report");
+        assertThat(query.like).isEqualTo("annual");
+        assertThat(query.required).isEqualTo(2);
+    }
+
+    @Test
+    void prefixShorterThanMinimumIsMatchedExactly() {
+        Query query = search("annual r");
+
+        assertThat(query.terms).containsExactly("annual", "r");
+        assertThat(query.required).isEqualTo(2);
+    }
+
+    @Test
+    void prefixAlreadyCoveredByAnExactWordIsDropped() {
+        Query query = search("report rep");
+
+        assertThat(query.terms).containsExactly("report");
+        assertThat(query.like).isEqualTo("report");
+        assertThat(query.required).isEqualTo(1);
+    }
+
+    @Test
+    void singlePrefixSearchesWithAnEmptyExactList() {
+        Query query = search("rep");
+
+        assertThat(query.terms).containsExactly("");
+        assertThat(query.like).isEqualTo("rep%");
+        assertThat(query.required).isEqualTo(1);
+    }
+
+    @Test
+    void blankQueryDoesNotHitTheIndex() {
+        assertThat(service.search(TENANT, " - ", 0, 20)).isEmpty();
+        verify(termRepository, never()).searchFileIds(anyLong(), any(), anyString(), anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    void pageSizeIsClampedAndOffsetFollowsThePage() {
+        service.search(TENANT, "annual ", 2, 500);
+
+        verify(termRepository).searchFileIds(eq(TENANT), any(), anyString(), anyInt(), eq(100), eq(200));
+    }
+
+    // HAVING rule applied to those arguments
+
+    @Test
+    void fileMustHoldEveryExactTermAndSomePrefixMatch() {
+        Query query = search("annual rep");
+
+        Map<Long, Set<String>> postings = new LinkedHashMap<>();
+        postings.put(1L, Set.of("annual", "report"));
+        postings.put(2L, Set.of("annual", "report", "reports", "repo")); // several prefix hits count once
+        postings.put(3L, Set.of("annual"));
+        postings.put(4L, Set.of("report", "reports"));
+        postings.put(5L, Set.of("annual", "summary"));
+
+        assertThat(query.matching(postings)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void withoutAPrefixOnlyExactTermsCount() {
+        Query query = search("annual report ");
+
+        Map<Long, Set<String>> postings = new LinkedHashMap<>();
+        postings.put(1L, Set.of("annual", "report"));
+        postings.put(2L, Set.of("annual", "reports"));
+        postings.put(3L, Set.of("annually", "report"));
+
+        assertThat(query.matching(postings)).containsExactly(1L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Query search(String text) {
+        service.search(TENANT, text, 0, 20);
+
+        ArgumentCaptor<Collection<String>> terms = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<String> like = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Integer> required = ArgumentCaptor.forClass(Integer.class);
+        verify(termRepository).searchFileIds(eq(TENANT), terms.capture(), like.capture(), required.capture(),
+            anyInt(), anyInt());
+        return new Query(new ArrayList<>(terms.getValue()), like.getValue(), required.getValue());
+    }
+
+    // The arguments of one searchFileIds call, with its WHERE/HAVING evaluated in memory
+    private static final class Query {
+        private final List<String> terms;
+        private final String like;
+        private final int required;
+
+        private Query(List<String> terms, String like, int required) {
+            this.terms = terms;
+            this.like = like;
+            this.required = required;
+        }
+
+        private List<Long> matching(Map<Long, Set<String>> postings) {
+            List<Long> ids = new ArrayList<>();
+            postings.forEach((fileId, fileTerms) -> {
+                Set<String> counted = new HashSet<>();
+                for (String term : fileTerms) {
+                    if (terms.contains(term) || likeMatches(term)) {
+                        counted.add(terms.contains(term) ? term : "");
+                    }
+                }
+                if (counted.size() == required) {
+                    ids.add(fileId);
+                }
+            });
+            return ids;
+        }
+
+        // Index terms only hold letters and digits, so '%' is the only wildcard in play
+        private boolean likeMatches(String term) {
+            return like.endsWith("%") ? term.startsWith(like.substring(0, like.length() - 1)) : term.equals(like);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.saas.platform.service;
+
+import com.saas.platform.service.WebhookCircuitBreaker.CircuitState;
+import com.saas.platform.service.WebhookCircuitBreaker.Permit;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebhookCircuitBreakerTest {
+
+    private static final Long WEBHOOK = 7L;
+    private static final long OPEN_MS = 30_000L;
+
+    // 60s window in 6 buckets, trips at >= 50% failures over at least 4 requests
+    private final WebhookCircuitBreaker breaker = new WebhookCircuitBreaker(60, 6, 4, 50, 30, 900);
+
+    private long now = 1_000_000L;
+
+    @Test
+    void unknownWebhookIsClosedAndAllowed() {
+        assertThat(breaker.acquirePermission(WEBHOOK, now).isGranted()).isTrue();
+        assertThat(state()).isEqualTo(CircuitState.CLOSED);
+    }
+
+    @Test
+    void staysClosedBelowMinimumRequests() {
+        fail(3);
+
+        assertThat(state()).isEqualTo(CircuitState.CLOSED);
+        assertThat(breaker.acquirePermission(WEBHOOK, now).isGranted()).isTrue();
+    }
+
+    @Test
+    void tripsOpenAtFailureRateAndRefusesUntilOpenPeriodEnds() {
+        succeed(2);
+        fail(2);
+
+        assertThat(state()).isEqualTo(CircuitState.OPEN);
+        Permit denied = breaker.acquirePermission(WEBHOOK, now + 1_000);
+        assertThat(denied.isGranted()).isFalse();
+        assertThat(denied.getWaitMs()).isEqualTo(OPEN_MS - 1_000);
+    }
+
+    @Test
+    void failuresOutsideTheWindowDoNotCount() {
+        fail(3);
+        now += 120_000L;
+        fail(1);
+        succeed(1);
+
+        assertThat(state()).isEqualTo(CircuitState.CLOSED);
+    }
+
+    @Test
+    void successfulTrialClosesTheCircuit() {
+        tripOpen();
+        now += OPEN_MS;
+
+        Permit trial = breaker.acquirePermission(WEBHOOK, now);
+        assertThat(trial.isGranted()).isTrue();
+        assertThat(trial.isTrial()).isTrue();
+        assertThat(state()).isEqualTo(CircuitState.HALF_OPEN);
+
+        // Only one trial at a time
+        assertThat(breaker.acquirePermission(WEBHOOK, now + 10).isGranted()).isFalse();
+
+        breaker.recordResult(WEBHOOK, trial, true, now + 20);
+        assertThat(state()).isEqualTo(CircuitState.CLOSED);
+        assertThat(breaker.getHealth(WEBHOOK, now + 20).getUnhealthySince()).isNull();
+    }
+
+    @Test
+    void failedTrialReopensForLonger() {
+        tripOpen();
+        now += OPEN_MS;
+
+        Permit trial = breaker.acquirePermission(WEBHOOK, now);
+        breaker.recordResult(WEBHOOK, trial, false, now);
+
+        assertThat(state()).isEqualTo(CircuitState.OPEN);
+        assertThat(breaker.acquirePermission(WEBHOOK, now + OPEN_MS).isGranted()).isFalse();
+        assertThat(breaker.acquirePermission(WEBHOOK, now + 2 * OPEN_MS).isTrial()).isTrue();
+    }
+
+    @Test
+    void lateResultsDoNotDecideTheTrial() {
+        Permit early = breaker.acquirePermission(WEBHOOK, now);
+        tripOpen();
+        now += OPEN_MS;
+        Permit trial = breaker.acquirePermission(WEBHOOK, now);
+
+        // An attempt started before the trip answers while the trial is running
+        breaker.recordResult(WEBHOOK, early, true, now + 5);
+        assertThat(state()).isEqualTo(CircuitState.HALF_OPEN);
+        breaker.recordResult(WEBHOOK, early, false, now + 6);
+        assertThat(state()).isEqualTo(CircuitState.HALF_OPEN);
+
+        breaker.recordResult(WEBHOOK, trial, true, now + 10);
+        assertThat(state()).isEqualTo(CircuitState.CLOSED);
+    }
+
+    @Test
+    void resultOfAReplacedTrialIsIgnored() {
+        tripOpen();
+        now += OPEN_MS;
+        Permit lost = breaker.acquirePermission(WEBHOOK, now);
+
+        // The first trial never answers and is replaced after the open period
+        now += OPEN_MS;
+        Permit replacement = breaker.acquirePermission(WEBHOOK, now);
+        assertThat(replacement.isTrial()).isTrue();
+
+        breaker.recordResult(WEBHOOK, lost, false, now + 1);
+        assertThat(state()).isEqualTo(CircuitState.HALF_OPEN);
+
+        breaker.recordResult(WEBHOOK, replacement, true, now + 2);
+        assertThat(state()).isEqualTo(CircuitState.CLOSED);
+    }
+
+    @Test
+    void releasedTrialCanBeRetriedAtOnce() {
+        tripOpen();
+        now += OPEN_MS;
+        Permit trial = breaker.acquirePermission(WEBHOOK, now);
+
+        breaker.releasePermission(WEBHOOK, trial);
+
+        assertThat(state()).isEqualTo(CircuitState.HALF_OPEN);
+        Permit retry = breaker.acquirePermission(WEBHOOK, now + 1);
+        assertThat(retry.isTrial()).isTrue();
+
+        // The released trial no longer counts
+        breaker.recordResult(WEBHOOK, trial, true, now + 2);
+        assertThat(state()).isEqualTo(CircuitState.HALF_OPEN);
+    }
+
+    @Test
+    void resetForgetsTheCircuit() {
+        tripOpen();
+
+        breaker.reset(WEBHOOK);
+
+        assertThat(state()).isEqualTo(CircuitState.CLOSED);
+        assertThat(breaker.acquirePermission(WEBHOOK, now).isGranted()).isTrue();
+    }
+
+    private void tripOpen() {
+        fail(4);
+        assertThat(state()).isEqualTo(CircuitState.OPEN);
+    }
+
+    private void succeed(int times) {
+        record(times, true);
+    }
+
+    private void fail(int times) {
+        record(times, false);
+    }
+
+    private void record(int times, boolean success) {
+        for (int i = 0; i < times; i++) {
+            breaker.recordResult(WEBHOOK, breaker.acquirePermission(WEBHOOK, now), success, now);
+        }
+    }
+
+    private CircuitState state() {
+        return breaker.getHealth(WEBHOOK, now).getState();
+    }
+}
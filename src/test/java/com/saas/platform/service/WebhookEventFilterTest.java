@@ -0,0 +1,73 @@
+package com.saas.platform.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WebhookEventFilterTest {
+
+    @Test
+    void exactEntriesDoNotMatchLongerNames() {
+        WebhookEventFilter filter = WebhookEventFilter.compile("user.created, user.updated");
+
+        assertThat(filter.matches("user.created")).isTrue();
+        assertThat(filter.matches("user.updated")).isTrue();
+        assertThat(filter.matches("user.created_v2")).isFalse();
+        assertThat(filter.matches("user")).isFalse();
+        assertThat(filter.isMatchAll()).isFalse();
+    }
+
+    @Test
+    void prefixWildcardMatchesEventsUnderThePrefixOnly() {
+        WebhookEventFilter filter = WebhookEventFilter.compile("subscription.*");
+
+        assertThat(filter.getPrefixes()).containsExactly("subscription.");
+        assertThat(filter.matches("subscription.renewed")).isTrue();
+        assertThat(filter.matches("subscription.plan.changed")).isTrue();
+        assertThat(filter.matches("subscription")).isFalse();
+        assertThat(filter.matches("subscriptions.renewed")).isFalse();
+    }
+
+    @Test
+    void starMatchesEverything() {
+        WebhookEventFilter filter = WebhookEventFilter.compile("user.created,*");
+
+        assertThat(filter.isMatchAll()).isTrue();
+        assertThat(filter.matches("anything.at.all")).isTrue();
+        assertThat(filter.matches(null)).isFalse();
+    }
+
+    @Test
+    void blankAndMissingListsMatchNothing() {
+        assertThat(WebhookEventFilter.compile(null).matches("user.created")).isFalse();
+        assertThat(WebhookEventFilter.compile(" , ,").matches("user.created")).isFalse();
+    }
+
+    @Test
+    void malformedWildcardsAreKeptAsLiteralsWhenCompiling() {
+        WebhookEventFilter filter = WebhookEventFilter.compile("user*, .*, user.*.created");
+
+        assertThat(filter.getPrefixes()).isEmpty();
+        assertThat(filter.getExactEvents()).containsExactly("user*", ".*", "user.*.created");
+        assertThat(filter.matches("user.x.created")).isFalse();
+    }
+
+    @Test
+    void validateAcceptsSupportedPatterns() {
+        assertThatCode(() -> WebhookEventFilter.validate("user.created, subscription.*, *"))
+            .doesNotThrowAnyException();
+    }
+
+    @Test
+    void validateRejectsEmptyListsAndMalformedWildcards() {
+        assertThatThrownBy(() -> WebhookEventFilter.validate(" "))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> WebhookEventFilter.validate("user.created, user*"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("user*");
+        assertThatThrownBy(() -> WebhookEventFilter.validate("user.*.created"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
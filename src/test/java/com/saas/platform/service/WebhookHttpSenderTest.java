@@ -0,0 +1,278 @@
+package com.saas.platform.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.saas.platform.model.Webhook;
+import com.saas.platform.service.WebhookDeliveryEngine.DeliveryJob;
+import com.saas.platform.service.WebhookDeliveryEngine.DeliveryListener;
+import com.saas.platform.service.WebhookDeliveryEngine.DeliveryResult;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebhookHttpSenderTest {
+
+    private static final String SECRET = "test-secret";
+    private static final byte[] BODY = "{\"id\":\"evt-1\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final ExecutorService serverThreads = Executors.newCachedThreadPool();
+    private HttpServer server;
+    private HttpClient client;
+    private final Map<String, Received> received = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+        server.setExecutor(serverThreads);
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void signedEventIsDelivered() {
+        respond("/ok", 204, null);
+
+        DeliveryResult result = sender(10).send(event("/ok")).join();
+
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.getStatusCode()).isEqualTo(204);
+
+        Received request = received.get("/ok");
+        assertThat(request.body).isEqualTo(BODY);
+        assertThat(request.header("X-Webhook-Event-ID")).isEqualTo("evt-1");
+        long timestamp = Long.parseLong(request.header(WebhookHttpSender.TIMESTAMP_HEADER));
+        assertThat(request.header(WebhookHttpSender.SIGNATURE_HEADER))
+            .isEqualTo(WebhookSigner.sign(WebhookSigner.key(SECRET), timestamp, BODY));
+    }
+
+    @Test
+    void errorStatusIsAFailureWithThatStatus() {
+        respond("/broken", 503, null);
+
+        DeliveryResult result = sender(10).send(event("/broken")).join();
+
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(result.isRejectedLocally()).isFalse();
+        assertThat(result.getStatusCode()).isEqualTo(503);
+    }
+
+    @Test
+    void batchReportingFailedItemsIsAPartialSuccess() throws IOException {
+        respond("/batch", 200, "{\"failed\": [\"evt-2\", \"evt-3\"]}");
+
+        DeliveryResult result = sender(10).send(batch("/batch")).join();
+
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.getRejectedEventIds()).containsExactlyInAnyOrder("evt-2", "evt-3");
+
+        // Sent compressed, signed over the uncompressed array
+        Received request = received.get("/batch");
+        assertThat(request.header("Content-Encoding")).isEqualTo("gzip");
+        assertThat(request.header(WebhookHttpSender.BATCH_ID_HEADER)).isEqualTo("batch-1");
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(request.body))) {
+            assertThat(in.readAllBytes()).isEqualTo(BODY);
+        }
+    }
+
+    @Test
+    void batchWithUnreadableResponseBodyCountsAsAccepted() {
+        respond("/batch-text", 200, "thanks");
+
+        DeliveryResult result = sender(10).send(batch("/batch-text")).join();
+
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.getRejectedEventIds()).isEmpty();
+    }
+
+    @Test
+    void requestBeyondLocalInFlightCapIsRejectedLocally() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        server.createContext("/slow", exchange -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            reply(exchange, 200, null);
+        });
+        WebhookHttpSender sender = sender(1);
+
+        CompletableFuture<DeliveryResult> first = sender.send(event("/slow"));
+        DeliveryResult second = sender.send(event("/slow")).join();
+
+        assertThat(second.isRejectedLocally()).isTrue();
+        assertThat(second.isSuccess()).isFalse();
+        assertThat(second.getStatusCode()).isZero();
+
+        release.countDown();
+        assertThat(first.get(10, TimeUnit.SECONDS).isSuccess()).isTrue();
+
+        // The slot is returned once the first request completes
+        respond("/ok", 200, null);
+        assertThat(sender.send(event("/ok")).join().isSuccess()).isTrue();
+    }
+
+    @Test
+    void twoClientThreadsHoldThousandsOfDeliveriesInFlight() throws Exception {
+        int deliveries = 2000;
+        AtomicInteger arrived = new AtomicInteger();
+        CountDownLatch allArrived = new CountDownLatch(deliveries);
+        CountDownLatch release = new CountDownLatch(1);
+        server.createContext("/parked", exchange -> {
+            arrived.incrementAndGet();
+            allArrived.countDown();
+            try {
+                release.await(60, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            reply(exchange, 204, null);
+        });
+
+        ExecutorService clientThreads = Executors.newFixedThreadPool(2);
+        try {
+            HttpClient twoThreads = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientThreads)
+                .build();
+            WebhookHttpSender sender = new WebhookHttpSender(twoThreads, new ObjectMapper(), deliveries);
+
+            List<CompletableFuture<DeliveryResult>> results = new ArrayList<>(deliveries);
+            for (int i = 0; i < deliveries; i++) {
+                results.add(sender.send(event(endpoint("/parked", 60))));
+            }
+
+            // Every request is held by the receiver at the same time
+            assertThat(allArrived.await(30, TimeUnit.SECONDS)).isTrue();
+            assertThat(arrived.get()).isEqualTo(deliveries);
+            assertThat(results).noneMatch(CompletableFuture::isDone);
+
+            release.countDown();
+            CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+            assertThat(results).allSatisfy(result -> assertThat(result.join().isSuccess()).isTrue());
+        } finally {
+            release.countDown();
+            clientThreads.shutdownNow();
+        }
+    }
+
+    @Test
+    void unreachableReceiverIsARemoteFailure() {
+        server.stop(0);
+
+        DeliveryResult result = sender(10).send(event("/gone")).join();
+
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(result.isRejectedLocally()).isFalse();
+    }
+
+    private WebhookHttpSender sender(int maxInFlight) {
+        return new WebhookHttpSender(client, new ObjectMapper(), maxInFlight);
+    }
+
+    private WebhookEndpoint endpoint(String path) {
+        return endpoint(path, 5);
+    }
+
+    private WebhookEndpoint endpoint(String path, int timeoutSeconds) {
+        Webhook webhook = new Webhook(1L, "test", "http://127.0.0.1:" + server.getAddress().getPort() + path, "*");
+        webhook.setId(42L);
+        webhook.setSecretKey(SECRET);
+        webhook.setTimeoutSeconds(timeoutSeconds);
+        return WebhookEndpoint.from(webhook);
+    }
+
+    private DeliveryJob event(String path) {
+        return event(endpoint(path));
+    }
+
+    private DeliveryJob event(WebhookEndpoint endpoint) {
+        return new DeliveryJob(endpoint, "evt-1", "file.uploaded", LocalDateTime.now(), BODY, NO_LISTENER);
+    }
+
+    private DeliveryJob batch(String path) {
+        return DeliveryJob.batch(endpoint(path), "batch-1", LocalDateTime.now(), BODY, gzip(BODY), 3, NO_LISTENER);
+    }
+
+    private void respond(String path, int status, String body) {
+        server.createContext(path, exchange -> reply(exchange, status, body));
+    }
+
+    private void reply(HttpExchange exchange, int status, String body) throws IOException {
+        received.put(exchange.getRequestURI().getPath(),
+            new Received(exchange.getRequestHeaders(), exchange.getRequestBody().readAllBytes()));
+        byte[] bytes = body != null ? body.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        exchange.sendResponseHeaders(status, bytes.length > 0 ? bytes.length : -1);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+        exchange.close();
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(data);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static final DeliveryListener NO_LISTENER = new DeliveryListener() {
+        @Override
+        public void onDelivered(DeliveryJob job, DeliveryResult result) {
+        }
+
+        @Override
+        public void onFailed(DeliveryJob job, DeliveryResult result) {
+        }
+    };
+
+    private static final class Received {
+        private final Headers headers;
+        private final byte[] body;
+
+        private Received(Headers headers, byte[] body) {
+            this.headers = headers;
+            this.body = body;
+        }
+
+        private String header(String name) {
+            return headers.getFirst(name);
+        }
+    }
+}